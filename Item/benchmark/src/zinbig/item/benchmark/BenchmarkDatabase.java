@@ -0,0 +1,335 @@
+/**
+ * Este paquete contiene los benchmarks de los servicios de la aplicacin. Los
+ * benchmarks se ejecutan con JMH sobre una base de datos embebida, de modo de
+ * poder medir los cambios de performance sin depender de una instalacin de
+ * MySQL.
+ */
+package zinbig.item.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.orm.hibernate3.LocalSessionFactoryBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import zinbig.item.model.ItemStateEnum;
+import zinbig.item.model.ItemType;
+import zinbig.item.model.Tracker;
+import zinbig.item.model.projects.Priority;
+import zinbig.item.model.projects.PrioritySet;
+import zinbig.item.model.projects.Project;
+import zinbig.item.model.users.User;
+import zinbig.item.model.workflow.WorkflowDescription;
+import zinbig.item.model.workflow.WorkflowLinkDescription;
+import zinbig.item.model.workflow.WorkflowNodeDescription;
+import zinbig.item.util.IDGenerationStrategy;
+import zinbig.item.util.IDGenerator;
+import zinbig.item.util.persistence.ItemNumberAllocator;
+import zinbig.item.util.security.EncryptionStrategy;
+
+/**
+ * Las instancias de esta clase representan una base de datos embebida cargada
+ * con datos sintticos para ejecutar los benchmarks. <br>
+ * Se levanta el mismo contexto de Spring que utiliza la aplicacin, pero la
+ * conexin se redefine en el archivo benchmarkContext.xml para utilizar una
+ * base de datos HSQLDB en memoria en lugar de MySQL. El esquema se crea a
+ * partir de los mapeos de Hibernate y luego se cargan las cantidades
+ * indicadas de proyectos, usuarios, tems y nodos de workflow.<br>
+ * Todos los usuarios creados tienen la clave PASSWORD y sus nombres de usuario
+ * se obtienen con el mtodo getUsername.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class BenchmarkDatabase {
+
+	/**
+	 * Es la clave de todos los usuarios creados.
+	 */
+	public static final String PASSWORD = "benchmark";
+
+	/**
+	 * Es la cantidad de tems que se graban antes de vaciar la sesin de
+	 * Hibernate.
+	 */
+	private static final int BATCH_SIZE = 500;
+
+	/**
+	 * Es el contexto de Spring de la aplicacin.
+	 */
+	protected ClassPathXmlApplicationContext applicationContext;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param projectsCount
+	 *            es la cantidad de proyectos a crear.
+	 * @param usersCount
+	 *            es la cantidad de usuarios a crear.
+	 * @param itemsCount
+	 *            es la cantidad total de tems a crear, distribuidos entre
+	 *            todos los proyectos.
+	 * @param nodesCount
+	 *            es la cantidad de nodos de workflow, adems del nodo inicial.
+	 */
+	public BenchmarkDatabase(final int projectsCount, final int usersCount,
+			final int itemsCount, final int nodesCount) {
+		this(projectsCount, usersCount, itemsCount, nodesCount, null);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param projectsCount
+	 *            es la cantidad de proyectos a crear.
+	 * @param usersCount
+	 *            es la cantidad de usuarios a crear.
+	 * @param itemsCount
+	 *            es la cantidad total de tems a crear, distribuidos entre
+	 *            todos los proyectos.
+	 * @param nodesCount
+	 *            es la cantidad de nodos de workflow, adems del nodo inicial.
+	 * @param aStrategy
+	 *            es la estrategia de generacin de identificadores que se
+	 *            utiliza en lugar de la configurada en el contexto de Spring,
+	 *            o null para utilizar la configurada.
+	 */
+	public BenchmarkDatabase(final int projectsCount, final int usersCount,
+			final int itemsCount, final int nodesCount,
+			IDGenerationStrategy aStrategy) {
+
+		this.applicationContext = new ClassPathXmlApplicationContext(
+				new String[] { "applicationContext.xml",
+						"benchmarkContext.xml" });
+		if (aStrategy != null) {
+			IDGenerator.configure(aStrategy);
+		}
+
+		// crea el esquema a partir de los mapeos de hibernate.
+		((LocalSessionFactoryBean) this.applicationContext
+				.getBean("&sessionFactory")).createDatabaseSchema();
+		// la tabla de secuencias de nmeros de tems recin ahora existe.
+		((ItemNumberAllocator) this.applicationContext
+				.getBean("itemNumberAllocator")).start();
+
+		TransactionTemplate template = new TransactionTemplate(
+				(PlatformTransactionManager) this.applicationContext
+						.getBean("transactionManager"));
+		template.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				try {
+					populate(projectsCount, usersCount, itemsCount, nodesCount);
+				} catch (CloneNotSupportedException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Carga los datos sintticos en la base de datos.
+	 * 
+	 * @param projectsCount
+	 *            es la cantidad de proyectos a crear.
+	 * @param usersCount
+	 *            es la cantidad de usuarios a crear.
+	 * @param itemsCount
+	 *            es la cantidad total de tems a crear.
+	 * @param nodesCount
+	 *            es la cantidad de nodos de workflow, adems del nodo inicial.
+	 * @throws CloneNotSupportedException
+	 *             esta excepcin se levanta si no se puede copiar alguno de
+	 *             los objetos asociados a los proyectos.
+	 */
+	private void populate(int projectsCount, int usersCount, int itemsCount,
+			int nodesCount) throws CloneNotSupportedException {
+
+		Session session = this.getSessionFactory().getCurrentSession();
+		EncryptionStrategy encryptionStrategy = (EncryptionStrategy) this.applicationContext
+				.getBean("encryptionStrategy");
+		String encryptedPassword = encryptionStrategy.encrypt(PASSWORD);
+
+		Tracker aTracker = new Tracker();
+		aTracker.setOid("1");
+
+		// usuarios. el primero es adems el administrador.
+		List<User> users = new ArrayList<User>();
+		for (int i = 0; i < usersCount; i++) {
+			User anUser = new User("Nombre " + i, getUsername(i),
+					encryptedPassword, "C", getUsername(i) + "@item.local",
+					new Date(), "es", "Apellido " + i, true);
+			users.add(anUser);
+			aTracker.getUsers().add(anUser);
+		}
+		aTracker.setAdministrator(users.get(0));
+
+		// conjunto de prioridades.
+		PrioritySet aPrioritySet = new PrioritySet("Prioridades", true);
+		for (int i = 1; i <= 3; i++) {
+			aPrioritySet.addPriority(new Priority("Prioridad " + i, String
+					.valueOf(i)));
+		}
+		aTracker.getPrioritySets().add(aPrioritySet);
+
+		// tipos de tems.
+		List<ItemType> itemTypes = new ArrayList<ItemType>();
+		itemTypes.add(new ItemType("Error"));
+		itemTypes.add(new ItemType("Mejora"));
+		itemTypes.add(new ItemType("Tarea"));
+		aTracker.getItemTypes().addAll(itemTypes);
+
+		// workflow lineal con el nodo inicial ms la cantidad de nodos pedida.
+		WorkflowDescription aWorkflowDescription = this
+				.createWorkflowDescription(nodesCount, itemTypes);
+		aTracker.getWorkflowDescriptions().add(aWorkflowDescription);
+
+		session.save(aTracker);
+
+		// proyectos, con copias del conjunto de prioridades, del workflow y de
+		// los tipos de tems tal como lo hace el servicio de alta de proyectos.
+		List<Project> projects = new ArrayList<Project>();
+		for (int i = 0; i < projectsCount; i++) {
+			Collection<ItemType> projectItemTypes = new ArrayList<ItemType>();
+			for (ItemType anItemType : itemTypes) {
+				projectItemTypes.add((ItemType) anItemType.clone());
+			}
+			PrioritySet projectPrioritySet = (PrioritySet) aPrioritySet.clone();
+			Project aProject = new Project("Proyecto " + i, "P" + i,
+					new Date(), i % 2 == 0, "", projectPrioritySet,
+					(WorkflowDescription) aWorkflowDescription.clone(),
+					"zinbig.item.model.projects.ProjectLeaderAssignmentStrategy",
+					users.get(i % users.size()), projectItemTypes);
+			projectPrioritySet.increaseReferencesCount();
+			aTracker.getProjects().add(aProject);
+			projects.add(aProject);
+		}
+		session.flush();
+
+		// tems, alternando entre creados y abiertos.
+		for (int i = 0; i < itemsCount; i++) {
+			Project aProject = projects.get(i % projects.size());
+			User anUser = users.get(i % users.size());
+			Priority aPriority = this.getElement(aProject.getPrioritySet()
+					.getPriorities(), i);
+			ItemType anItemType = this
+					.getElement(aProject.getItemTypes(), i);
+			ItemStateEnum aState = i % 2 == 0 ? ItemStateEnum.OPEN
+					: ItemStateEnum.CREATED;
+
+			session.save(aProject.createItem(anUser, "tem " + i,
+					"Descripcin del tem " + i + " para el benchmark",
+					aPriority, aState, new Date(), anUser, anItemType,
+					new HashMap<String, String>()));
+
+			if ((i + 1) % BATCH_SIZE == 0) {
+				session.flush();
+			}
+		}
+		session.flush();
+	}
+
+	/**
+	 * Crea la descripcin del workflow que utilizan todos los proyectos.
+	 * 
+	 * @param nodesCount
+	 *            es la cantidad de nodos, adems del nodo inicial.
+	 * @param someItemTypes
+	 *            son los tipos de tems habilitados en cada enlace.
+	 * @return la descripcin del workflow.
+	 */
+	private WorkflowDescription createWorkflowDescription(int nodesCount,
+			Collection<ItemType> someItemTypes) {
+		WorkflowNodeDescription initialNode = new WorkflowNodeDescription(
+				"Nodo inicial", false, 0);
+		WorkflowDescription result = new WorkflowDescription("Workflow",
+				initialNode);
+		result.getWorkflowNodeDescriptions().add(initialNode);
+
+		WorkflowNodeDescription previousNode = initialNode;
+		for (int i = 1; i <= nodesCount; i++) {
+			WorkflowNodeDescription aNode = new WorkflowNodeDescription("Nodo "
+					+ i, i == nodesCount, 0);
+			result.getWorkflowNodeDescriptions().add(aNode);
+
+			WorkflowLinkDescription aLink = new WorkflowLinkDescription();
+			aLink.setTitle("Enlace " + i);
+			aLink.setInitialNodeDescription(previousNode);
+			aLink.setFinalNodeDescription(aNode);
+			aLink.setItemTypes(new ArrayList<ItemType>(someItemTypes));
+			previousNode.addWorkflowLinkDescription(aLink);
+			result.getWorkflowLinkDescriptions().add(aLink);
+
+			previousNode = aNode;
+		}
+		return result;
+	}
+
+	/**
+	 * Obtiene un elemento de una coleccin en forma circular.
+	 * 
+	 * @param aCollection
+	 *            es la coleccin.
+	 * @param anIndex
+	 *            es el ndice del elemento.
+	 * @return el elemento de la coleccin.
+	 */
+	private <T> T getElement(Collection<T> aCollection, int anIndex) {
+		Iterator<T> iterator = aCollection.iterator();
+		T result = iterator.next();
+		for (int i = 0; i < anIndex % aCollection.size(); i++) {
+			result = iterator.next();
+		}
+		return result;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @param anIndex
+	 *            es el nmero del usuario.
+	 * @return el nombre de usuario del usuario con el nmero dado.
+	 */
+	public static String getUsername(int anIndex) {
+		return "usuario" + anIndex;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @param aName
+	 *            es el nombre del bean.
+	 * @return el bean del contexto de Spring con el nombre dado.
+	 */
+	public Object getBean(String aName) {
+		return this.applicationContext.getBean(aName);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el session factory de Hibernate.
+	 */
+	public SessionFactory getSessionFactory() {
+		return (SessionFactory) this.applicationContext
+				.getBean("sessionFactory");
+	}
+
+	/**
+	 * Cierra el contexto de Spring liberando la base de datos embebida.
+	 */
+	public void close() {
+		this.applicationContext.close();
+	}
+
+}
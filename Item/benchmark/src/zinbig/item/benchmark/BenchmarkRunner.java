@@ -0,0 +1,53 @@
+/**
+ * Este paquete contiene los benchmarks de los servicios de la aplicacin. Los
+ * benchmarks se ejecutan con JMH sobre una base de datos embebida, de modo de
+ * poder medir los cambios de performance sin depender de una instalacin de
+ * MySQL.
+ */
+package zinbig.item.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Esta clase permite ejecutar todos los benchmarks de la aplicacin. <br>
+ * Cada benchmark se mide en modo throughput y en modo sample time, que informa
+ * los percentiles de latencia. El profiler de GC informa la tasa de
+ * asignacin de memoria de cada operacin.<br>
+ * Opcionalmente se puede recibir como argumento una expresin regular para
+ * ejecutar solamente algunos benchmarks, por ejemplo ItemsBenchmark.getItems.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * Ejecuta los benchmarks.
+	 * 
+	 * @param args
+	 *            puede contener la expresin regular de los benchmarks a
+	 *            ejecutar.
+	 * @throws RunnerException
+	 *             esta excepcin se levanta si falla la ejecucin.
+	 */
+	public static void main(String[] args) throws RunnerException {
+		String include = args.length > 0 ? args[0] : BenchmarkRunner.class
+				.getPackage().getName()
+				+ ".*";
+
+		Options options = new OptionsBuilder().include(include).mode(
+				Mode.Throughput).mode(Mode.SampleTime).timeUnit(
+				TimeUnit.MICROSECONDS).warmupIterations(5).measurementIterations(
+				10).forks(1).addProfiler(GCProfiler.class).build();
+
+		new Runner(options).run();
+	}
+
+}
@@ -0,0 +1,168 @@
+/**
+ * Este paquete contiene los benchmarks de los servicios de la aplicacin. Los
+ * benchmarks se ejecutan con JMH sobre una base de datos embebida, de modo de
+ * poder medir los cambios de performance sin depender de una instalacin de
+ * MySQL.
+ */
+package zinbig.item.benchmark;
+
+import java.util.Date;
+import java.util.HashMap;
+
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import zinbig.item.model.ItemStateEnum;
+import zinbig.item.model.projects.Project;
+import zinbig.item.model.users.User;
+import zinbig.item.util.IDGenerationStrategy;
+import zinbig.item.util.TimeOrderedIDGenerationStrategy;
+import zinbig.item.util.UUIDGenerationStrategy;
+
+/**
+ * Esta clase contiene los benchmarks de la generacin de identificadores: la
+ * generacin concurrente de identificadores y la insercin de tems sobre una
+ * tabla de tems grande. <br>
+ * El parmetro strategy indica la estrategia utilizada: uuid (identificadores
+ * aleatorios), hex (ordenados en el tiempo con el formato de 32 caracteres) o
+ * compact (ordenados en el tiempo con el formato de 13 caracteres). La
+ * diferencia en la insercin se aprecia principalmente sobre MySQL con InnoDB,
+ * para lo cual se debe modificar el archivo jdbc-benchmark.properties.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+@State(Scope.Benchmark)
+public class IDGenerationBenchmark {
+
+	/**
+	 * Es la cantidad de tems que se insertan en cada transaccin.
+	 */
+	private static final int BATCH_SIZE = 100;
+
+	/**
+	 * Es la estrategia de generacin de identificadores.
+	 */
+	@Param( { "uuid", "hex", "compact" })
+	public String strategy;
+
+	/**
+	 * Es la cantidad de tems con los que se carga la base de datos.
+	 */
+	@Param( { "100000" })
+	public int items;
+
+	/**
+	 * Es la base de datos embebida.
+	 */
+	protected BenchmarkDatabase database;
+
+	/**
+	 * Es la estrategia de generacin de identificadores.
+	 */
+	protected IDGenerationStrategy idGenerationStrategy;
+
+	/**
+	 * Es el objeto que ejecuta las inserciones dentro de una transaccin.
+	 */
+	protected TransactionTemplate transactionTemplate;
+
+	/**
+	 * Es el oid del proyecto en el que se insertan los tems.
+	 */
+	protected String projectOid;
+
+	/**
+	 * Es el oid del usuario que crea los tems.
+	 */
+	protected String userOid;
+
+	/**
+	 * Crea la estrategia y carga la base de datos utilizndola.
+	 */
+	@Setup
+	public void setUp() {
+		if ("uuid".equals(this.strategy)) {
+			this.idGenerationStrategy = new UUIDGenerationStrategy();
+		} else {
+			this.idGenerationStrategy = new TimeOrderedIDGenerationStrategy(0,
+					"compact".equals(this.strategy));
+		}
+
+		this.database = new BenchmarkDatabase(1, 1, this.items, 1,
+				this.idGenerationStrategy);
+		this.transactionTemplate = new TransactionTemplate(
+				(PlatformTransactionManager) this.database
+						.getBean("transactionManager"));
+
+		Session session = this.database.getSessionFactory().openSession();
+		try {
+			this.projectOid = (String) session.createQuery(
+					"select p.oid from Project p").setMaxResults(1)
+					.uniqueResult();
+			this.userOid = (String) session.createQuery(
+					"select u.oid from User u").setMaxResults(1)
+					.uniqueResult();
+		} finally {
+			session.close();
+		}
+	}
+
+	/**
+	 * Libera la base de datos.
+	 */
+	@TearDown
+	public void tearDown() {
+		this.database.close();
+	}
+
+	/**
+	 * Genera un identificador desde varios threads a la vez.
+	 * 
+	 * @return el identificador generado.
+	 */
+	@Benchmark
+	@Threads(4)
+	public String generateId() {
+		return this.idGenerationStrategy.generateId();
+	}
+
+	/**
+	 * Inserta un lote de tems en una transaccin.
+	 */
+	@Benchmark
+	public void insertItems() {
+		this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				Session session = database.getSessionFactory()
+						.getCurrentSession();
+				Project aProject = (Project) session.get(Project.class,
+						projectOid);
+				User anUser = (User) session.get(User.class, userOid);
+
+				for (int i = 0; i < BATCH_SIZE; i++) {
+					session.save(aProject.createItem(anUser, "tem insertado",
+							"Descripcin del tem insertado", aProject
+									.getPrioritySet().getPriorities()
+									.iterator().next(),
+							ItemStateEnum.CREATED, new Date(), anUser, aProject
+									.getItemTypes().iterator().next(),
+							new HashMap<String, String>()));
+				}
+				session.flush();
+			}
+		});
+	}
+
+}
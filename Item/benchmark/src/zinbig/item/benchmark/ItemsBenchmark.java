@@ -0,0 +1,272 @@
+/**
+ * Este paquete contiene los benchmarks de los servicios de la aplicacin. Los
+ * benchmarks se ejecutan con JMH sobre una base de datos embebida, de modo de
+ * poder medir los cambios de performance sin depender de una instalacin de
+ * MySQL.
+ */
+package zinbig.item.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.orm.hibernate3.SessionHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import zinbig.item.model.Item;
+import zinbig.item.model.ItemStateEnum;
+import zinbig.item.model.filters.ConcreteFilterComponentByState;
+import zinbig.item.model.filters.ConcreteFilterComponentByText;
+import zinbig.item.model.filters.Filter;
+import zinbig.item.model.filters.FilterComponentByProjectForRegisteredUser;
+import zinbig.item.model.filters.FilterStringCreationStrategy;
+import zinbig.item.model.filters.HibernateFilterStringCreationStrategy;
+import zinbig.item.model.filters.NullFilterComponentByItemId;
+import zinbig.item.model.filters.NullFilterComponentByItemType;
+import zinbig.item.model.filters.NullFilterComponentByNode;
+import zinbig.item.model.filters.NullFilterComponentByResponsible;
+import zinbig.item.services.bi.ItemsServiceBI;
+import zinbig.item.services.bi.UsersServiceBI;
+import zinbig.item.util.dto.AbstractUserDTO;
+import zinbig.item.util.dto.FilterComponentByProjectDTO;
+import zinbig.item.util.dto.FilterDTO;
+import zinbig.item.util.dto.DTOFactory;
+import zinbig.item.util.dto.ItemDTO;
+import zinbig.item.util.dto.ItemTypeDTO;
+import zinbig.item.util.dto.UserDTO;
+import zinbig.item.util.dto.WorkflowNodeDescriptionDTO;
+import zinbig.item.util.persistence.ItemsCountCache;
+
+/**
+ * Esta clase contiene los benchmarks del listado de tems: la recuperacin de
+ * una pgina de tems, el clculo de la cantidad de tems, la creacin de los
+ * dtos de los tems y la creacin del string de un filtro. <br>
+ * Cada invocacin utiliza una nueva sesin de Hibernate y comienza con el cach
+ * de cantidades de tems vaco, de modo de medir el acceso a la base de datos
+ * y no los cachs calentados por las invocaciones anteriores.<br>
+ * Las cantidades de datos se pueden modificar con los parmetros de JMH, por
+ * ejemplo -p items=100000.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+@State(Scope.Benchmark)
+public class ItemsBenchmark {
+
+	/**
+	 * Es el tamao de la pgina de tems.
+	 */
+	private static final int PAGE_SIZE = 20;
+
+	/**
+	 * Es la cantidad de proyectos.
+	 */
+	@Param( { "10" })
+	public int projects;
+
+	/**
+	 * Es la cantidad de usuarios.
+	 */
+	@Param( { "50" })
+	public int users;
+
+	/**
+	 * Es la cantidad de tems.
+	 */
+	@Param( { "10000" })
+	public int items;
+
+	/**
+	 * Es la cantidad de nodos de cada workflow.
+	 */
+	@Param( { "5" })
+	public int nodes;
+
+	/**
+	 * Es la base de datos embebida.
+	 */
+	protected BenchmarkDatabase database;
+
+	/**
+	 * Es el servicio de tems.
+	 */
+	protected ItemsServiceBI itemsService;
+
+	/**
+	 * Es el dto del usuario que solicita los listados.
+	 */
+	protected UserDTO userDTO;
+
+	/**
+	 * Es el dto del filtro que se aplica en los listados.
+	 */
+	protected FilterDTO filterDTO;
+
+	/**
+	 * Es la estrategia de creacin de strings de filtros.
+	 */
+	protected FilterStringCreationStrategy filterStringCreationStrategy;
+
+	/**
+	 * Es el factory de dtos.
+	 */
+	protected DTOFactory dtoFactory;
+
+	/**
+	 * Es el cach de cantidades de tems, que se vaca antes de cada
+	 * invocacin.
+	 */
+	protected ItemsCountCache itemsCountCache;
+
+	/**
+	 * Es la sesin de Hibernate de la invocacin actual, que se mantiene
+	 * abierta para crear los dtos tal como lo hace la aplicacin durante un
+	 * request.
+	 */
+	protected Session session;
+
+	/**
+	 * Es una pgina de tems ya cargada a partir de la cual se crean los dtos.
+	 */
+	protected Collection<Item> page;
+
+	/**
+	 * Carga la base de datos y prepara los datos compartidos por todos los
+	 * benchmarks.
+	 * 
+	 * @throws Exception
+	 *             esta excepcin se levanta si no se pueden preparar los
+	 *             datos.
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		this.database = new BenchmarkDatabase(this.projects, this.users,
+				this.items, this.nodes);
+
+		UsersServiceBI usersService = (UsersServiceBI) this.database
+				.getBean("usersService");
+		this.userDTO = usersService.loginUser(BenchmarkDatabase.getUsername(0),
+				BenchmarkDatabase.PASSWORD);
+
+		// filtro por los tems abiertos de los proyectos del usuario.
+		this.itemsService = (ItemsServiceBI) this.database
+				.getBean("itemsService");
+		Collection<ItemStateEnum> states = new ArrayList<ItemStateEnum>();
+		states.add(ItemStateEnum.OPEN);
+		this.filterDTO = this.itemsService.createFilter(this.userDTO,
+				"benchmark", new ArrayList<FilterComponentByProjectDTO>(), "",
+				states, new ArrayList<AbstractUserDTO>(),
+				new ArrayList<ItemTypeDTO>(),
+				new ArrayList<WorkflowNodeDescriptionDTO>(), false, false,
+				false, false, false, "");
+
+		this.filterStringCreationStrategy = new HibernateFilterStringCreationStrategy();
+		this.dtoFactory = (DTOFactory) this.database.getBean("dtoFactory");
+		this.itemsCountCache = (ItemsCountCache) this.database
+				.getBean("itemsCountCache");
+	}
+
+	/**
+	 * Libera la base de datos.
+	 */
+	@TearDown
+	public void tearDown() {
+		this.database.close();
+	}
+
+	/**
+	 * Prepara cada invocacin: vaca el cach de cantidades de tems y abre una
+	 * nueva sesin, que se mantiene abierta para que los dtos puedan navegar
+	 * las asociaciones perezosas de los tems.
+	 */
+	@SuppressWarnings("unchecked")
+	@Setup(Level.Invocation)
+	public void openSession() {
+		this.itemsCountCache.invalidate();
+
+		SessionFactory aSessionFactory = this.database.getSessionFactory();
+		this.session = aSessionFactory.openSession();
+		TransactionSynchronizationManager.bindResource(aSessionFactory,
+				new SessionHolder(this.session));
+		this.page = this.session.createQuery(
+				"from Item i order by i.itemId asc").setMaxResults(PAGE_SIZE)
+				.list();
+	}
+
+	/**
+	 * Libera la sesin de la invocacin actual.
+	 */
+	@TearDown(Level.Invocation)
+	public void closeSession() {
+		TransactionSynchronizationManager.unbindResource(this.database
+				.getSessionFactory());
+		this.session.close();
+	}
+
+	/**
+	 * Recupera la primera pgina del listado de tems filtrado.
+	 * 
+	 * @return los dtos de la pgina.
+	 * @throws Exception
+	 *             esta excepcin se levanta si falla el servicio.
+	 */
+	@Benchmark
+	public Collection<ItemDTO> getItems() throws Exception {
+		return this.itemsService.getItems(this.userDTO, null, this.filterDTO,
+				0, PAGE_SIZE, "itemId", "ASC");
+	}
+
+	/**
+	 * Calcula la cantidad de tems del listado filtrado.
+	 * 
+	 * @return la cantidad de tems.
+	 * @throws Exception
+	 *             esta excepcin se levanta si falla el servicio.
+	 */
+	@Benchmark
+	public int getItemsCount() throws Exception {
+		return this.itemsService.getItemsCount(this.userDTO, null,
+				this.filterDTO);
+	}
+
+	/**
+	 * Crea los dtos de una pgina de tems ya cargada.
+	 * 
+	 * @return los dtos creados.
+	 */
+	@Benchmark
+	public Collection<ItemDTO> createDTOForItems() {
+		return this.dtoFactory.createDTOForItems(this.page);
+	}
+
+	/**
+	 * Crea el string de un filtro por proyectos del usuario, estado y texto.
+	 * 
+	 * @return el filtro con su string creado.
+	 */
+	@Benchmark
+	public Filter createFilterString() {
+		Collection<String> states = new ArrayList<String>();
+		states.add("'" + ItemStateEnum.OPEN.toInt() + "'");
+
+		Filter aFilter = new Filter("benchmark");
+		this.filterStringCreationStrategy.createFilterString(aFilter,
+				new FilterComponentByProjectForRegisteredUser(),
+				new ConcreteFilterComponentByState(states, false),
+				new NullFilterComponentByItemId(),
+				new NullFilterComponentByResponsible(),
+				new NullFilterComponentByItemType(),
+				new NullFilterComponentByNode(),
+				new ConcreteFilterComponentByText("benchmark"));
+		return aFilter;
+	}
+
+}
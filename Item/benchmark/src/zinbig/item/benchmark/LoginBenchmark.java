@@ -0,0 +1,102 @@
+/**
+ * Este paquete contiene los benchmarks de los servicios de la aplicacin. Los
+ * benchmarks se ejecutan con JMH sobre una base de datos embebida, de modo de
+ * poder medir los cambios de performance sin depender de una instalacin de
+ * MySQL.
+ */
+package zinbig.item.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import zinbig.item.services.bi.UsersServiceBI;
+import zinbig.item.util.dto.UserDTO;
+
+/**
+ * Esta clase contiene el benchmark del ingreso de un usuario al sistema. <br>
+ * En cada invocacin ingresa un usuario distinto, de modo que no se mida
+ * solamente el acceso a un nico usuario ya cacheado.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+
+	/**
+	 * Es la cantidad de proyectos.
+	 */
+	@Param( { "10" })
+	public int projects;
+
+	/**
+	 * Es la cantidad de usuarios.
+	 */
+	@Param( { "50" })
+	public int users;
+
+	/**
+	 * Es la cantidad de tems.
+	 */
+	@Param( { "1000" })
+	public int items;
+
+	/**
+	 * Es la cantidad de nodos de cada workflow.
+	 */
+	@Param( { "5" })
+	public int nodes;
+
+	/**
+	 * Es la base de datos embebida.
+	 */
+	protected BenchmarkDatabase database;
+
+	/**
+	 * Es el servicio de usuarios.
+	 */
+	protected UsersServiceBI usersService;
+
+	/**
+	 * Es el nmero del prximo usuario que ingresa al sistema.
+	 */
+	protected int nextUser;
+
+	/**
+	 * Carga la base de datos.
+	 */
+	@Setup
+	public void setUp() {
+		this.database = new BenchmarkDatabase(this.projects, this.users,
+				this.items, this.nodes);
+		this.usersService = (UsersServiceBI) this.database
+				.getBean("usersService");
+	}
+
+	/**
+	 * Libera la base de datos.
+	 */
+	@TearDown
+	public void tearDown() {
+		this.database.close();
+	}
+
+	/**
+	 * Ingresa al sistema con el prximo usuario.
+	 * 
+	 * @return el dto del usuario.
+	 * @throws Exception
+	 *             esta excepcin se levanta si falla el servicio.
+	 */
+	@Benchmark
+	public UserDTO loginUser() throws Exception {
+		this.nextUser = (this.nextUser + 1) % this.users;
+		return this.usersService.loginUser(BenchmarkDatabase
+				.getUsername(this.nextUser), BenchmarkDatabase.PASSWORD);
+	}
+
+}
@@ -17,8 +17,10 @@ import java.util.Locale;
 import java.util.Map;
 
 import org.apache.wicket.Request;
+import org.apache.wicket.RequestCycle;
 import org.apache.wicket.Response;
 import org.apache.wicket.Session;
+import org.apache.wicket.protocol.http.WebRequest;
 import org.apache.wicket.resource.loader.IStringResourceLoader;
 import org.apache.wicket.settings.IExceptionSettings;
 import org.apache.wicket.spring.SpringWebApplication;
@@ -32,6 +34,7 @@ import zinbig.item.application.pages.DashboardPage;
 import zinbig.item.model.ItemStateEnum;
 import zinbig.item.util.SystemProperty;
 import zinbig.item.util.dto.ItemDTO;
+import zinbig.item.util.files.AttachmentStore;
 import zinbig.item.util.i18n.ItemStringResourceLoader;
 import zinbig.item.util.persistence.ItemQuery;
 import zinbig.item.util.spring.ItemApplicationContext;
@@ -75,6 +78,12 @@ public class ItemApplication extends SpringWebApplication implements
 	 */
 	protected IStringResourceLoader resourceLoader;
 
+	/**
+	 * Es el objeto que almacena los archivos adjuntos de los tems.<br>
+	 * Este objeto se inyecta directamente mediante Spring.
+	 */
+	protected AttachmentStore attachmentStore;
+
 	/**
 	 * Contructor.
 	 */
@@ -137,6 +146,23 @@ public class ItemApplication extends SpringWebApplication implements
 		return new ItemSession(request, response);
 	}
 
+	/**
+	 * Crea un nuevo ciclo para atender un request.
+	 * 
+	 * @param request
+	 *            es el request web enviado a la aplicacin web.
+	 * @param response
+	 *            es el response que se enviar al cliente.
+	 * 
+	 * @return un nuevo ciclo que comparte entre los servicios invocados
+	 *         durante el request los objetos ya recuperados.
+	 */
+	@Override
+	public RequestCycle newRequestCycle(Request request, Response response) {
+
+		return new ItemRequestCycle(this, (WebRequest) request, response);
+	}
+
 	/**
 	 * Carga todas las propiedades de sistema en un mapa para que stas estn
 	 * disponibles sin tener que acceder a la base de datos.
@@ -238,6 +264,25 @@ public class ItemApplication extends SpringWebApplication implements
 		this.itemAssignmentStrategies = aCollection;
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto que almacena los archivos adjuntos de los tems.
+	 */
+	public AttachmentStore getAttachmentStore() {
+		return this.attachmentStore;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aStore
+	 *            es el objeto que almacena los archivos adjuntos de los tems.
+	 */
+	public void setAttachmentStore(AttachmentStore aStore) {
+		this.attachmentStore = aStore;
+	}
+
 	/**
 	 * Getter.
 	 * 
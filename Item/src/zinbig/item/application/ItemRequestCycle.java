@@ -0,0 +1,106 @@
+/**
+ * Este paquete contiene las clases que componen la aplicacin Item.<br>
+ * Este desarrollo se basa en el framework web Wicket y utiliza Spring para la 
+ * mayora de las configuraciones.
+ * 
+ */
+package zinbig.item.application;
+
+import org.apache.wicket.Response;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.protocol.http.WebRequest;
+import org.apache.wicket.protocol.http.WebRequestCycle;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.orm.hibernate3.SessionFactoryUtils;
+import org.springframework.orm.hibernate3.SessionHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import zinbig.item.util.persistence.RequestContext;
+import zinbig.item.util.spring.ItemApplicationContext;
+
+/**
+ * Las instancias de esta clase representan el ciclo de cada request atendido
+ * por la aplicacin. <br>
+ * Al comenzar el request se abre una sesin de Hibernate que comparten todas
+ * las transacciones de los servicios invocados durante el request, y se crea
+ * el contexto del request en el cual los servicios registran el tracker, los
+ * usuarios y los proyectos que recuperan. De esta manera, por ejemplo, el
+ * listado de tems y su cantidad (que se calculan en servicios distintos) no
+ * vuelven a buscar el mismo usuario y el mismo proyecto.<br>
+ * Al finalizar el request se descarta el contexto y se cierra la sesin.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class ItemRequestCycle extends WebRequestCycle {
+
+	/**
+	 * Es la sesin de Hibernate abierta por este ciclo, o null si no se abri
+	 * ninguna.
+	 */
+	private Session session;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param anApplication
+	 *            es la aplicacin.
+	 * @param aRequest
+	 *            es el request web.
+	 * @param aResponse
+	 *            es el response que se enviar al cliente.
+	 */
+	public ItemRequestCycle(WebApplication anApplication, WebRequest aRequest,
+			Response aResponse) {
+		super(anApplication, aRequest, aResponse);
+	}
+
+	/**
+	 * Abre la sesin de Hibernate del request y crea el contexto del request.
+	 */
+	@Override
+	protected void onBeginRequest() {
+		super.onBeginRequest();
+
+		SessionFactory aSessionFactory = this.getSessionFactory();
+		if (!TransactionSynchronizationManager.hasResource(aSessionFactory)) {
+			this.session = SessionFactoryUtils.getSession(aSessionFactory, true);
+			// fuera de las transacciones no se sincroniza la sesin.
+			this.session.setFlushMode(FlushMode.MANUAL);
+			TransactionSynchronizationManager.bindResource(aSessionFactory,
+					new SessionHolder(this.session));
+			RequestContext.begin(this.session);
+		}
+	}
+
+	/**
+	 * Descarta el contexto del request y cierra la sesin de Hibernate.
+	 */
+	@Override
+	protected void onEndRequest() {
+		try {
+			if (this.session != null) {
+				RequestContext.end();
+				TransactionSynchronizationManager.unbindResource(this
+						.getSessionFactory());
+				SessionFactoryUtils.closeSession(this.session);
+				this.session = null;
+			}
+		} finally {
+			super.onEndRequest();
+		}
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto que crea las sesiones de Hibernate.
+	 */
+	private SessionFactory getSessionFactory() {
+		return (SessionFactory) ItemApplicationContext.getApplicationContext()
+				.getBean("sessionFactory");
+	}
+
+}
@@ -6,6 +6,8 @@
 package zinbig.item.application.components;
 
 import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -19,8 +21,10 @@ import java.util.TreeSet;
 import org.apache.wicket.PageParameters;
 import org.apache.wicket.extensions.markup.html.repeater.util.SortableDataProvider;
 import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.link.AbstractLink;
 import org.apache.wicket.markup.html.link.BookmarkablePageLink;
 import org.apache.wicket.markup.html.link.DownloadLink;
+import org.apache.wicket.markup.html.link.ExternalLink;
 import org.apache.wicket.markup.html.link.Link;
 import org.apache.wicket.markup.html.panel.Panel;
 import org.apache.wicket.markup.repeater.Item;
@@ -211,8 +215,18 @@ public class ItemDetailedInformationPanel extends Panel {
 				ItemFileDTO dto = (ItemFileDTO) item.getModelObject();
 
 				Label aLabel = new Label("filename", dto.getFilename());
-				File aFile = new File(aPath + dto.getFilename());
-				Link fileLink = new DownloadLink("fileLink", aFile);
+				AbstractLink fileLink = null;
+				if (dto.getContentHash() != null) {
+					// los archivos del almacn se descargan mediante el
+					// servlet, sin pasar por Wicket.
+					fileLink = new ExternalLink("fileLink",
+							"/Item/AttachmentServlet?hash="
+									+ dto.getContentHash() + "&name="
+									+ this.encode(dto.getFilename()));
+				} else {
+					File aFile = new File(aPath + dto.getFilename());
+					fileLink = new DownloadLink("fileLink", aFile);
+				}
 				fileLink.add(aLabel);
 				item.add(fileLink);
 
@@ -222,6 +236,21 @@ public class ItemDetailedInformationPanel extends Panel {
 
 			}
 
+			/**
+			 * Codifica un nombre de archivo para incluirlo en una url.
+			 * 
+			 * @param aFilename
+			 *            es el nombre del archivo.
+			 * @return el nombre codificado.
+			 */
+			private String encode(String aFilename) {
+				try {
+					return URLEncoder.encode(aFilename, "UTF-8");
+				} catch (UnsupportedEncodingException e) {
+					return aFilename;
+				}
+			}
+
 		};
 
 		this.add(attachedFiles);
@@ -0,0 +1,265 @@
+/**
+ * Este paquete contiene las definiciones de las clases que representan a los
+ * componentes de la aplicacin desarrollados especficamente para encapsular
+ * comportamiento y permitir el reuso.
+ */
+package zinbig.item.application.components;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.PageParameters;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.ajax.AjaxSelfUpdatingTimerBehavior;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.link.Link;
+import org.apache.wicket.markup.html.list.ListItem;
+import org.apache.wicket.markup.html.list.ListView;
+import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.model.AbstractReadOnlyModel;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.LoadableDetachableModel;
+import org.apache.wicket.util.time.Duration;
+
+import zinbig.item.application.ItemSession;
+import zinbig.item.application.pages.MassiveItemsMovementPage;
+import zinbig.item.model.ItemMovementResultEnum;
+import zinbig.item.services.ServiceLocator;
+import zinbig.item.util.dto.MassiveItemsMovementDTO;
+
+/**
+ * Las instancias de este panel se utilizan para mostrar el avance de un
+ * movimiento masivo de tems que se procesa en segundo plano.<br>
+ * El panel se actualiza mediante AJAX cada un segundo mostrando la cantidad de
+ * tems procesados, hasta que el movimiento termina. Al terminar se muestra el
+ * resultado de cada tem, con el mensaje del error en el caso de los tems
+ * fallidos, y se ofrece un link para volver a intentar el
+ * movimiento con los tems que no se pudieron mover.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class MassiveItemsMovementProgressPanel extends Panel {
+
+	/**
+	 * UID por defecto para la serializacin.
+	 */
+	private static final long serialVersionUID = -2871139526403927415L;
+
+	/**
+	 * Es el oid del movimiento masivo cuyo avance se muestra.
+	 */
+	protected String movementOid;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param anId
+	 *            es el identificador de este panel.
+	 * @param aMovementOid
+	 *            es el oid del movimiento masivo.
+	 */
+	public MassiveItemsMovementProgressPanel(String anId, String aMovementOid) {
+		super(anId);
+		this.setMovementOid(aMovementOid);
+
+		// crea un modelo que recupera el avance del movimiento una nica vez
+		// por request.
+		final IModel<MassiveItemsMovementDTO> movementModel = new LoadableDetachableModel<MassiveItemsMovementDTO>() {
+
+			/**
+			 * UID por defecto.
+			 */
+			private static final long serialVersionUID = 1L;
+
+			/**
+			 * Recupera el avance del movimiento.
+			 * 
+			 * @return el dto que representa el avance del movimiento o null
+			 *         si el movimiento no existe.
+			 */
+			@Override
+			protected MassiveItemsMovementDTO load() {
+				MassiveItemsMovementDTO result = null;
+				try {
+					if (!MassiveItemsMovementProgressPanel.this
+							.getMovementOid().equals("")) {
+						result = ServiceLocator.getInstance()
+								.getProjectsService().findMassiveItemsMovement(
+										((ItemSession) MassiveItemsMovementProgressPanel.this
+												.getSession()).getUserDTO(),
+										MassiveItemsMovementProgressPanel.this
+												.getMovementOid());
+					}
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+				return result;
+			}
+
+		};
+		this.setDefaultModel(movementModel);
+
+		// crea el contenedor que se actualiza peridicamente mientras el
+		// movimiento no termine.
+		WebMarkupContainer container = new WebMarkupContainer("progressContainer");
+		container.setOutputMarkupId(true);
+		container.add(new AjaxSelfUpdatingTimerBehavior(Duration.seconds(1)) {
+
+			/**
+			 * UID por defecto.
+			 */
+			private static final long serialVersionUID = 1L;
+
+			/**
+			 * Detiene las actualizaciones cuando el movimiento termin.
+			 * 
+			 * @param target
+			 *            es el objetivo del pedido AJAX.
+			 */
+			@Override
+			protected void onPostProcessTarget(AjaxRequestTarget target) {
+				MassiveItemsMovementDTO aDTO = movementModel.getObject();
+				if (aDTO == null || aDTO.isFinished()) {
+					this.stop();
+				}
+			}
+
+		});
+		this.add(container);
+
+		// agrega la etiqueta que muestra la cantidad de tems procesados.
+		container.add(new Label("progress", new AbstractReadOnlyModel<String>() {
+
+			/**
+			 * UID por defecto.
+			 */
+			private static final long serialVersionUID = 1L;
+
+			/**
+			 * Arma el texto con la cantidad de tems procesados.
+			 * 
+			 * @return el texto con el avance del movimiento.
+			 */
+			@Override
+			public String getObject() {
+				MassiveItemsMovementDTO aDTO = movementModel.getObject();
+				if (aDTO == null) {
+					return MassiveItemsMovementProgressPanel.this
+							.getString("massiveItemsMovementPage.unknownMovement");
+				}
+				return aDTO.getProcessedItems() + " / " + aDTO.getTotalItems();
+			}
+
+		}));
+
+		// agrega la lista con el resultado de cada tem procesado.
+		IModel<List<String>> idsModel = new AbstractReadOnlyModel<List<String>>() {
+
+			/**
+			 * UID por defecto.
+			 */
+			private static final long serialVersionUID = 1L;
+
+			/**
+			 * Recupera los ids de los tems procesados.
+			 * 
+			 * @return una lista con los ids de los tems procesados.
+			 */
+			@Override
+			public List<String> getObject() {
+				MassiveItemsMovementDTO aDTO = movementModel.getObject();
+				return aDTO == null ? new ArrayList<String>() : aDTO
+						.getItemsIds();
+			}
+
+		};
+		container.add(new ListView<String>("results", idsModel) {
+
+			/**
+			 * UID por defecto.
+			 */
+			private static final long serialVersionUID = 1L;
+
+			/**
+			 * Dibuja el id y el resultado de un tem.
+			 * 
+			 * @param listItem
+			 *            es el elemento de la lista que se debe dibujar.
+			 */
+			@Override
+			protected void populateItem(ListItem<String> listItem) {
+				String anId = listItem.getModelObject();
+				ItemMovementResultEnum aResult = movementModel.getObject()
+						.getResult(anId);
+				String anError = movementModel.getObject().getError(anId);
+
+				String aText = this.getString("massiveItemsMovementPage.result."
+						+ aResult.name());
+				if (anError != null) {
+					aText = aText + " (" + anError + ")";
+				}
+
+				listItem.add(new Label("itemId", anId));
+				listItem.add(new Label("result", aText));
+			}
+
+		});
+
+		// agrega el link para volver a intentar con los tems no movidos.
+		container.add(new Link<String>("retryLink") {
+
+			/**
+			 * UID por defecto.
+			 */
+			private static final long serialVersionUID = 1L;
+
+			/**
+			 * Vuelve a la pgina de movimiento masivo cargando los tems que
+			 * no se pudieron mover.
+			 */
+			@Override
+			public void onClick() {
+				PageParameters params = new PageParameters();
+				params.put("ITEMS_NOT_MOVED", movementModel.getObject()
+						.getItemsNotMoved());
+				this.setResponsePage(MassiveItemsMovementPage.class, params);
+			}
+
+			/**
+			 * Verifica si este link debe mostrarse.
+			 * 
+			 * @return true en caso de que el movimiento haya terminado y haya
+			 *         tems que no se pudieron mover; false en caso contrario.
+			 */
+			@Override
+			public boolean isVisible() {
+				MassiveItemsMovementDTO aDTO = movementModel.getObject();
+				return aDTO != null && aDTO.isFinished()
+						&& !aDTO.getItemsNotMoved().equals("");
+			}
+
+		});
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el oid del movimiento masivo cuyo avance se muestra.
+	 */
+	public String getMovementOid() {
+		return this.movementOid;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param anOid
+	 *            es el oid del movimiento masivo cuyo avance se muestra.
+	 */
+	public void setMovementOid(String anOid) {
+		this.movementOid = anOid;
+	}
+
+}
@@ -21,6 +21,7 @@ import zinbig.item.util.dto.FilterDTO;
 import zinbig.item.util.dto.ItemDTO;
 import zinbig.item.util.dto.ProjectDTO;
 import zinbig.item.util.dto.UserDTO;
+import zinbig.item.util.persistence.ItemsPageCursor;
 
 /**
  * Las instancias de esta clase se utilizan para retornar los dtos de los tems
@@ -56,6 +57,18 @@ public class ItemDTODataProvider extends SortableDataProvider<ItemDTO> {
 	 */
 	protected FilterDTO filterDTO;
 
+	/**
+	 * Es el cursor que recuerda la clave de la ltima fila leda, de modo que
+	 * la pgina siguiente se recupere sin recorrer las anteriores.
+	 */
+	protected ItemsPageCursor cursor;
+
+	/**
+	 * Indica si se debe paginar a partir de la clave de la ltima fila leda.
+	 * En caso de ser false se utiliza siempre el desplazamiento por ndice.
+	 */
+	protected boolean keysetPagination;
+
 	/**
 	 * Constructor.
 	 * 
@@ -77,6 +90,8 @@ public class ItemDTODataProvider extends SortableDataProvider<ItemDTO> {
 		this.setFilterDTO(aFilterDTO);
 		this.setProjectDTO(aProjectDTO);
 		this.setSort(aColumnName, anOrdering.equals("ASC"));
+		this.setCursor(new ItemsPageCursor());
+		this.setKeysetPagination(true);
 	}
 
 	/**
@@ -97,9 +112,17 @@ public class ItemDTODataProvider extends SortableDataProvider<ItemDTO> {
 		try {
 			SortParam sp = this.getSort();
 			String ordering = sp.isAscending() ? "ASC" : "DESC";
-			result.addAll(this.getItemsService().getItems(this.getUserDTO(),
-					this.getProjectDTO(), this.getFilterDTO(), firstIndex,
-					count, sp.getProperty(), ordering));
+			if (this.isKeysetPagination()) {
+				result.addAll(this.getItemsService().getItems(
+						this.getUserDTO(), this.getProjectDTO(),
+						this.getFilterDTO(), firstIndex, count,
+						sp.getProperty(), ordering, this.getCursor()));
+			} else {
+				result.addAll(this.getItemsService().getItems(
+						this.getUserDTO(), this.getProjectDTO(),
+						this.getFilterDTO(), firstIndex, count,
+						sp.getProperty(), ordering));
+			}
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -207,6 +230,46 @@ public class ItemDTODataProvider extends SortableDataProvider<ItemDTO> {
 		this.projectDTO = aProjectDTO;
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return el cursor que mantiene la posicin del listado.
+	 */
+	public ItemsPageCursor getCursor() {
+		return this.cursor;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aCursor
+	 *            es el cursor que mantiene la posicin del listado.
+	 */
+	public void setCursor(ItemsPageCursor aCursor) {
+		this.cursor = aCursor;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return true en caso de que se pagine a partir de la clave de la ltima
+	 *         fila leda; false en caso contrario.
+	 */
+	public boolean isKeysetPagination() {
+		return this.keysetPagination;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aBoolean
+	 *            establece si se debe paginar a partir de la clave de la ltima
+	 *            fila leda.
+	 */
+	public void setKeysetPagination(boolean aBoolean) {
+		this.keysetPagination = aBoolean;
+	}
+
 	/**
 	 * Getter.
 	 * 
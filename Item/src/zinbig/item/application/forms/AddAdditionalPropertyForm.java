@@ -20,6 +20,7 @@ import org.apache.wicket.markup.html.form.TextField;
 import org.apache.wicket.model.AbstractReadOnlyModel;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.PropertyModel;
+import org.apache.wicket.validation.validator.NumberValidator;
 import org.apache.wicket.validation.validator.StringValidator;
 
 import zinbig.item.application.components.FeedbackLabel;
@@ -64,6 +65,12 @@ public class AddAdditionalPropertyForm extends ItemForm {
 	 */
 	public String valueAAPF;
 
+	/**
+	 * Es un campo que almacena la cantidad mxima de valores de una propiedad
+	 * dinmica. Si no se ingresa se utiliza la cantidad mxima por defecto.
+	 */
+	public Integer maxValuesAAPF;
+
 	/**
 	 * Indica si la propiedad que se est agregando es requerida o no.
 	 */
@@ -212,10 +219,16 @@ public class AddAdditionalPropertyForm extends ItemForm {
 					}
 					AddAdditionalPropertyForm.this.get("valueAAPF").setEnabled(
 							enabled);
+					AddAdditionalPropertyForm.this.get("maxValuesAAPF")
+							.setEnabled(selectedType.equals("DYNAMIC"));
 					target.addComponent(AddAdditionalPropertyForm.this
 							.get("valueAAPF"));
 					target.addComponent(AddAdditionalPropertyForm.this
 							.get("valueAAPFFeedback"));
+					target.addComponent(AddAdditionalPropertyForm.this
+							.get("maxValuesAAPF"));
+					target.addComponent(AddAdditionalPropertyForm.this
+							.get("maxValuesAAPFFeedback"));
 
 				} catch (Exception e) {
 					e.printStackTrace();
@@ -247,6 +260,23 @@ public class AddAdditionalPropertyForm extends ItemForm {
 		valueFeedbackLabel.setOutputMarkupId(true);
 		this.add(valueFeedbackLabel);
 
+		// construye el input field para la cantidad mxima de valores de una
+		// propiedad dinmica.
+		final TextField<Integer> maxValuesField = new TextField<Integer>(
+				"maxValuesAAPF", new PropertyModel<Integer>(this,
+						"maxValuesAAPF"), Integer.class);
+		maxValuesField.add(NumberValidator.minimum(1));
+		maxValuesField.setOutputMarkupId(true);
+		maxValuesField.setEnabled(false);
+		this.add(maxValuesField);
+
+		// construye el label para mostrar los mensajes de error relacionados
+		// con el componente de la cantidad mxima de valores.
+		final FeedbackLabel maxValuesFeedbackLabel = new FeedbackLabel(
+				"maxValuesAAPFFeedback", maxValuesField);
+		maxValuesFeedbackLabel.setOutputMarkupId(true);
+		this.add(maxValuesFeedbackLabel);
+
 		// construye el link de envo del formulario. Este link retorna a la
 		// misma pgina
 		SubmitLink saveLink = new SubmitLink("saveLink") {
@@ -282,12 +312,14 @@ public class AddAdditionalPropertyForm extends ItemForm {
 					AddAdditionalPropertyForm.this.getProjectsService()
 							.addAdditionalProperty(getProjectDTO(),
 									getNameAAPF(), isRequiredProperty(),
-									getSelectedPropertyType(), getValueAAPF());
+									getSelectedPropertyType(), getValueAAPF(),
+									getMaxValuesAAPF());
 
 					AddAdditionalPropertyForm.this.setNameAAPF(null);
 					AddAdditionalPropertyForm.this.setValueAAPF(null);
 					AddAdditionalPropertyForm.this.setRequiredProperty(false);
 					AddAdditionalPropertyForm.this.setValueAAPF(null);
+					AddAdditionalPropertyForm.this.setMaxValuesAAPF(null);
 
 					((ManageAdditionalPropertiesPanel) AddAdditionalPropertyForm.this
 							.getParent()).updateListOfProperties();
@@ -403,6 +435,25 @@ public class AddAdditionalPropertyForm extends ItemForm {
 		this.valueAAPF = aValue;
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad mxima de valores de una propiedad dinmica.
+	 */
+	public Integer getMaxValuesAAPF() {
+		return this.maxValuesAAPF;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad mxima de valores de una propiedad dinmica.
+	 */
+	public void setMaxValuesAAPF(Integer aNumber) {
+		this.maxValuesAAPF = aNumber;
+	}
+
 	/**
 	 * Este mtodo es ejecutado al finalizar la creacin del html
 	 * correspondiente a este componente.
@@ -4,7 +4,7 @@
  */
 package zinbig.item.application.forms;
 
-import java.io.File;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
@@ -45,6 +45,7 @@ import zinbig.item.application.components.FeedbackLabel;
 import zinbig.item.application.components.PropertyPanelContainer;
 import zinbig.item.application.pages.AddItemPage;
 import zinbig.item.application.pages.DashboardPage;
+import zinbig.item.application.pages.ErrorPage;
 import zinbig.item.application.pages.ViewItemsPage;
 import zinbig.item.model.ItemStateEnum;
 import zinbig.item.services.bi.ItemsServiceBI;
@@ -58,6 +59,8 @@ import zinbig.item.util.dto.PriorityDTO;
 import zinbig.item.util.dto.ProjectDTO;
 import zinbig.item.util.dto.ProjectDTOComparator;
 import zinbig.item.util.dto.UserDTO;
+import zinbig.item.util.files.AttachmentStore;
+import zinbig.item.util.files.StoredAttachment;
 import zinbig.item.util.validators.ItemSimpleStringValidator;
 
 /**
@@ -303,7 +306,7 @@ public class AddItemForm extends ItemForm {
 					this.setResponsePage(AddItemPage.class, params);
 				} catch (Exception e) {
 					e.printStackTrace();
-
+					setResponsePage(ErrorPage.class);
 				}
 			}
 		};
@@ -363,28 +366,35 @@ public class AddItemForm extends ItemForm {
 	 * 
 	 * @param anItem
 	 *            es el tem recientemente creado.
+	 * @throws Exception
+	 *             esta excepcin se levanta si no se pudo adjuntar el archivo.
+	 *             En ese caso se descarta el contenido recin almacenado.
 	 */
-	protected void saveAttachedFiles(ItemDTO anItemDTO) {
+	protected void saveAttachedFiles(ItemDTO anItemDTO) throws Exception {
 
-		String aPath = ((ItemApplication) AddItemForm.this.getApplication())
-				.getPathForItem(anItemDTO);
+		AttachmentStore aStore = ((ItemApplication) AddItemForm.this
+				.getApplication()).getAttachmentStore();
 		if (this.getAttachedFile().getFileUpload() != null) {
 			FileUpload upload = this.getAttachedFile().getFileUpload();
 
-			// crea el archivo nuevo
-			if (new File(aPath).mkdirs()) {
-				File newFile = new File(aPath, upload.getClientFileName());
-				try {
-					// guarda el archivo.
-					newFile.createNewFile();
-					upload.writeTo(newFile);
+			// guarda el archivo en el almacn.
+			InputStream in = upload.getInputStream();
+			StoredAttachment anAttachment = null;
+			try {
+				anAttachment = aStore.store(in);
+			} finally {
+				in.close();
+			}
 
-					this.getItemsService().attachFileToItem(anItemDTO,
-							upload.getClientFileName());
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
+			try {
+				this.getItemsService().attachFileToItem(anItemDTO,
+						upload.getClientFileName(), anAttachment.getHash(),
+						anAttachment.getSize());
+			} catch (Exception e) {
+				aStore.discard(anAttachment);
+				throw e;
 			}
+			aStore.release(anAttachment);
 
 		}
 
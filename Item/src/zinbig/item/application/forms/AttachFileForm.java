@@ -4,7 +4,8 @@
  */
 package zinbig.item.application.forms;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 
 import org.apache.wicket.Response;
 import org.apache.wicket.markup.html.form.SubmitLink;
@@ -14,7 +15,11 @@ import org.apache.wicket.markup.html.form.upload.FileUploadField;
 import zinbig.item.application.ItemApplication;
 import zinbig.item.application.components.FeedbackLabel;
 import zinbig.item.application.components.ItemAttachedFilesPanel;
+import zinbig.item.application.pages.ErrorPage;
 import zinbig.item.util.dto.ItemDTO;
+import zinbig.item.util.dto.ItemFileDTO;
+import zinbig.item.util.files.AttachmentStore;
+import zinbig.item.util.files.StoredAttachment;
 
 /**
  * Las instancias de esta clase se utilizan para agregar nuevos adjuntos a un
@@ -121,39 +126,27 @@ public class AttachFileForm extends ItemForm {
 			 */
 			@Override
 			public void onSubmit() {
-				String aPath = ((ItemApplication) AttachFileForm.this
-						.getApplication()).getPathForItem(anItemDTO);
 				if (AttachFileForm.this.getAttachedFile().getFileUpload() != null) {
 					FileUpload upload = AttachFileForm.this.getAttachedFile()
 							.getFileUpload();
 
-					// crea el archivo nuevo
-					if (new File(aPath).mkdirs() || (new File(aPath).exists())) {
-						File newFile = new File(aPath, upload
-								.getClientFileName());
-						if (newFile.exists()) {
+					try {
+						if (AttachFileForm.this.containsFileWithName(anItemDTO,
+								upload.getClientFileName())) {
 							this
 									.error(this
 											.getString("ItemFileAlreadyExistsException"));
 						} else {
-							try {
-								// guarda el archivo.
-								newFile.createNewFile();
-								upload.writeTo(newFile);
-
-								ItemDTO newItemDTO = AttachFileForm.this
-										.getItemsService().attachFileToItem(
-												anItemDTO,
-												upload.getClientFileName());
-								ItemAttachedFilesPanel parent = (ItemAttachedFilesPanel) AttachFileForm.this
-										.getParent();
-								parent.updateItemVersion(newItemDTO);
-								parent.updateListOfAttachedFiles(anItemDTO);
-
-							} catch (Exception e) {
-								e.printStackTrace();
-							}
+							ItemDTO newItemDTO = AttachFileForm.this
+									.attachUpload(anItemDTO, upload);
+							ItemAttachedFilesPanel parent = (ItemAttachedFilesPanel) AttachFileForm.this
+									.getParent();
+							parent.updateItemVersion(newItemDTO);
+							parent.updateListOfAttachedFiles(anItemDTO);
 						}
+					} catch (Exception e) {
+						e.printStackTrace();
+						setResponsePage(ErrorPage.class);
 					}
 
 				}
@@ -201,31 +194,96 @@ public class AttachFileForm extends ItemForm {
 	 * 
 	 * @param anItem
 	 *            es el tem recientemente creado.
+	 * @throws Exception
+	 *             esta excepcin se levanta si no se pudo adjuntar el archivo.
 	 */
-	protected void saveAttachedFiles(ItemDTO anItemDTO) {
+	protected void saveAttachedFiles(ItemDTO anItemDTO) throws Exception {
 
-		String aPath = ((ItemApplication) AttachFileForm.this.getApplication())
-				.getPathForItem(anItemDTO);
 		if (this.getAttachedFile().getFileUpload() != null) {
-			FileUpload upload = this.getAttachedFile().getFileUpload();
-
-			// crea el archivo nuevo
-			if (new File(aPath).mkdirs()) {
-				File newFile = new File(aPath, upload.getClientFileName());
-				try {
-					// guarda el archivo.
-					newFile.createNewFile();
-					upload.writeTo(newFile);
-
-					this.getItemsService().attachFileToItem(anItemDTO,
-							upload.getClientFileName());
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
+			this.attachUpload(anItemDTO, this.getAttachedFile()
+					.getFileUpload());
+		}
+
+	}
+
+	/**
+	 * Guarda el archivo subido en el almacn y lo adjunta al tem. Si el
+	 * archivo no se puede adjuntar se descarta el contenido recin
+	 * almacenado.
+	 * 
+	 * @param anItemDTO
+	 *            es el dto que representa al tem.
+	 * @param anUpload
+	 *            es el archivo subido.
+	 * @return el dto que representa al tem actualizado.
+	 * @throws Exception
+	 *             esta excepcin se levanta si no se pudo adjuntar el archivo.
+	 */
+	protected ItemDTO attachUpload(ItemDTO anItemDTO, FileUpload anUpload)
+			throws Exception {
+		// guarda el archivo en el almacn.
+		StoredAttachment anAttachment = this.storeUpload(anUpload);
+		AttachmentStore aStore = ((ItemApplication) this.getApplication())
+				.getAttachmentStore();
+
+		ItemDTO result = null;
+		try {
+			result = this.getItemsService().attachFileToItem(anItemDTO,
+					anUpload.getClientFileName(), anAttachment.getHash(),
+					anAttachment.getSize());
+		} catch (Exception e) {
+			aStore.discard(anAttachment);
+			throw e;
+		}
+		aStore.release(anAttachment);
+		return result;
+	}
 
+	/**
+	 * Guarda el archivo subido en el almacn de archivos adjuntos. El
+	 * contenido se copia desde el stream del archivo subido sin mantenerlo
+	 * completo en memoria.
+	 * 
+	 * @param anUpload
+	 *            es el archivo subido.
+	 * @return el descriptor del contenido almacenado.
+	 * @throws IOException
+	 *             esta excepcin se levanta si no se pudo guardar el archivo.
+	 */
+	protected StoredAttachment storeUpload(FileUpload anUpload)
+			throws IOException {
+		AttachmentStore aStore = ((ItemApplication) this.getApplication())
+				.getAttachmentStore();
+		InputStream in = anUpload.getInputStream();
+		try {
+			return aStore.store(in);
+		} finally {
+			in.close();
 		}
+	}
 
+	/**
+	 * Verifica si el tem ya tiene un archivo adjunto con el nombre recibido.
+	 * 
+	 * @param anItemDTO
+	 *            es el dto que representa al tem.
+	 * @param aFilename
+	 *            es el nombre del archivo.
+	 * @return true en caso de que el tem tenga un archivo adjunto con ese
+	 *         nombre; false en caso contrario.
+	 * @throws Exception
+	 *             esta excepcin se levanta si no se pudieron recuperar los
+	 *             archivos adjuntos del tem.
+	 */
+	protected boolean containsFileWithName(ItemDTO anItemDTO, String aFilename)
+			throws Exception {
+		for (ItemFileDTO aFileDTO : this.getItemsService()
+				.getAttachedFilesOfItem(anItemDTO)) {
+			if (aFileDTO.getFilename().equals(aFilename)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 }
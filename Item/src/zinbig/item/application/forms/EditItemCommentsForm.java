@@ -31,6 +31,7 @@ import zinbig.item.services.bi.ItemsServiceBI;
 import zinbig.item.util.Utils;
 import zinbig.item.util.dto.CommentDTO;
 import zinbig.item.util.dto.ItemDTO;
+import zinbig.item.util.persistence.CommentsPageCursor;
 import zinbig.item.util.validators.ItemSimpleStringValidator;
 
 /**
@@ -52,6 +53,11 @@ public class EditItemCommentsForm extends ItemForm {
 	 */
 	private static final long serialVersionUID = -7543559775646640476L;
 
+	/**
+	 * Es la cantidad de comentarios que se recuperan cada vez.
+	 */
+	public static final int COMMENTS_PAGE_SIZE = 20;
+
 	/**
 	 * Es el texto del comentario.
 	 */
@@ -68,6 +74,17 @@ public class EditItemCommentsForm extends ItemForm {
 	 */
 	public Collection<String> selectedComments;
 
+	/**
+	 * Es una lista que contiene los dtos de los comentarios recuperados hasta
+	 * el momento, desde el ms reciente al ms antiguo.
+	 */
+	protected List<CommentDTO> loadedComments;
+
+	/**
+	 * Es el cursor que recuerda el ltimo comentario recuperado.
+	 */
+	protected CommentsPageCursor commentsCursor;
+
 	/**
 	 * Constructor.
 	 * 
@@ -81,6 +98,9 @@ public class EditItemCommentsForm extends ItemForm {
 
 		this.setItemDTO(anItemDTO);
 		this.setSelectedComments(new ArrayList<String>());
+		this.setCommentsCursor(new CommentsPageCursor());
+		this.setLoadedComments(new ArrayList<CommentDTO>());
+		this.loadOlderComments();
 
 		boolean mayEdit = this.getUserDTO() != null
 				&& (this.getUserDTO().equals(anItemDTO.getResponsible()) | new Boolean(
@@ -143,6 +163,37 @@ public class EditItemCommentsForm extends ItemForm {
 
 		// crea el componente que lista los comentarios existentes.
 		this.add(createCommentsListComponent());
+
+		// crea un link para recuperar la siguiente pgina de comentarios.
+		Link<String> olderCommentsLink = new Link<String>("olderCommentsLink") {
+
+			/**
+			 * UID por defecto.
+			 */
+			private static final long serialVersionUID = 1L;
+
+			/**
+			 * Se realiz un click sobre el link. Agrega al listado la
+			 * siguiente pgina de comentarios.
+			 */
+			@Override
+			public void onClick() {
+				EditItemCommentsForm.this.loadOlderComments();
+
+			}
+
+			/**
+			 * Este link solamente es visible si quedan comentarios por
+			 * recuperar.
+			 */
+			@Override
+			public boolean isVisible() {
+				return !EditItemCommentsForm.this.getCommentsCursor()
+						.isExhausted();
+			}
+
+		};
+		this.add(olderCommentsLink);
 	}
 
 	/**
@@ -157,7 +208,6 @@ public class EditItemCommentsForm extends ItemForm {
 
 		final SortableDataProvider<CommentDTO> provider = new SortableDataProvider<CommentDTO>() {
 
-			List<CommentDTO> comments = getComments();
 			/**
 			 * UID por defecto.
 			 */
@@ -175,7 +225,7 @@ public class EditItemCommentsForm extends ItemForm {
 			 */
 			@Override
 			public Iterator<CommentDTO> iterator(int index, int count) {
-				return comments.iterator();
+				return EditItemCommentsForm.this.getLoadedComments().iterator();
 			}
 
 			/**
@@ -199,7 +249,7 @@ public class EditItemCommentsForm extends ItemForm {
 			 */
 			@Override
 			public int size() {
-				return comments.size();
+				return EditItemCommentsForm.this.getLoadedComments().size();
 			}
 		};
 
@@ -347,6 +397,12 @@ public class EditItemCommentsForm extends ItemForm {
 					EditItemCommentsForm.this.setItemDTO(newItemDTO);
 					EditItemCommentsForm.this.setComment("");
 
+					// vuelve a recuperar la primer pgina para mostrar el
+					// nuevo comentario.
+					EditItemCommentsForm.this.getCommentsCursor().reset();
+					EditItemCommentsForm.this.getLoadedComments().clear();
+					EditItemCommentsForm.this.loadOlderComments();
+
 					EditItemCommentsForm.this.get("group").replaceWith(
 							EditItemCommentsForm.this
 									.createCommentsListComponent());
@@ -395,21 +451,58 @@ public class EditItemCommentsForm extends ItemForm {
 	}
 
 	/**
-	 * Recupera la coleccin de comentarios corespondientes al item.
-	 * 
-	 * @return una coleccin que contiene DTOs para cada uno de los comentarios.
+	 * Recupera la siguiente pgina de comentarios correspondientes al tem y
+	 * la agrega a los comentarios ya recuperados.
 	 */
-	private List<CommentDTO> getComments() {
-		ArrayList<CommentDTO> result = new ArrayList<CommentDTO>();
+	private void loadOlderComments() {
 
 		try {
 			ItemsServiceBI aService = this.getItemsService();
-			result.addAll(aService.getCommentsOfItem(this.getItemDTO()));
+			this.getLoadedComments().addAll(
+					aService.getCommentsOfItem(this.getItemDTO(), this
+							.getCommentsCursor(), COMMENTS_PAGE_SIZE));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
-		return result;
 
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return la lista de los comentarios recuperados hasta el momento.
+	 */
+	public List<CommentDTO> getLoadedComments() {
+		return this.loadedComments;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param someComments
+	 *            es la lista de los comentarios recuperados hasta el momento.
+	 */
+	public void setLoadedComments(List<CommentDTO> someComments) {
+		this.loadedComments = someComments;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el cursor que recuerda el ltimo comentario recuperado.
+	 */
+	public CommentsPageCursor getCommentsCursor() {
+		return this.commentsCursor;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aCursor
+	 *            es el cursor que recuerda el ltimo comentario recuperado.
+	 */
+	public void setCommentsCursor(CommentsPageCursor aCursor) {
+		this.commentsCursor = aCursor;
+	}
+
 }
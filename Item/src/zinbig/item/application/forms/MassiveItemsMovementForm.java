@@ -154,27 +154,27 @@ public class MassiveItemsMovementForm extends ItemForm {
 
 			/**
 			 * Enva el formulario para mover masivamente los tems al nuevo
-			 * estado seleccionado.
+			 * estado seleccionado.<br>
+			 * El movimiento se procesa en segundo plano, por lo que se vuelve
+			 * a la pgina con el oid del movimiento para mostrar su avance.
 			 */
 			@Override
 			public void onSubmit() {
-				String result = "";
 				ProjectsServiceBI service = MassiveItemsMovementForm.this
 						.getProjectsService();
 				try {
-					result = service.massiveItemsMovement(
+					String aMovementOid = service.massiveItemsMovement(
+							((ItemSession) this.getSession()).getUserDTO(),
 							MassiveItemsMovementForm.this.getSelectedProject(),
 							MassiveItemsMovementForm.this.getSelectedNode(),
 							MassiveItemsMovementForm.this.getItems());
 
 					PageParameters params = new PageParameters();
-					params.put("ITEMS_NOT_MOVED", result);
+					params.put("MOVEMENT_OID", aMovementOid);
 					setResponsePage(MassiveItemsMovementPage.class, params);
-					MassiveItemsMovementForm.this.setItems(result);
 				} catch (Exception e) {
 
 					e.printStackTrace();
-					MassiveItemsMovementForm.this.setItems(result);
 				}
 
 			}
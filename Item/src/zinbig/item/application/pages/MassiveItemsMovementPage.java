@@ -8,6 +8,7 @@ import org.apache.wicket.PageParameters;
 import org.apache.wicket.markup.html.link.BookmarkablePageLink;
 import org.apache.wicket.markup.html.link.Link;
 
+import zinbig.item.application.components.MassiveItemsMovementProgressPanel;
 import zinbig.item.application.forms.MassiveItemsMovementForm;
 
 /**
@@ -18,7 +19,9 @@ import zinbig.item.application.forms.MassiveItemsMovementForm;
  * Si se invoca desde el listado de tems se pueden elegir algunos para realizar
  * el pasaje, los cuales ya figurarn en el campo con los identificadores
  * cargados, permitiendo la incorporacin de ms tems.<Br>
- * En el caso de la ejecucin desde el men, la lista de tems aparece vaca.
+ * En el caso de la ejecucin desde el men, la lista de tems aparece vaca.<br>
+ * Luego de enviar el formulario se muestra el avance del movimiento, que se
+ * procesa en segundo plano, y el resultado de cada tem.
  * 
  * 
  * @author Javier Bazzocco javier.bazzocco@zinbig.com
@@ -49,6 +52,17 @@ public class MassiveItemsMovementPage extends SecuredPage {
 			this.add(aLink);
 			aLink.setVisible(!filterOid.equals(""));
 
+			// agrega el panel que muestra el avance del ltimo movimiento
+			// masivo realizado.
+			String aMovementOid = "";
+			if (parameters.containsKey("MOVEMENT_OID")) {
+				aMovementOid = parameters.getString("MOVEMENT_OID");
+			}
+			MassiveItemsMovementProgressPanel progressPanel = new MassiveItemsMovementProgressPanel(
+					"progressPanel", aMovementOid);
+			progressPanel.setVisible(!aMovementOid.equals(""));
+			this.add(progressPanel);
+
 			// agrega el formulario para el pasaje masivo de tems.
 			String somePreviousIds = "";
 			if (parameters.containsKey("ITEMS_NOT_MOVED")) {
@@ -107,8 +107,8 @@ public class ViewItemDetailPage extends BasePage {
 				});
 
 				if (this.getUserDTO() != null
-						|| !this.getItemsService().getCommentsOfItem(itemDTO)
-								.isEmpty()) {
+						|| this.getItemsService().getCommentsCountOfItem(
+								itemDTO) > 0) {
 
 					tabs.add(new AbstractTab(new Model<String>(this
 							.getString("ViewItemDetailPage.comments"))) {
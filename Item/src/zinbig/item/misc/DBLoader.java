@@ -5,6 +5,10 @@
  */
 package zinbig.item.misc;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -12,6 +16,8 @@ import org.hibernate.Transaction;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.tool.hbm2ddl.SchemaExport;
 
+import zinbig.item.util.IDGenerator;
+import zinbig.item.util.TimeOrderedIDGenerationStrategy;
 import zinbig.item.util.i18n.I18NMessage;
 
 /**
@@ -45,6 +51,8 @@ public class DBLoader {
 
 		try {
 
+			configureIDGenerator();
+
 			Configuration cfg = new Configuration();
 			cfg.configure();
 
@@ -67,6 +75,31 @@ public class DBLoader {
 
 	}
 
+	/**
+	 * Configura la generacin de identificadores con el nmero de nodo
+	 * definido en el archivo jdbc.properties, ya que esta clase no utiliza el
+	 * contexto de Spring.
+	 * 
+	 * @throws IOException
+	 *             esta excepcin se levanta si no se pudo leer el archivo de
+	 *             propiedades.
+	 */
+	public static void configureIDGenerator() throws IOException {
+		InputStream in = DBLoader.class.getResourceAsStream("/jdbc.properties");
+		if (in == null) {
+			throw new IllegalStateException("No se encontr jdbc.properties");
+		}
+
+		Properties properties = new Properties();
+		try {
+			properties.load(in);
+		} finally {
+			in.close();
+		}
+		IDGenerator.configure(TimeOrderedIDGenerationStrategy
+				.fromProperties(properties));
+	}
+
 	/**
 	 * Crea los objetos de la base de datos.
 	 * 
@@ -89,6 +122,80 @@ public class DBLoader {
 			tx = session.beginTransaction();
 			session.save(message);
 
+			// mensajes del panel de comentarios de los tems.
+			createMessage(session, "es", "editItemCommentsForm.older",
+					"Ver comentarios anteriores");
+			createMessage(session, "en", "editItemCommentsForm.older",
+					"Show older comments");
+
+			// mensajes del formulario de alta de propiedades adicionales.
+			createMessage(session, "es", "addAdditionalPropertyForm.maxValues",
+					"Cantidad mxima de valores");
+			createMessage(session, "en", "addAdditionalPropertyForm.maxValues",
+					"Maximum number of values");
+
+			// mensajes de la pgina de movimiento masivo de tems.
+			createMessage(session, "es", "massiveItemsMovementPage.viewAll",
+					"Ver todos");
+			createMessage(session, "en", "massiveItemsMovementPage.viewAll",
+					"View all");
+			createMessage(session, "es", "massiveItemsMovementPage.progress",
+					"tems procesados");
+			createMessage(session, "en", "massiveItemsMovementPage.progress",
+					"Processed items");
+			createMessage(session, "es", "massiveItemsMovementPage.itemId",
+					"tem");
+			createMessage(session, "en", "massiveItemsMovementPage.itemId",
+					"Item");
+			createMessage(session, "es", "massiveItemsMovementPage.result",
+					"Resultado");
+			createMessage(session, "en", "massiveItemsMovementPage.result",
+					"Result");
+			createMessage(session, "es", "massiveItemsMovementPage.retry",
+					"Reintentar con los tems no movidos");
+			createMessage(session, "en", "massiveItemsMovementPage.retry",
+					"Retry with the items not moved");
+			createMessage(session, "es",
+					"massiveItemsMovementPage.unknownMovement",
+					"El movimiento ya no est disponible");
+			createMessage(session, "en",
+					"massiveItemsMovementPage.unknownMovement",
+					"The movement is no longer available");
+			createMessage(session, "es",
+					"massiveItemsMovementPage.result.MOVED", "Movido");
+			createMessage(session, "en",
+					"massiveItemsMovementPage.result.MOVED", "Moved");
+			createMessage(session, "es",
+					"massiveItemsMovementPage.result.NOT_FOUND",
+					"No encontrado");
+			createMessage(session, "en",
+					"massiveItemsMovementPage.result.NOT_FOUND", "Not found");
+			createMessage(session, "es",
+					"massiveItemsMovementPage.result.INVALID_ID",
+					"Identificador invlido");
+			createMessage(session, "en",
+					"massiveItemsMovementPage.result.INVALID_ID", "Invalid id");
+			createMessage(session, "es",
+					"massiveItemsMovementPage.result.NOT_MOVABLE",
+					"No movible");
+			createMessage(session, "en",
+					"massiveItemsMovementPage.result.NOT_MOVABLE",
+					"Not movable");
+			createMessage(session, "es",
+					"massiveItemsMovementPage.result.NO_PATH", "Sin camino");
+			createMessage(session, "en",
+					"massiveItemsMovementPage.result.NO_PATH", "No path");
+			createMessage(session, "es",
+					"massiveItemsMovementPage.result.FAILED", "Fallido");
+			createMessage(session, "en",
+					"massiveItemsMovementPage.result.FAILED", "Failed");
+			createMessage(session, "es",
+					"massiveItemsMovementPage.result.NOT_PROCESSED",
+					"No procesado");
+			createMessage(session, "en",
+					"massiveItemsMovementPage.result.NOT_PROCESSED",
+					"Not processed");
+
 			tx.commit();
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -99,4 +206,26 @@ public class DBLoader {
 		session.disconnect();
 
 	}
+
+	/**
+	 * Crea un mensaje internacionalizado.
+	 * 
+	 * @param aSession
+	 *            es la sesin en la que se guarda el mensaje.
+	 * @param aLocale
+	 *            es el locale del mensaje.
+	 * @param aKey
+	 *            es la clave del mensaje.
+	 * @param aText
+	 *            es el texto del mensaje.
+	 */
+	private static void createMessage(Session aSession, String aLocale,
+			String aKey, String aText) {
+		I18NMessage message = new I18NMessage();
+		message.setLocale(aLocale);
+		message.setMessage(aText);
+		message.setMessageKey(aKey);
+		message.setOid(IDGenerator.getId());
+		aSession.save(message);
+	}
 }
@@ -15,7 +15,9 @@ public class Tester2 {
 	/**
 	 * @param args
 	 */
-	public static void main(String[] args) {
+	public static void main(String[] args) throws Exception {
+		DBLoader.configureIDGenerator();
+
 		// ArrayList<String> array = new ArrayList<String>();
 		//
 		// array.add("[001] Ana Maria");
@@ -129,6 +129,13 @@ public class Item implements Versionable, Comparable<Item> {
 	 */
 	protected Collection<Comment> comments;
 
+	/**
+	 * Es la cantidad de comentarios de este tem. Se mantiene para no tener
+	 * que acceder a la coleccin de comentarios. Los tems comentados antes de
+	 * la existencia de esta cantidad no la tienen.
+	 */
+	protected Integer commentsCount;
+
 	/**
 	 * Es una coleccin que contiene los archivos adjuntos de este tem.
 	 */
@@ -155,6 +162,7 @@ public class Item implements Versionable, Comparable<Item> {
 		this.setOid(IDGenerator.getId());
 		this.setObservers(new ArrayList<AbstractUser>());
 		this.setComments(new ArrayList<Comment>());
+		this.commentsCount = Integer.valueOf(0);
 		this.setFiles(new ArrayList<ItemFile>());
 		this.setOldWorkflowNodes(new ArrayList<WorkflowNode>());
 		this.setAdditionalProperties(new HashMap<String, String>());
@@ -502,6 +510,27 @@ public class Item implements Versionable, Comparable<Item> {
 		return result;
 	}
 
+	/**
+	 * Libera las referencias de este tem hacia su prioridad, su tipo y la
+	 * descripcin de su nodo actual, decrementando la cantidad de referencias
+	 * de cada uno.<br>
+	 * Este mtodo se invoca cuando el tem va a ser eliminado, para que las
+	 * cantidades de referencias sigan siendo correctas.
+	 */
+	public void releaseReferences() {
+		if (this.getPriority() != null) {
+			this.getPriority().decreaseReferencesCount();
+		}
+
+		if (this.getItemType() != null) {
+			this.getItemType().decreaseReferencesCount();
+		}
+
+		if (this.getCurrentWorkflowNode() != null) {
+			this.getCurrentWorkflowNode().decreaseReferencesCount();
+		}
+	}
+
 	/**
 	 * Notifica al receptor que se prepare para ser eliminado del sistema.<br>
 	 * En el caso de un tem, esta preparacin consiste en romper todas las
@@ -618,9 +647,22 @@ public class Item implements Versionable, Comparable<Item> {
 
 		Comment aComment = new Comment(aCommentText, new Date(), anUser
 				.getUsername());
+		this.commentsCount = Integer.valueOf(this.getCommentsCount() + 1);
 		this.getComments().add(aComment);
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de comentarios de este tem. Si el tem no tiene la
+	 *         cantidad registrada se la calcula con una consulta, sin
+	 *         inicializar la coleccin de comentarios.
+	 */
+	public int getCommentsCount() {
+		return (this.commentsCount == null) ? this.getComments().size()
+				: this.commentsCount.intValue();
+	}
+
 	/**
 	 * Getter.
 	 * 
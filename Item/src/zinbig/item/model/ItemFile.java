@@ -33,6 +33,19 @@ public class ItemFile {
 	 */
 	protected String filename;
 
+	/**
+	 * Es el hash SHA-1 del contenido del archivo en el almacn de archivos
+	 * adjuntos. Los archivos adjuntados antes de la existencia del almacn no
+	 * tienen hash.
+	 */
+	protected String contentHash;
+
+	/**
+	 * Es el tamao (en bytes) del archivo. Los archivos adjuntados antes de la
+	 * existencia del almacn no tienen tamao.
+	 */
+	protected Long size;
+
 	/**
 	 * Constructor por defecto.
 	 */
@@ -111,4 +124,43 @@ public class ItemFile {
 		this.filename = aFilename;
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return el hash SHA-1 del contenido del archivo, o null si el archivo
+	 *         no est en el almacn de archivos adjuntos.
+	 */
+	public String getContentHash() {
+		return this.contentHash;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aHash
+	 *            es el hash SHA-1 del contenido del archivo.
+	 */
+	public void setContentHash(String aHash) {
+		this.contentHash = aHash;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tamao (en bytes) del archivo.
+	 */
+	public long getSize() {
+		return (this.size == null) ? 0 : this.size.longValue();
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aSize
+	 *            es el tamao (en bytes) del archivo.
+	 */
+	public void setSize(long aSize) {
+		this.size = Long.valueOf(aSize);
+	}
+
 }
@@ -0,0 +1,88 @@
+/**
+ * Este paquete contiene las clases e interfaces que componen la capa
+ * del modelo.
+ */
+package zinbig.item.model;
+
+/**
+ * Las instancias de esta clase se utilizan para representar el resultado de
+ * intentar mover un tem a otro nodo del workflow durante un movimiento masivo
+ * de tems.<br>
+ * Los resultados posibles son: Movido (el tem pas al nodo destino); No
+ * encontrado (no existe un tem con ese identificador en el proyecto);
+ * Identificador invlido (el identificador ingresado no es un nmero); No
+ * movible (el tem est cerrado, bloqueado o todava no ingres al workflow);
+ * Sin camino (no existe un camino en el workflow entre el nodo actual del tem
+ * y el nodo destino); Fallido (se produjo un error al procesar el tem); No
+ * procesado (el movimiento se interrumpi antes de procesar el tem).
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public enum ItemMovementResultEnum {
+	/**
+	 * El tem fue movido al nodo destino.
+	 */
+	MOVED(1),
+	/**
+	 * No existe un tem con el identificador recibido en el proyecto.
+	 */
+	NOT_FOUND(2),
+	/**
+	 * El identificador recibido no es un nmero.
+	 */
+	INVALID_ID(3),
+	/**
+	 * El tem est cerrado, bloqueado o todava no ingres al workflow, por lo
+	 * que no se puede mover.
+	 */
+	NOT_MOVABLE(4),
+	/**
+	 * No existe un camino en el workflow entre el nodo actual del tem y el
+	 * nodo destino.
+	 */
+	NO_PATH(5),
+	/**
+	 * Se produjo un error al procesar el tem y no se lo movi.
+	 */
+	FAILED(6),
+	/**
+	 * El movimiento se interrumpi antes de procesar el tem.
+	 */
+	NOT_PROCESSED(7);
+
+	/**
+	 * Es el valor de este enumerativo.
+	 */
+	protected Integer value;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param aValue
+	 *            es el valor de este enumerativo.
+	 */
+	private ItemMovementResultEnum(Integer aValue) {
+		this.value = aValue;
+	}
+
+	/**
+	 * Convierte el valor de este enumerativo a un entero.
+	 * 
+	 * @return el valor de este enumerativo.
+	 */
+	public Integer toInt() {
+		return this.value;
+	}
+
+	/**
+	 * Verifica si este resultado corresponde a un tem movido.
+	 * 
+	 * @return true en caso de que el tem haya sido movido; false en caso
+	 *         contrario.
+	 */
+	public boolean isMoved() {
+		return this == MOVED;
+	}
+
+}
@@ -226,6 +226,7 @@ public class Tracker {
 
 			// agrega el usuario
 			this.getUsers().add(newUser);
+			this.getUsersRepository().indexUser(newUser);
 
 			// asocia al usuario con cada uno de los grupos de usuarios.
 			Iterator<UserGroup> iterator = userGroups.iterator();
@@ -782,6 +783,7 @@ public class Tracker {
 		anUser.setPassword(encrypt);
 		anUser.setEmail(email);
 		anUser.setLanguage(language);
+		this.getUsersRepository().indexUser(anUser);
 
 		if (userGroups != null) {
 
@@ -980,6 +982,9 @@ public class Tracker {
 				aPriority, aState, aDate, responsibleUser, anItemType,
 				somePropertyDescriptions);
 
+		// las cantidades de tems de los listados dejan de ser vlidas.
+		this.getItemsRepository().invalidateItemsCount();
+
 		return newItem;
 	}
 
@@ -1162,6 +1167,9 @@ public class Tracker {
 			aProject.removeUser(anUser);
 		}
 
+		// elimina al usuario del ndice de nombres de usuario.
+		this.getUsersRepository().unindexUser(anUser);
+
 		// notifica al usuario que se prepare para ser eliminado.
 		anUser.prepareForDeletion();
 
@@ -5,6 +5,8 @@
 package zinbig.item.model.filters;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Esta clase representa el tope de la jerarqua de estrategias de conversin de
@@ -161,4 +163,74 @@ public abstract class FilterStringCreationStrategy {
 	 */
 	public abstract String getFilterStringForConcreteFilterComponentByText(
 			String aText);
+
+	/**
+	 * Crea el diccionario con los valores de los parmetros que requiere el
+	 * string de un filtro. Los valores se obtienen a partir de los componentes
+	 * del filtro, tal cual se almacenan en el mismo.<br>
+	 * Las estrategias que crean strings con los valores incluidos en forma
+	 * literal no requieren parmetros, por lo que esta implementacin retorna
+	 * un diccionario vaco.
+	 * 
+	 * @param aFilterComponentByProject
+	 *            es el componente de proyectos del filtro.
+	 * @param aFilterComponentByState
+	 *            es el componente de estados del filtro.
+	 * @param aFilterComponentByItemId
+	 *            es el componente de id del filtro.
+	 * @param aFilterComponentByResponsible
+	 *            es el componente de responsables del filtro.
+	 * @param aFilterComponentByItemType
+	 *            es el componente de tipos de tems del filtro.
+	 * @param aFilterComponentByNode
+	 *            es el componente de nodos de workflow del filtro.
+	 * @param aFilterComponentByText
+	 *            es el componente de texto del filtro.
+	 * @return un diccionario cuyas claves son los nombres de los parmetros y
+	 *         cuyos valores son los valores que se deben asignar a los mismos.
+	 */
+	public Map<String, Object> createFilterParameters(
+			String aFilterComponentByProject, String aFilterComponentByState,
+			String aFilterComponentByItemId,
+			String aFilterComponentByResponsible,
+			String aFilterComponentByItemType, String aFilterComponentByNode,
+			String aFilterComponentByText) {
+
+		return new HashMap<String, Object>();
+	}
+
+	/**
+	 * Convierte un valor seleccionado por el usuario en el texto con el que se
+	 * almacena en los componentes del filtro. El valor se encierra entre
+	 * comillas simples y las comillas simples que contenga se duplican, de
+	 * modo que cualquier valor (incluso uno que contenga comillas o comas) se
+	 * puede volver a obtener sin ambigedad y el texto es adems un literal
+	 * vlido de HQL.
+	 * 
+	 * @param aValue
+	 *            es el valor que se debe convertir.
+	 * @return el valor entre comillas.
+	 */
+	public String quoteValue(String aValue) {
+		return "'" + aValue.replace("'", "''") + "'";
+	}
+
+	/**
+	 * Une los valores recibidos, ya convertidos mediante el mtodo quoteValue,
+	 * separndolos con comas.
+	 * 
+	 * @param someQuotedValues
+	 *            es una coleccin con los valores entre comillas.
+	 * @return un string de la forma 'a', 'b'.
+	 */
+	public String joinValues(Collection<String> someQuotedValues) {
+		StringBuffer result = new StringBuffer();
+		for (String aValue : someQuotedValues) {
+			if (result.length() > 0) {
+				result.append(", ");
+			}
+			result.append(aValue);
+		}
+		return result.toString();
+	}
 }
@@ -0,0 +1,387 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para la creacin de filtros
+ * para los listados de tems.
+ */
+package zinbig.item.model.filters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import zinbig.item.model.ItemStateEnum;
+
+/**
+ * Las instancias de esta clase se utilizan para convertir a string los
+ * diferentes componentes de los filtros utilizando parmetros con nombre en
+ * lugar de incluir los valores en forma literal. <br>
+ * De esta forma todos los filtros que combinan los mismos componentes generan
+ * exactamente el mismo string HQL, independientemente de los valores
+ * seleccionados y del usuario, con lo que Hibernate puede reutilizar la
+ * traduccin de la consulta y la base de datos el plan de ejecucin de la
+ * sentencia preparada.<br>
+ * Los valores de los parmetros se obtienen a partir de los componentes del
+ * filtro mediante el mtodo createFilterParameters.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class ParameterizedHibernateFilterStringCreationStrategy extends
+		HibernateFilterStringCreationStrategy {
+
+	/**
+	 * Es el nombre del parmetro que contiene los oids de los proyectos
+	 * seleccionados.
+	 */
+	public static final String SELECTED_PROJECTS_PARAMETER = "selectedProjects";
+
+	/**
+	 * Es el nombre del parmetro que contiene los oids de los proyectos del
+	 * usuario. El valor de este parmetro lo asigna el repositorio.
+	 */
+	public static final String USER_PROJECTS_PARAMETER = "userProjects";
+
+	/**
+	 * Es el nombre del parmetro que contiene los estados seleccionados.
+	 */
+	public static final String STATES_PARAMETER = "states";
+
+	/**
+	 * Es el nombre del parmetro que contiene el id del tem.
+	 */
+	public static final String ITEM_ID_PARAMETER = "itemId";
+
+	/**
+	 * Es el nombre del parmetro que contiene los oids de los responsables.
+	 */
+	public static final String RESPONSIBLES_PARAMETER = "responsibles";
+
+	/**
+	 * Es el nombre del parmetro que contiene los ttulos de los tipos de
+	 * tems.
+	 */
+	public static final String ITEM_TYPES_PARAMETER = "itemTypes";
+
+	/**
+	 * Es el nombre del parmetro que contiene los ttulos de los nodos.
+	 */
+	public static final String NODES_PARAMETER = "nodes";
+
+	/**
+	 * Es el nombre del parmetro que contiene el texto a buscar.
+	 */
+	public static final String TEXT_PARAMETER = "text";
+
+	/**
+	 * Es el nombre del parmetro que contiene los oids de los tems cuyo texto
+	 * coincide con el texto buscado segn el ndice de texto. El valor de este
+	 * parmetro lo asigna el repositorio.
+	 */
+	public static final String TEXT_MATCHES_PARAMETER = "textMatches";
+
+	/**
+	 * Es la condicin del filtro por texto que se resuelve mediante el ndice
+	 * de texto de los tems. El repositorio la completa con la condicin
+	 * TEXT_LIKE_CONDITION, que se evala nicamente sobre los candidatos.
+	 */
+	public static final String TEXT_INDEX_CONDITION = " AND (i.oid in (:"
+			+ TEXT_MATCHES_PARAMETER + "))";
+
+	/**
+	 * Es la condicin del filtro por texto que se resuelve en la base de datos:
+	 * el texto (que puede contener los comodines % y _) debe aparecer en el
+	 * ttulo, en la descripcin o en alguno de los comentarios del tem. Esta
+	 * condicin define el resultado del filtro por texto; el ndice de texto
+	 * solamente reduce la cantidad de tems sobre los que se evala.
+	 */
+	public static final String TEXT_LIKE_CONDITION = " AND (i.title like :"
+			+ TEXT_PARAMETER + " OR i.description like :" + TEXT_PARAMETER
+			+ " OR exists (select c.oid from zinbig.item.model.Item ti"
+			+ " join ti.comments c where ti = i and c.comment like :"
+			+ TEXT_PARAMETER + "))";
+
+	/**
+	 * Crea el string correspondiente al componente de filtro de proyectos que
+	 * toma en cuenta un proyecto en particular para armar el string.
+	 * 
+	 * @param selectedProjectOids
+	 *            es una coleccin que contiene los oids de los proyectos
+	 *            seleccionados por el usuario.
+	 * @param negate
+	 *            define si se debe negar o no la condicin de este filtro.
+	 * @return el string HQL parametrizado.
+	 */
+	@Override
+	public String getFilterStringForFilterComponentByProjectWithSelectedProject(
+			String selectedProjectOids, boolean negate) {
+
+		String aux = "";
+		if (negate) {
+			aux = " NOT ";
+		}
+
+		return "(i.project.oid " + aux + " in (:"
+				+ SELECTED_PROJECTS_PARAMETER + "))";
+	}
+
+	/**
+	 * Crea el string correspondiente al componente de filtro de proyectos que
+	 * debe considerar los proyectos pblicos y todos los proyectos privados en
+	 * los que participa el usuario.
+	 * 
+	 * @return el string HQL parametrizado.
+	 */
+	@Override
+	public String getFilterStringForFilterComponentByProjectWithUser() {
+
+		return "(i.project.publicProject=true or i.project.oid in (:"
+				+ USER_PROJECTS_PARAMETER + "))";
+	}
+
+	/**
+	 * Crea el string correspondiente al componente del filtro que filtra los
+	 * items por su estado.
+	 * 
+	 * @param values
+	 *            es una coleccin de estados por los que hay que filtrar los
+	 *            tems.
+	 * @param negate
+	 *            define si se debe negar o no la condicin que se est creando.
+	 * @return el string HQL parametrizado.
+	 */
+	@Override
+	public String getFilterStringForConcreteFilterComponentByState(
+			Collection<String> values, boolean negate) {
+
+		String aux = "";
+		if (negate) {
+			aux = " NOT ";
+		}
+
+		return " AND (i.state" + aux + " in (:" + STATES_PARAMETER + "))";
+	}
+
+	/**
+	 * Crea el string correspondiente al componente de filtro de items por su
+	 * id.
+	 * 
+	 * @param aSelectedItemId
+	 *            es el valor del filtro.
+	 * @return el string HQL parametrizado.
+	 */
+	@Override
+	public String getFilterStringForConcreteFilterComponentByItemId(
+			String aSelectedItemId) {
+		return " AND (i.itemId=:" + ITEM_ID_PARAMETER + ")";
+	}
+
+	/**
+	 * Crea el string correspondiente al componente de filtro de items por su
+	 * responsable.
+	 * 
+	 * @param someOids
+	 *            es una coleccin que contiene los identificadores para filtrar
+	 *            por el responsable.
+	 * @param negate
+	 *            define si se debe negar o no la condicin que se est creando.
+	 * @return el string HQL parametrizado.
+	 */
+	@Override
+	public String getFilterStringForConcreteFilterComponentByResponsible(
+			Collection<String> someOids, boolean negate) {
+		String aux = "";
+		if (negate) {
+			aux = " NOT ";
+		}
+		return " AND (i.responsible.id" + aux + " in (:"
+				+ RESPONSIBLES_PARAMETER + "))";
+	}
+
+	/**
+	 * Crea el string correspondiente al componente de filtro de items por su
+	 * tipo.
+	 * 
+	 * @param someTitles
+	 *            es una coleccin de ttulos de tipos de tems por los que se
+	 *            debe filtrar.
+	 * @param negate
+	 *            define si se debe negar o no la condicin que se est creando.
+	 * @return el string HQL parametrizado.
+	 */
+	@Override
+	public String getFilterStringForConcreteFilterComponentByItemType(
+			Collection<String> someTitles, boolean negate) {
+		String aux = "";
+		if (negate) {
+			aux = " NOT ";
+		}
+		return " AND (i.itemType.title" + aux + " in (:"
+				+ ITEM_TYPES_PARAMETER + "))";
+	}
+
+	/**
+	 * Crea el string correspondiente al componente de filtro de items por su
+	 * nodo de workflow.
+	 * 
+	 * @param someTitles
+	 *            es una coleccin de ttulos de nodos de workflow por los que
+	 *            se debe filtrar.
+	 * @param negate
+	 *            define si se debe negar o no la condicin que se est creando.
+	 * @return el string HQL parametrizado.
+	 */
+	@Override
+	public String getFilterStringForConcreteFilterComponentByNode(
+			Collection<String> someTitles, boolean negate) {
+		String aux = "";
+		if (negate) {
+			aux = " NOT ";
+		}
+		return " AND (i.currentWorkflowNode.title" + aux + " in (:"
+				+ NODES_PARAMETER + "))";
+
+	}
+
+	/**
+	 * Crea el string correspondiente al componente de filtro de items por su
+	 * texto. La condicin se resuelve mediante el conjunto de oids candidatos
+	 * que obtiene el repositorio a partir del ndice de texto.
+	 * 
+	 * @param aText
+	 *            es el texto por el cual se deben filtrar los tems.
+	 * @return el string HQL parametrizado.
+	 */
+	@Override
+	public String getFilterStringForConcreteFilterComponentByText(String aText) {
+
+		return TEXT_INDEX_CONDITION;
+
+	}
+
+	/**
+	 * Crea el diccionario con los valores de los parmetros que requiere el
+	 * string de un filtro a partir de sus componentes. Los componentes vacos
+	 * no generan parmetros.
+	 * 
+	 * @param aFilterComponentByProject
+	 *            es el componente de proyectos del filtro, de la forma
+	 *            ('oid1', 'oid2').
+	 * @param aFilterComponentByState
+	 *            es el componente de estados del filtro, de la forma '1', '2'.
+	 * @param aFilterComponentByItemId
+	 *            es el componente de id del filtro.
+	 * @param aFilterComponentByResponsible
+	 *            es el componente de responsables del filtro.
+	 * @param aFilterComponentByItemType
+	 *            es el componente de tipos de tems del filtro.
+	 * @param aFilterComponentByNode
+	 *            es el componente de nodos de workflow del filtro.
+	 * @param aFilterComponentByText
+	 *            es el componente de texto del filtro.
+	 * @return un diccionario con los valores de los parmetros.
+	 */
+	@Override
+	public Map<String, Object> createFilterParameters(
+			String aFilterComponentByProject, String aFilterComponentByState,
+			String aFilterComponentByItemId,
+			String aFilterComponentByResponsible,
+			String aFilterComponentByItemType, String aFilterComponentByNode,
+			String aFilterComponentByText) {
+
+		Map<String, Object> result = new HashMap<String, Object>();
+
+		Collection<String> projects = this
+				.parseValues(aFilterComponentByProject);
+		if (!projects.isEmpty()) {
+			result.put(SELECTED_PROJECTS_PARAMETER, projects);
+		}
+
+		Collection<String> states = this.parseValues(aFilterComponentByState);
+		if (!states.isEmpty()) {
+			Collection<ItemStateEnum> stateValues = new ArrayList<ItemStateEnum>();
+			for (String aState : states) {
+				stateValues.add(ItemStateEnum.fromInt(new Integer(aState)));
+			}
+			result.put(STATES_PARAMETER, stateValues);
+		}
+
+		if (aFilterComponentByItemId != null
+				&& !aFilterComponentByItemId.trim().equals("")) {
+			int itemId = -1;
+			try {
+				itemId = Integer.parseInt(aFilterComponentByItemId.trim());
+			} catch (NumberFormatException e) {
+				// un id invlido no debe coincidir con ningn tem.
+			}
+			result.put(ITEM_ID_PARAMETER, new Integer(itemId));
+		}
+
+		Collection<String> responsibles = this
+				.parseValues(aFilterComponentByResponsible);
+		if (!responsibles.isEmpty()) {
+			result.put(RESPONSIBLES_PARAMETER, responsibles);
+		}
+
+		Collection<String> itemTypes = this
+				.parseValues(aFilterComponentByItemType);
+		if (!itemTypes.isEmpty()) {
+			result.put(ITEM_TYPES_PARAMETER, itemTypes);
+		}
+
+		Collection<String> nodes = this.parseValues(aFilterComponentByNode);
+		if (!nodes.isEmpty()) {
+			result.put(NODES_PARAMETER, nodes);
+		}
+
+		if (aFilterComponentByText != null
+				&& !aFilterComponentByText.equals("")) {
+			result.put(TEXT_PARAMETER, aFilterComponentByText);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Convierte el string de un componente del filtro, de la forma ('a', 'b')
+	 * o 'a', 'b', en una coleccin con cada uno de sus valores. <br>
+	 * Cada valor est encerrado entre comillas simples y las comillas simples
+	 * que contiene estn duplicadas (ver el mtodo quoteValue), por lo que el
+	 * string se recorre caracter por caracter en lugar de separarlo por las
+	 * comas: un valor puede contener comas, comillas o la secuencia ', '.
+	 * 
+	 * @param aComponentString
+	 *            es el string del componente.
+	 * @return una coleccin con los valores del componente.
+	 */
+	protected Collection<String> parseValues(String aComponentString) {
+		Collection<String> result = new ArrayList<String>();
+
+		if (aComponentString == null) {
+			return result;
+		}
+
+		StringBuffer aValue = null;
+		int length = aComponentString.length();
+		for (int i = 0; i < length; i++) {
+			char aChar = aComponentString.charAt(i);
+			if (aValue == null) {
+				// fuera de un valor slo hay separadores y parntesis.
+				if (aChar == '\'') {
+					aValue = new StringBuffer();
+				}
+			} else if (aChar != '\'') {
+				aValue.append(aChar);
+			} else if (i + 1 < length
+					&& aComponentString.charAt(i + 1) == '\'') {
+				// comilla duplicada dentro del valor.
+				aValue.append(aChar);
+				i++;
+			} else {
+				result.add(aValue.toString());
+				aValue = null;
+			}
+		}
+		return result;
+	}
+
+}
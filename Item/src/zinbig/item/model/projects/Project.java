@@ -8,9 +8,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import zinbig.item.model.Item;
+import zinbig.item.model.ItemMovementResultEnum;
 import zinbig.item.model.ItemStateEnum;
 import zinbig.item.model.ItemType;
 import zinbig.item.model.exceptions.ItemTypeTitleNotUniqueException;
@@ -470,7 +472,7 @@ public class Project extends Object implements Versionable {
 	 * 
 	 * @return el id del prximo tem.
 	 */
-	private int getNextItemId() {
+	public int getNextItemId() {
 		return this.nextItemId;
 	}
 
@@ -632,7 +634,9 @@ public class Project extends Object implements Versionable {
 							responsibleCandidate);
 			currentNode = this.getInitialWorkflowNodeForUser(itemResponsible);
 		}
-		int nextId = this.getNextItemIdForItem();
+		// el nmero se asigna a travs del repositorio para no modificar el
+		// proyecto (y su versin) con cada nuevo tem.
+		int nextId = this.getProjectsRepository().getNextItemNumber(this);
 		Item anItem = new Item(nextId, anUser, this, aTitle, aDescription,
 				aPriority, aState, aDate, itemResponsible, anItemType,
 				somePropertyDescriptions);
@@ -806,7 +810,12 @@ public class Project extends Object implements Versionable {
 	/**
 	 * Elimina del proyecto los items recibidos.<br>
 	 * Si el usuario no es el lder del proyecto entonces solamente se eliminan
-	 * los tems cuyo responsable actual es el usuario.
+	 * los tems cuyo responsable actual es el usuario.<br>
+	 * Cada tem que se elimina libera sus referencias hacia su prioridad, su
+	 * tipo y su nodo actual. La eliminacin efectiva de los tems y de sus
+	 * comentarios, archivos, nodos y propiedades adicionales la realiza luego
+	 * el repositorio de tems en forma masiva, por lo que no se recorre la
+	 * coleccin de tems de este proyecto.
 	 * 
 	 * @param someItems
 	 *            es una coleccin que contiene los tems que deben eliminarse.
@@ -822,26 +831,16 @@ public class Project extends Object implements Versionable {
 		// si el usuario es el lder del proyecto intenta borrar todos los
 		// tems. Si no es el lder entonces verifica que cada tem est
 		// asignado al usuario
-		if (anUser.equals(this.getProjectLeader())) {
+		boolean isLeader = anUser.equals(this.getProjectLeader());
 
-			while (itemsIterator.hasNext()) {
-				anItem = itemsIterator.next();
-				anItem.prepareForDeletion();
-
-			}
-		} else {
-
-			while (itemsIterator.hasNext()) {
-				anItem = itemsIterator.next();
-				if (!anItem.getResponsible().equals(anUser)) {
-					itemsIterator.remove();
-				} else {
-					anItem.prepareForDeletion();
-				}
+		while (itemsIterator.hasNext()) {
+			anItem = itemsIterator.next();
+			if (!isLeader && !anUser.equals(anItem.getResponsible())) {
+				itemsIterator.remove();
+			} else {
+				anItem.releaseReferences();
 			}
-
 		}
-		this.getItems().removeAll(someItems);
 
 		return someItems;
 
@@ -1031,40 +1030,56 @@ public class Project extends Object implements Versionable {
 	/**
 	 * Mueve masivamente los tems recibidos a un nuevo nodo del workflow del
 	 * proyecto.<br>
-	 * Los tems que estn cerrados o bloqueados no se pueden mover. Tampoco se
-	 * pueden mover los tems que estn en un nodo del workflow que no est
-	 * conectado (aunque sea en forma indirecta) con el nodo destino.
+	 * Los tems que estn cerrados o bloqueados no se pueden mover, al igual
+	 * que los que todava no ingresaron al workflow. Tampoco se pueden mover
+	 * los tems que estn en un nodo del workflow que no est conectado
+	 * (aunque sea en forma indirecta) con el nodo destino.<br>
+	 * Cada tem movido queda asignado en el nodo destino a su responsable
+	 * actual.
 	 * 
 	 * @param items
 	 *            es una coleccin que contiene los tems que se intenta mover.
 	 * @param aNode
 	 *            es la descripcin de nodo a la cual se debera mover los
 	 *            tems.
-	 * @return una coleccin de strings que contiene los ids de los tems que se
-	 *         pudieron pasar al nuevo nodo.
+	 * @return un diccionario que contiene para el id de cada tem recibido el
+	 *         resultado de intentar moverlo.
 	 */
-	public Collection<String> massiveItemsMovement(Collection<Item> items,
-			WorkflowNodeDescription aNode) {
-		Collection<String> result = new ArrayList<String>();
+	public Map<String, ItemMovementResultEnum> massiveItemsMovement(
+			Collection<Item> items, WorkflowNodeDescription aNode) {
+		Map<String, ItemMovementResultEnum> result = new LinkedHashMap<String, ItemMovementResultEnum>();
+		boolean moved = false;
 
 		// itera los tems para tratar de moverlos
 		for (Item i : items) {
+			String anId = new Integer(i.getItemId()).toString();
+
 			// verifica que no est ni bloqueado ni terminado
-			if (!i.getState().equals(ItemStateEnum.BLOCKED)
-					&& !i.getState().equals(ItemStateEnum.CLOSED)) {
+			if (i.getState().equals(ItemStateEnum.BLOCKED)
+					|| i.getState().equals(ItemStateEnum.CLOSED)
+					|| i.getCurrentWorkflowNode() == null) {
+				result.put(anId, ItemMovementResultEnum.NOT_MOVABLE);
 
 				// intenta mover al siguiente nodo del workflow verificando si
 				// hay un camino
-				if (this.getWorkflowDescription().verifyPathBetweenNodes(
-						i.getCurrentWorkflowNode().getNodeDescription(), aNode,
-						i.getItemType())) {
-					// mueve el tem
-					result.add(new Integer(i.getItemId()).toString());
-				}
-
+			} else if (this.getWorkflowDescription().verifyPathBetweenNodes(
+					i.getCurrentWorkflowNode().getNodeDescription(), aNode,
+					i.getItemType())) {
+				// mueve el tem
+				this.assignItemToUser(i, i.getResponsible(), aNode);
+				result.put(anId, ItemMovementResultEnum.MOVED);
+				moved = true;
+
+			} else {
+				result.put(anId, ItemMovementResultEnum.NO_PATH);
 			}
 		}
 
+		if (moved) {
+			// las cantidades de tems de los listados dejan de ser vlidas.
+			this.getItemsRepository().invalidateItemsCount();
+		}
+
 		return result;
 	}
 
@@ -22,6 +22,12 @@ public class DynamicValuesListPropertyDescription extends
 	 */
 	public String query;
 
+	/**
+	 * Es la cantidad mxima de valores que se recuperan con la consulta. Si no
+	 * est definida se utiliza la cantidad mxima por defecto.
+	 */
+	protected Integer maxValues;
+
 	/**
 	 * Constructor.
 	 */
@@ -63,6 +69,28 @@ public class DynamicValuesListPropertyDescription extends
 		this.query = aSQLString;
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad mxima de valores que se recuperan con la consulta,
+	 *         o null si se debe utilizar la cantidad mxima por defecto.
+	 */
+	public Integer getMaxValues() {
+		return this.maxValues;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad mxima de valores que se recuperan con la
+	 *            consulta, o null si se debe utilizar la cantidad mxima por
+	 *            defecto.
+	 */
+	public void setMaxValues(Integer aNumber) {
+		this.maxValues = aNumber;
+	}
+
 	/**
 	 * Configura al receptor con valores adicionales. Cada subclase debe
 	 * reimplementar este mtodo.
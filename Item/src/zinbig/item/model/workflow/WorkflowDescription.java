@@ -7,6 +7,7 @@ package zinbig.item.model.workflow;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 
 import zinbig.item.model.ItemType;
 import zinbig.item.model.exceptions.WorkflowLinkDescriptionTitleNotUniqueException;
@@ -82,6 +83,13 @@ public class WorkflowDescription implements Versionable, Cloneable {
 		this("", null);
 	}
 
+	/**
+	 * Es la informacin de alcance entre las descripciones de nodos de este
+	 * workflow, compilada la primera vez que se la necesita. No se persiste y
+	 * se descarta cada vez que cambian los enlaces o los nodos.
+	 */
+	protected transient WorkflowReachability reachability;
+
 	/**
 	 * Constructor.
 	 * 
@@ -236,6 +244,7 @@ public class WorkflowDescription implements Versionable, Cloneable {
 		WorkflowDescription clone = (WorkflowDescription) super.clone();
 		clone.setVersion(1);
 		clone.setOid(IDGenerator.getId());
+		clone.invalidateReachability();
 		clone.setInitialNodeDescription((WorkflowNodeDescription) this
 				.getInitialNodeDescription().clone());
 
@@ -282,6 +291,7 @@ public class WorkflowDescription implements Versionable, Cloneable {
 		newNode.setAuthorizedUsers(someUsers);
 
 		this.getWorkflowNodeDescriptions().add(newNode);
+		this.invalidateReachability();
 
 	}
 
@@ -329,6 +339,7 @@ public class WorkflowDescription implements Versionable, Cloneable {
 			aNodeDescription.prepareForDeletion();
 			this.getWorkflowNodeDescriptions().remove(aNodeDescription);
 		}
+		this.invalidateReachability();
 
 	}
 
@@ -368,6 +379,7 @@ public class WorkflowDescription implements Versionable, Cloneable {
 			initialNode.addWorkflowLinkDescription(link);
 			link.setItemTypes(itemTypes);
 			this.getWorkflowLinkDescriptions().add(link);
+			this.invalidateReachability();
 
 		}
 
@@ -427,6 +439,7 @@ public class WorkflowDescription implements Versionable, Cloneable {
 					aLink);
 		}
 		this.getWorkflowLinkDescriptions().removeAll(someLinkDescriptions);
+		this.invalidateReachability();
 
 	}
 
@@ -449,6 +462,7 @@ public class WorkflowDescription implements Versionable, Cloneable {
 
 		// el nodo inicial no se toca as se elimina en cascada con este
 		// workflow.
+		this.invalidateReachability();
 
 	}
 
@@ -467,6 +481,7 @@ public class WorkflowDescription implements Versionable, Cloneable {
 			aLink = iterator.next();
 			aLink.getItemTypes().remove(anItemType);
 		}
+		this.invalidateReachability();
 
 	}
 
@@ -569,6 +584,7 @@ public class WorkflowDescription implements Versionable, Cloneable {
 		aWorkflowNodeDescription.setFinalNode(isFinalNode);
 		aWorkflowNodeDescription.getAuthorizedUsers().clear();
 		aWorkflowNodeDescription.getAuthorizedUsers().addAll(someUsers);
+		this.invalidateReachability();
 
 	}
 
@@ -587,10 +603,53 @@ public class WorkflowDescription implements Versionable, Cloneable {
 	 */
 	public boolean verifyPathBetweenNodes(WorkflowNodeDescription originNode,
 			WorkflowNodeDescription destinationNode, ItemType anItemType) {
-		Collection<WorkflowNodeDescription> visited = new ArrayList<WorkflowNodeDescription>();
 
-		return originNode.hasALinkToWorkflowNodeDescription(destinationNode,
-				anItemType, visited);
+		return this.getReachability().hasPath(originNode, destinationNode,
+				anItemType);
+	}
+
+	/**
+	 * Recupera las descripciones de nodos a las que se puede llegar desde una
+	 * descripcin de nodo dada a travs de un nico enlace. Se recorren
+	 * directamente los enlaces del nodo, sin compilar la informacin de
+	 * alcance de todo el workflow.
+	 * 
+	 * @param aNodeDescription
+	 *            es la descripcin de nodo origen.
+	 * @return una coleccin con las descripciones de nodos vecinas, sin
+	 *         repeticiones.
+	 */
+	public Collection<WorkflowNodeDescription> getAdjacentWorkflowNodeDescriptions(
+			WorkflowNodeDescription aNodeDescription) {
+
+		Collection<WorkflowNodeDescription> result = new LinkedHashSet<WorkflowNodeDescription>();
+		for (WorkflowLinkDescription aLink : aNodeDescription
+				.getWorkflowLinks()) {
+			result.add(aLink.getFinalNodeDescription());
+		}
+		return result;
+	}
+
+	/**
+	 * Getter.<br>
+	 * Compila la informacin de alcance entre los nodos la primera vez que se
+	 * la necesita.
+	 * 
+	 * @return la informacin de alcance entre las descripciones de nodos.
+	 */
+	protected synchronized WorkflowReachability getReachability() {
+		if (this.reachability == null) {
+			this.reachability = new WorkflowReachability(this);
+		}
+		return this.reachability;
+	}
+
+	/**
+	 * Descarta la informacin de alcance entre los nodos, que se vuelve a
+	 * compilar en el prximo uso.
+	 */
+	public synchronized void invalidateReachability() {
+		this.reachability = null;
 	}
 
 }
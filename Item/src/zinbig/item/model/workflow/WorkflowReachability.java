@@ -0,0 +1,210 @@
+/**
+ * Este paquete contiene las clases e interfaces requeridas para modelar la 
+ * funcionalidad asociada a los workflows, sus nodos y links entre estos ltimos.
+ */
+package zinbig.item.model.workflow;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import zinbig.item.model.ItemType;
+
+/**
+ * Las instancias de esta clase representan la informacin de alcance de las
+ * descripciones de nodos de una descripcin de workflow, compilada en forma de
+ * bitsets. <br>
+ * Al construirse se numeran todas las descripciones de nodos y se calcula,
+ * para cada una, el conjunto de nodos vecinos y el conjunto de nodos
+ * alcanzables (clausura transitiva). Para cada tipo de tem se calcula luego,
+ * en forma perezosa, el conjunto de nodos destino alcanzables desde cada nodo,
+ * de modo que verificar si existe un camino entre dos nodos se reduce a
+ * consultar un bit.<br>
+ * Se mantiene la semntica del recorrido original: existe un camino hacia el
+ * nodo destino si desde algn nodo alcanzable (incluyendo el nodo origen) hay
+ * un enlace hacia el destino que contiene al tipo de tem.<br>
+ * Las instancias no se actualizan: la descripcin de workflow descarta su
+ * instancia cada vez que cambian sus enlaces o nodos.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class WorkflowReachability {
+
+	/**
+	 * Contiene el nmero asignado a cada descripcin de nodo.
+	 */
+	private final Map<WorkflowNodeDescription, Integer> indexes;
+
+	/**
+	 * Contiene las descripciones de nodos en el orden de su numeracin.
+	 */
+	private final List<WorkflowNodeDescription> nodes;
+
+	/**
+	 * Contiene para cada nodo sus enlaces salientes.
+	 */
+	private final List<List<WorkflowLinkDescription>> links;
+
+	/**
+	 * Contiene para cada nodo el conjunto de nodos vecinos.
+	 */
+	private final BitSet[] successors;
+
+	/**
+	 * Contiene para cada nodo el conjunto de nodos alcanzables, incluyendo al
+	 * mismo nodo.
+	 */
+	private final BitSet[] closure;
+
+	/**
+	 * Contiene para cada tipo de tem los conjuntos de nodos destino
+	 * alcanzables desde cada nodo.
+	 */
+	private final Map<ItemType, BitSet[]> reachableByItemType;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param aWorkflowDescription
+	 *            es la descripcin de workflow que se debe compilar.
+	 */
+	public WorkflowReachability(WorkflowDescription aWorkflowDescription) {
+		this.indexes = new IdentityHashMap<WorkflowNodeDescription, Integer>();
+		this.nodes = new ArrayList<WorkflowNodeDescription>();
+		this.links = new ArrayList<List<WorkflowLinkDescription>>();
+		this.reachableByItemType = new HashMap<ItemType, BitSet[]>();
+
+		// numera los nodos, incluyendo los que solamente se alcanzan como
+		// destino de un enlace.
+		this.indexOf(aWorkflowDescription.getInitialNodeDescription());
+		for (WorkflowNodeDescription aNode : aWorkflowDescription
+				.getWorkflowNodeDescriptions()) {
+			this.indexOf(aNode);
+		}
+		for (int i = 0; i < this.nodes.size(); i++) {
+			List<WorkflowLinkDescription> nodeLinks = new ArrayList<WorkflowLinkDescription>(
+					this.nodes.get(i).getWorkflowLinks());
+			this.links.add(nodeLinks);
+			for (WorkflowLinkDescription aLink : nodeLinks) {
+				this.indexOf(aLink.getFinalNodeDescription());
+			}
+		}
+
+		int size = this.nodes.size();
+		this.successors = new BitSet[size];
+		for (int i = 0; i < size; i++) {
+			this.successors[i] = new BitSet(size);
+			for (WorkflowLinkDescription aLink : this.links.get(i)) {
+				this.successors[i].set(this.indexes.get(aLink
+						.getFinalNodeDescription()));
+			}
+		}
+
+		// clausura transitiva (Warshall sobre bitsets).
+		this.closure = new BitSet[size];
+		for (int i = 0; i < size; i++) {
+			this.closure[i] = (BitSet) this.successors[i].clone();
+			this.closure[i].set(i);
+		}
+		for (int k = 0; k < size; k++) {
+			for (int i = 0; i < size; i++) {
+				if (this.closure[i].get(k)) {
+					this.closure[i].or(this.closure[k]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Obtiene el nmero de una descripcin de nodo, numerndola si todava no
+	 * tiene uno.
+	 * 
+	 * @param aNode
+	 *            es la descripcin de nodo.
+	 * @return el nmero de la descripcin de nodo.
+	 */
+	private int indexOf(WorkflowNodeDescription aNode) {
+		Integer result = this.indexes.get(aNode);
+		if (result == null) {
+			result = this.nodes.size();
+			this.indexes.put(aNode, result);
+			this.nodes.add(aNode);
+		}
+		return result;
+	}
+
+	/**
+	 * Verifica si existe un camino entre dos descripciones de nodos para un
+	 * tipo de tem.
+	 * 
+	 * @param originNode
+	 *            es el nodo origen.
+	 * @param destinationNode
+	 *            es el nodo destino.
+	 * @param anItemType
+	 *            es el tipo de tem.
+	 * @return true en caso de que exista un camino; false en caso contrario.
+	 */
+	public boolean hasPath(WorkflowNodeDescription originNode,
+			WorkflowNodeDescription destinationNode, ItemType anItemType) {
+		Integer origin = this.indexes.get(originNode);
+		Integer destination = this.indexes.get(destinationNode);
+		if (origin == null) {
+			// el nodo origen no pertenece a este workflow.
+			return originNode.hasALinkToWorkflowNodeDescription(
+					destinationNode, anItemType,
+					new ArrayList<WorkflowNodeDescription>());
+		}
+		if (destination == null) {
+			return false;
+		}
+
+		return this.getReachable(anItemType)[origin].get(destination);
+	}
+
+	/**
+	 * Obtiene los conjuntos de nodos destino alcanzables desde cada nodo para
+	 * un tipo de tem, calculndolos si todava no se hizo.
+	 * 
+	 * @param anItemType
+	 *            es el tipo de tem.
+	 * @return un arreglo con un conjunto de nodos destino por cada nodo.
+	 */
+	private synchronized BitSet[] getReachable(ItemType anItemType) {
+		BitSet[] result = this.reachableByItemType.get(anItemType);
+
+		if (result == null) {
+			int size = this.nodes.size();
+
+			// destinos de los enlaces que contienen al tipo de tem.
+			BitSet[] targets = new BitSet[size];
+			for (int i = 0; i < size; i++) {
+				targets[i] = new BitSet(size);
+				for (WorkflowLinkDescription aLink : this.links.get(i)) {
+					if (aLink.containsItemType(anItemType)) {
+						targets[i].set(this.indexes.get(aLink
+								.getFinalNodeDescription()));
+					}
+				}
+			}
+
+			result = new BitSet[size];
+			for (int i = 0; i < size; i++) {
+				result[i] = new BitSet(size);
+				BitSet reachable = this.closure[i];
+				for (int m = reachable.nextSetBit(0); m >= 0; m = reachable
+						.nextSetBit(m + 1)) {
+					result[i].or(targets[m]);
+				}
+			}
+			this.reachableByItemType.put(anItemType, result);
+		}
+
+		return result;
+	}
+
+}
@@ -6,7 +6,10 @@ package zinbig.item.repositories.bi;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
+import zinbig.item.model.Comment;
 import zinbig.item.model.Item;
 import zinbig.item.model.ItemFile;
 import zinbig.item.model.ItemType;
@@ -20,6 +23,8 @@ import zinbig.item.model.users.User;
 import zinbig.item.util.dto.ItemDTO;
 import zinbig.item.util.dto.ItemTypeDTO;
 import zinbig.item.util.dto.ProjectDTO;
+import zinbig.item.util.persistence.CommentsPageCursor;
+import zinbig.item.util.persistence.ItemsPageCursor;
 
 /**
  * Esta interface establece el protocolo estndar que deber ser respetado por
@@ -42,6 +47,9 @@ public interface ItemsRepositoryBI extends ItemAbstractRepositoryBI {
 	 *            es el proyecto actual. Este parmetro puede ser nulo.
 	 * @param aFilterString
 	 *            es el filtro que se debe aplicar a los tems.
+	 * @param someParameters
+	 *            es un diccionario con los valores de los parmetros del
+	 *            filtro.
 	 * @param beginIndex
 	 *            es el ndice de inicio.
 	 * @param count
@@ -54,8 +62,90 @@ public interface ItemsRepositoryBI extends ItemAbstractRepositoryBI {
 	 * @return una coleccin de tems del sistema.
 	 */
 	public Collection<Item> findItems(User anUser, Project aProject,
-			String aFilterString, int beginIndex, int count,
-			String aPropertyName, String anOrdering);
+			String aFilterString, Map<String, Object> someParameters,
+			int beginIndex, int count, String aPropertyName,
+			String anOrdering);
+
+	/**
+	 * Recupera una pgina de tems utilizando el cursor recibido. Si el cursor
+	 * conoce la clave de la fila anterior a la pgina pedida se contina el
+	 * listado a partir de ella; en caso contrario se utiliza el ndice de
+	 * inicio. El cursor queda actualizado con la clave de la ltima fila
+	 * recuperada.
+	 * 
+	 * @param anUser
+	 *            es el usuario para el cual se deben listar los tems.
+	 * @param aProject
+	 *            es el proyecto actual. Este parmetro puede ser nulo.
+	 * @param aFilterString
+	 *            es el filtro que se debe aplicar a los tems.
+	 * @param someParameters
+	 *            es un diccionario con los valores de los parmetros del
+	 *            filtro.
+	 * @param beginIndex
+	 *            es el ndice de inicio.
+	 * @param count
+	 *            es la cantidad a recuperar.
+	 * @param aPropertyName
+	 *            es el nombre de la propiedad que se debe utilizar para ordenar
+	 *            los resultados.
+	 * @param anOrdering
+	 *            es el orden que se debe aplicar a los resultados.
+	 * @param aCursor
+	 *            es el cursor que mantiene la posicin del listado.
+	 * @return una coleccin de tems del sistema.
+	 */
+	public Collection<Item> findItems(User anUser, Project aProject,
+			String aFilterString, Map<String, Object> someParameters,
+			int beginIndex, int count, String aPropertyName,
+			String anOrdering, ItemsPageCursor aCursor);
+
+	/**
+	 * Recupera una pgina del listado de tems como filas que contienen
+	 * nicamente las columnas necesarias para crear los dtos de los tems, sin
+	 * instanciar los objetos del modelo. La paginacin utiliza el cursor
+	 * recibido de la misma forma que el mtodo findItems.
+	 * 
+	 * @param anUser
+	 *            es el usuario para el cual se deben listar los tems.
+	 * @param aProject
+	 *            es el proyecto actual. Este parmetro puede ser nulo.
+	 * @param aFilterString
+	 *            es el filtro que se debe aplicar a los tems.
+	 * @param someParameters
+	 *            es un diccionario con los valores de los parmetros del
+	 *            filtro.
+	 * @param beginIndex
+	 *            es el ndice de inicio.
+	 * @param count
+	 *            es la cantidad a recuperar.
+	 * @param aPropertyName
+	 *            es el nombre de la propiedad que se debe utilizar para ordenar
+	 *            los resultados.
+	 * @param anOrdering
+	 *            es el orden que se debe aplicar a los resultados.
+	 * @param aCursor
+	 *            es el cursor que mantiene la posicin del listado.
+	 * @return una coleccin de filas con los datos de los tems. Cada fila es
+	 *         un diccionario cuyas claves son los alias de las columnas de la
+	 *         consulta itemsListingQuery.
+	 */
+	public Collection<Map<String, Object>> findItemRows(User anUser, Project aProject,
+			String aFilterString, Map<String, Object> someParameters,
+			int beginIndex, int count, String aPropertyName,
+			String anOrdering, ItemsPageCursor aCursor);
+
+	/**
+	 * Recupera en una nica consulta las propiedades adicionales de los tems
+	 * recibidos.
+	 * 
+	 * @param someOids
+	 *            es una coleccin con los oids de los tems.
+	 * @return un diccionario que contiene para cada oid de tem sus
+	 *         propiedades adicionales.
+	 */
+	public Map<String, Map<String, String>> findAdditionalPropertiesOfItems(
+			Collection<String> someOids);
 
 	/**
 	 * Retorna la cantidad de tems para el listado pedido por el usuario cuyo
@@ -70,9 +160,54 @@ public interface ItemsRepositoryBI extends ItemAbstractRepositoryBI {
 	 *            es el proyecto actual. Este parmetro puede ser nulo.
 	 * @param aFilterString
 	 *            es el filtro que se debe aplicar.
+	 * @param someParameters
+	 *            es un diccionario con los valores de los parmetros del
+	 *            filtro.
 	 * @return la cantidad de tems para el listado.
 	 */
-	public int getItemsCount(User anUser, Project aProject, String aFilterString);
+	public int getItemsCount(User anUser, Project aProject,
+			String aFilterString, Map<String, Object> someParameters);
+
+	/**
+	 * Invalida las cantidades de tems recordadas para los listados, una vez
+	 * confirmada la transaccin actual. Este mtodo debe invocarse cada vez
+	 * que se crean, eliminan o modifican tems en alguna de las columnas por
+	 * las que se puede filtrar.
+	 */
+	public void invalidateItemsCount();
+
+	/**
+	 * Actualiza el ndice de texto con el ttulo, la descripcin y los
+	 * comentarios del tem recibido, una vez confirmada la transaccin actual.
+	 * Este mtodo debe invocarse cada vez que se crea, edita o comenta un tem.
+	 * 
+	 * @param anItem
+	 *            es el tem que se debe indexar.
+	 */
+	public void indexItemText(Item anItem);
+
+	/**
+	 * Elimina de la base de datos los tems recibidos junto con sus
+	 * observadores, propiedades adicionales, comentarios, archivos y nodos,
+	 * utilizando una nica sentencia por tabla para cada bloque de tems.<br>
+	 * Los tems y sus colecciones tambin se eliminan de la cache de segundo
+	 * nivel y de las colecciones de tems de sus proyectos ya cargadas.
+	 * 
+	 * @param someItems
+	 *            es una coleccin con los tems que deben eliminarse.
+	 * @return una coleccin con los hashes de los contenidos adjuntos a los
+	 *         tems eliminados que ya no estn adjuntos a ningn otro tem.
+	 */
+	public Collection<String> deleteItemsInBulk(Collection<Item> someItems);
+
+	/**
+	 * Elimina del ndice de texto a los tems recibidos, una vez confirmada la
+	 * transaccin actual.
+	 * 
+	 * @param someItems
+	 *            es una coleccin con los tems eliminados.
+	 */
+	public void removeItemsFromTextIndex(Collection<Item> someItems);
 
 	/**
 	 * Finder.
@@ -130,6 +265,21 @@ public interface ItemsRepositoryBI extends ItemAbstractRepositoryBI {
 	 */
 	public boolean isUserObserverOfItem(String anUserOID, String anItemOID);
 
+	/**
+	 * Verifica si un contenido est adjunto a algn tem de un proyecto que el
+	 * usuario puede ver, es decir un proyecto pblico o asignado a alguno de
+	 * sus grupos.
+	 * 
+	 * @param anUsername
+	 *            es el nombre del usuario.
+	 * @param aContentHash
+	 *            es el hash del contenido.
+	 * @return true en caso de que el usuario pueda ver el contenido; false en
+	 *         caso contrario.
+	 */
+	public boolean isAttachmentVisibleToUser(String anUsername,
+			String aContentHash);
+
 	/**
 	 * Recupera un tem con el oid dado.
 	 * 
@@ -259,6 +409,33 @@ public interface ItemsRepositoryBI extends ItemAbstractRepositoryBI {
 	 */
 	public Collection<ItemFile> findAttachedFilesOfItem(ItemDTO anItemDTO);
 
+	/**
+	 * Recupera todos los comentarios de un tem, ordenados desde el ms
+	 * reciente al ms antiguo.
+	 * 
+	 * @param anItemOid
+	 *            es el oid del tem.
+	 * @return una lista con los comentarios del tem.
+	 */
+	public List<Comment> findCommentsOfItem(String anItemOid);
+
+	/**
+	 * Recupera una pgina de los comentarios de un tem, ordenados desde el
+	 * ms reciente al ms antiguo. La pgina comienza a continuacin del
+	 * ltimo comentario ledo por el cursor, y el cursor queda posicionado en
+	 * el ltimo comentario de la pgina.
+	 * 
+	 * @param anItemOid
+	 *            es el oid del tem.
+	 * @param aCursor
+	 *            es el cursor que recuerda el ltimo comentario ledo.
+	 * @param aCount
+	 *            es la cantidad mxima de comentarios de la pgina.
+	 * @return una lista con los comentarios de la pgina.
+	 */
+	public List<Comment> findCommentsOfItem(String anItemOid,
+			CommentsPageCursor aCursor, int aCount);
+
 	/**
 	 * Recupera archivos adjuntos por sus identificadores.
 	 * 
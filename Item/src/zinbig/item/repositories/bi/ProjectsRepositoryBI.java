@@ -237,6 +237,22 @@ public interface ProjectsRepositoryBI extends ItemAbstractRepositoryBI {
 	 */
 	public Collection<String> getValuesForDynamicProperty(String aQuery);
 
+	/**
+	 * Recupera los valores dinmicos de una propiedad adicional, limitando la
+	 * cantidad de valores recuperados.
+	 * 
+	 * @param aQuery
+	 *            es la consulta que se debe ejecutar para recuperar los valores
+	 *            adicionales.
+	 * @param aMaxValues
+	 *            es la cantidad mxima de valores. Si no es positiva se
+	 *            utiliza la cantidad mxima por defecto.
+	 * @return una coleccin de strings para cada uno de los valores
+	 *         adicionales.
+	 */
+	public Collection<String> getValuesForDynamicProperty(String aQuery,
+			int aMaxValues);
+
 	/**
 	 * Recupera la cantidad de propiedades adicionales del proyecto cuyo
 	 * identificador se ha recibido.
@@ -278,4 +294,14 @@ public interface ProjectsRepositoryBI extends ItemAbstractRepositoryBI {
 	 */
 	public Collection<PropertyDescription> findPropertyDescriptionsOfProject(
 			Collection<String> selectedProperties);
+
+	/**
+	 * Asigna el nmero del prximo tem de un proyecto.
+	 * 
+	 * @param aProject
+	 *            es el proyecto al cual pertenecer el nuevo tem.
+	 * @return un nmero de tem que no fue asignado anteriormente en el
+	 *         proyecto.
+	 */
+	public int getNextItemNumber(Project aProject);
 }
@@ -241,4 +241,30 @@ public interface UsersRepositoryBI extends ItemAbstractRepositoryBI {
    */
   public Collection<User> findUsersWithUsernameLike(Tracker aTracker, String aString, int aLimit);
 
+  /**
+   * Registra un usuario en el ndice de nombres de usuario, de modo que las bsquedas posteriores por su
+   * nombre de usuario se resuelvan directamente por oid.
+   * 
+   * @param anUser
+   *          es el usuario agregado o actualizado.
+   */
+  public void indexUser(User anUser);
+
+  /**
+   * Elimina un usuario del ndice de nombres de usuario.
+   * 
+   * @param anUser
+   *          es el usuario que se est eliminando.
+   */
+  public void unindexUser(User anUser);
+
+  /**
+   * Registra actividad de un usuario, de modo que aparezca antes en los resultados de las bsquedas por
+   * prefijo de nombre de usuario.
+   * 
+   * @param anUser
+   *          es el usuario que registr actividad.
+   */
+  public void recordActivity(User anUser);
+
 }
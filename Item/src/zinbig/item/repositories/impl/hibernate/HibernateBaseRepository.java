@@ -8,6 +8,7 @@ package zinbig.item.repositories.impl.hibernate;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Map;
 
 import org.hibernate.Query;
 import org.hibernate.Session;
@@ -16,6 +17,7 @@ import org.springframework.orm.hibernate3.support.HibernateDaoSupport;
 
 import zinbig.item.repositories.bi.ItemAbstractRepositoryBI;
 import zinbig.item.util.persistence.ItemQuery;
+import zinbig.item.util.persistence.QueryMonitor;
 import zinbig.item.util.spring.ItemApplicationContext;
 
 /**
@@ -72,8 +74,7 @@ public abstract class HibernateBaseRepository extends HibernateDaoSupport
 
 		ItemQuery itemQuery = (ItemQuery) aContext.getBean(aName);
 
-		Query aQuery = this.getSession()
-				.createQuery(itemQuery.getQueryString());
+		Query aQuery = this.createQuery(aName, itemQuery, itemQuery.getQueryString());
 
 		return aQuery;
 	}
@@ -93,8 +94,8 @@ public abstract class HibernateBaseRepository extends HibernateDaoSupport
 
 		ItemQuery itemQuery = (ItemQuery) aContext.getBean(aName);
 
-		Query aQuery = this.getSession().createQuery(
-				itemQuery.getQueryString() + aFilterString);
+		Query aQuery = this.createQuery(aName, itemQuery, itemQuery.getQueryString()
+				+ aFilterString);
 
 		return aQuery;
 	}
@@ -149,8 +150,8 @@ public abstract class HibernateBaseRepository extends HibernateDaoSupport
 		itemQuery.setPropertyForOrdering(aPropertyName);
 		itemQuery.setOrdering(anOrdering);
 
-		Query aQuery = this.getSession().createQuery(
-				itemQuery.createQueryString());
+		Query aQuery = this.createQuery(aName, itemQuery, itemQuery
+				.createQueryString());
 
 		return aQuery;
 	}
@@ -175,13 +176,89 @@ public abstract class HibernateBaseRepository extends HibernateDaoSupport
 				.getApplicationContext();
 
 		ItemQuery itemQuery = (ItemQuery) aContext.getBean(aName);
-		itemQuery.setPropertyForOrdering(aPropertyName);
-		itemQuery.setOrdering(anOrdering);
 
-		Query aQuery = this.getSession().createQuery(
-				itemQuery.createQueryString(aFilterString));
+		Query aQuery = this.createQuery(aName, itemQuery, itemQuery.createQueryString(
+				aFilterString, aPropertyName, anOrdering));
+
+		return aQuery;
+	}
+
+	/**
+	 * Crea una consulta de hibernate a partir del string recibido. Si la
+	 * consulta nombrada tiene asignada una regin de la cache de consultas, la
+	 * consulta creada se marca para que su resultado se recuerde en esa
+	 * regin.
+	 * 
+	 * @param aName
+	 *            es el nombre de la consulta nombrada.
+	 * @param anItemQuery
+	 *            es la consulta nombrada.
+	 * @param aQueryString
+	 *            es el string completo de la consulta.
+	 * @return una consulta de hibernate.
+	 */
+	private Query createQuery(String aName, ItemQuery anItemQuery,
+			String aQueryString) {
+		Query aQuery = this.getSession().createQuery(aQueryString);
+		if (anItemQuery.isCacheable()) {
+			aQuery.setCacheable(true);
+			aQuery.setCacheRegion(anItemQuery.getCacheRegion());
+		}
+		return this.monitorQuery(aName, aQuery);
+	}
 
+	/**
+	 * Entrega la consulta al monitor de consultas, en caso de que exista, para
+	 * que se midan sus ejecuciones.
+	 * 
+	 * @param aName
+	 *            es el nombre de la consulta.
+	 * @param aQuery
+	 *            es la consulta de hibernate.
+	 * @return la consulta monitoreada, o la misma consulta si no hay un
+	 *         monitor de consultas.
+	 */
+	protected Query monitorQuery(String aName, Query aQuery) {
+		ApplicationContext aContext = ItemApplicationContext
+				.getApplicationContext();
+		if (aContext.containsBean("queryMonitor")) {
+			QueryMonitor aMonitor = (QueryMonitor) aContext
+					.getBean("queryMonitor");
+			return aMonitor.monitor(aName, aQuery);
+		}
 		return aQuery;
 	}
 
+	/**
+	 * Asigna a la consulta los valores de los parmetros con nombre recibidos.
+	 * Solamente se asignan los parmetros que efectivamente aparecen en la
+	 * consulta; las colecciones se asignan como listas de valores.<br>
+	 * Al utilizar parmetros en lugar de valores literales el string de la
+	 * consulta no vara y Hibernate puede reutilizar su traduccin.
+	 * 
+	 * @param aQuery
+	 *            es la consulta a la que se deben asignar los parmetros.
+	 * @param someParameters
+	 *            es un diccionario con los valores de los parmetros. Puede
+	 *            ser nulo.
+	 */
+	@SuppressWarnings("unchecked")
+	protected void bindParameters(Query aQuery,
+			Map<String, Object> someParameters) {
+		if (someParameters == null) {
+			return;
+		}
+
+		for (String aName : aQuery.getNamedParameters()) {
+			if (someParameters.containsKey(aName)) {
+				Object aValue = someParameters.get(aName);
+				if (aValue instanceof Collection) {
+					aQuery.setParameterList(aName, (Collection) aValue);
+				} else {
+					aQuery.setParameter(aName, aValue);
+				}
+			}
+		}
+	}
+
 }
@@ -6,12 +6,23 @@
  */
 package zinbig.item.repositories.impl.hibernate;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.hibernate.Hibernate;
 import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.metadata.ClassMetadata;
 
+import zinbig.item.model.Comment;
 import zinbig.item.model.Item;
 import zinbig.item.model.ItemFile;
 import zinbig.item.model.ItemType;
@@ -20,12 +31,21 @@ import zinbig.item.model.exceptions.FilterUnknownException;
 import zinbig.item.model.exceptions.ItemTypeUnknownException;
 import zinbig.item.model.exceptions.ItemUnknownException;
 import zinbig.item.model.filters.Filter;
+import zinbig.item.model.filters.ParameterizedHibernateFilterStringCreationStrategy;
 import zinbig.item.model.projects.Project;
 import zinbig.item.model.users.User;
+import zinbig.item.model.workflow.WorkflowNode;
 import zinbig.item.repositories.bi.ItemsRepositoryBI;
 import zinbig.item.util.dto.ItemDTO;
 import zinbig.item.util.dto.ItemTypeDTO;
 import zinbig.item.util.dto.ProjectDTO;
+import zinbig.item.util.persistence.AfterCommit;
+import zinbig.item.util.persistence.CommentsPageCursor;
+import zinbig.item.util.persistence.ItemQuery;
+import zinbig.item.util.persistence.ItemsCountCache;
+import zinbig.item.util.persistence.ItemsPageCursor;
+import zinbig.item.util.persistence.ItemsTextIndex;
+import zinbig.item.util.spring.ItemApplicationContext;
 
 /**
  * Esta clase implementa un repositorio de operaciones que utiliza Hibernate
@@ -37,6 +57,25 @@ import zinbig.item.util.dto.ProjectDTO;
 public class HibernateItemsRepository extends HibernateBaseRepository implements
 		ItemsRepositoryBI {
 
+	/**
+	 * Es la cantidad mxima de oids que se envan en cada sentencia de
+	 * eliminacin masiva de tems.
+	 */
+	private static final int BULK_DELETE_CHUNK_SIZE = 500;
+
+	/**
+	 * Es el objeto que recuerda las cantidades de tems de los listados. Este
+	 * colaborador se inyecta a travs de Spring y puede ser nulo.
+	 */
+	protected ItemsCountCache itemsCountCache;
+
+	/**
+	 * Es el ndice de texto de los tems que se utiliza para resolver el filtro
+	 * por texto. Este colaborador se inyecta a travs de Spring y puede ser
+	 * nulo, en cuyo caso el filtro por texto se resuelve en la base de datos.
+	 */
+	protected ItemsTextIndex itemsTextIndex;
+
 	/**
 	 * Recupera una coleccin de tems que est contenida entre los ndices
 	 * recibidos y que pertenecen a los proyectos asociados con el usuario
@@ -49,6 +88,9 @@ public class HibernateItemsRepository extends HibernateBaseRepository implements
 	 *            ser nulo.
 	 * @param aFilterString
 	 *            es el filtro que se debe aplicar.
+	 * @param someParameters
+	 *            es un diccionario con los valores de los parmetros del
+	 *            filtro.
 	 * @param beginIndex
 	 *            es el ndice de inicio.
 	 * @param count
@@ -63,24 +105,19 @@ public class HibernateItemsRepository extends HibernateBaseRepository implements
 	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Item> findItems(User anUser, Project aProject,
-			String aFilterString, int beginIndex, int count,
-			String aPropertyName, String anOrdering) {
+			String aFilterString, Map<String, Object> someParameters,
+			int beginIndex, int count, String aPropertyName,
+			String anOrdering) {
 
 		Collection<Item> result;
 
-		String projectsString = "";
-		String replaceString = "";
-		if (anUser != null && anUser.getProjects().size() > 0) {
-			projectsString = this.getProjectsString(anUser);
-			replaceString = "$projects";
-		} else {
-			replaceString = "or i.project.oid in $projects";
-
-		}
-		aFilterString = aFilterString.replace(replaceString, projectsString);
+		aFilterString = this.prepareFilterString(anUser, aFilterString);
+		aFilterString = this
+				.resolveTextFilter(aFilterString, someParameters);
 
 		Query aQuery = this.getNamedQuery("allItemsQuery", aFilterString,
 				aPropertyName, anOrdering);
+		this.bindFilterParameters(aQuery, anUser, someParameters);
 
 		aQuery.setMaxResults(count);
 		aQuery.setFirstResult(beginIndex);
@@ -91,6 +128,307 @@ public class HibernateItemsRepository extends HibernateBaseRepository implements
 
 	}
 
+	/**
+	 * Recupera una pgina de tems utilizando el cursor recibido para evitar
+	 * recorrer todas las filas anteriores a la pgina. <br>
+	 * Si el cursor conoce la clave (valor de la columna de orden y oid) de la
+	 * fila anterior a la pgina pedida, la consulta contina a partir de dicha
+	 * clave; en caso contrario se utiliza el desplazamiento tradicional. En
+	 * ambos casos se ordena tambin por el oid del tem para que el orden sea
+	 * total y estable entre pginas.<br>
+	 * Al finalizar, el cursor queda actualizado con la clave de la ltima fila
+	 * recuperada.
+	 *
+	 * @param anUser
+	 *            es el usuario para el cual se deben recuperar los tems.
+	 * @param aProject
+	 *            es el proyecto en el cual se deben listar los tems. Podra
+	 *            ser nulo.
+	 * @param aFilterString
+	 *            es el filtro que se debe aplicar.
+	 * @param someParameters
+	 *            es un diccionario con los valores de los parmetros del
+	 *            filtro.
+	 * @param beginIndex
+	 *            es el ndice de inicio.
+	 * @param count
+	 *            es la cantidad a recuperar.
+	 * @param aPropertyName
+	 *            es el nombre de la propiedad que se debe utilizar para ordenar
+	 *            los resultados.
+	 * @param anOrdering
+	 *            es el orden que se debe aplicar a los resultados.
+	 * @param aCursor
+	 *            es el cursor que mantiene la posicin del listado.
+	 * @return una coleccin de tems del sistema.
+	 */
+	@SuppressWarnings("unchecked")
+	public Collection<Item> findItems(User anUser, Project aProject,
+			String aFilterString, Map<String, Object> someParameters,
+			int beginIndex, int count, String aPropertyName,
+			String anOrdering, ItemsPageCursor aCursor) {
+
+		Collection<Item> result = new ArrayList<Item>();
+
+		Query aQuery = this.createPageQuery("allItemsKeysetQuery", anUser,
+				aFilterString, someParameters, beginIndex, count,
+				aPropertyName, anOrdering, aCursor);
+
+		Object[] row = null;
+		for (Object each : aQuery.list()) {
+			row = (Object[]) each;
+			result.add((Item) row[0]);
+		}
+		if (row != null) {
+			aCursor.setLastKey((Serializable) row[1], ((Item) row[0]).getOid());
+		}
+
+		return result;
+
+	}
+
+	/**
+	 * Recupera una pgina del listado de tems como filas que contienen
+	 * nicamente las columnas necesarias para crear los dtos de los tems, sin
+	 * instanciar los objetos del modelo. La paginacin utiliza el cursor
+	 * recibido de la misma forma que el mtodo findItems.<br>
+	 * El orden de las columnas de cada fila est documentado en la consulta
+	 * itemsListingQuery; la ltima columna es el valor de la columna de orden.
+	 *
+	 * @param anUser
+	 *            es el usuario para el cual se deben recuperar los tems.
+	 * @param aProject
+	 *            es el proyecto en el cual se deben listar los tems. Podra
+	 *            ser nulo.
+	 * @param aFilterString
+	 *            es el filtro que se debe aplicar.
+	 * @param someParameters
+	 *            es un diccionario con los valores de los parmetros del
+	 *            filtro.
+	 * @param beginIndex
+	 *            es el ndice de inicio.
+	 * @param count
+	 *            es la cantidad a recuperar.
+	 * @param aPropertyName
+	 *            es el nombre de la propiedad que se debe utilizar para ordenar
+	 *            los resultados.
+	 * @param anOrdering
+	 *            es el orden que se debe aplicar a los resultados.
+	 * @param aCursor
+	 *            es el cursor que mantiene la posicin del listado.
+	 * @return una coleccin de filas con los datos de los tems. Cada fila es
+	 *         un diccionario cuyas claves son los alias de las columnas de la
+	 *         consulta itemsListingQuery.
+	 */
+	@SuppressWarnings("unchecked")
+	public Collection<Map<String, Object>> findItemRows(User anUser, Project aProject,
+			String aFilterString, Map<String, Object> someParameters,
+			int beginIndex, int count, String aPropertyName,
+			String anOrdering, ItemsPageCursor aCursor) {
+
+		Collection<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+
+		Query aQuery = this.createPageQuery("itemsListingQuery", anUser,
+				aFilterString, someParameters, beginIndex, count,
+				aPropertyName, anOrdering, aCursor);
+
+		Map<String, Object> row = null;
+		for (Object each : aQuery.list()) {
+			row = (Map<String, Object>) each;
+			result.add(row);
+		}
+		if (row != null) {
+			aCursor.setLastKey((Serializable) row.get("sortKey"),
+					(String) row.get("itemOid"));
+		}
+
+		return result;
+
+	}
+
+	/**
+	 * Recupera en una nica consulta las propiedades adicionales de los tems
+	 * recibidos.
+	 *
+	 * @param someOids
+	 *            es una coleccin con los oids de los tems.
+	 * @return un diccionario que contiene para cada oid de tem sus
+	 *         propiedades adicionales. Los tems sin propiedades no aparecen
+	 *         en el diccionario.
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<String, Map<String, String>> findAdditionalPropertiesOfItems(
+			Collection<String> someOids) {
+		Map<String, Map<String, String>> result = new HashMap<String, Map<String, String>>();
+
+		if (!someOids.isEmpty()) {
+			Query aQuery = this.getNamedQuery("additionalPropertiesOfItemsQuery");
+			aQuery.setParameterList("oids", someOids);
+
+			Object[] row = null;
+			for (Object each : aQuery.list()) {
+				row = (Object[]) each;
+				Map<String, String> properties = result.get(row[0]);
+				if (properties == null) {
+					properties = new HashMap<String, String>();
+					result.put((String) row[0], properties);
+				}
+				properties.put((String) row[1], (String) row[2]);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Crea la consulta que recupera una pgina del listado de tems utilizando
+	 * el cursor recibido. <br>
+	 * Si el cursor conoce la clave (valor de la columna de orden y oid) de la
+	 * fila anterior a la pgina pedida, la consulta contina a partir de dicha
+	 * clave; en caso contrario se utiliza el desplazamiento tradicional. En
+	 * ambos casos se ordena tambin por el oid del tem para que el orden sea
+	 * total y estable entre pginas.
+	 *
+	 * @param aQueryName
+	 *            es el nombre de la consulta a utilizar. La consulta debe
+	 *            seleccionar el valor de la columna de orden ($key) como ltima
+	 *            columna.
+	 * @param anUser
+	 *            es el usuario para el cual se deben recuperar los tems.
+	 * @param aFilterString
+	 *            es el filtro que se debe aplicar.
+	 * @param someParameters
+	 *            es un diccionario con los valores de los parmetros del
+	 *            filtro.
+	 * @param beginIndex
+	 *            es el ndice de inicio.
+	 * @param count
+	 *            es la cantidad a recuperar.
+	 * @param aPropertyName
+	 *            es el nombre de la propiedad que se debe utilizar para ordenar
+	 *            los resultados.
+	 * @param anOrdering
+	 *            es el orden que se debe aplicar a los resultados.
+	 * @param aCursor
+	 *            es el cursor que mantiene la posicin del listado.
+	 * @return la consulta lista para ser ejecutada.
+	 */
+	private Query createPageQuery(String aQueryName, User anUser,
+			String aFilterString, Map<String, Object> someParameters,
+			int beginIndex, int count, String aPropertyName,
+			String anOrdering, ItemsPageCursor aCursor) {
+
+		// los valores de los parmetros tambin identifican al listado.
+		aCursor.moveTo(beginIndex, count, aPropertyName, anOrdering,
+				aFilterString + someParameters);
+
+		aFilterString = this.prepareFilterString(anUser, aFilterString);
+		aFilterString = this
+				.resolveTextFilter(aFilterString, someParameters);
+
+		String keyExpression = this.getKeyExpression(aPropertyName);
+		String operator = "DESC".equalsIgnoreCase(anOrdering) ? "<" : ">";
+		// las columnas que admiten nulos se paginan por desplazamiento ya que
+		// la comparacin con la clave descartara las filas con valor nulo y
+		// la posicin de los nulos en el orden depende de la base de datos.
+		boolean seek = aCursor.canSeek() && beginIndex > 0
+				&& aCursor.getAnchorValue() != null
+				&& !this.isNullableKey(aPropertyName);
+
+		if (seek) {
+			aFilterString = aFilterString + " AND (" + keyExpression + " "
+					+ operator + " :anchorValue OR (" + keyExpression
+					+ " = :anchorValue AND i.oid " + operator
+					+ " :anchorOid))";
+		}
+
+		ItemQuery itemQuery = (ItemQuery) ItemApplicationContext
+				.getApplicationContext().getBean(aQueryName);
+		Query aQuery = this.monitorQuery(aQueryName, this.getSession()
+				.createQuery(
+						itemQuery.getQueryString().replace("$key",
+								keyExpression)
+								+ aFilterString
+								+ " ORDER BY "
+								+ keyExpression
+								+ " "
+								+ anOrdering + ", i.oid " + anOrdering));
+
+		this.bindFilterParameters(aQuery, anUser, someParameters);
+		if (seek) {
+			// el tipo del parmetro es el mismo que el de la columna de orden.
+			aQuery.setParameter("anchorValue", aCursor.getAnchorValue(),
+					aQuery.getReturnTypes()[aQuery.getReturnTypes().length - 1]);
+			aQuery.setParameter("anchorOid", aCursor.getAnchorOid());
+		} else {
+			aQuery.setFirstResult(beginIndex);
+		}
+		aQuery.setMaxResults(count);
+
+		return aQuery;
+	}
+
+	/**
+	 * Obtiene la expresin HQL que corresponde a la propiedad utilizada para
+	 * ordenar el listado de tems. Si la propiedad es una asociacin con otra
+	 * entidad se utiliza el oid de dicha entidad, que es el valor por el cual
+	 * ordena la base de datos.
+	 *
+	 * @param aPropertyName
+	 *            es el nombre de la propiedad de orden.
+	 * @return la expresin que se debe utilizar en la consulta.
+	 */
+	private String getKeyExpression(String aPropertyName) {
+		String result = aPropertyName.startsWith("i.") ? aPropertyName
+				: "i." + aPropertyName;
+		String simpleName = result.substring(2);
+
+		if (simpleName.indexOf('.') == -1) {
+			ClassMetadata metadata = this.getSessionFactory().getClassMetadata(
+					Item.class);
+			if (metadata.getPropertyType(simpleName).isEntityType()) {
+				result = result + ".oid";
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Verifica si la propiedad utilizada para ordenar el listado de tems puede
+	 * tomar valores nulos. Las propiedades de entidades asociadas (por ejemplo
+	 * responsible.alias) se consideran siempre nulables ya que la asociacin
+	 * misma puede ser nula. Las restantes se consideran nulables salvo que su
+	 * tipo sea primitivo o estn mapeadas con not-null.
+	 *
+	 * @param aPropertyName
+	 *            es el nombre de la propiedad de orden.
+	 * @return true en caso de que la columna de orden admita nulos; false en
+	 *         caso contrario.
+	 */
+	private boolean isNullableKey(String aPropertyName) {
+		String simpleName = aPropertyName.startsWith("i.") ? aPropertyName
+				.substring(2) : aPropertyName;
+		if (simpleName.equals("oid")) {
+			return false;
+		}
+		if (simpleName.indexOf('.') != -1) {
+			return true;
+		}
+
+		ClassMetadata metadata = this.getSessionFactory().getClassMetadata(
+				Item.class);
+		String[] names = metadata.getPropertyNames();
+		boolean[] nullability = metadata.getPropertyNullability();
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(simpleName)) {
+				return nullability[i]
+						&& !metadata.getPropertyType(names[i])
+								.getReturnedClass().isPrimitive();
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Retorna la cantidad de tems para el listado pedido por el usuario cuyo
 	 * dto se ha recibido. <br>
@@ -103,34 +441,529 @@ public class HibernateItemsRepository extends HibernateBaseRepository implements
 	 * @param aProject
 	 *            es el proyecto actual en el que se deben listar los tems.
 	 *            Este pametro puede ser nulo.
-	 * @param aFilter
+	 * @param aFilterString
 	 *            es el filtro que se debe aplicar a los tems.
+	 * @param someParameters
+	 *            es un diccionario con los valores de los parmetros del
+	 *            filtro.
 	 * @return la cantidad de tems para el listado.
 	 */
 	@Override
-	public int getItemsCount(User anUser, Project aProject, String aFilterString) {
+	public int getItemsCount(User anUser, Project aProject,
+			String aFilterString, Map<String, Object> someParameters) {
+
+		String key = null;
+		long generation = 0;
+		ItemsCountCache cache = this.getItemsCountCache();
+		if (cache != null) {
+			key = cache.createKey(aFilterString + someParameters,
+					anUser == null ? "" : this.getProjectsString(anUser));
+			generation = cache.getGeneration();
+			Integer cachedCount = cache.get(key);
+			if (cachedCount != null) {
+				return cachedCount.intValue();
+			}
+		}
 
 		if (anUser != null) {
+			aFilterString = this.prepareFilterString(anUser, aFilterString);
+		}
+		aFilterString = this.resolveTextFilter(aFilterString, someParameters);
+
+		Query aQuery = this.getNamedQuery("allItemsCountQuery", aFilterString);
+		this.bindFilterParameters(aQuery, anUser, someParameters);
 
-			String projectsString = "";
-			String replaceString = "";
-			if (anUser != null && anUser.getProjects().size() > 0) {
-				projectsString = this.getProjectsString(anUser);
-				replaceString = "$projects";
-			} else {
-				replaceString = "or i.project.oid in $projects";
+		aQuery.setMaxResults(1);
 
+		int result = ((Long) aQuery.uniqueResult()).intValue();
+
+		if (cache != null) {
+			cache.put(key, result, generation);
+		}
+
+		return result;
+
+	}
+
+	/**
+	 * Completa el string del filtro con la condicin sobre los proyectos del
+	 * usuario. <br>
+	 * Los filtros parametrizados referencian a los proyectos del usuario
+	 * mediante un parmetro, por lo que solamente se elimina la condicin si el
+	 * usuario no tiene proyectos. Los filtros creados con valores literales
+	 * (por ejemplo los filtros guardados previamente) reemplazan el texto
+	 * $projects por los oids de los proyectos.
+	 * 
+	 * @param anUser
+	 *            es el usuario que solicita el listado. Puede ser nulo.
+	 * @param aFilterString
+	 *            es el string del filtro.
+	 * @return el string del filtro listo para ser utilizado en la consulta.
+	 */
+	private String prepareFilterString(User anUser, String aFilterString) {
+		boolean hasProjects = anUser != null
+				&& anUser.getProjects().size() > 0;
+		String parameter = ":"
+				+ ParameterizedHibernateFilterStringCreationStrategy.USER_PROJECTS_PARAMETER;
+
+		if (aFilterString.indexOf(parameter) != -1) {
+			if (!hasProjects) {
+				aFilterString = aFilterString.replace(" or i.project.oid in ("
+						+ parameter + ")", "");
 			}
-			aFilterString = aFilterString
-					.replace(replaceString, projectsString);
+		} else if (hasProjects) {
+			aFilterString = aFilterString.replace("$projects", this
+					.getProjectsString(anUser));
+		} else {
+			aFilterString = aFilterString.replace(
+					"or i.project.oid in $projects", "");
 		}
 
-		Query aQuery = this.getNamedQuery("allItemsCountQuery", aFilterString);
+		return aFilterString;
+	}
 
-		aQuery.setMaxResults(1);
+	/**
+	 * Resuelve la condicin del filtro por texto mediante el ndice de texto
+	 * de los tems. <br>
+	 * El resultado del filtro est definido siempre por la comparacin con
+	 * LIKE en la base de datos (respetando los comodines que haya escrito el
+	 * usuario). Si el ndice puede resolver la bsqueda se agregan a los
+	 * parmetros los oids de los tems candidatos y la comparacin se evala
+	 * solamente sobre ellos; en caso contrario (no hay ndice, el ndice no
+	 * refleja los cambios de otros nodos, el texto no contiene palabras o hay
+	 * demasiados candidatos) se evala sobre todos los tems. En ambos casos
+	 * el resultado es el mismo.<br>
+	 * La cantidad de candidatos se completa hasta la siguiente potencia de
+	 * dos repitiendo el ltimo oid, de modo que la cantidad de sentencias
+	 * distintas (y de planes de ejecucin) sea acotada.
+	 * 
+	 * @param aFilterString
+	 *            es el string del filtro.
+	 * @param someParameters
+	 *            es un diccionario con los valores de los parmetros del
+	 *            filtro. Este diccionario se completa con los parmetros del
+	 *            filtro por texto.
+	 * @return el string del filtro listo para ser utilizado en la consulta.
+	 */
+	private String resolveTextFilter(String aFilterString,
+			Map<String, Object> someParameters) {
+		if (aFilterString
+				.indexOf(ParameterizedHibernateFilterStringCreationStrategy.TEXT_INDEX_CONDITION) == -1) {
+			return aFilterString;
+		}
+
+		String aText = (String) someParameters
+				.get(ParameterizedHibernateFilterStringCreationStrategy.TEXT_PARAMETER);
+		Set<String> candidates = null;
+		if (this.getItemsTextIndex() != null
+				&& this.getItemsTextIndex().isAuthoritative()) {
+			candidates = this.getTextIndex().search(aText);
+		}
+
+		String aCondition = ParameterizedHibernateFilterStringCreationStrategy.TEXT_LIKE_CONDITION;
+		if (candidates != null) {
+			someParameters
+					.put(
+							ParameterizedHibernateFilterStringCreationStrategy.TEXT_MATCHES_PARAMETER,
+							this.padCandidates(candidates));
+			aCondition = ParameterizedHibernateFilterStringCreationStrategy.TEXT_INDEX_CONDITION
+					+ aCondition;
+		}
+		aFilterString = aFilterString
+				.replace(
+						ParameterizedHibernateFilterStringCreationStrategy.TEXT_INDEX_CONDITION,
+						aCondition);
+		someParameters.put(
+				ParameterizedHibernateFilterStringCreationStrategy.TEXT_PARAMETER,
+				"%" + aText + "%");
+
+		return aFilterString;
+	}
+
+	/**
+	 * Completa la lista de oids candidatos hasta la siguiente potencia de dos
+	 * repitiendo el ltimo oid.
+	 * 
+	 * @param someOids
+	 *            es el conjunto de oids candidatos.
+	 * @return una lista con los oids candidatos. Nunca est vaca, ya que una
+	 *         lista vaca no es vlida en la consulta.
+	 */
+	private List<String> padCandidates(Set<String> someOids) {
+		List<String> result = new ArrayList<String>(someOids);
+		if (result.isEmpty()) {
+			result.add("");
+		}
+
+		int size = 1;
+		while (size < result.size()) {
+			size = size * 2;
+		}
+		String last = result.get(result.size() - 1);
+		while (result.size() < size) {
+			result.add(last);
+		}
+		return result;
+	}
+
+	/**
+	 * Getter. <br>
+	 * Retorna el ndice de texto de los tems, construyndolo a partir de la
+	 * base de datos si todava no se ha construido.
+	 * 
+	 * @return el ndice de texto de los tems.
+	 */
+	@SuppressWarnings("unchecked")
+	private ItemsTextIndex getTextIndex() {
+		ItemsTextIndex index = this.getItemsTextIndex();
+
+		synchronized (index) {
+			if (!index.isBuilt()) {
+				Map<String, Collection<String>> texts = new HashMap<String, Collection<String>>();
+				Object[] row = null;
+				for (Object each : this.getNamedQuery("itemsTextQuery").list()) {
+					row = (Object[]) each;
+					Collection<String> itemTexts = new ArrayList<String>();
+					itemTexts.add((String) row[1]);
+					itemTexts.add((String) row[2]);
+					texts.put((String) row[0], itemTexts);
+				}
+				for (Object each : this.getNamedQuery("itemsCommentsTextQuery")
+						.list()) {
+					row = (Object[]) each;
+					Collection<String> itemTexts = texts.get(row[0]);
+					if (itemTexts != null) {
+						itemTexts.add((String) row[1]);
+					}
+				}
+				for (Map.Entry<String, Collection<String>> entry : texts
+						.entrySet()) {
+					index.index(entry.getKey(), entry.getValue());
+				}
+				index.setBuilt(true);
+			}
+		}
+
+		return index;
+	}
+
+	/**
+	 * Actualiza el ndice de texto con el ttulo, la descripcin y los
+	 * comentarios del tem recibido. Este mtodo debe invocarse cada vez que se
+	 * crea, edita o comenta un tem. El ndice se actualiza una vez confirmada
+	 * la transaccin actual.
+	 * 
+	 * @param anItem
+	 *            es el tem que se debe indexar.
+	 */
+	public void indexItemText(Item anItem) {
+		final ItemsTextIndex index = this.getItemsTextIndex();
+		if (index != null && index.isBuilt()) {
+			final String anOid = anItem.getOid();
+			final Collection<String> texts = new ArrayList<String>();
+			texts.add(anItem.getTitle());
+			texts.add(anItem.getDescription());
+			for (Comment aComment : anItem.getComments()) {
+				texts.add(aComment.getComment());
+			}
+			AfterCommit.execute(new Runnable() {
+
+				public void run() {
+					index.index(anOid, texts);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Elimina de la base de datos los tems recibidos junto con sus
+	 * observadores, propiedades adicionales, comentarios, archivos y nodos,
+	 * utilizando una nica sentencia por tabla para cada bloque de tems.<br>
+	 * Antes de eliminar se quitan los tems de las colecciones de tems de sus
+	 * proyectos que ya estn inicializadas en la sesin (las que no lo estn
+	 * no se cargan) y se sincroniza la sesin para que se graben los cambios
+	 * pendientes (por ejemplo las cantidades de referencias liberadas por los
+	 * tems). Luego de eliminar se quitan los tems de la sesin y de la cache
+	 * de segundo nivel, ya que las sentencias no pasan por Hibernate.
+	 * 
+	 * @param someItems
+	 *            es una coleccin con los tems que deben eliminarse.
+	 * @return una coleccin con los hashes de los contenidos adjuntos a los
+	 *         tems eliminados que ya no estn adjuntos a ningn otro tem.
+	 */
+	public Collection<String> deleteItemsInBulk(Collection<Item> someItems) {
+		Collection<String> result = new HashSet<String>();
+		if (someItems.isEmpty()) {
+			return result;
+		}
+
+		Session aSession = this.getSession();
+
+		// quita los tems de las colecciones de tems de los proyectos que ya
+		// fueron cargadas, de modo que la sesin no siga referenciando tems
+		// eliminados.
+		Set<Project> projects = new HashSet<Project>();
+		for (Item anItem : someItems) {
+			if (anItem.getProject() != null
+					&& Hibernate.isInitialized(anItem.getProject())) {
+				projects.add(anItem.getProject());
+			}
+		}
+		for (Project aProject : projects) {
+			if (Hibernate.isInitialized(aProject.getItems())) {
+				aProject.getItems().removeAll(someItems);
+			}
+		}
+		aSession.flush();
+
+		// recupera los oids de los tems, de sus proyectos y de sus nodos
+		// actuales sin inicializar los proxies.
+		List<String> itemsOids = new ArrayList<String>();
+		List<String> nodesOids = new ArrayList<String>();
+		Set<String> projectsOids = new HashSet<String>();
+		for (Item anItem : someItems) {
+			itemsOids.add(anItem.getOid());
+			if (anItem.getCurrentWorkflowNode() != null) {
+				nodesOids.add(anItem.getCurrentWorkflowNode().getOid());
+			}
+			if (anItem.getProject() != null) {
+				projectsOids.add(anItem.getProject().getOid());
+			}
+		}
+
+		// elimina las filas de cada tabla por bloques. Los nodos actuales se
+		// eliminan luego de los tems ya que stos los referencian.
+		for (int i = 0; i < itemsOids.size(); i = i + BULK_DELETE_CHUNK_SIZE) {
+			Collection<String> chunk = itemsOids.subList(i, Math.min(i
+					+ BULK_DELETE_CHUNK_SIZE, itemsOids.size()));
+			result.addAll(this.findContentHashes(aSession,
+					"select distinct content_hash from item_file "
+							+ "where oid_item in (:oids) "
+							+ "and content_hash is not null", chunk));
+			this.bulkDelete(aSession, "item_observers",
+					"delete from item_observers where OID_ITEM in (:oids)",
+					chunk);
+			this.bulkDelete(aSession, "additional_properties",
+					"delete from additional_properties where oid_item in (:oids)",
+					chunk);
+			this.bulkDelete(aSession, "comments",
+					"delete from comments where oid_item in (:oids)", chunk);
+			this.bulkDelete(aSession, "item_file",
+					"delete from item_file where oid_item in (:oids)", chunk);
+			this.bulkDelete(aSession, "workflow_node",
+					"delete from workflow_node where oid_item in (:oids)", chunk);
+			this.bulkDelete(aSession, "item",
+					"delete from item where OID_ITEM in (:oids)",
+					chunk);
+		}
+		for (int i = 0; i < nodesOids.size(); i = i + BULK_DELETE_CHUNK_SIZE) {
+			this.bulkDelete(aSession, "workflow_node",
+					"delete from workflow_node where OID_WORKFLOW_NODE in (:oids)",
+					nodesOids.subList(i, Math.min(i + BULK_DELETE_CHUNK_SIZE,
+							nodesOids.size())));
+		}
+
+		// descarta los contenidos que siguen adjuntos a otros tems.
+		List<String> hashes = new ArrayList<String>(result);
+		for (int i = 0; i < hashes.size(); i = i + BULK_DELETE_CHUNK_SIZE) {
+			result.removeAll(this.findContentHashes(aSession,
+					"select distinct content_hash from item_file "
+							+ "where content_hash in (:oids)", hashes
+							.subList(i, Math.min(i + BULK_DELETE_CHUNK_SIZE,
+									hashes.size()))));
+		}
+
+		// quita los tems eliminados de la sesin y de la cache de segundo
+		// nivel.
+		for (Item anItem : someItems) {
+			aSession.evict(anItem);
+		}
+		SessionFactory aSessionFactory = this.getSessionFactory();
+		for (String anOid : itemsOids) {
+			aSessionFactory.evict(Item.class, anOid);
+			aSessionFactory.evictCollection(Item.class.getName() + ".observers",
+					anOid);
+			aSessionFactory.evictCollection(Item.class.getName() + ".comments",
+					anOid);
+			aSessionFactory.evictCollection(Item.class.getName() + ".files",
+					anOid);
+			aSessionFactory.evictCollection(Item.class.getName()
+					+ ".oldWorkflowNodes", anOid);
+			aSessionFactory.evictCollection(Item.class.getName()
+					+ ".additionalProperties", anOid);
+		}
+		for (String anOid : projectsOids) {
+			aSessionFactory.evictCollection(Project.class.getName() + ".items",
+					anOid);
+		}
+		aSessionFactory.evict(Comment.class);
+		aSessionFactory.evict(ItemFile.class);
+		aSessionFactory.evict(WorkflowNode.class);
+
+		return result;
+	}
+
+	/**
+	 * Ejecuta una consulta que recupera hashes de contenidos adjuntos.
+	 * 
+	 * @param aSession
+	 *            es la sesin que se debe utilizar.
+	 * @param aStatement
+	 *            es la sentencia SQL que se debe ejecutar. Debe tener un
+	 *            parmetro llamado oids y retornar la columna content_hash.
+	 * @param someValues
+	 *            es una coleccin con los valores del parmetro.
+	 * @return una lista con los hashes recuperados.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<String> findContentHashes(Session aSession,
+			String aStatement, Collection<String> someValues) {
+		return aSession.createSQLQuery(aStatement).addScalar("content_hash",
+				Hibernate.STRING).setParameterList("oids", someValues).list();
+	}
+
+	/**
+	 * Ejecuta una sentencia de eliminacin sobre los oids recibidos.
+	 * 
+	 * @param aSession
+	 *            es la sesin que se debe utilizar.
+	 * @param aTableName
+	 *            es el nombre de la tabla afectada. Se informa a Hibernate para
+	 *            que solamente invalide las regiones de la cache de consultas
+	 *            que dependen de esa tabla.
+	 * @param aStatement
+	 *            es la sentencia SQL que se debe ejecutar. Debe tener un
+	 *            parmetro llamado oids.
+	 * @param someOids
+	 *            es una coleccin con los oids.
+	 */
+	private void bulkDelete(Session aSession, String aTableName,
+			String aStatement, Collection<String> someOids) {
+		aSession.createSQLQuery(aStatement).addSynchronizedQuerySpace(
+				aTableName).setParameterList("oids", someOids).executeUpdate();
+	}
+
+	/**
+	 * Elimina del ndice de texto a los tems recibidos, una vez confirmada la
+	 * transaccin actual.
+	 * 
+	 * @param someItems
+	 *            es una coleccin con los tems eliminados.
+	 */
+	public void removeItemsFromTextIndex(Collection<Item> someItems) {
+		final ItemsTextIndex index = this.getItemsTextIndex();
+		if (index != null) {
+			final Collection<String> oids = new ArrayList<String>();
+			for (Item anItem : someItems) {
+				oids.add(anItem.getOid());
+			}
+			AfterCommit.execute(new Runnable() {
+
+				public void run() {
+					for (String anOid : oids) {
+						index.remove(anOid);
+					}
+				}
+			});
+		}
+	}
 
-		return ((Long) aQuery.uniqueResult()).intValue();
+	/**
+	 * Asigna a la consulta los parmetros del filtro y, si la consulta lo
+	 * requiere, los oids de los proyectos del usuario.
+	 * 
+	 * @param aQuery
+	 *            es la consulta.
+	 * @param anUser
+	 *            es el usuario que solicita el listado. Puede ser nulo.
+	 * @param someParameters
+	 *            es un diccionario con los valores de los parmetros del
+	 *            filtro.
+	 */
+	private void bindFilterParameters(Query aQuery, User anUser,
+			Map<String, Object> someParameters) {
+		this.bindParameters(aQuery, someParameters);
+
+		String parameter = ParameterizedHibernateFilterStringCreationStrategy.USER_PROJECTS_PARAMETER;
+		String statesParameter = ParameterizedHibernateFilterStringCreationStrategy.STATES_PARAMETER;
+		for (String aName : aQuery.getNamedParameters()) {
+			if (aName.equals(parameter)) {
+				Collection<String> oids = new ArrayList<String>();
+				for (Project aProject : anUser.getProjects()) {
+					oids.add(aProject.getOid());
+				}
+				aQuery.setParameterList(parameter, oids);
+			}
+			if (aName.equals(statesParameter) && someParameters != null
+					&& someParameters.containsKey(statesParameter)) {
+				// los estados se deben convertir con el mismo tipo que
+				// utiliza el mapeo de la propiedad state.
+				aQuery.setParameterList(statesParameter,
+						(Collection<?>) someParameters.get(statesParameter),
+						this.getSessionFactory().getClassMetadata(Item.class)
+								.getPropertyType("state"));
+			}
+		}
+	}
+
+	/**
+	 * Invalida las cantidades de tems recordadas para los listados. Este
+	 * mtodo debe invocarse cada vez que se crean, eliminan o modifican tems
+	 * en alguna de las columnas por las que se puede filtrar (responsable,
+	 * estado, nodo, tipo, texto). <br>
+	 * La invalidacin se realiza al confirmarse la transaccin actual; si se
+	 * invalidara antes, un listado concurrente podra volver a recordar la
+	 * cantidad anterior antes de que los cambios sean visibles.
+	 */
+	public void invalidateItemsCount() {
+		final ItemsCountCache cache = this.getItemsCountCache();
+		if (cache != null) {
+			AfterCommit.execute(new Runnable() {
+
+				public void run() {
+					cache.invalidate();
+				}
+			});
+		}
+	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto que recuerda las cantidades de tems de los listados.
+	 */
+	public ItemsCountCache getItemsCountCache() {
+		return this.itemsCountCache;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aCache
+	 *            es el objeto que recuerda las cantidades de tems de los
+	 *            listados.
+	 */
+	public void setItemsCountCache(ItemsCountCache aCache) {
+		this.itemsCountCache = aCache;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el ndice de texto de los tems.
+	 */
+	public ItemsTextIndex getItemsTextIndex() {
+		return this.itemsTextIndex;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param anIndex
+	 *            es el ndice de texto de los tems.
+	 */
+	public void setItemsTextIndex(ItemsTextIndex anIndex) {
+		this.itemsTextIndex = anIndex;
 	}
 
 	/**
@@ -270,6 +1103,29 @@ public class HibernateItemsRepository extends HibernateBaseRepository implements
 		return ((Long) aQuery.uniqueResult()).intValue() != 0;
 	}
 
+	/**
+	 * Verifica si un contenido est adjunto a algn tem de un proyecto que el
+	 * usuario puede ver, es decir un proyecto pblico o asignado a alguno de
+	 * sus grupos.
+	 * 
+	 * @param anUsername
+	 *            es el nombre del usuario.
+	 * @param aContentHash
+	 *            es el hash del contenido.
+	 * @return true en caso de que el usuario pueda ver el contenido; false en
+	 *         caso contrario.
+	 */
+	public boolean isAttachmentVisibleToUser(String anUsername,
+			String aContentHash) {
+		Query aQuery = this.getNamedQuery("visibleAttachmentCountQuery");
+
+		aQuery.setParameter("anUsername", anUsername);
+		aQuery.setParameter("aContentHash", aContentHash);
+		aQuery.setMaxResults(1);
+
+		return ((Long) aQuery.uniqueResult()).intValue() != 0;
+	}
+
 	/**
 	 * Recupera un tem con el oid dado.
 	 * 
@@ -305,12 +1161,9 @@ public class HibernateItemsRepository extends HibernateBaseRepository implements
 	 */
 	public ItemType findItemTypeById(String anOid)
 			throws ItemTypeUnknownException {
-		Query aQuery = this.getNamedQuery("itemTypeByIdQuery");
-
-		aQuery.setParameter("anId", anOid);
-		aQuery.setMaxResults(1);
-
-		ItemType result = (ItemType) aQuery.uniqueResult();
+		// se recupera por oid para utilizar la cache de segundo nivel de los
+		// tipos de tems.
+		ItemType result = (ItemType) this.findById(ItemType.class, anOid);
 		if (result == null) {
 			throw new ItemTypeUnknownException();
 		} else {
@@ -616,6 +1469,68 @@ public class HibernateItemsRepository extends HibernateBaseRepository implements
 		return result;
 	}
 
+	/**
+	 * Recupera todos los comentarios de un tem, ordenados desde el ms
+	 * reciente al ms antiguo.
+	 * 
+	 * @param anItemOid
+	 *            es el oid del tem.
+	 * @return una lista con los comentarios del tem.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Comment> findCommentsOfItem(String anItemOid) {
+		Query aQuery = this.getNamedQuery("commentsOfItemQuery");
+		aQuery.setParameter("anId", anItemOid);
+
+		return new ArrayList<Comment>(aQuery.list());
+	}
+
+	/**
+	 * Recupera una pgina de los comentarios de un tem, ordenados desde el
+	 * ms reciente al ms antiguo. En lugar de saltear los comentarios ya
+	 * ledos se buscan los anteriores a la clave del ltimo comentario ledo.
+	 * 
+	 * @param anItemOid
+	 *            es el oid del tem.
+	 * @param aCursor
+	 *            es el cursor que recuerda el ltimo comentario ledo.
+	 * @param aCount
+	 *            es la cantidad mxima de comentarios de la pgina.
+	 * @return una lista con los comentarios de la pgina.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Comment> findCommentsOfItem(String anItemOid,
+			CommentsPageCursor aCursor, int aCount) {
+		if (aCursor.isExhausted()) {
+			return new ArrayList<Comment>();
+		}
+
+		Query aQuery = null;
+		if (aCursor.isFirstPage()) {
+			aQuery = this.getNamedQuery("commentsOfItemQuery");
+		} else {
+			aQuery = this.getNamedQuery("commentsOfItemBeforeKeyQuery");
+			aQuery.setParameter("aDate", aCursor.getLastCreationDate());
+			aQuery.setParameter("anOid", aCursor.getLastOid());
+		}
+		aQuery.setParameter("anId", anItemOid);
+		// se pide un comentario ms para saber si quedan comentarios por leer.
+		aQuery.setMaxResults(aCount + 1);
+
+		List<Comment> result = new ArrayList<Comment>(aQuery.list());
+		boolean complete = result.size() > aCount;
+		if (complete) {
+			result.remove(aCount);
+		}
+		if (result.isEmpty()) {
+			aCursor.setLastKey(null, null, false);
+		} else {
+			Comment last = result.get(result.size() - 1);
+			aCursor.setLastKey(last.getCreationDate(), last.getOid(), complete);
+		}
+		return result;
+	}
+
 	/**
 	 * Recupera archivos adjuntos por sus identificadores.
 	 * 
@@ -289,12 +289,9 @@ public class HibernatePrioritiesRepository extends HibernateBaseRepository
 	public Priority findPriorityById(String anOid)
 			throws PriorityUnknownException {
 
-		Query aQuery = this.getNamedQuery("priorityByIdQuery");
-
-		aQuery.setParameter("anOid", anOid);
-		aQuery.setMaxResults(1);
-
-		Priority result = (Priority) aQuery.uniqueResult();
+		// se recupera por oid para utilizar la cache de segundo nivel de las
+		// prioridades.
+		Priority result = (Priority) this.findById(Priority.class, anOid);
 
 		if (result == null) {
 
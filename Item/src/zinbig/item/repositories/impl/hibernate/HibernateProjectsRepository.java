@@ -6,6 +6,7 @@
  */
 package zinbig.item.repositories.impl.hibernate;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -17,6 +18,7 @@ import java.util.StringTokenizer;
 import org.hibernate.HibernateException;
 import org.hibernate.Query;
 import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
 
 import zinbig.item.model.Tracker;
 import zinbig.item.model.exceptions.ProjectUnknownException;
@@ -27,6 +29,8 @@ import zinbig.item.model.users.UserGroup;
 import zinbig.item.repositories.bi.ProjectsRepositoryBI;
 import zinbig.item.util.dto.ProjectDTO;
 import zinbig.item.util.dto.UserDTO;
+import zinbig.item.util.persistence.DynamicValuesCache;
+import zinbig.item.util.persistence.ItemNumberAllocator;
 
 /**
  * Este repositorio se utiliza para acceder en forma eficiente (a travs de
@@ -38,6 +42,17 @@ import zinbig.item.util.dto.UserDTO;
 public class HibernateProjectsRepository extends HibernateBaseRepository
 		implements ProjectsRepositoryBI {
 
+	/**
+	 * Es el objeto que mantiene en memoria los valores de las propiedades
+	 * adicionales dinmicas.
+	 */
+	protected DynamicValuesCache dynamicValuesCache;
+
+	/**
+	 * Es el objeto que asigna los nmeros de los tems de cada proyecto.
+	 */
+	protected ItemNumberAllocator itemNumberAllocator;
+
 	/**
 	 * Recupera la coleccin de proyectos en los cuales el usuario recibido est
 	 * asignado.
@@ -445,15 +460,57 @@ public class HibernateProjectsRepository extends HibernateBaseRepository
 	 * @return una coleccin de strings para cada uno de los valores
 	 *         adicionales.
 	 */
-	@SuppressWarnings("deprecation")
 	public Collection<String> getValuesForDynamicProperty(String aQuery) {
-		Collection<String> result = new ArrayList<String>();
+		return this.getValuesForDynamicProperty(aQuery, 0);
+	}
 
+	/**
+	 * Recupera los valores dinmicos de una propiedad adicional, limitando la
+	 * cantidad de valores recuperados. Si el repositorio tiene una cache de
+	 * valores dinmicos los valores se recuperan a travs de ella, utilizando
+	 * la conexin de la sesin actual para los resultados que no estn en
+	 * memoria.
+	 * 
+	 * @param aQuery
+	 *            es la consulta que se debe ejecutar para recuperar los valores
+	 *            adicionales.
+	 * @param aMaxValues
+	 *            es la cantidad mxima de valores. Si no es positiva se
+	 *            utiliza la cantidad mxima por defecto.
+	 * @return una coleccin de strings para cada uno de los valores
+	 *         adicionales.
+	 */
+	@SuppressWarnings("deprecation")
+	public Collection<String> getValuesForDynamicProperty(final String aQuery,
+			final int aMaxValues) {
 		Session session = this.getSession();
+
+		if (this.getDynamicValuesCache() != null) {
+			final Collection<String> result = new ArrayList<String>();
+			session.doWork(new Work() {
+
+				/**
+				 * Recupera los valores a travs de la cache con la conexin de
+				 * la sesin.
+				 */
+				public void execute(Connection aConnection) {
+					result.addAll(HibernateProjectsRepository.this
+							.getDynamicValuesCache().getValues(aQuery,
+									aMaxValues, aConnection));
+				}
+			});
+			return result;
+		}
+
+		Collection<String> result = new ArrayList<String>();
+
 		Statement stmt = null;
 		ResultSet rs = null;
 		try {
 			stmt = session.connection().createStatement();
+			if (aMaxValues > 0) {
+				stmt.setMaxRows(aMaxValues);
+			}
 			rs = stmt.executeQuery(aQuery);
 			String aValue = "";
 			while (rs.next()) {
@@ -547,4 +604,79 @@ public class HibernateProjectsRepository extends HibernateBaseRepository
 		return properties;
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto que mantiene en memoria los valores de las propiedades
+	 *         adicionales dinmicas.
+	 */
+	public DynamicValuesCache getDynamicValuesCache() {
+		return this.dynamicValuesCache;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aCache
+	 *            es el objeto que mantiene en memoria los valores de las
+	 *            propiedades adicionales dinmicas.
+	 */
+	public void setDynamicValuesCache(DynamicValuesCache aCache) {
+		this.dynamicValuesCache = aCache;
+	}
+
+	/**
+	 * Asigna el nmero del prximo tem de un proyecto. Si no se ha
+	 * configurado el objeto que asigna los nmeros, o si no existe su tabla,
+	 * se incrementa el contador del proyecto. Como el objeto que asigna los
+	 * nmeros no actualiza ese contador, antes se lo lleva al mayor nmero ya
+	 * asignado, ya sea en la tabla de secuencias o en los tems del proyecto.
+	 * 
+	 * @param aProject
+	 *            es el proyecto al cual pertenecer el nuevo tem.
+	 * @return un nmero de tem que no fue asignado anteriormente en el
+	 *         proyecto.
+	 */
+	public int getNextItemNumber(Project aProject) {
+		ItemNumberAllocator anAllocator = this.getItemNumberAllocator();
+		if (anAllocator != null && anAllocator.isAvailable()) {
+			return anAllocator.nextNumber(aProject.getOid(), aProject
+					.getNextItemId());
+		}
+
+		int last = aProject.getNextItemId();
+		if (anAllocator != null) {
+			last = Math.max(last, anAllocator.getLastNumber(aProject.getOid()));
+		}
+		Query aQuery = this.getNamedQuery("maxItemNumberOfProjectQuery");
+		aQuery.setParameter("aProjectOid", aProject.getOid());
+		Integer maxItemNumber = (Integer) aQuery.uniqueResult();
+		if (maxItemNumber != null) {
+			last = Math.max(last, maxItemNumber.intValue());
+		}
+
+		aProject.setNextItemId(last);
+		return aProject.getNextItemIdForItem();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto que asigna los nmeros de los tems de cada proyecto.
+	 */
+	public ItemNumberAllocator getItemNumberAllocator() {
+		return this.itemNumberAllocator;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param anAllocator
+	 *            es el objeto que asigna los nmeros de los tems de cada
+	 *            proyecto.
+	 */
+	public void setItemNumberAllocator(ItemNumberAllocator anAllocator) {
+		this.itemNumberAllocator = anAllocator;
+	}
+
 }
@@ -8,7 +8,10 @@ package zinbig.item.repositories.impl.hibernate;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.hibernate.Query;
 
@@ -20,6 +23,9 @@ import zinbig.item.model.users.User;
 import zinbig.item.model.users.UserGroup;
 import zinbig.item.repositories.bi.UsersRepositoryBI;
 import zinbig.item.util.dto.UserGroupDTO;
+import zinbig.item.util.persistence.AfterCommit;
+import zinbig.item.util.persistence.UsernameIndex;
+import zinbig.item.util.persistence.UsersPrefixIndex;
 
 /**
  * Esta clase implementa un repositorio para acceder a los usuarios persistidos de manera eficiente a travs
@@ -29,6 +35,16 @@ import zinbig.item.util.dto.UserGroupDTO;
  */
 public class HibernateUsersRepository extends HibernateBaseRepository implements UsersRepositoryBI {
 
+  /**
+   * Es el ndice compartido que asocia cada nombre de usuario con el oid del usuario.
+   */
+  protected UsernameIndex usernameIndex;
+
+  /**
+   * Es el ndice de prefijos compartido que se utiliza para completar los nombres de usuario.
+   */
+  protected UsersPrefixIndex usersPrefixIndex;
+
   /**
    * Verifica si el modelo contiene ya un usuario con un nombre de usuario dado. Es una restriccin del
    * negocio que solamente exista un usuario con un nombre de usuario determinado.<br>
@@ -75,13 +91,38 @@ public class HibernateUsersRepository extends HibernateBaseRepository implements
   public User findUserWithUsername(Tracker aTracker, String anUsername, String status)
       throws UserUnknownException {
 
-    Query aQuery = this.getNamedQuery("userByUsernameQuery");
+    User result = null;
+    boolean resolved = false;
+
+    // primero se intenta resolver el usuario a travs del ndice.
+    String anOid = this.getUsernameIndex().getOid(anUsername);
+    if (anOid != null) {
+      User anUser = (User) this.findById(User.class, anOid);
+      if (anUser != null && anUser.getUsername().equals(anUsername)) {
+        resolved = true;
+        if (status.equals(anUser.getStatus())) {
+          result = anUser;
+        }
+      } else {
+        // la entrada no es vlida (por ejemplo, la transaccin que agreg al
+        // usuario se deshizo).
+        this.getUsernameIndex().remove(anUsername, anOid);
+      }
+    }
 
-    aQuery.setParameter("anUsername", anUsername);
-    aQuery.setParameter("anStatus", status);
-    aQuery.setMaxResults(1);
+    if (!resolved) {
+      Query aQuery = this.getNamedQuery("userByUsernameQuery");
+
+      aQuery.setParameter("anUsername", anUsername);
+      aQuery.setParameter("anStatus", status);
+      aQuery.setMaxResults(1);
+
+      result = (User) aQuery.uniqueResult();
+      if (result != null) {
+        this.getUsernameIndex().put(anUsername, result.getOid());
+      }
+    }
 
-    User result = (User) aQuery.uniqueResult();
     if (result == null) {
       if (aTracker.getAdministrator().getUsername().equals(anUsername)) {
         result = aTracker.getAdministrator();
@@ -506,6 +547,14 @@ public class HibernateUsersRepository extends HibernateBaseRepository implements
    *         recibido.
    */
   public Collection<User> findUsersWithUsernameLike(Tracker aTracker, String aString, int aLimit) {
+    UsersPrefixIndex anIndex = this.getUsersPrefixIndex();
+    if (anIndex != null) {
+      if (!anIndex.isLoaded()) {
+        this.loadUsersPrefixIndex(anIndex);
+      }
+      return this.findUsersInOrder(anIndex.find(aString, aLimit));
+    }
+
     Collection<User> users = new ArrayList<User>();
     Query aQuery = this.getNamedQuery("usersWithUsernameLikeQuery");
     aQuery.setParameter("aString", aString + "%");
@@ -517,4 +566,156 @@ public class HibernateUsersRepository extends HibernateBaseRepository implements
 
   }
 
+  /**
+   * Recupera los usuarios cuyos oids se han recibido respetando el orden de los oids.
+   * 
+   * @param someOids
+   *          es una lista con los oids de los usuarios.
+   * @return una coleccin con los usuarios encontrados en el mismo orden que sus oids.
+   */
+  protected Collection<User> findUsersInOrder(List<String> someOids) {
+    Map<String, User> usersByOid = new HashMap<String, User>();
+    for (User anUser : this.findUsersById(someOids)) {
+      usersByOid.put(anUser.getOid(), anUser);
+    }
+
+    Collection<User> result = new ArrayList<User>(someOids.size());
+    for (String anOid : someOids) {
+      User anUser = usersByOid.get(anOid);
+      if (anUser != null) {
+        result.add(anUser);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Carga el ndice de prefijos con los trminos de todos los usuarios. Slo se recuperan los datos
+   * necesarios para el ndice, no los usuarios completos.<br>
+   * La carga se sincroniza sobre el ndice para que, al arrancar, los pedidos concurrentes no carguen
+   * todos los usuarios varias veces; los pedidos que esperaban encuentran el ndice ya cargado.
+   * 
+   * @param anIndex
+   *          es el ndice que se debe cargar.
+   */
+  @SuppressWarnings("unchecked")
+  protected void loadUsersPrefixIndex(UsersPrefixIndex anIndex) {
+    synchronized (anIndex) {
+      if (anIndex.isLoaded()) {
+        return;
+      }
+
+      Query aQuery = this.getNamedQuery("usersPrefixIndexQuery");
+      Iterator<Object[]> iterator = aQuery.list().iterator();
+      while (iterator.hasNext()) {
+        Object[] row = iterator.next();
+        anIndex.put((String) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4]);
+      }
+      anIndex.setLoaded(true);
+    }
+  }
+
+  /**
+   * Registra un usuario en el ndice de nombres de usuario. Los ndices se actualizan una vez confirmada la
+   * transaccin, con los datos que el usuario tiene en este momento.
+   * 
+   * @param anUser
+   *          es el usuario agregado o actualizado.
+   */
+  public void indexUser(User anUser) {
+    final String anOid = anUser.getOid();
+    final String anUsername = anUser.getUsername();
+    final String anAlias = anUser.getAlias();
+    final String aName = anUser.getName();
+    final String aSurname = anUser.getSurname();
+
+    AfterCommit.execute(new Runnable() {
+
+      /**
+       * Actualiza los ndices.
+       */
+      public void run() {
+        HibernateUsersRepository.this.getUsernameIndex().put(anUsername, anOid);
+        if (HibernateUsersRepository.this.getUsersPrefixIndex() != null) {
+          HibernateUsersRepository.this.getUsersPrefixIndex().put(anOid, anUsername, anAlias, aName, aSurname);
+        }
+      }
+    });
+  }
+
+  /**
+   * Elimina un usuario del ndice de nombres de usuario. Los ndices se actualizan una vez confirmada la
+   * transaccin.
+   * 
+   * @param anUser
+   *          es el usuario que se est eliminando.
+   */
+  public void unindexUser(User anUser) {
+    final String anOid = anUser.getOid();
+    final String anUsername = anUser.getUsername();
+
+    AfterCommit.execute(new Runnable() {
+
+      /**
+       * Actualiza los ndices.
+       */
+      public void run() {
+        HibernateUsersRepository.this.getUsernameIndex().remove(anUsername, anOid);
+        if (HibernateUsersRepository.this.getUsersPrefixIndex() != null) {
+          HibernateUsersRepository.this.getUsersPrefixIndex().remove(anOid);
+        }
+      }
+    });
+  }
+
+  /**
+   * Registra actividad de un usuario en el ndice de prefijos.
+   * 
+   * @param anUser
+   *          es el usuario que registr actividad.
+   */
+  public void recordActivity(User anUser) {
+    if (this.getUsersPrefixIndex() != null) {
+      this.getUsersPrefixIndex().recordActivity(anUser.getOid());
+    }
+  }
+
+  /**
+   * Getter.
+   * 
+   * @return el ndice que asocia cada nombre de usuario con el oid del usuario.
+   */
+  public UsernameIndex getUsernameIndex() {
+    return this.usernameIndex;
+  }
+
+  /**
+   * Setter.
+   * 
+   * @param anIndex
+   *          es el ndice que asocia cada nombre de usuario con el oid del usuario.
+   */
+  public void setUsernameIndex(UsernameIndex anIndex) {
+    this.usernameIndex = anIndex;
+  }
+
+  /**
+   * Getter.
+   * 
+   * @return el ndice de prefijos que se utiliza para completar los nombres de usuario.
+   */
+  public UsersPrefixIndex getUsersPrefixIndex() {
+    return this.usersPrefixIndex;
+  }
+
+  /**
+   * Setter.
+   * 
+   * @param anIndex
+   *          es el ndice de prefijos que se utiliza para completar los nombres de usuario.
+   */
+  public void setUsersPrefixIndex(UsersPrefixIndex anIndex) {
+    this.usersPrefixIndex = anIndex;
+  }
+
 }
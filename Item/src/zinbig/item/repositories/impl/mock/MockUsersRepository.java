@@ -4,9 +4,12 @@
  */
 package zinbig.item.repositories.impl.mock;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 
+import org.hibernate.SessionFactory;
+
 import zinbig.item.model.Tracker;
 import zinbig.item.model.exceptions.UserGroupUnknownException;
 import zinbig.item.model.exceptions.UserUnknownException;
@@ -15,6 +18,8 @@ import zinbig.item.model.users.User;
 import zinbig.item.model.users.UserGroup;
 import zinbig.item.repositories.bi.UsersRepositoryBI;
 import zinbig.item.util.dto.UserGroupDTO;
+import zinbig.item.util.persistence.UsernameIndex;
+import zinbig.item.util.persistence.UsersPrefixIndex;
 
 /**
  * Esta clase representa un mock object para los repositorios de usuarios. <br>
@@ -25,6 +30,25 @@ import zinbig.item.util.dto.UserGroupDTO;
  */
 public class MockUsersRepository implements UsersRepositoryBI {
 
+	/**
+	 * Es el ndice compartido que asocia cada nombre de usuario con el oid del
+	 * usuario.
+	 */
+	protected UsernameIndex usernameIndex;
+
+	/**
+	 * Es el ndice de prefijos compartido que se utiliza para completar los
+	 * nombres de usuario.
+	 */
+	protected UsersPrefixIndex usersPrefixIndex;
+
+	/**
+	 * Es el objeto utilizado para recuperar los usuarios indexados a partir de
+	 * su oid en la sesin actual. Puede ser nulo, en cuyo caso los usuarios se
+	 * buscan en la coleccin del Tracker.
+	 */
+	protected SessionFactory sessionFactory;
+
 	@Override
 	public boolean containsUserGroupWithName(Tracker aTracker, String aName) {
 
@@ -64,19 +88,30 @@ public class MockUsersRepository implements UsersRepositoryBI {
 	@Override
 	public User findUserWithUsername(Tracker aTracker, String anUsername, String status) throws UserUnknownException {
 
-		Iterator<User> iterator = aTracker.getUsers().iterator();
-		// System.out.println("tipo de la coleccin
-		// "+aTracker.getUsers().getClass());
-		// System.out.println("tipo del iterador "+iterator.getClass());
-
 		User anUser = null;
-		User currentUser = null;
 
-		while (iterator.hasNext()) {
-			currentUser = iterator.next();
+		// primero se intenta resolver el usuario a travs del ndice.
+		String anOid = this.getUsernameIndex().getOid(anUsername);
+		if (anOid != null) {
+			anUser = this.findUserByOid(aTracker, anOid);
+			if (anUser != null && !anUser.getUsername().equals(anUsername)) {
+				this.getUsernameIndex().remove(anUsername, anOid);
+				anUser = null;
+			}
+		}
 
-			if (currentUser.getUsername().equals(anUsername)) {
-				anUser = currentUser;
+		if (anUser == null) {
+			// el usuario no est indexado, as que se lo busca en la coleccin
+			// deteniendo el recorrido al encontrarlo.
+			Iterator<User> iterator = aTracker.getUsers().iterator();
+			User currentUser = null;
+			while (anUser == null && iterator.hasNext()) {
+				currentUser = iterator.next();
+
+				if (currentUser.getUsername().equals(anUsername)) {
+					anUser = currentUser;
+					this.getUsernameIndex().put(anUsername, anUser.getOid());
+				}
 			}
 		}
 		if (anUser == null) {
@@ -89,6 +124,35 @@ public class MockUsersRepository implements UsersRepositoryBI {
 
 	}
 
+	/**
+	 * Recupera un usuario a partir de su oid. Si se configur el objeto para
+	 * acceder a la sesin actual, el usuario se recupera mediante la sesin
+	 * (que lo obtiene de su cach si ya fue cargado); en caso contrario se lo
+	 * busca en la coleccin del Tracker.
+	 * 
+	 * @param aTracker
+	 *            es el objeto que contiene todos los usuarios.
+	 * @param anOid
+	 *            es el oid del usuario.
+	 * @return el usuario o null si no existe.
+	 */
+	private User findUserByOid(Tracker aTracker, String anOid) {
+		if (this.getSessionFactory() != null) {
+			return (User) this.getSessionFactory().getCurrentSession().get(
+					User.class, anOid);
+		}
+
+		User result = null;
+		Iterator<User> iterator = aTracker.getUsers().iterator();
+		while (result == null && iterator.hasNext()) {
+			User currentUser = iterator.next();
+			if (currentUser.getOid().equals(anOid)) {
+				result = currentUser;
+			}
+		}
+		return result;
+	}
+
 	@Override
 	public User findUserWithUsernameInUserGroup(UserGroup aGroup, String anUsername) throws UserUnknownException {
 
@@ -191,7 +255,115 @@ public class MockUsersRepository implements UsersRepositoryBI {
 	@Override
 	public Collection<User> findUsersWithUsernameLike(Tracker aTracker, String aString, int aLimit) {
 
-		return null;
+		Collection<User> result = new ArrayList<User>();
+		UsersPrefixIndex anIndex = this.getUsersPrefixIndex();
+		if (anIndex == null) {
+			return result;
+		}
+
+		synchronized (anIndex) {
+			if (!anIndex.isLoaded()) {
+				for (User anUser : aTracker.getUsers()) {
+					anIndex.put(anUser.getOid(), anUser.getUsername(), anUser.getAlias(), anUser.getName(),
+							anUser.getSurname());
+				}
+				anIndex.setLoaded(true);
+			}
+		}
+
+		for (String anOid : anIndex.find(aString, aLimit)) {
+			User anUser = this.findUserByOid(aTracker, anOid);
+			if (anUser != null) {
+				result.add(anUser);
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public void indexUser(User anUser) {
+		this.getUsernameIndex().put(anUser.getUsername(), anUser.getOid());
+		if (this.getUsersPrefixIndex() != null) {
+			this.getUsersPrefixIndex().put(anUser.getOid(), anUser.getUsername(), anUser.getAlias(),
+					anUser.getName(), anUser.getSurname());
+		}
+	}
+
+	@Override
+	public void unindexUser(User anUser) {
+		this.getUsernameIndex().remove(anUser.getUsername(), anUser.getOid());
+		if (this.getUsersPrefixIndex() != null) {
+			this.getUsersPrefixIndex().remove(anUser.getOid());
+		}
+	}
+
+	@Override
+	public void recordActivity(User anUser) {
+		if (this.getUsersPrefixIndex() != null) {
+			this.getUsersPrefixIndex().recordActivity(anUser.getOid());
+		}
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el ndice que asocia cada nombre de usuario con el oid del
+	 *         usuario.
+	 */
+	public UsernameIndex getUsernameIndex() {
+		return this.usernameIndex;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param anIndex
+	 *            es el ndice que asocia cada nombre de usuario con el oid del
+	 *            usuario.
+	 */
+	public void setUsernameIndex(UsernameIndex anIndex) {
+		this.usernameIndex = anIndex;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el ndice de prefijos que se utiliza para completar los nombres
+	 *         de usuario.
+	 */
+	public UsersPrefixIndex getUsersPrefixIndex() {
+		return this.usersPrefixIndex;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param anIndex
+	 *            es el ndice de prefijos que se utiliza para completar los
+	 *            nombres de usuario.
+	 */
+	public void setUsersPrefixIndex(UsersPrefixIndex anIndex) {
+		this.usersPrefixIndex = anIndex;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto utilizado para acceder a la sesin actual.
+	 */
+	public SessionFactory getSessionFactory() {
+		return this.sessionFactory;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aSessionFactory
+	 *            es el objeto utilizado para acceder a la sesin actual.
+	 */
+	public void setSessionFactory(SessionFactory aSessionFactory) {
+		this.sessionFactory = aSessionFactory;
 	}
 
 }
@@ -22,6 +22,8 @@ import zinbig.item.util.dto.PriorityDTO;
 import zinbig.item.util.dto.ProjectDTO;
 import zinbig.item.util.dto.UserDTO;
 import zinbig.item.util.dto.WorkflowNodeDescriptionDTO;
+import zinbig.item.util.persistence.CommentsPageCursor;
+import zinbig.item.util.persistence.ItemsPageCursor;
 
 /**
  * Esta interface define el protocolo de los servicios relacionados con los tem
@@ -129,6 +131,45 @@ public interface ItemsServiceBI {
 			ProjectDTO aProjectDTO, FilterDTO aFilterDTO, int index, int count,
 			String aPropertyName, String anOrdering) throws Exception;
 
+	/**
+	 * Getter. <br>
+	 * Recupera una pgina del listado de tems utilizando el cursor recibido,
+	 * que recuerda la clave de la ltima fila leda de modo que las pginas
+	 * siguientes se recuperen sin recorrer las filas anteriores. Si el cursor
+	 * no conoce la posicin de la pgina pedida se utiliza el ndice de
+	 * inicio.
+	 * 
+	 * @param anUserDTO
+	 *            es el dto que representa al usuario que est solicitando el
+	 *            listado de los tems. Puede ser nulo.
+	 * @param aProjectDTO
+	 *            es el dto que representa al proyecto actual. Puede ser nulo.
+	 * @param aFilterDTO
+	 *            es el dto que representa al filtro de tems que debe ser
+	 *            aplicado.
+	 * @param index
+	 *            es el ndice de inicio.
+	 * @param count
+	 *            es la cantidad de elementos a recuperar.
+	 * @param aPropertyName
+	 *            es el nombre de la propiedad que se debe utilizar para ordenar
+	 *            los resultados.
+	 * @param anOrdering
+	 *            es el orden que se debe aplicar a los resultados.
+	 * @param aCursor
+	 *            es el cursor que mantiene la posicin del listado entre un
+	 *            pedido y el siguiente. Se actualiza con la clave de la ltima
+	 *            fila recuperada.
+	 * @return la coleccin de dtos de los tems de la pgina pedida.
+	 * @throws Exception
+	 *             esta excepcin se levanta en caso de algn error en la
+	 *             ejecucin de este servicio.
+	 */
+	public Collection<ItemDTO> getItems(UserDTO anUserDTO,
+			ProjectDTO aProjectDTO, FilterDTO aFilterDTO, int index, int count,
+			String aPropertyName, String anOrdering, ItemsPageCursor aCursor)
+			throws Exception;
+
 	/**
 	 * Obtiene la cantidad de tems para el listado.
 	 * 
@@ -408,6 +449,24 @@ public interface ItemsServiceBI {
 	public boolean isUserObserverOfItem(AbstractUserDTO anAbstractUserDTO,
 			ItemDTO anItemDTO) throws Exception;
 
+	/**
+	 * Verifica si un usuario puede descargar un archivo adjunto, es decir si
+	 * el contenido est adjunto a algn tem de un proyecto pblico o asignado
+	 * a alguno de los grupos del usuario.
+	 * 
+	 * @param anUserDTO
+	 *            es el dto que representa al usuario.
+	 * @param aContentHash
+	 *            es el hash del contenido del archivo adjunto.
+	 * @return true en caso de que el usuario pueda descargar el archivo; false
+	 *         en caso contrario.
+	 * @throws Exception
+	 *             esta excepcin puede levantarse en caso de algn error al
+	 *             ejecutar este servicio.
+	 */
+	public boolean isAttachmentVisibleToUser(UserDTO anUserDTO,
+			String aContentHash) throws Exception;
+
 	/**
 	 * Agrega al usuario o grupo de usuarios como observador del tem.
 	 * 
@@ -442,7 +501,8 @@ public interface ItemsServiceBI {
 			throws Exception;
 
 	/**
-	 * Retorna los comentarios de un tem.
+	 * Retorna los comentarios de un tem, desde el ms reciente al ms
+	 * antiguo.
 	 * 
 	 * @param itemDTO
 	 *            es el dto que representa al tem.
@@ -455,6 +515,40 @@ public interface ItemsServiceBI {
 	public Collection<CommentDTO> getCommentsOfItem(ItemDTO itemDTO)
 			throws Exception;
 
+	/**
+	 * Retorna una pgina de los comentarios de un tem, desde el ms reciente
+	 * al ms antiguo. La pgina comienza a continuacin del ltimo comentario
+	 * ledo por el cursor.
+	 * 
+	 * @param itemDTO
+	 *            es el dto que representa al tem.
+	 * @param aCursor
+	 *            es el cursor que recuerda el ltimo comentario ledo. Queda
+	 *            posicionado en el ltimo comentario de la pgina.
+	 * @param aCount
+	 *            es la cantidad mxima de comentarios de la pgina.
+	 * @return una coleccin que contiene los dtos de los comentarios.
+	 * 
+	 * @throws Exception
+	 *             es cualquier excepcin que puede levantarse a raz de la
+	 *             ejecucin de este mtodo.
+	 */
+	public Collection<CommentDTO> getCommentsOfItem(ItemDTO itemDTO,
+			CommentsPageCursor aCursor, int aCount) throws Exception;
+
+	/**
+	 * Retorna la cantidad de comentarios de un tem.
+	 * 
+	 * @param itemDTO
+	 *            es el dto que representa al tem.
+	 * @return la cantidad de comentarios del tem.
+	 * 
+	 * @throws Exception
+	 *             es cualquier excepcin que puede levantarse a raz de la
+	 *             ejecucin de este mtodo.
+	 */
+	public int getCommentsCountOfItem(ItemDTO itemDTO) throws Exception;
+
 	/**
 	 * Agrega un nuevo comentario al tem.
 	 * 
@@ -710,6 +804,28 @@ public interface ItemsServiceBI {
 	public ItemDTO attachFileToItem(ItemDTO anItemDTO, String aFilename)
 			throws Exception;
 
+	/**
+	 * Adjunta al tem representado por el dto un archivo que ya fue guardado
+	 * en el almacn de archivos adjuntos.
+	 * 
+	 * @param anItemDTO
+	 *            es el dto que representa al tem al cual se debe adjuntar un
+	 *            archivo.
+	 * @param aFilename
+	 *            es el nombre del archivo que se ha adjuntado.
+	 * @param aContentHash
+	 *            es el hash del contenido del archivo en el almacn.
+	 * @param aSize
+	 *            es el tamao (en bytes) del archivo.
+	 * 
+	 * @return el dto que representa al tem.
+	 * @throws Exception
+	 *             esta excepcin se levanta en caso de algn error en la
+	 *             ejecucin de este servicio.
+	 */
+	public ItemDTO attachFileToItem(ItemDTO anItemDTO, String aFilename,
+			String aContentHash, long aSize) throws Exception;
+
 	/**
 	 * Obtiene la coleccin de archivos adjuntos de un tem.
 	 * 
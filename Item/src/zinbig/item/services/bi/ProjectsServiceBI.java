@@ -10,6 +10,7 @@ import java.util.Iterator;
 
 import zinbig.item.model.exceptions.ProjectNameNotUniqueException;
 import zinbig.item.util.dto.ItemTypeDTO;
+import zinbig.item.util.dto.MassiveItemsMovementDTO;
 import zinbig.item.util.dto.PrioritySetDTO;
 import zinbig.item.util.dto.ProjectDTO;
 import zinbig.item.util.dto.PropertyDescriptionDTO;
@@ -319,6 +320,18 @@ public interface ProjectsServiceBI {
    */
   public Collection<String> getValuesForDynamicProperty(String aQuery);
 
+  /**
+   * Obtiene la lista de valores asociada a una descripcin de propiedad adicional dinmica, recuperando a lo sumo
+   * la cantidad de valores indicada.
+   * 
+   * @param aQuery
+   *          es la consulta que se debe ejecutar.
+   * @param aMaxValues
+   *          es la cantidad mxima de valores. Si no es positiva se utiliza la cantidad mxima por defecto.
+   * @return una lista de string que representa los valores posibles para la propiedad adicional.
+   */
+  public Collection<String> getValuesForDynamicProperty(String aQuery, int aMaxValues);
+
   /**
    * Obtiene la cantidad de propiedades adicionales que tiene el proyecto representado por el DTO.
    * 
@@ -371,29 +384,51 @@ public interface ProjectsServiceBI {
    *          define el tipo de la propiedad adicional.
    * @param aValue
    *          es un valor adicional requerido por algunos tipos de propiedades adicionales.
+   * @param aMaxValues
+   *          es la cantidad mxima de valores de una propiedad dinmica. Si es null o no es positiva se utiliza la
+   *          cantidad mxima por defecto.
    * @throws Exception
    *           esta excepcin se puede levantar a raz de la ejecucin de este servicio.
    */
   public void addAdditionalProperty(ProjectDTO aProjectDTO, String aName, boolean isRequired, String aType,
-      String aValue) throws Exception;
+      String aValue, Integer aMaxValues) throws Exception;
 
   /**
    * Recibe una lista de identificadores de tems que se deben mover en forma masiva a un nuevo estado.<br>
    * Solamente los tems que no se encuentren en estado Cerrado o Bloqueado sern movidos. Adems, existe la
    * restriccin de que debe existir un camino en el workflow entre el nodo actual de cada tem y el nodo
-   * propuesto como destino.
+   * propuesto como destino.<br>
+   * El movimiento se ejecuta en segundo plano, procesando los tems en bloques. Su avance y el resultado de
+   * cada tem se pueden consultar con el oid retornado.
    * 
+   * @param anUserDTO
+   *          es el DTO que representa al usuario que registra el movimiento.
    * @param aProjectDTO
    *          es el DTO que representa al proyecto al cual pertenecen los tems.
    * @param aWorkflowNodeDescriptionDTO
    *          es el DTO que representa al nodo del workflow al que se debe mover cada tem.
    * @param someItems
    *          es una lista separada por comas con los identificadores de los tems.
-   * @return un string que contiene los identificadores de los tems que no se pudieron mover al nuevo nodo.
+   * @return el oid del movimiento masivo.
    * @throws una
    *           excepcin que puede levantarse a raz de la ejecucin de este servicio.
    */
-  public String massiveItemsMovement(ProjectDTO aProjectDTO,
+  public String massiveItemsMovement(UserDTO anUserDTO, ProjectDTO aProjectDTO,
       WorkflowNodeDescriptionDTO aWorkflowNodeDescriptionDTO, String someItems) throws Exception;
 
+  /**
+   * Recupera el avance de un movimiento masivo de tems. Solamente el usuario que registr el movimiento
+   * puede consultarlo.
+   * 
+   * @param anUserDTO
+   *          es el DTO que representa al usuario que consulta el movimiento.
+   * @param anOid
+   *          es el oid del movimiento masivo.
+   * @return un dto que representa el avance del movimiento y, si ya termin, el resultado de cada tem
+   *         procesado, o null si el movimiento no existe, ya fue descartado o fue registrado por otro usuario.
+   * @throws Exception
+   *           esta excepcin se puede levantar a raz de la ejecucin de este servicio.
+   */
+  public MassiveItemsMovementDTO findMassiveItemsMovement(UserDTO anUserDTO, String anOid) throws Exception;
+
 }
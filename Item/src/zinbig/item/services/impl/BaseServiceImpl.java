@@ -5,6 +5,12 @@
  */
 package zinbig.item.services.impl;
 
+import zinbig.item.model.Tracker;
+import zinbig.item.model.exceptions.ProjectUnknownException;
+import zinbig.item.model.exceptions.TrackerUnknownException;
+import zinbig.item.model.exceptions.UserUnknownException;
+import zinbig.item.model.projects.Project;
+import zinbig.item.model.users.User;
 import zinbig.item.repositories.bi.ItemsRepositoryBI;
 import zinbig.item.repositories.bi.OperationsRepositoryBI;
 import zinbig.item.repositories.bi.PrioritiesRepositoryBI;
@@ -12,7 +18,10 @@ import zinbig.item.repositories.bi.ProjectsRepositoryBI;
 import zinbig.item.repositories.bi.TrackerRepositoryBI;
 import zinbig.item.repositories.bi.UsersRepositoryBI;
 import zinbig.item.repositories.bi.WorkflowsRepositoryBI;
+import zinbig.item.util.ProjectChartsRollup;
+import zinbig.item.util.StatisticsAggregator;
 import zinbig.item.util.dto.DTOFactory;
+import zinbig.item.util.persistence.RequestContext;
 import zinbig.item.util.persistence.Versionable;
 
 /**
@@ -74,6 +83,18 @@ public class BaseServiceImpl {
 	 */
 	protected DTOFactory dtoFactory;
 
+	/**
+	 * Es el objeto al que se le notifican los cambios en los tems, usuarios y
+	 * proyectos para mantener las estadsticas de uso de la herramienta.
+	 */
+	protected StatisticsAggregator statisticsAggregator;
+
+	/**
+	 * Es el objeto al que se le notifican los cambios en los tems para
+	 * mantener las cantidades que muestran los grficos de los proyectos.
+	 */
+	protected ProjectChartsRollup projectChartsRollup;
+
 	/**
 	 * Getter.
 	 * 
@@ -133,6 +154,79 @@ public class BaseServiceImpl {
 		return aDto.getVersion() == aModelObject.getVersion();
 	}
 
+	/**
+	 * Recupera el tracker. Si ya fue recuperado durante el request actual no
+	 * se accede al repositorio.
+	 * 
+	 * @return el tracker.
+	 * @throws TrackerUnknownException
+	 *             esta excepcin se levanta si no existe el tracker.
+	 */
+	protected Tracker findTracker() throws TrackerUnknownException {
+		RequestContext aContext = RequestContext.getCurrent();
+		Tracker result = (aContext == null) ? null : aContext.get(
+				Tracker.class, "");
+		if (result == null) {
+			result = this.getTrackerRepository().findTracker();
+			if (aContext != null) {
+				aContext.put(Tracker.class, "", result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Recupera un usuario en estado confirmado a partir de su nombre de
+	 * usuario. Si ya fue recuperado durante el request actual no se accede al
+	 * repositorio.
+	 * 
+	 * @param aTracker
+	 *            es el tracker al cual pertenece el usuario.
+	 * @param anUsername
+	 *            es el nombre del usuario.
+	 * @return el usuario.
+	 * @throws UserUnknownException
+	 *             esta excepcin se levanta si no existe el usuario.
+	 */
+	protected User findConfirmedUser(Tracker aTracker, String anUsername)
+			throws UserUnknownException {
+		RequestContext aContext = RequestContext.getCurrent();
+		User result = (aContext == null) ? null : aContext.get(User.class,
+				anUsername);
+		// el nombre del usuario pudo haber cambiado durante el request.
+		if (result == null || !anUsername.equals(result.getUsername())) {
+			result = this.getUsersRepository().findUserWithUsername(aTracker,
+					anUsername, "C");
+			if (aContext != null) {
+				aContext.put(User.class, anUsername, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Recupera un proyecto a partir de su identificador. Si ya fue recuperado
+	 * durante el request actual no se accede al repositorio.
+	 * 
+	 * @param anOid
+	 *            es el identificador del proyecto.
+	 * @return el proyecto.
+	 * @throws ProjectUnknownException
+	 *             esta excepcin se levanta si no existe el proyecto.
+	 */
+	protected Project findProject(String anOid) throws ProjectUnknownException {
+		RequestContext aContext = RequestContext.getCurrent();
+		Project result = (aContext == null) ? null : aContext.get(
+				Project.class, anOid);
+		if (result == null) {
+			result = this.getProjectsRepository().findById(anOid);
+			if (aContext != null) {
+				aContext.put(Project.class, anOid, result);
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Getter.
 	 * 
@@ -260,4 +354,46 @@ public class BaseServiceImpl {
 		this.itemsRepository = itemsRepository;
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto que mantiene las estadsticas de uso de la
+	 *         herramienta.
+	 */
+	public StatisticsAggregator getStatisticsAggregator() {
+		return this.statisticsAggregator;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param anAggregator
+	 *            es el objeto que mantiene las estadsticas de uso de la
+	 *            herramienta.
+	 */
+	public void setStatisticsAggregator(StatisticsAggregator anAggregator) {
+		this.statisticsAggregator = anAggregator;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto que mantiene las cantidades que muestran los grficos
+	 *         de los proyectos.
+	 */
+	public ProjectChartsRollup getProjectChartsRollup() {
+		return this.projectChartsRollup;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aRollup
+	 *            es el objeto que mantiene las cantidades que muestran los
+	 *            grficos de los proyectos.
+	 */
+	public void setProjectChartsRollup(ProjectChartsRollup aRollup) {
+		this.projectChartsRollup = aRollup;
+	}
+
 }
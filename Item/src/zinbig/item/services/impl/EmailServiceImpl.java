@@ -5,12 +5,9 @@
  */
 package zinbig.item.services.impl;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 import zinbig.item.application.ItemApplication;
 import zinbig.item.services.bi.EmailServiceBI;
@@ -18,8 +15,10 @@ import zinbig.item.util.Utils;
 import zinbig.item.util.dto.AbstractUserDTO;
 import zinbig.item.util.dto.ItemDTO;
 import zinbig.item.util.dto.UserDTO;
+import zinbig.item.util.email.EmailDispatcher;
 import zinbig.item.util.email.EmailSenderStrategy;
-import zinbig.item.util.email.EmailSenderThread;
+import zinbig.item.util.email.EmailTemplate;
+import zinbig.item.util.email.EmailTemplateEngine;
 import zinbig.item.util.i18n.ItemStringResourceLoader;
 
 /**
@@ -31,12 +30,33 @@ import zinbig.item.util.i18n.ItemStringResourceLoader;
  */
 public class EmailServiceImpl extends BaseServiceImpl implements EmailServiceBI {
 
+	/**
+	 * Contiene para cada etiqueta del template de los emails de tems la clave
+	 * del mensaje internacionalizado correspondiente.
+	 */
+	private static final Map<String, String> ITEM_EMAIL_LABELS = new HashMap<String, String>();
+
+	static {
+		for (String aLabel : new String[] { "projectLabel", "idLabel",
+				"titleLabel", "descriptionLabel", "creationLabel",
+				"creatorLabel", "responsibleLabel", "nodeLabel", "typeLabel",
+				"priorityLabel" }) {
+			ITEM_EMAIL_LABELS.put(aLabel, aLabel);
+		}
+	}
+
 	/**
 	 * Es el colaborador de esta clase que representa la estrategia de envo de
 	 * emails que se debe utilizar. Una estrategia puede ser por ejemplo IMAP.
 	 */
 	protected EmailSenderStrategy emailSenderStrategy;
 
+	/**
+	 * Es el colaborador que encola los emails y los enva en forma
+	 * asincrnica mediante una cantidad fija de threads.
+	 */
+	protected EmailDispatcher emailDispatcher;
+
 	/**
 	 * Es un colaborador que permite recuperar los strings internacionalizados.
 	 */
@@ -47,6 +67,11 @@ public class EmailServiceImpl extends BaseServiceImpl implements EmailServiceBI
 	 */
 	public ItemApplication application;
 
+	/**
+	 * Es el colaborador que mantiene los templates de los emails compilados.
+	 */
+	protected EmailTemplateEngine emailTemplateEngine;
+
 	/**
 	 * Enva un email al usuario apara recordarle la clave generada
 	 * automticamente.
@@ -59,21 +84,23 @@ public class EmailServiceImpl extends BaseServiceImpl implements EmailServiceBI
 	@Override
 	public boolean sendEmailToRememberPassword(UserDTO anUserDTO) {
 
-		String contents = this.getEmailContent("rememberPassword.html");
+		Locale aLocale = new Locale(anUserDTO.getLanguage());
+		Map<String, String> labels = new HashMap<String, String>();
+		labels.put("header", "PasswordResetEmailHeader");
+
+		EmailTemplate aTemplate = this.getEmailTemplate("rememberPassword.html",
+				aLocale, labels);
 
-		if (!contents.equals("")) {
-			Locale aLocale = new Locale(anUserDTO.getLanguage());
-			contents = contents.toString().replace("${password}",
-					anUserDTO.getPassword());
-			contents = contents.replace("${header}", this.getString(aLocale,
-					"PasswordResetEmailHeader"));
-			contents = contents.replace("${title}", this.getString(aLocale,
+		if (aTemplate != null) {
+			Map<String, String> values = new HashMap<String, String>();
+			values.put("password", anUserDTO.getPassword());
+			values.put("title", this.getString(aLocale,
 					"PasswordResetEmailTitle")
 					+ ":");
 
 			this.sendEmail(
 					this.getString(aLocale, "PasswordResetEmailSubject"),
-					contents, anUserDTO.getEmail());
+					aTemplate.render(values), anUserDTO.getEmail());
 		}
 		return true;
 	}
@@ -95,7 +122,8 @@ public class EmailServiceImpl extends BaseServiceImpl implements EmailServiceBI
 
 	/**
 	 * Enva un administratorEmail a un usuario en un thread para no bloquear la
-	 * ejecucin de la aplicacin.
+	 * ejecucin de la aplicacin. El email se encola en el EmailDispatcher; si
+	 * no se ha configurado uno, se enva directamente.
 	 * 
 	 * @param aSubject
 	 *            es el ttulo del mail.
@@ -106,9 +134,12 @@ public class EmailServiceImpl extends BaseServiceImpl implements EmailServiceBI
 	 */
 	public void sendEmail(String aSubject, String aMessage, String anEmail) {
 
-		EmailSenderThread thread = new EmailSenderThread(this
-				.getEmailSenderStrategy(), aSubject, aMessage, anEmail);
-		thread.start();
+		if (this.getEmailDispatcher() != null) {
+			this.getEmailDispatcher().dispatch(aSubject, aMessage, anEmail);
+		} else {
+			this.getEmailSenderStrategy().sendEmail(aSubject, aMessage,
+					anEmail);
+		}
 
 	}
 
@@ -133,6 +164,25 @@ public class EmailServiceImpl extends BaseServiceImpl implements EmailServiceBI
 		this.emailSenderStrategy = anEmailSenderStrategy;
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return el colaborador que encola y enva los emails.
+	 */
+	public EmailDispatcher getEmailDispatcher() {
+		return this.emailDispatcher;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aDispatcher
+	 *            es el colaborador que encola y enva los emails.
+	 */
+	public void setEmailDispatcher(EmailDispatcher aDispatcher) {
+		this.emailDispatcher = aDispatcher;
+	}
+
 	/**
 	 * Getter.
 	 * 
@@ -175,6 +225,27 @@ public class EmailServiceImpl extends BaseServiceImpl implements EmailServiceBI
 		this.application = anApplication;
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return el colaborador que mantiene los templates de los emails
+	 *         compilados.
+	 */
+	public EmailTemplateEngine getEmailTemplateEngine() {
+		return this.emailTemplateEngine;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param anEngine
+	 *            es el colaborador que mantiene los templates de los emails
+	 *            compilados.
+	 */
+	public void setEmailTemplateEngine(EmailTemplateEngine anEngine) {
+		this.emailTemplateEngine = anEngine;
+	}
+
 	/**
 	 * Enva un email con informacin de un tem a un usuario en particular.
 	 * 
@@ -188,90 +259,49 @@ public class EmailServiceImpl extends BaseServiceImpl implements EmailServiceBI
 	 */
 	public boolean sendEmailForItemToUser(ItemDTO anItemDTO,
 			AbstractUserDTO anUserDTO) {
-		String contents = this.getEmailContent("itemEmail.html");
-
-		if (!contents.equals("")) {
-			Locale aLocale = new Locale(anUserDTO.getLanguage());
-			contents = contents.toString().replace("${id}",
-					new Integer(anItemDTO.getId()).toString());
-			contents = contents.toString().replace("${title}",
-					Utils.decodeString(anItemDTO.getTitle()));
-			contents = contents.toString().replace("${description}",
-					Utils.decodeString(anItemDTO.getDescription()));
-			contents = contents.toString().replace("${creation}",
-					anItemDTO.getCreationDate());
-			contents = contents.toString().replace("${creator}",
-					anItemDTO.getCreator().getAlias());
-			contents = contents.toString().replace("${responsible}",
-					anItemDTO.getResponsible().getAlias());
-			contents = contents.toString().replace("${node}",
-					anItemDTO.getCurrentNode().getTitle());
-			contents = contents.toString().replace("${type}",
-					anItemDTO.getItemType().getTitle());
-			contents = contents.toString().replace("${priority}",
-					anItemDTO.getPriority().getName());
-			contents = contents.toString().replace("${project}",
-					anItemDTO.getProjectName());
-
-			contents = contents.toString().replace("${projectLabel}",
-					this.getString(aLocale, "projectLabel"));
-			contents = contents.toString().replace("${idLabel}",
-					this.getString(aLocale, "idLabel"));
-			contents = contents.toString().replace("${titleLabel}",
-					this.getString(aLocale, "titleLabel"));
-			contents = contents.toString().replace("${descriptionLabel}",
-					this.getString(aLocale, "descriptionLabel"));
-			contents = contents.toString().replace("${creationLabel}",
-					this.getString(aLocale, "creationLabel"));
-			contents = contents.toString().replace("${creatorLabel}",
-					this.getString(aLocale, "creatorLabel"));
-			contents = contents.toString().replace("${responsibleLabel}",
-					this.getString(aLocale, "responsibleLabel"));
-			contents = contents.toString().replace("${nodeLabel}",
-					this.getString(aLocale, "nodeLabel"));
-			contents = contents.toString().replace("${typeLabel}",
-					this.getString(aLocale, "typeLabel"));
-			contents = contents.toString().replace("${priorityLabel}",
-					this.getString(aLocale, "priorityLabel"));
+
+		Locale aLocale = new Locale(anUserDTO.getLanguage());
+		EmailTemplate aTemplate = this.getEmailTemplate("itemEmail.html",
+				aLocale, ITEM_EMAIL_LABELS);
+
+		if (aTemplate != null) {
+			Map<String, String> values = new HashMap<String, String>();
+			values.put("id", new Integer(anItemDTO.getId()).toString());
+			values.put("title", Utils.decodeString(anItemDTO.getTitle()));
+			values.put("description", Utils.decodeString(anItemDTO
+					.getDescription()));
+			values.put("creation", anItemDTO.getCreationDate());
+			values.put("creator", anItemDTO.getCreator().getAlias());
+			values.put("responsible", anItemDTO.getResponsible().getAlias());
+			values.put("node", anItemDTO.getCurrentNode().getTitle());
+			values.put("type", anItemDTO.getItemType().getTitle());
+			values.put("priority", anItemDTO.getPriority().getName());
+			values.put("project", anItemDTO.getProjectName());
 
 			this.sendEmail(this.getString(aLocale, "ItemEmailSubject"),
-					contents, anUserDTO.getEmail());
+					aTemplate.render(values), anUserDTO.getEmail());
 		}
 		return true;
 	}
 
 	/**
-	 * Recupera el contenido de un archivo que luego ser utilizado para
-	 * componer el email.
+	 * Recupera el template compilado de un email con las etiquetas ya
+	 * resueltas para el idioma del destinatario.
 	 * 
 	 * @param aFilename
 	 *            es el nombre del archivo que contiene el template.
-	 * @return un string que representa el contenido del email.
+	 * @param aLocale
+	 *            es el idioma del destinatario.
+	 * @param someLabels
+	 *            contiene para cada etiqueta del template la clave del mensaje
+	 *            internacionalizado.
+	 * @return el template del email o null si no se pudo leer el archivo.
 	 */
-	private String getEmailContent(String aFilename) {
-		StringBuilder contents = new StringBuilder();
-
-		try {
-
-			BufferedReader input = new BufferedReader(new FileReader(new File(
-					this.getApplication().getPath(aFilename))));
-			try {
-				String line = null;
-				while ((line = input.readLine()) != null) {
-					contents.append(line);
-					contents.append(System.getProperty("line.separator"));
-				}
-			} finally {
-				input.close();
-			}
-		} catch (FileNotFoundException e) {
-
-			e.printStackTrace();
-		} catch (IOException e) {
-
-			e.printStackTrace();
-		}
-		return contents.toString();
+	private EmailTemplate getEmailTemplate(String aFilename, Locale aLocale,
+			Map<String, String> someLabels) {
+
+		return this.getEmailTemplateEngine().getTemplate(
+				this.getApplication().getPath(aFilename), aLocale, someLabels);
 	}
 
 }
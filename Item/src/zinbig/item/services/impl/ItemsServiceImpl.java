@@ -5,16 +5,12 @@
  */
 package zinbig.item.services.impl;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.TreeSet;
 import java.util.Map.Entry;
 
 import zinbig.item.model.Item;
@@ -58,7 +54,6 @@ import zinbig.item.model.projects.Project;
 import zinbig.item.model.users.AbstractUser;
 import zinbig.item.model.users.User;
 import zinbig.item.model.workflow.WorkflowNodeDescription;
-import zinbig.item.repositories.RepositoryLocator;
 import zinbig.item.repositories.bi.ItemsRepositoryBI;
 import zinbig.item.repositories.bi.ProjectsRepositoryBI;
 import zinbig.item.repositories.bi.UsersRepositoryBI;
@@ -76,6 +71,10 @@ import zinbig.item.util.dto.PriorityDTO;
 import zinbig.item.util.dto.ProjectDTO;
 import zinbig.item.util.dto.UserDTO;
 import zinbig.item.util.dto.WorkflowNodeDescriptionDTO;
+import zinbig.item.util.files.AttachmentStore;
+import zinbig.item.util.persistence.AfterCommit;
+import zinbig.item.util.persistence.CommentsPageCursor;
+import zinbig.item.util.persistence.ItemsPageCursor;
 
 /**
  * Las instancias de esta clase se utilizan para acceder a la lgica de negocios
@@ -96,6 +95,12 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 	 */
 	protected FilterStringCreationStrategy filterStringCreationStrategy;
 
+	/**
+	 * Es el almacn de los contenidos de los archivos adjuntos a los tems.
+	 * Este colaborador se inyecta a travs de Spring.
+	 */
+	protected AttachmentStore attachmentStore;
+
 	/**
 	 * Agrega un nuevo tem al sistema.
 	 * 
@@ -143,13 +148,11 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		AbstractUser responsibleUser = null;
 
 		// recupera todos los objetos del modelo representados por sus dtos
-		Tracker aTracker = this.getTrackerRepository().findTracker();
-		Project aProject = this.getProjectsRepository().findById(
-				aProjectDTO.getOid());
+		Tracker aTracker = this.findTracker();
+		Project aProject = this.findProject(aProjectDTO.getOid());
 		Priority aPriority = this.getPrioritiesRepository().findPriorityById(
 				aPriorityDTO.getOid());
-		User anUser = this.getUsersRepository().findUserWithUsername(aTracker,
-				anUserDTO.getUsername(), "C");
+		User anUser = this.findConfirmedUser(aTracker, anUserDTO.getUsername());
 		if (responsible != null) {
 			responsibleUser = this.getUsersRepository().find(aTracker,
 					responsible.getOid());
@@ -161,6 +164,10 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 				aPriority, aState, aDate, responsibleUser, anItemType,
 				somePropertyDescriptions);
 
+		this.getItemsRepository().indexItemText(anItem);
+		this.getStatisticsAggregator().itemAdded(anItem);
+		this.getProjectChartsRollup().itemAdded(anItem);
+
 		EmailServiceBI emailService = ServiceLocator.getInstance()
 				.getEmailService();
 		if (!someItemIds.isEmpty()) {
@@ -169,6 +176,11 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 			Collection<Item> itemsToAggregate = this.itemsRepository
 					.findItemsById(someItemIds);
 			aProject.aggregateItems(itemsToAggregate, anItem, aComment);
+			for (Item anAggregatedItem : itemsToAggregate) {
+				this.getItemsRepository().indexItemText(anAggregatedItem);
+				this.getStatisticsAggregator().itemChanged(anAggregatedItem);
+				this.getProjectChartsRollup().itemChanged(anAggregatedItem);
+			}
 
 			Collection<ItemDTO> itemDTOs = this.getDtoFactory()
 					.createDTOForItems(itemsToAggregate);
@@ -229,32 +241,118 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 			ProjectDTO aProjectDTO, FilterDTO aFilterDTO, int index, int count,
 			String aPropertyName, String anOrdering) throws Exception {
 
-		Collection<Item> items = new ArrayList<Item>();
+		User anUser = null;
+
+		if (anUserDTO != null) {
+			anUser = this.findConfirmedUser(null, anUserDTO.getUsername());
+		}
+
+		Project aProject = null;
+		if (aProjectDTO != null) {
+
+			aProject = this.findProject(aProjectDTO.getOid());
+
+		}
+
+		// recupera la pgina con un cursor nuevo, es decir por desplazamiento.
+		return this.createDTOsForItemsPage(anUser, aProject, aFilterDTO, index,
+				count, aPropertyName, anOrdering, new ItemsPageCursor());
+	}
+
+	/**
+	 * Getter. <br>
+	 * Recupera una pgina del listado de tems utilizando el cursor recibido,
+	 * que recuerda la clave de la ltima fila leda.
+	 * 
+	 * @param anUserDTO
+	 *            es el dto que representa al usuario que est solicitando el
+	 *            listado de los tems. Puede ser nulo.
+	 * @param aProjectDTO
+	 *            es el dto que representa al proyecto actual. Puede ser nulo.
+	 * @param aFilterDTO
+	 *            es el dto que representa al filtro que se debe aplicar a los
+	 *            tems.
+	 * @param index
+	 *            es el ndice de inicio.
+	 * @param count
+	 *            es la cantidad de elementos a recuperar.
+	 * @param aPropertyName
+	 *            es el nombre de la propiedad que se debe utilizar para ordenar
+	 *            los resultados.
+	 * @param anOrdering
+	 *            es el orden que se debe aplicar a los resultados.
+	 * @param aCursor
+	 *            es el cursor que mantiene la posicin del listado.
+	 * @return la coleccin de dtos de los tems de la pgina pedida.
+	 * @throws Exception
+	 *             esta excepcin se levanta en caso de algn error en la
+	 *             ejecucin de este servicio.
+	 */
+	public Collection<ItemDTO> getItems(UserDTO anUserDTO,
+			ProjectDTO aProjectDTO, FilterDTO aFilterDTO, int index, int count,
+			String aPropertyName, String anOrdering, ItemsPageCursor aCursor)
+			throws Exception {
 
 		User anUser = null;
 
 		if (anUserDTO != null) {
-			anUser = RepositoryLocator.getInstance().getUsersRepository()
-					.findUserWithUsername(null, anUserDTO.getUsername(), "C");
+			anUser = this.findConfirmedUser(null, anUserDTO.getUsername());
 		}
 
 		Project aProject = null;
 		if (aProjectDTO != null) {
 
-			aProject = RepositoryLocator.getInstance().getProjectsRepository()
-					.findById(aProjectDTO.getOid());
+			aProject = this.findProject(aProjectDTO.getOid());
 
 		}
 
-		// agrega los tems pblicos
-		items.addAll(this.getItemsRepository().findItems(anUser, aProject,
-				aFilterDTO.getFilterString(), index, count, aPropertyName,
-				anOrdering));
+		return this.createDTOsForItemsPage(anUser, aProject, aFilterDTO, index,
+				count, aPropertyName, anOrdering, aCursor);
+	}
 
-		Collection<ItemDTO> result = this.getDtoFactory().createDTOForItems(
-				items);
+	/**
+	 * Crea los dtos de una pgina del listado de tems a partir de una
+	 * proyeccin que recupera en una nica consulta las columnas necesarias
+	 * para los dtos, ms una consulta para las propiedades adicionales de todos
+	 * los tems de la pgina, sin instanciar los objetos del modelo.
+	 * 
+	 * @param anUser
+	 *            es el usuario que solicita el listado. Puede ser nulo.
+	 * @param aProject
+	 *            es el proyecto actual. Puede ser nulo.
+	 * @param aFilterDTO
+	 *            es el dto que representa al filtro que se debe aplicar a los
+	 *            tems.
+	 * @param index
+	 *            es el ndice de inicio.
+	 * @param count
+	 *            es la cantidad de elementos a recuperar.
+	 * @param aPropertyName
+	 *            es el nombre de la propiedad que se debe utilizar para ordenar
+	 *            los resultados.
+	 * @param anOrdering
+	 *            es el orden que se debe aplicar a los resultados.
+	 * @param aCursor
+	 *            es el cursor que mantiene la posicin del listado.
+	 * @return la coleccin de dtos de los tems de la pgina pedida.
+	 */
+	private Collection<ItemDTO> createDTOsForItemsPage(User anUser,
+			Project aProject, FilterDTO aFilterDTO, int index, int count,
+			String aPropertyName, String anOrdering, ItemsPageCursor aCursor) {
+
+		Collection<Map<String, Object>> rows = this.getItemsRepository()
+				.findItemRows(
+				anUser, aProject, aFilterDTO.getFilterString(),
+				this.createFilterParameters(aFilterDTO), index, count,
+				aPropertyName, anOrdering, aCursor);
+
+		Collection<String> oids = new ArrayList<String>();
+		for (Map<String, Object> row : rows) {
+			oids.add((String) row.get("itemOid"));
+		}
 
-		return result;
+		return this.getDtoFactory().createDTOForItemRows(rows,
+				this.getItemsRepository().findAdditionalPropertiesOfItems(oids));
 	}
 
 	/**
@@ -283,21 +381,39 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		User anUser = null;
 		if (userDTO != null) {
 
-			anUser = RepositoryLocator.getInstance().getUsersRepository()
-					.findUserWithUsername(null, userDTO.getUsername(), "C");
+			anUser = this.findConfirmedUser(null, userDTO.getUsername());
 
 		}
 
 		Project aProject = null;
 		if (aProjectDTO != null) {
 
-			aProject = RepositoryLocator.getInstance().getProjectsRepository()
-					.findById(aProjectDTO.getOid());
+			aProject = this.findProject(aProjectDTO.getOid());
 
 		}
 
 		return this.getItemsRepository().getItemsCount(anUser, aProject,
-				aFilterDTO.getFilterString());
+				aFilterDTO.getFilterString(),
+				this.createFilterParameters(aFilterDTO));
+	}
+
+	/**
+	 * Obtiene los valores de los parmetros que requiere el string del filtro
+	 * recibido a partir de sus componentes.
+	 * 
+	 * @param aFilterDTO
+	 *            es el dto que representa al filtro.
+	 * @return un diccionario con los valores de los parmetros del filtro.
+	 */
+	private Map<String, Object> createFilterParameters(FilterDTO aFilterDTO) {
+		return this.getFilterStringCreationStrategy().createFilterParameters(
+				aFilterDTO.getFilterComponentByProject(),
+				aFilterDTO.getFilterComponentByState(),
+				aFilterDTO.getFilterComponentByItemId(),
+				aFilterDTO.getFilterComponentByResponsible(),
+				aFilterDTO.getFilterComponentByItemType(),
+				aFilterDTO.getFilterComponentByNode(),
+				aFilterDTO.getFilterComponentByText());
 	}
 
 	/**
@@ -369,6 +485,8 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 			boolean negateNodes, String aText) throws Exception {
 
 		Collection<String> aux = null;
+		FilterStringCreationStrategy aStrategy = this
+				.getFilterStringCreationStrategy();
 
 		Filter aFilter = new Filter(aFilterName);
 
@@ -387,13 +505,13 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		} else {
 
 			for (FilterComponentByProjectDTO dto : someFilterComponentByProjects) {
-				aux.add("'" + dto.getProjectOid().toString() + "'");
+				aux.add(aStrategy.quoteValue(dto.getProjectOid().toString()));
 			}
 			filterComponentByProject = new FilterComponentByProjectForSelectedProject(
 					aux, negateProjects);
 		}
-		aFilter.setFilterComponentByProject(aux.toString().replace("[", "(")
-				.replace("]", ")"));
+		aFilter.setFilterComponentByProject("(" + aStrategy.joinValues(aux)
+				+ ")");
 
 		// crea el componente responsable de filtrar los items por su estado.
 		FilterComponentByState aFilterComponentByState;
@@ -403,12 +521,11 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		} else {
 			aux = new ArrayList<String>();
 			for (ItemStateEnum e : itemStates) {
-				aux.add("'" + e.toInt().toString() + "'");
+				aux.add(aStrategy.quoteValue(e.toInt().toString()));
 			}
 			aFilterComponentByState = new ConcreteFilterComponentByState(aux,
 					negateItemStates);
-			aFilter.setFilterComponentByState(aux.toString().replace("[", "")
-					.replace("]", ""));
+			aFilter.setFilterComponentByState(aStrategy.joinValues(aux));
 		}
 
 		// crea el componente que filtra los items por sus
@@ -420,12 +537,11 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		} else {
 			aux = new ArrayList<String>();
 			for (AbstractUserDTO dto : responsibles) {
-				aux.add("'" + dto.getOid() + "'");
+				aux.add(aStrategy.quoteValue(dto.getOid()));
 			}
 			aFilterComponentByResponsible = new ConcreteFilterComponentByResponsible(
 					aux, negateResponsibles);
-			aFilter.setFilterComponentByResponsible(aux.toString().replace("[",
-					"").replace("]", ""));
+			aFilter.setFilterComponentByResponsible(aStrategy.joinValues(aux));
 		}
 
 		// crea el componente responsable de filtrar los items por su
@@ -437,12 +553,11 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		} else {
 			aux = new ArrayList<String>();
 			for (ItemTypeDTO dto : someItemTypes) {
-				aux.add("'" + dto.getTitle() + "'");
+				aux.add(aStrategy.quoteValue(dto.getTitle()));
 			}
 			aFilterComponentByItemType = new ConcreteFilterComponentByItemType(
 					aux, negateItemTypes);
-			aFilter.setFilterComponentByItemType(aux.toString()
-					.replace("[", "").replace("]", ""));
+			aFilter.setFilterComponentByItemType(aStrategy.joinValues(aux));
 		}
 
 		// crea el componente responsable de filtrar los items por su
@@ -454,12 +569,11 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		} else {
 			aux = new ArrayList<String>();
 			for (WorkflowNodeDescriptionDTO dto : someNodeDescriptions) {
-				aux.add("'" + dto.getTitle() + "'");
+				aux.add(aStrategy.quoteValue(dto.getTitle()));
 			}
 			aFilterComponentByNode = new ConcreteFilterComponentByNode(aux,
 					negateNodes);
-			aFilter.setFilterComponentByNode(aux.toString().replace("[", "")
-					.replace("]", ""));
+			aFilter.setFilterComponentByNode(aStrategy.joinValues(aux));
 		}
 
 		// crea el componente que filtra los items por su texto.
@@ -566,6 +680,8 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 			boolean negateItemTypes, boolean negateProjects,
 			boolean negateNodes, String aText) throws Exception {
 		Collection<String> aux = null;
+		FilterStringCreationStrategy aStrategy = this
+				.getFilterStringCreationStrategy();
 
 		ItemsRepositoryBI repository = this.getItemsRepository();
 		Filter aFilter = repository.findFilterById(aFilterOid);
@@ -581,13 +697,13 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		} else {
 
 			for (FilterComponentByProjectDTO dto : someFilterComponentByProjects) {
-				aux.add("'" + dto.getProjectOid().toString() + "'");
+				aux.add(aStrategy.quoteValue(dto.getProjectOid().toString()));
 			}
 			filterComponentByProject = new FilterComponentByProjectForSelectedProject(
 					aux, negateProjects);
 		}
-		aFilter.setFilterComponentByProject(aux.toString().replace("[", "(")
-				.replace("]", ")"));
+		aFilter.setFilterComponentByProject("(" + aStrategy.joinValues(aux)
+				+ ")");
 
 		// crea el componente responsable de filtrar los items por su estado.
 		FilterComponentByState aFilterComponentByState;
@@ -597,12 +713,11 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		} else {
 			aux = new ArrayList<String>();
 			for (ItemStateEnum e : itemStates) {
-				aux.add("'" + e.toInt().toString() + "'");
+				aux.add(aStrategy.quoteValue(e.toInt().toString()));
 			}
 			aFilterComponentByState = new ConcreteFilterComponentByState(aux,
 					negateItemStates);
-			aFilter.setFilterComponentByState(aux.toString().replace("[", "")
-					.replace("]", ""));
+			aFilter.setFilterComponentByState(aStrategy.joinValues(aux));
 		}
 
 		// crea el componente que filtra los items por sus
@@ -614,12 +729,11 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		} else {
 			aux = new ArrayList<String>();
 			for (AbstractUserDTO dto : responsibles) {
-				aux.add("'" + dto.getOid() + "'");
+				aux.add(aStrategy.quoteValue(dto.getOid()));
 			}
 			aFilterComponentByResponsible = new ConcreteFilterComponentByResponsible(
 					aux, negateResponsibles);
-			aFilter.setFilterComponentByResponsible(aux.toString().replace("[",
-					"").replace("]", ""));
+			aFilter.setFilterComponentByResponsible(aStrategy.joinValues(aux));
 		}
 
 		// crea el componente responsable de filtrar los items por su
@@ -631,12 +745,11 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		} else {
 			aux = new ArrayList<String>();
 			for (ItemTypeDTO dto : someItemTypes) {
-				aux.add("'" + dto.getTitle() + "'");
+				aux.add(aStrategy.quoteValue(dto.getTitle()));
 			}
 			aFilterComponentByItemType = new ConcreteFilterComponentByItemType(
 					aux, negateItemTypes);
-			aFilter.setFilterComponentByItemType(aux.toString()
-					.replace("[", "").replace("]", ""));
+			aFilter.setFilterComponentByItemType(aStrategy.joinValues(aux));
 		}
 
 		// crea el componente responsable de filtrar los items por su
@@ -648,12 +761,11 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		} else {
 			aux = new ArrayList<String>();
 			for (WorkflowNodeDescriptionDTO dto : someNodeDescriptions) {
-				aux.add("'" + dto.getTitle() + "'");
+				aux.add(aStrategy.quoteValue(dto.getTitle()));
 			}
 			aFilterComponentByNode = new ConcreteFilterComponentByNode(aux,
 					negateNodes);
-			aFilter.setFilterComponentByNode(aux.toString().replace("[", "")
-					.replace("]", ""));
+			aFilter.setFilterComponentByNode(aStrategy.joinValues(aux));
 		}
 
 		// crea el componente que filtra los items por su texto.
@@ -726,6 +838,25 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		this.filterStringCreationStrategy = anStrategy;
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return el almacn de los contenidos de los archivos adjuntos.
+	 */
+	public AttachmentStore getAttachmentStore() {
+		return this.attachmentStore;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aStore
+	 *            es el almacn de los contenidos de los archivos adjuntos.
+	 */
+	public void setAttachmentStore(AttachmentStore aStore) {
+		this.attachmentStore = aStore;
+	}
+
 	/**
 	 * Obtiene una coleccin que contiene los filtros favoritos de un usuario.
 	 * 
@@ -744,10 +875,8 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 
 		User anUser = null;
 		if (anUserDTO != null) {
-			Tracker aTracker = this.getTrackerRepository().findTracker();
-			anUser = RepositoryLocator.getInstance().getUsersRepository()
-					.findUserWithUsername(aTracker, anUserDTO.getUsername(),
-							"C");
+			Tracker aTracker = this.findTracker();
+			anUser = this.findConfirmedUser(aTracker, anUserDTO.getUsername());
 
 		}
 
@@ -773,8 +902,7 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		User anUser = null;
 		if (anUserDTO != null) {
 
-			anUser = RepositoryLocator.getInstance().getUsersRepository()
-					.findUserWithUsername(null, anUserDTO.getUsername(), "C");
+			anUser = this.findConfirmedUser(null, anUserDTO.getUsername());
 
 		}
 
@@ -801,8 +929,7 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 	@Override
 	public FilterDTO saveItemsFilterForUser(UserDTO anUserDTO,
 			FilterDTO filterDTO) throws Exception {
-		User anUser = this.getUsersRepository().findUserWithUsername(null,
-				anUserDTO.getUsername(), "C");
+		User anUser = this.findConfirmedUser(null, anUserDTO.getUsername());
 
 		Filter aFilter = new Filter(filterDTO.getName());
 		aFilter.setFavorite(filterDTO.isFavorite());
@@ -830,6 +957,8 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		aFilter.setNegateResponsible(filterDTO.isNegateResponsible());
 		aFilter.setNegateState(filterDTO.isNegateState());
 		aFilter.setFilterComponentByText(filterDTO.getFilterComponentByText());
+		aFilter.setFilterComponentByItemId(filterDTO
+				.getFilterComponentByItemId());
 		anUser.addFilter(aFilter);
 
 		filterDTO.setOid(aFilter.getOid());
@@ -874,9 +1003,9 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		boolean result = false;
 
 		try {
-			Tracker aTracker = this.getTrackerRepository().findTracker();
-			User anUser = this.getUsersRepository().findUserWithUsername(
-					aTracker, anUserDTO.getUsername(), "C");
+			Tracker aTracker = this.findTracker();
+			User anUser = this.findConfirmedUser(aTracker, anUserDTO
+					.getUsername());
 			Filter aFilter = this.getItemsRepository().findFilterByNameForUser(
 					aName, anUser);
 			result = aFilter != null;
@@ -901,8 +1030,7 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 	public void updateItemsFilter(FilterDTO filterDTO, UserDTO anUserDTO)
 			throws Exception {
 
-		User anUser = this.getUsersRepository().findUserWithUsername(null,
-				anUserDTO.getUsername(), "C");
+		User anUser = this.findConfirmedUser(null, anUserDTO.getUsername());
 		Filter aFilter = this.getItemsRepository().findFilterByNameForUser(
 				filterDTO.getName(), anUser);
 
@@ -967,6 +1095,9 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 
 					item.getProject().updateItem(item, aTitle, aDescription,
 							aPriority, anItemType);
+					this.getItemsRepository().indexItemText(item);
+					this.getItemsRepository().invalidateItemsCount();
+					this.getProjectChartsRollup().itemChanged(item);
 
 					ItemDTO newItemDTO = this.getDtoFactory().createDTOForItem(
 							item);
@@ -1007,6 +1138,27 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		return result;
 	}
 
+	/**
+	 * Verifica si un usuario puede descargar un archivo adjunto, es decir si
+	 * el contenido est adjunto a algn tem de un proyecto pblico o asignado
+	 * a alguno de los grupos del usuario.
+	 * 
+	 * @param anUserDTO
+	 *            es el dto que representa al usuario.
+	 * @param aContentHash
+	 *            es el hash del contenido del archivo adjunto.
+	 * @return true en caso de que el usuario pueda descargar el archivo; false
+	 *         en caso contrario.
+	 * @throws Exception
+	 *             esta excepcin puede levantarse en caso de algn error al
+	 *             ejecutar este servicio.
+	 */
+	public boolean isAttachmentVisibleToUser(UserDTO anUserDTO,
+			String aContentHash) throws Exception {
+		return this.getItemsRepository().isAttachmentVisibleToUser(
+				anUserDTO.getUsername(), aContentHash);
+	}
+
 	/**
 	 * Agrega al usuario o grupo de usuarios como observador del tem.
 	 * 
@@ -1019,13 +1171,14 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 	 */
 	public void addObserverToItem(AbstractUserDTO userDTO, ItemDTO anItemDTO)
 			throws Exception {
-		Tracker aTracker = this.getTrackerRepository().findTracker();
+		Tracker aTracker = this.findTracker();
 		AbstractUser anUser = this.getUsersRepository().find(aTracker,
 				userDTO.getOid());
 		Item anItem = (Item) this.getItemsRepository().findById(
 				anItemDTO.getOid());
 
 		anItem.addObserver(anUser);
+		this.getStatisticsAggregator().observersChanged(anItem);
 
 	}
 
@@ -1049,7 +1202,7 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 
 		ItemDTO result = null;
 		try {
-			Tracker aTracker = this.getTrackerRepository().findTracker();
+			Tracker aTracker = this.findTracker();
 			User anUser = (User) this.getUsersRepository().find(aTracker,
 					userDTO.getOid());
 			Item anItem = (Item) this.getItemsRepository().findById(
@@ -1057,6 +1210,9 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 
 			Project aProject = anItem.getProject();
 			aProject.userWantsToTakeItem(anUser, anItem);
+			this.getItemsRepository().invalidateItemsCount();
+			this.getStatisticsAggregator().itemChanged(anItem);
+			this.getProjectChartsRollup().itemChanged(anItem);
 
 			result = this.getDtoFactory().createDTOForItem(anItem);
 
@@ -1078,7 +1234,8 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 	}
 
 	/**
-	 * Retorna los comentarios de un tem.
+	 * Retorna los comentarios de un tem, desde el ms reciente al ms
+	 * antiguo. El orden se resuelve en la base de datos.
 	 * 
 	 * @param anItemDTO
 	 *            es el dto que representa al tem.
@@ -1090,34 +1247,56 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 	 */
 	public Collection<CommentDTO> getCommentsOfItem(ItemDTO anItemDTO)
 			throws Exception {
-		TreeSet<CommentDTO> result = new TreeSet<CommentDTO>(
-				new Comparator<CommentDTO>() {
-
-					@Override
-					public int compare(CommentDTO aComment,
-							CommentDTO anotherComment) {
-						int result = 0;
-						try {
-							result = -1
-									* new SimpleDateFormat()
-											.parse(aComment.getCreationDate())
-											.compareTo(
-													new SimpleDateFormat()
-															.parse(anotherComment
-																	.getCreationDate()));
-						} catch (ParseException e) {
-
-						}
-						return result;
-					}
-				});
+
+		return this.getDtoFactory().createDTOsForComments(
+				this.getItemsRepository().findCommentsOfItem(
+						anItemDTO.getOid()));
+
+	}
+
+	/**
+	 * Retorna una pgina de los comentarios de un tem, desde el ms reciente
+	 * al ms antiguo. La pgina comienza a continuacin del ltimo comentario
+	 * ledo por el cursor.
+	 * 
+	 * @param anItemDTO
+	 *            es el dto que representa al tem.
+	 * @param aCursor
+	 *            es el cursor que recuerda el ltimo comentario ledo. Queda
+	 *            posicionado en el ltimo comentario de la pgina.
+	 * @param aCount
+	 *            es la cantidad mxima de comentarios de la pgina.
+	 * @return una coleccin que contiene los dtos de los comentarios.
+	 * 
+	 * @throws Exception
+	 *             es cualquier excepcin que puede levantarse a raz de la
+	 *             ejecucin de este mtodo.
+	 */
+	public Collection<CommentDTO> getCommentsOfItem(ItemDTO anItemDTO,
+			CommentsPageCursor aCursor, int aCount) throws Exception {
+
+		return this.getDtoFactory().createDTOsForComments(
+				this.getItemsRepository().findCommentsOfItem(
+						anItemDTO.getOid(), aCursor, aCount));
+
+	}
+
+	/**
+	 * Retorna la cantidad de comentarios de un tem.
+	 * 
+	 * @param anItemDTO
+	 *            es el dto que representa al tem.
+	 * @return la cantidad de comentarios del tem.
+	 * 
+	 * @throws Exception
+	 *             es cualquier excepcin que puede levantarse a raz de la
+	 *             ejecucin de este mtodo.
+	 */
+	public int getCommentsCountOfItem(ItemDTO anItemDTO) throws Exception {
 		Item anItem = (Item) this.getItemsRepository().findById(
 				anItemDTO.getOid());
-		result.addAll(this.getDtoFactory().createDTOsForComments(
-				anItem.getComments()));
-
-		return result;
 
+		return anItem.getCommentsCount();
 	}
 
 	/**
@@ -1149,10 +1328,11 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 
 		} else {
 
-			User anUser = this.getUsersRepository().findUserWithUsername(null,
-					anUserDTO.getUsername(), "C");
+			User anUser = this.findConfirmedUser(null, anUserDTO.getUsername());
 
 			anItem.addComment(aCommentText, anUser);
+			this.getItemsRepository().indexItemText(anItem);
+			this.getItemsRepository().invalidateItemsCount();
 			// incrementa en uno la versin del tem
 			anItemDTO.setVersion(anItem.getVersion() + 1);
 			return anItemDTO;
@@ -1227,7 +1407,7 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 	 */
 	@Override
 	public int getItemTypesCount() throws Exception {
-		Tracker aTracker = this.getTrackerRepository().findTracker();
+		Tracker aTracker = this.findTracker();
 
 		return aTracker.getItemTypes().size();
 	}
@@ -1252,7 +1432,7 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 	 *             ejecucin de este servicio.
 	 */
 	public void addItemType(String aTitle) throws Exception {
-		Tracker aTracker = this.getTrackerRepository().findTracker();
+		Tracker aTracker = this.findTracker();
 
 		aTracker.addItemType(aTitle);
 	}
@@ -1344,7 +1524,7 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 
 			} else {
 
-				Tracker aTracker = this.getTrackerRepository().findTracker();
+				Tracker aTracker = this.findTracker();
 
 				aTracker.editTypeItem(anItemType, aTitle);
 			}
@@ -1375,7 +1555,7 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		// DTOs.
 		Collection<ItemType> itemTypes = repository
 				.findItemTypeByIds(selectedItemTypes);
-		Tracker aTracker = this.getTrackerRepository().findTracker();
+		Tracker aTracker = this.findTracker();
 
 		ItemType anItemType = null;
 		for (Iterator<ItemType> i = itemTypes.iterator(); i.hasNext();) {
@@ -1439,9 +1619,36 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 			entry = entrySetIterator.next();
 			aProject = entry.getKey();
 			deletedItems = aProject.deleteItems(entry.getValue(), anUser);
-			itemsRepository.deleteObjects(deletedItems);
+			this.deleteContents(itemsRepository
+					.deleteItemsInBulk(deletedItems));
+			itemsRepository.removeItemsFromTextIndex(deletedItems);
+			this.getStatisticsAggregator().itemsRemoved(deletedItems);
+			this.getProjectChartsRollup().itemsRemoved(aProject.getOid(),
+					deletedItems);
 		}
 
+		// las cantidades de tems de los listados dejan de ser vlidas.
+		itemsRepository.invalidateItemsCount();
+
+	}
+
+	/**
+	 * Elimina del almacn los contenidos que ya no estn adjuntos a ningn
+	 * tem, una vez confirmada la transaccin actual.
+	 * 
+	 * @param someHashes
+	 *            es una coleccin con los hashes de los contenidos.
+	 */
+	protected void deleteContents(final Collection<String> someHashes) {
+		final AttachmentStore aStore = this.getAttachmentStore();
+		if (aStore != null && !someHashes.isEmpty()) {
+			AfterCommit.execute(new Runnable() {
+
+				public void run() {
+					aStore.delete(someHashes);
+				}
+			});
+		}
 	}
 
 	/**
@@ -1485,8 +1692,7 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 	 */
 	public void addItemTypeToProject(String aTitle, ProjectDTO aProjectDTO)
 			throws Exception {
-		Project aProject = this.getProjectsRepository().findById(
-				aProjectDTO.getOid());
+		Project aProject = this.findProject(aProjectDTO.getOid());
 
 		aProject.addItemType(aTitle);
 	}
@@ -1546,6 +1752,9 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 
 		anItem.getProject().assignItemToUser(anItem, nextResponsible,
 				nextNodeDescription);
+		this.getItemsRepository().invalidateItemsCount();
+		this.getStatisticsAggregator().itemChanged(anItem);
+		this.getProjectChartsRollup().itemChanged(anItem);
 
 		ItemDTO newItemDTO = this.getDtoFactory().createDTOForItem(anItem);
 		newItemDTO.setVersion(anItem.getVersion() + 1);
@@ -1585,8 +1794,35 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 	public ItemDTO attachFileToItem(ItemDTO anItemDTO, String aFileName)
 			throws Exception {
 
+		return this.attachFileToItem(anItemDTO, aFileName, null, 0);
+	}
+
+	/**
+	 * Adjunta al tem representado por el dto un archivo que ya fue guardado
+	 * en el almacn de archivos adjuntos.
+	 * 
+	 * @param anItemDTO
+	 *            es el dto que representa al tem al cual se debe adjuntar un
+	 *            archivo.
+	 * @param aFileName
+	 *            es el nombre del archivo que se ha adjuntado.
+	 * @param aContentHash
+	 *            es el hash del contenido del archivo en el almacn.
+	 * @param aSize
+	 *            es el tamao (en bytes) del archivo.
+	 * @return el dto que representa al tem.
+	 * 
+	 * @throws Exception
+	 *             esta excepcin se puede levantar al intentar almacenar el
+	 *             archivo recibido.
+	 */
+	public ItemDTO attachFileToItem(ItemDTO anItemDTO, String aFileName,
+			String aContentHash, long aSize) throws Exception {
+
 		Item anItem = this.getItemsRepository().findById(anItemDTO.getOid());
 		ItemFile aFile = new ItemFile(aFileName, new Date());
+		aFile.setContentHash(aContentHash);
+		aFile.setSize(aSize);
 
 		anItem.attachFile(aFile);
 
@@ -1661,7 +1897,7 @@ public class ItemsServiceImpl extends BaseServiceImpl implements ItemsServiceBI
 		int result = 0;
 
 		try {
-			Project aProject = this.getProjectsRepository().findById(anOid);
+			Project aProject = this.findProject(anOid);
 			result = aProject.getItemTypes().size();
 		} catch (ProjectUnknownException e) {
 
@@ -52,7 +52,7 @@ public class PrioritiesServiceImpl extends BaseServiceImpl implements
 	 */
 	@Override
 	public int getPrioritySetCount() throws Exception {
-		Tracker aTracker = this.getTrackerRepository().findTracker();
+		Tracker aTracker = this.findTracker();
 
 		return aTracker.getPrioritySetsCount();
 	}
@@ -99,7 +99,7 @@ public class PrioritiesServiceImpl extends BaseServiceImpl implements
 	 *             ejecucin de este servicio.
 	 */
 	public boolean containsPrioritySetWithName(String aName) throws Exception {
-		Tracker aTracker = this.getTrackerRepository().findTracker();
+		Tracker aTracker = this.findTracker();
 
 		return this.getPrioritiesRepository().containsPrioritySetWithName(
 				aTracker, aName);
@@ -114,7 +114,7 @@ public class PrioritiesServiceImpl extends BaseServiceImpl implements
 	 *             ejecucin de este servicio.
 	 */
 	public PrioritySetDTO getDefaultPrioritySet() throws Exception {
-		Tracker aTracker = this.getTrackerRepository().findTracker();
+		Tracker aTracker = this.findTracker();
 
 		return this.getDtoFactory().createDTOForPrioritySet(
 				this.getPrioritiesRepository().getDefaultPrioritySet(aTracker));
@@ -131,7 +131,7 @@ public class PrioritiesServiceImpl extends BaseServiceImpl implements
 	 *             ejecucin de este servicio.
 	 */
 	public Collection<PrioritySetDTO> getAllPrioritySets() throws Exception {
-		Tracker aTracker = this.getTrackerRepository().findTracker();
+		Tracker aTracker = this.findTracker();
 
 		return this.getDtoFactory().createDTOForPrioritySets(
 				this.getPrioritiesRepository().getAllPrioritySets(aTracker),
@@ -154,7 +154,7 @@ public class PrioritiesServiceImpl extends BaseServiceImpl implements
 	public PrioritySetDTO addPrioritySet(String aName,
 			boolean isDefaultPrioritySet) throws Exception {
 
-		Tracker aTracker = this.getTrackerRepository().findTracker();
+		Tracker aTracker = this.findTracker();
 
 		PrioritySet aPrioritySet = aTracker.addPrioritySet(aName,
 				isDefaultPrioritySet);
@@ -221,7 +221,7 @@ public class PrioritiesServiceImpl extends BaseServiceImpl implements
 				throw new ItemConcurrentModificationException();
 
 			} else {
-				Tracker aTracker = this.getTrackerRepository().findTracker();
+				Tracker aTracker = this.findTracker();
 				// actualiza la informacin del conjunto de prioridades
 				aTracker.updatePrioritySet(aPrioritySet, prioritySetDTO
 						.getName(), prioritySetDTO.isDefaultPrioritySet());
@@ -254,7 +254,7 @@ public class PrioritiesServiceImpl extends BaseServiceImpl implements
 	public void addPriorityToPrioritySet(String aPrioritySetId, String aName,
 			String aValue) throws Exception {
 
-		Tracker aTracker = this.getTrackerRepository().findTracker();
+		Tracker aTracker = this.findTracker();
 		PrioritySet aPrioritySet = (PrioritySet) this.getPrioritiesRepository()
 				.findById(aPrioritySetId);
 
@@ -354,8 +354,7 @@ public class PrioritiesServiceImpl extends BaseServiceImpl implements
 			ProjectDTO aProjectDTO, String aPropertyName, String anOrdering)
 			throws Exception {
 
-		Project aProject = this.getProjectsRepository().findById(
-				aProjectDTO.getOid());
+		Project aProject = this.findProject(aProjectDTO.getOid());
 
 		Collection<Priority> priorities = this.getPrioritiesRepository()
 				.findPrioritiesOfPrioritySet(
@@ -380,7 +379,7 @@ public class PrioritiesServiceImpl extends BaseServiceImpl implements
 	public void deletePrioritySets(Collection<String> selectedPrioritySets)
 			throws Exception {
 
-		Tracker aTracker = this.getTrackerRepository().findTracker();
+		Tracker aTracker = this.findTracker();
 		PrioritiesRepositoryBI repository = this.getPrioritiesRepository();
 
 		Collection<PrioritySet> prioritySets = repository
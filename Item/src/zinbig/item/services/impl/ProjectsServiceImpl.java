@@ -15,7 +15,6 @@ import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
 
-import zinbig.item.model.Item;
 import zinbig.item.model.ItemType;
 import zinbig.item.model.Tracker;
 import zinbig.item.model.exceptions.AdditionalPropertyNameNotUniqueException;
@@ -28,17 +27,18 @@ import zinbig.item.model.exceptions.TrackerUnknownException;
 import zinbig.item.model.exceptions.UserUnknownException;
 import zinbig.item.model.projects.PrioritySet;
 import zinbig.item.model.projects.Project;
+import zinbig.item.model.properties.DynamicValuesListPropertyDescription;
 import zinbig.item.model.properties.PropertyDescription;
 import zinbig.item.model.users.User;
 import zinbig.item.model.users.UserGroup;
 import zinbig.item.model.workflow.WorkflowDescription;
-import zinbig.item.model.workflow.WorkflowNodeDescription;
-import zinbig.item.repositories.bi.ItemsRepositoryBI;
 import zinbig.item.repositories.bi.ProjectsRepositoryBI;
-import zinbig.item.repositories.bi.WorkflowsRepositoryBI;
 import zinbig.item.services.bi.ProjectsServiceBI;
+import zinbig.item.util.MassiveItemsMovementEngine;
+import zinbig.item.util.MassiveItemsMovementJob;
 import zinbig.item.util.dto.DTOFactory;
 import zinbig.item.util.dto.ItemTypeDTO;
+import zinbig.item.util.dto.MassiveItemsMovementDTO;
 import zinbig.item.util.dto.PrioritySetDTO;
 import zinbig.item.util.dto.ProjectDTO;
 import zinbig.item.util.dto.ProjectDTOComparator;
@@ -64,6 +64,11 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
    */
   protected Map<String, String> additionalPropertyTypes;
 
+  /**
+   * Es el objeto que ejecuta en segundo plano los movimientos masivos de tems.
+   */
+  protected MassiveItemsMovementEngine massiveItemsMovementEngine;
+
   /**
    * Constructor.
    */
@@ -93,6 +98,25 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
     this.additionalPropertyTypes = aMap;
   }
 
+  /**
+   * Getter.
+   * 
+   * @return el objeto que ejecuta en segundo plano los movimientos masivos de tems.
+   */
+  public MassiveItemsMovementEngine getMassiveItemsMovementEngine() {
+    return this.massiveItemsMovementEngine;
+  }
+
+  /**
+   * Setter.
+   * 
+   * @param anEngine
+   *          es el objeto que ejecuta en segundo plano los movimientos masivos de tems.
+   */
+  public void setMassiveItemsMovementEngine(MassiveItemsMovementEngine anEngine) {
+    this.massiveItemsMovementEngine = anEngine;
+  }
+
   /**
    * Recupera los proyectos pblicos.
    * 
@@ -147,7 +171,7 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
    */
   public Collection<ProjectDTO> findProjectsOfUser(UserDTO anUserDTO) throws Exception {
 
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
 
     Collection<ProjectDTO> result = new TreeSet<ProjectDTO>(new ProjectDTOComparator());
     try {
@@ -182,7 +206,7 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
    */
   public Collection<ProjectDTO> findPrivateProjectsOfUser(UserDTO anUserDTO) throws Exception {
 
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
 
     Collection<ProjectDTO> result = new TreeSet<ProjectDTO>(new ProjectDTOComparator());
     try {
@@ -236,7 +260,7 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
    */
   @Override
   public int getProjectsCount() throws Exception {
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
 
     return aTracker.getProjectsCount();
 
@@ -300,9 +324,9 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
       PrioritySetDTO aPrioritySetDTO, String aClassName, String aProjectLeaderUsername,
       Iterator<ItemTypeDTO> itemTypesDTOsIterator, String aPathForAttachedFiles) throws Exception {
 
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
 
-    User anUser = this.getUsersRepository().findUserWithUsername(aTracker, aProjectLeaderUsername, "C");
+    User anUser = this.findConfirmedUser(aTracker, aProjectLeaderUsername);
 
     PrioritySet aPrioritySet = this.getPrioritiesRepository().findById(aPrioritySetDTO.getOid());
 
@@ -318,6 +342,7 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
     Project aProject = aTracker.addProject(aName, aShortName, aLink, isPublicProject,
         (PrioritySet) aPrioritySet.clone(), (WorkflowDescription) aWorkflowDescription.clone(), aClassName,
         anUser, itemTypes);
+    this.getStatisticsAggregator().projectSaved(aProject);
 
     // crea el directorio para guardar los archivos adjuntos de este nuevo
     // proyecto.
@@ -337,7 +362,7 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
    */
   public boolean existsProjectWithName(String aName) throws Exception {
 
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
     boolean result = this.getProjectsRepository().containsProjectWithName(aTracker, aName);
 
     return result;
@@ -356,7 +381,7 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
    *           esta excepcin se levanta en caso de algn error en la ejecucin de este servicio.
    */
   public ProjectDTO findProjectById(String anOid, boolean mustLoadCompleteProject) throws Exception {
-    Project aProject = this.getProjectsRepository().findById(anOid);
+    Project aProject = this.findProject(anOid);
     ProjectDTO result = null;
     if (mustLoadCompleteProject) {
       result = this.getDtoFactory().createDTOForProject(aProject);
@@ -380,7 +405,7 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
 
     try {
 
-      Project aProject = this.getProjectsRepository().findById(projectDTO.getOid());
+      Project aProject = this.findProject(projectDTO.getOid());
 
       // controla que se est editando la ltima versin del objeto
       if (!this.verifyLatestVersion(aProject, projectDTO)) {
@@ -388,15 +413,15 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
         throw new ItemConcurrentModificationException();
 
       } else {
-        Tracker aTracker = this.getTrackerRepository().findTracker();
+        Tracker aTracker = this.findTracker();
         // recupera el nuevo lder de proyecto.
-        User anUser = this.getUsersRepository().findUserWithUsername(aTracker,
-            projectDTO.getProjectLeaderDTO().getUsername(), "C");
+        User anUser = this.findConfirmedUser(aTracker, projectDTO.getProjectLeaderDTO().getUsername());
 
         // actualiza la informacin del proyecto.
         aTracker.updateProject(aProject, projectDTO.getName(), projectDTO.getShortName(),
             projectDTO.getLink(), projectDTO.isPublicProject(), anUser,
             projectDTO.getItemAssignmentStrategy());
+        this.getStatisticsAggregator().projectSaved(aProject);
       }
 
     } catch (ProjectUnknownException pue) {
@@ -454,7 +479,7 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
 
     // recupera todos los proyectos a partir de sus correspondientes DTOs.
     Collection<Project> projects = repository.findProjectsByIds(selectedProjectsOids);
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
 
     Project aProject = null;
     for (Iterator<Project> i = projects.iterator(); i.hasNext();) {
@@ -464,6 +489,11 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
       repository.delete(aProject);
 
     }
+    this.getStatisticsAggregator().projectsRemoved(projects);
+    this.getProjectChartsRollup().projectsRemoved(projects);
+
+    // las cantidades de tems de los listados dejan de ser vlidas.
+    this.getItemsRepository().invalidateItemsCount();
 
   }
 
@@ -479,7 +509,7 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
 
     Collection<ProjectDTO> result = new TreeSet<ProjectDTO>(new ProjectDTOComparator());
     try {
-      Tracker aTracker = this.getTrackerRepository().findTracker();
+      Tracker aTracker = this.findTracker();
       User anUser = aTracker.findUserWithUsername(anUserDTO.getUsername(), "C");
       Collection<Project> projects = this.getProjectsRepository().findFavoriteProjectsOfUser(anUser);
 
@@ -513,9 +543,9 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
    */
   public UserDTO addFavoriteProjectToUser(ProjectDTO aProjectDTO, UserDTO anUserDTO) throws Exception {
 
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
     User anUser = aTracker.findUserWithUsername(anUserDTO.getUsername(), "C");
-    Project aProject = this.getProjectsRepository().findById(aProjectDTO.getOid());
+    Project aProject = this.findProject(aProjectDTO.getOid());
     anUser.addFavoriteProject(aProject);
 
     anUserDTO.addFavoriteProject(aProjectDTO);
@@ -540,8 +570,8 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
     if (anUserDTO == null) {
       result = this.getProjectsRepository().findAllPublicProjects().size();
     } else {
-      Tracker aTracker = this.getTrackerRepository().findTracker();
-      User anUser = this.getUsersRepository().findUserWithUsername(aTracker, anUserDTO.getUsername(), "C");
+      Tracker aTracker = this.findTracker();
+      User anUser = this.findConfirmedUser(aTracker, anUserDTO.getUsername());
       Collection<Project> projects = new HashSet<Project>();
       projects.addAll(this.getProjectsRepository().findAllProjectsOfUser(anUser));
       projects.addAll(this.getProjectsRepository().findAllPublicProjects());
@@ -614,9 +644,9 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
    *           es una excepcin que puede levantarse a raz de la ejecucin de este servicio.
    */
   public UserDTO removeFavoriteProjectFromUser(ProjectDTO aProjectDTO, UserDTO anUserDTO) throws Exception {
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
     User anUser = aTracker.findUserWithUsername(anUserDTO.getUsername(), "C");
-    Project aProject = this.getProjectsRepository().findById(aProjectDTO.getOid());
+    Project aProject = this.findProject(aProjectDTO.getOid());
     anUser.removeFavoriteProject(aProject);
 
     anUserDTO.removeFavoriteProject(aProjectDTO);
@@ -655,9 +685,23 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
    * @return una lista de string que representa los valores posibles para la propiedad adicional.
    */
   public Collection<String> getValuesForDynamicProperty(String aQuery) {
+    return this.getValuesForDynamicProperty(aQuery, 0);
+  }
+
+  /**
+   * Obtiene la lista de valores asociada a una descripcin de propiedad adicional dinmica, recuperando a lo sumo
+   * la cantidad de valores indicada.
+   * 
+   * @param aQuery
+   *          es la consulta que se debe ejecutar.
+   * @param aMaxValues
+   *          es la cantidad mxima de valores. Si no es positiva se utiliza la cantidad mxima por defecto.
+   * @return una lista de string que representa los valores posibles para la propiedad adicional.
+   */
+  public Collection<String> getValuesForDynamicProperty(String aQuery, int aMaxValues) {
     Collection<String> result = new ArrayList<String>();
     ProjectsRepositoryBI repository = this.getProjectsRepository();
-    result.addAll(repository.getValuesForDynamicProperty(aQuery));
+    result.addAll(repository.getValuesForDynamicProperty(aQuery, aMaxValues));
 
     return result;
   }
@@ -744,11 +788,14 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
    *          define el tipo de la propiedad adicional.
    * @param aValue
    *          es un valor adicional requerido por algunos tipos de propiedades adicionales.
+   * @param aMaxValues
+   *          es la cantidad mxima de valores de una propiedad dinmica. Si es null o no es positiva se utiliza la
+   *          cantidad mxima por defecto.
    * @throws Exception
    *           esta excepcin se puede levantar a raz de la ejecucin de este servicio.
    */
   public void addAdditionalProperty(ProjectDTO aProjectDTO, String aName, boolean isRequired, String aType,
-      String aValue) throws Exception {
+      String aValue, Integer aMaxValues) throws Exception {
 
     ProjectsRepositoryBI repository = this.getProjectsRepository();
 
@@ -760,7 +807,7 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
       if (aType.equals("DYNAMIC")) {
 
         try {
-          this.getValuesForDynamicProperty(aValue);
+          this.getValuesForDynamicProperty(aValue, aMaxValues == null ? 0 : aMaxValues.intValue());
         } catch (Exception e) {
           throw new InvalidDynamicQueryException();
         }
@@ -771,6 +818,10 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
       aPropertyDescription.setName(aName);
       aPropertyDescription.setRequired(isRequired);
       aPropertyDescription.configureWithValueAdditionalValue(aValue);
+      if (aPropertyDescription instanceof DynamicValuesListPropertyDescription && aMaxValues != null
+          && aMaxValues.intValue() > 0) {
+        ((DynamicValuesListPropertyDescription) aPropertyDescription).setMaxValues(aMaxValues);
+      }
 
       aProject.addPropertyDescription(aPropertyDescription);
     }
@@ -781,60 +832,55 @@ public class ProjectsServiceImpl extends BaseServiceImpl implements ProjectsServ
    * Recibe una lista de identificadores de tems que se deben mover en forma masiva a un nuevo estado.<br>
    * Solamente los tems que no se encuentren en estado Cerrado o Bloqueado sern movidos. Adems, existe la
    * restriccin de que debe existir un camino en el workflow entre el nodo actual de cada tem y el nodo
-   * propuesto como destino.
+   * propuesto como destino.<br>
+   * Este mtodo solamente verifica que existan el proyecto y el nodo destino y registra el movimiento en el
+   * motor de movimientos masivos, que lo procesa en segundo plano.
    * 
+   * @param anUserDTO
+   *          es el DTO que representa al usuario que registra el movimiento.
    * @param aProjectDTO
    *          es el DTO que representa al proyecto al cual pertenecen los tems.
    * @param aWorkflowNodeDescriptionDTO
    *          es el DTO que representa al nodo del workflow al que se debe mover cada tem.
    * @param someItems
    *          es una lista separada por comas con los identificadores de los tems.
-   * @return un string que contiene los identificadores de los tems que no se pudieron mover al nuevo nodo.
+   * @return el oid del movimiento masivo.
    * @throws una
    *           excepcin que puede levantarse a raz de la ejecucin de este servicio.
    */
-  public String massiveItemsMovement(ProjectDTO aProjectDTO,
+  public String massiveItemsMovement(UserDTO anUserDTO, ProjectDTO aProjectDTO,
       WorkflowNodeDescriptionDTO aWorkflowNodeDescriptionDTO, String someItems) throws Exception {
 
-    ItemsRepositoryBI itemsRepository = this.getItemsRepository();
-
-    // recupera el proyecto.
-    ProjectsRepositoryBI projectsRepository = this.getProjectsRepository();
-    Project aProject = projectsRepository.findById(aProjectDTO.getOid());
+    // verifica que existan el proyecto y la descripcin de nodo destino.
+    this.findProject(aProjectDTO.getOid());
+    this.getWorkflowsRepository().findWorkflowNodeDescriptionById(aWorkflowNodeDescriptionDTO.getOid());
 
-    // transforma los identificadores para poder recuperar todos los tems
-    // concretamente.
     Collection<String> itemsIds = new ArrayList<String>();
     StringTokenizer tokenizer = new StringTokenizer(someItems, ",");
     while (tokenizer.hasMoreTokens()) {
       itemsIds.add(tokenizer.nextToken());
     }
-    // recupera todos los tems a partir de sus ids.
-    Collection<Item> items = itemsRepository.findItemsById(itemsIds, aProjectDTO.getOid());
-
-    // recupera la descripcin de nodo a la que se intenta pasar los tems.
-    WorkflowsRepositoryBI workflowsRepository = this.getWorkflowsRepository();
-    WorkflowNodeDescription aNode = workflowsRepository
-        .findWorkflowNodeDescriptionById(aWorkflowNodeDescriptionDTO.getOid());
 
-    Collection<String> movedItems = aProject.massiveItemsMovement(items, aNode);
+    return this.getMassiveItemsMovementEngine().submit(aProjectDTO.getOid(),
+        aWorkflowNodeDescriptionDTO.getOid(), anUserDTO.getOid(), itemsIds);
+  }
 
-    // remueve de las coleccin de ids recibidos todos aquellos que fueron
-    // movidos al siguiente nodo.
-    for (String s : movedItems) {
-      itemsIds.remove(s);
-    }
+  /**
+   * Recupera el avance de un movimiento masivo de tems. Solamente el usuario que registr el movimiento
+   * puede consultarlo.
+   * 
+   * @param anUserDTO
+   *          es el DTO que representa al usuario que consulta el movimiento.
+   * @param anOid
+   *          es el oid del movimiento masivo.
+   * @return un dto que representa el avance del movimiento y, si ya termin, el resultado de cada tem
+   *         procesado, o null si el movimiento no existe, ya fue descartado o fue registrado por otro usuario.
+   * @throws Exception
+   *           esta excepcin se puede levantar a raz de la ejecucin de este servicio.
+   */
+  public MassiveItemsMovementDTO findMassiveItemsMovement(UserDTO anUserDTO, String anOid) throws Exception {
+    MassiveItemsMovementJob aJob = this.getMassiveItemsMovementEngine().findJob(anOid, anUserDTO.getOid());
 
-    // arma el string de resultado, dejando solamente los identificadores de
-    // los items no movidos.
-    StringBuffer result = new StringBuffer("");
-    for (String s : itemsIds) {
-      result.append(s + ",");
-    }
-    String finalResult = "";
-    if (result.length() > 0) {
-      finalResult = result.substring(0, result.length() - 1);
-    }
-    return finalResult;
+    return aJob == null ? null : aJob.createDTO();
   }
 }
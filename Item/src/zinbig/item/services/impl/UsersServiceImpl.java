@@ -38,6 +38,8 @@ import zinbig.item.util.dto.ProjectDTOComparator;
 import zinbig.item.util.dto.UserDTO;
 import zinbig.item.util.dto.UserGroupDTO;
 import zinbig.item.util.security.EncryptionStrategy;
+import zinbig.item.util.security.PermissionsCache;
+import zinbig.item.util.security.UserPermissions;
 
 /**
  * Las instancias de esta clase se utilizan para acceder a la lgica de negocios relacionada con los usuarios
@@ -58,6 +60,12 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
    */
   protected EncryptionStrategy encryptionStrategy;
 
+  /**
+   * Mantiene los permisos compilados de cada combinacin de grupos de usuarios. Este colaborador se inyecta
+   * mediante IoC.
+   */
+  protected PermissionsCache permissionsCache;
+
   /**
    * Constructor.
    */
@@ -84,6 +92,25 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
     this.encryptionStrategy = anEncryptionStrategy;
   }
 
+  /**
+   * Getter.
+   * 
+   * @return el objeto que mantiene los permisos compilados de cada combinacin de grupos de usuarios.
+   */
+  public PermissionsCache getPermissionsCache() {
+    return this.permissionsCache;
+  }
+
+  /**
+   * Setter.
+   * 
+   * @param aCache
+   *          es el objeto que mantiene los permisos compilados de cada combinacin de grupos de usuarios.
+   */
+  public void setPermissionsCache(PermissionsCache aCache) {
+    this.permissionsCache = aCache;
+  }
+
   /**
    * Intenta ingresar al sistema con un nombre de usuario y clave.<br>
    * Este mtodo utiliza implementaciones de Repository para acceder eficientemente a los objetos del dominio.
@@ -104,17 +131,18 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
   @Override
   public UserDTO loginUser(String username, String password) throws Exception {
     long before = new Date().getTime();
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
     
     User anUser = aTracker.loginUser(username, password, this.getEncryptionStrategy());
+    this.getUsersRepository().recordActivity(anUser);
 
     boolean isAdmin = aTracker.getAdministrator().equals(anUser);
 
-    // recupera todas las operaciones del usuario. esto lo hace a travs de
+    // recupera los permisos compilados del usuario. esto lo hace a travs de
     // un servicio privado de modo de poder optimizar la performance.
-    Collection<Operation> operations = this.getAllOperationsOfUser(anUser);
+    UserPermissions permissions = this.getAllPermissionsOfUser(anUser);
 
-    UserDTO anUserDTO = this.getDtoFactory().createCompleteDTOForUser(anUser, isAdmin, operations, false);
+    UserDTO anUserDTO = this.getDtoFactory().createCompleteDTOForUser(anUser, isAdmin, permissions, false);
 
     long after = new Date().getTime();
     System.out.println("tiempo del login:" + (after - before));
@@ -161,7 +189,9 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
       extraOperations.addAll(this.prepareOperationsDTOsForFilters(filters.iterator()));
 
     }
-    anUserDTO.getOperations().addAll(extraOperations);
+    for (OperationDTO anOperationDTO : extraOperations) {
+      anUserDTO.addOperationDto(anOperationDTO);
+    }
 
     return anUserDTO;
   }
@@ -202,7 +232,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
 
     UserDTO result = null;
 
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
 
     Collection<UserGroup> userGroups;
     // verifica que por lo menos exista un grupo de usuarios al cual asignar
@@ -215,6 +245,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
 
     User newUser = aTracker.addUser(aName, username, password, this.getEncryptionStrategy(), "C", anEmail,
         aDate, aLanguage, aSurname, userGroups);
+    this.getStatisticsAggregator().userAdded(newUser);
 
     result = this.getDtoFactory().createDTOForUser(newUser, false);
 
@@ -240,7 +271,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
   public UserDTO findUserWithUsername(String anUsername, String status) throws Exception {
 
     UserDTO dto = null;
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
     User anUser = aTracker.findUserWithUsername(anUsername, status);
 
     if (anUser != null) {
@@ -264,7 +295,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
   @Override
   public boolean existsUserWithUsername(String anUsername) throws Exception {
 
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
     boolean result = this.getUsersRepository().containsUserWithUsername(aTracker, anUsername);
 
     return result;
@@ -287,8 +318,8 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
       throws Exception {
     try {
 
-      Tracker aTracker = this.getTrackerRepository().findTracker();
-      User anUser = this.getUsersRepository().findUserWithUsername(aTracker, anUserDTO.getUsername(), "C");
+      Tracker aTracker = this.findTracker();
+      User anUser = this.findConfirmedUser(aTracker, anUserDTO.getUsername());
 
       // controla que se est editando la ltima versin del objeto
       if (!this.verifyLatestVersion(anUser, anUserDTO)) {
@@ -365,6 +396,48 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
     return operations;
   }
 
+  /**
+   * Recupera los permisos compilados de un usuario.<br>
+   * Los permisos se comparten entre todos los usuarios que pertenecen a la misma combinacin de grupos de
+   * usuarios, por lo que las operaciones solamente se recuperan la primera vez que ingresa un usuario de
+   * cada combinacin.
+   * 
+   * @param anUser
+   *          es el usuario para el cual se deben recuperar los permisos.
+   * @return los permisos compilados del usuario.
+   * @throws Exception
+   *           esta excepcin se levanta en caso de algn error en la ejecucin de este servicio.
+   */
+  private UserPermissions getAllPermissionsOfUser(User anUser) throws Exception {
+    PermissionsCache cache = this.getPermissionsCache();
+
+    Collection<String> groupsOids = new ArrayList<String>();
+    for (UserGroup anUserGroup : anUser.getUserGroups()) {
+      groupsOids.add(anUserGroup.getOid());
+    }
+    String key = cache.createKey(groupsOids);
+
+    UserPermissions result = cache.get(key);
+    if (result == null) {
+      long generation = cache.getGeneration();
+      result = cache.compile(this.getDtoFactory().createDTOForOperations(this.getAllOperationsOfUser(anUser)));
+      cache.put(key, result, generation);
+    }
+
+    return result;
+  }
+
+  /**
+   * Descarta los permisos compilados de las combinaciones de grupos de usuarios que incluyen al grupo
+   * recibido.
+   * 
+   * @param anUserGroup
+   *          es el grupo de usuarios cuyas operaciones cambiaron o que fue eliminado.
+   */
+  private void invalidatePermissions(UserGroup anUserGroup) {
+    this.getPermissionsCache().invalidate(anUserGroup.getOid());
+  }
+
   /**
    * Retorna verdadero si existe un grupo de usuarios con el nombre dado. <br>
    * Este mtodo considera tanto los grupos de usuarios de sistema como los de proyectos.
@@ -378,7 +451,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
   @Override
   public boolean containsUserGroupWithName(String aName) throws Exception {
 
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
     boolean result = this.getUsersRepository().containsUserGroupWithName(aTracker, aName);
 
     return result;
@@ -404,7 +477,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
   public UserGroupDTO addUserGroup(String aName, String anEmail, String aLanguage) throws Exception {
     UserGroupDTO result = null;
 
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
 
     UserGroup newUserGroup = aTracker.addUserGroup(aName, anEmail, aLanguage);
     result = this.getDtoFactory().createDTOForUserGroup(newUserGroup, false);
@@ -421,7 +494,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
    */
   @Override
   public int getUserGroupsCount() throws Exception {
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
 
     return aTracker.getUserGroupsCount();
   }
@@ -487,7 +560,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
   public void editUserGroup(String aName, UserGroupDTO aDto) throws Exception {
 
     try {
-      Tracker aTracker = this.getTrackerRepository().findTracker();
+      Tracker aTracker = this.findTracker();
       UserGroup anUserGroup = this.getUsersRepository().findUserGroupByName(aTracker, aName);
 
       // controla que se est editando la ltima versin del objeto
@@ -513,6 +586,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
         }
 
         aTracker.updateUserGroup(anUserGroup, aDto.getName(), aDto.getEmail(), operations, projects);
+        this.invalidatePermissions(anUserGroup);
 
       }
     } catch (UserGroupUnknownException e) {
@@ -537,7 +611,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
    */
   @Override
   public UserGroupDTO findUserGroup(String aName) throws Exception {
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
     UserGroup anUserGroup = this.getUsersRepository().findUserGroupByName(aTracker, aName);
     UserGroupDTO result = null;
 
@@ -558,7 +632,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
    */
   @Override
   public int getUsersCount() throws Exception {
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
 
     return aTracker.getUsersCount();
   }
@@ -619,8 +693,8 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
   @Override
   public void updateUserPreference(UserDTO aDTO, String aKey, String aValue) throws Exception {
     try {
-      Tracker aTracker = this.getTrackerRepository().findTracker();
-      User anUser = this.getUsersRepository().findUserWithUsername(aTracker, aDTO.getUsername(), "C");
+      Tracker aTracker = this.findTracker();
+      User anUser = this.findConfirmedUser(aTracker, aDTO.getUsername());
 
       anUser.updatePreference(aKey, aValue);
     } catch (UserUnknownException uue) {
@@ -641,8 +715,8 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
   @Override
   public Collection<UserGroupDTO> getUserGroupsOfUser(UserDTO anUserDTO) throws Exception {
 
-    Tracker aTracker = this.getTrackerRepository().findTracker();
-    User anUser = this.getUsersRepository().findUserWithUsername(aTracker, anUserDTO.getUsername(), "C");
+    Tracker aTracker = this.findTracker();
+    User anUser = this.findConfirmedUser(aTracker, anUserDTO.getUsername());
 
     Collection<UserGroup> userGroups = this.getUsersRepository().findUserGroupsOfUser(anUser);
     return this.getDtoFactory().createDTOForUserGroups(userGroups, false);
@@ -743,7 +817,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
     // recupera todos los grupos de usuarios a partir de sus
     // correspondientes ids.
     Collection<UserGroup> userGroups = repository.findUserGroupsById(someUserGroups);
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
 
     UserGroup anUserGroup = null;
     for (Iterator<UserGroup> i = userGroups.iterator(); i.hasNext();) {
@@ -751,6 +825,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
 
       aTracker.deleteUserGroup(anUserGroup);
       repository.delete(anUserGroup);
+      this.invalidatePermissions(anUserGroup);
 
     }
 
@@ -771,7 +846,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
     // recupera todos los usuarios a partir de sus
     // correspondientes ids.
     Collection<User> users = repository.findUsersById(selectedUsers);
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
 
     User anUser = null;
     for (Iterator<User> i = users.iterator(); i.hasNext();) {
@@ -781,6 +856,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
       repository.delete(anUser);
 
     }
+    this.getStatisticsAggregator().usersRemoved(users);
   }
 
   /**
@@ -796,7 +872,7 @@ public class UsersServiceImpl extends BaseServiceImpl implements UsersServiceBI
    *           es cualquier excepcin que podra levantarse a raz de la ejecucin de este servicio.
    */
   public Collection<UserDTO> findUsersWithUsernameLike(String aString, int aLimit) throws Exception {
-    Tracker aTracker = this.getTrackerRepository().findTracker();
+    Tracker aTracker = this.findTracker();
     Collection<User> users = this.getUsersRepository().findUsersWithUsernameLike(aTracker, aString, aLimit);
 
     return this.getDtoFactory().createDTOForUsers(users);
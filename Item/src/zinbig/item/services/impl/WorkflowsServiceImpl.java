@@ -7,8 +7,10 @@ package zinbig.item.services.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TreeSet;
 
 import zinbig.item.model.Item;
@@ -61,7 +63,7 @@ public class WorkflowsServiceImpl extends BaseServiceImpl implements
 			throws Exception {
 		Collection<WorkflowDescriptionDTO> result = new ArrayList<WorkflowDescriptionDTO>();
 
-		Tracker aTracker = this.getTrackerRepository().findTracker();
+		Tracker aTracker = this.findTracker();
 
 		result.addAll(this.getDtoFactory().createDTOForWorkflowDescriptions(
 				aTracker.getWorkflowDescriptions()));
@@ -370,7 +372,7 @@ public class WorkflowsServiceImpl extends BaseServiceImpl implements
 	public Collection<WorkflowNodeDescriptionDTO> findNextWorkflowNodesForItem(
 			ItemDTO anItemDTO, String aPropertyName, String anOrdering)
 			throws Exception {
-		Collection<WorkflowNodeDescription> result = new ArrayList<WorkflowNodeDescription>();
+		List<WorkflowNodeDescription> result = new ArrayList<WorkflowNodeDescription>();
 		Item anItem = this.getItemsRepository().findById(anItemDTO.getOid());
 
 		if (anItem.getCurrentWorkflowNode() == null) {
@@ -378,14 +380,34 @@ public class WorkflowsServiceImpl extends BaseServiceImpl implements
 			result.add(anItem.getProject().getWorkflowDescription()
 					.getInitialNodeDescription());
 		} else {
-			WorkflowsRepositoryBI repository = this.getWorkflowsRepository();
-
-			result
-					.addAll(repository
-							.findAdjacentWorkflowNodeDescriptionsOfWorkflowNodeDescription(
-									anItem.getCurrentWorkflowNode()
-											.getNodeDescription(),
-									aPropertyName, anOrdering));
+			// los nodos adyacentes se obtienen de los enlaces del nodo actual.
+			result.addAll(anItem.getProject().getWorkflowDescription()
+					.getAdjacentWorkflowNodeDescriptions(
+							anItem.getCurrentWorkflowNode()
+									.getNodeDescription()));
+
+			final boolean descending = "DESC".equalsIgnoreCase(anOrdering);
+			Collections.sort(result, new Comparator<WorkflowNodeDescription>() {
+
+				/**
+				 * Compara dos descripciones de nodos por su ttulo para
+				 * ordenarlas.
+				 * 
+				 * @param aNode
+				 *            es el primer elemento a comparar.
+				 * @param anotherNode
+				 *            es el segundo elemento a comparar.
+				 * @return un entero que representa el orden entre los
+				 *         elementos.
+				 */
+				@Override
+				public int compare(WorkflowNodeDescription aNode,
+						WorkflowNodeDescription anotherNode) {
+					int comparison = aNode.getNodeTitle().compareTo(
+							anotherNode.getNodeTitle());
+					return descending ? -comparison : comparison;
+				}
+			});
 
 		}
 
@@ -0,0 +1,23 @@
+/**
+ * Este paquete contiene clases tiles para la herramienta.
+ */
+package zinbig.item.util;
+
+/**
+ * Esta interface define el protocolo de las estrategias que generan los
+ * identificadores que se asignan a los objetos.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public interface IDGenerationStrategy {
+
+	/**
+	 * Genera un nuevo identificador.
+	 * 
+	 * @return un string que no ha sido devuelto anteriormente por ningn nodo
+	 *         de la aplicacin.
+	 */
+	public String generateId();
+
+}
@@ -3,11 +3,16 @@
  */
 package zinbig.item.util;
 
-import java.util.UUID;
-
 /**
- * Esta clase se utiliza para generar nmeros aleatorios para asignarlos como
- * identificadores de los objetos.
+ * Esta clase se utiliza para generar los identificadores que se asignan a los
+ * objetos. <br>
+ * La generacin se delega en una estrategia que se debe configurar
+ * explcitamente mediante el mensaje configure antes de generar el primer
+ * identificador. En la aplicacin lo hace el bean idGenerator del contexto de
+ * Spring; las herramientas que no utilizan el contexto (por ejemplo DBLoader)
+ * deben configurarla por su cuenta. No existe una estrategia por defecto, ya
+ * que una estrategia sin el nmero de nodo correcto generara identificadores
+ * repetidos entre los distintos nodos.
  * 
  * @author Javier Bazzocco javier.bazzocco@zinbig.com
  * 
@@ -15,12 +20,56 @@ import java.util.UUID;
 public class IDGenerator {
 
 	/**
-	 * Genera un nmero aleatorio de 16 bytes.
+	 * Es la estrategia utilizada para generar los identificadores.
+	 */
+	private static volatile IDGenerationStrategy strategy;
+
+	/**
+	 * Constructor privado, esta clase no se instancia.
+	 */
+	private IDGenerator() {
+	}
+
+	/**
+	 * Genera un nuevo identificador.
 	 * 
-	 * @return un string en base a un nmero aleatorio de 16 bytes.
+	 * @return un string que identifica unvocamente a un objeto.
+	 * @throws IllegalStateException
+	 *             esta excepcin se levanta si todava no se configur la
+	 *             estrategia.
 	 */
 	public static String getId() {
-		return UUID.randomUUID().toString().replace("-", "");
+		IDGenerationStrategy aStrategy = strategy;
+		if (aStrategy == null) {
+			throw new IllegalStateException(
+					"No se configur la estrategia de generacin de identificadores");
+		}
+		return aStrategy.generateId();
+	}
+
+	/**
+	 * Configura la estrategia utilizada para generar los identificadores.
+	 * 
+	 * @param aStrategy
+	 *            es la estrategia utilizada para generar los identificadores.
+	 * @throws IllegalArgumentException
+	 *             esta excepcin se levanta si la estrategia es nula.
+	 */
+	public static void configure(IDGenerationStrategy aStrategy) {
+		if (aStrategy == null) {
+			throw new IllegalArgumentException("strategy");
+		}
+		strategy = aStrategy;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la estrategia utilizada para generar los identificadores, o null
+	 *         si todava no se configur.
+	 */
+	public static IDGenerationStrategy getStrategy() {
+		return strategy;
 	}
 
 }
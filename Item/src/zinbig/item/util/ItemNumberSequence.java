@@ -0,0 +1,90 @@
+/**
+ * Este paquete contiene clases tiles del sistema.
+ * 
+ */
+package zinbig.item.util;
+
+/**
+ * Las instancias de esta clase representan la secuencia de nmeros de tems de
+ * un proyecto. <br>
+ * La secuencia guarda el ltimo nmero reservado para el proyecto. Los nmeros
+ * se reservan en bloques a travs del objeto ItemNumberAllocator, que
+ * actualiza directamente la tabla, por lo que esta clase existe
+ * principalmente para que la tabla forme parte del esquema generado a partir
+ * de los mapeos de Hibernate.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class ItemNumberSequence {
+
+	/**
+	 * Es el identificador del proyecto al cual pertenece esta secuencia.
+	 */
+	public String projectOid;
+
+	/**
+	 * Es el ltimo nmero de tem reservado para el proyecto.
+	 */
+	public int lastNumber;
+
+	/**
+	 * Constructor por defecto. No debera utilizarse directamente, existe para
+	 * poder realizar tests de unidad sobre esta clase.
+	 */
+	public ItemNumberSequence() {
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param aProjectOid
+	 *            es el identificador del proyecto.
+	 * @param aNumber
+	 *            es el ltimo nmero de tem reservado para el proyecto.
+	 */
+	public ItemNumberSequence(String aProjectOid, int aNumber) {
+		this.setProjectOid(aProjectOid);
+		this.setLastNumber(aNumber);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el identificador del proyecto al cual pertenece esta secuencia.
+	 */
+	public String getProjectOid() {
+		return this.projectOid;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aProjectOid
+	 *            es el identificador del proyecto al cual pertenece esta
+	 *            secuencia.
+	 */
+	public void setProjectOid(String aProjectOid) {
+		this.projectOid = aProjectOid;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el ltimo nmero de tem reservado para el proyecto.
+	 */
+	public int getLastNumber() {
+		return this.lastNumber;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es el ltimo nmero de tem reservado para el proyecto.
+	 */
+	public void setLastNumber(int aNumber) {
+		this.lastNumber = aNumber;
+	}
+
+}
@@ -137,7 +137,7 @@ public class ItemStatistic {
 
 		this.setOid(IDGenerator.getId());
 		this.setUpdateTime(anUpdateTime);
-		this.setItemsCount(someOpenItemsCount);
+		this.setItemsCount(someItemsCount);
 		this.setUsersCount(someUsersCount);
 		this.setProjectsCount(someProjectsCount);
 		this.setOpenItemsCount(someOpenItemsCount);
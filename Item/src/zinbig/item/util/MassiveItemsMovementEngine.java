@@ -0,0 +1,737 @@
+/**
+ * Este paquete contiene clases tiles para la herramienta.
+ */
+package zinbig.item.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import zinbig.item.model.Item;
+import zinbig.item.model.ItemMovementResultEnum;
+import zinbig.item.model.projects.Project;
+import zinbig.item.model.workflow.WorkflowNodeDescription;
+import zinbig.item.repositories.bi.ItemsRepositoryBI;
+import zinbig.item.repositories.bi.ProjectsRepositoryBI;
+import zinbig.item.repositories.bi.WorkflowsRepositoryBI;
+import zinbig.item.services.bi.EmailServiceBI;
+import zinbig.item.util.dto.DTOFactory;
+import zinbig.item.util.dto.ItemDTO;
+import zinbig.item.util.dto.UserDTO;
+import zinbig.item.util.persistence.AfterCommit;
+
+/**
+ * Las instancias de esta clase se utilizan para ejecutar en segundo plano los
+ * movimientos masivos de tems. <br>
+ * Cada movimiento se divide en bloques de a lo sumo chunkSize tems y cada
+ * bloque se procesa en su propia transaccin, con su propia sesin de
+ * Hibernate. De esta manera no se mantienen bloqueos ni una sesin con miles de
+ * tems durante todo el movimiento, y la creacin de los nuevos nodos y la
+ * actualizacin de los tems de cada bloque se envan a la base de datos en
+ * lotes (ver la propiedad hibernate.jdbc.batch_size).<br>
+ * Si un bloque falla, sus tems se registran como fallidos junto con el
+ * mensaje del error y se contina con el siguiente bloque. Si el motor se
+ * detiene, el movimiento termina luego del bloque en curso y los tems
+ * restantes se registran como no procesados. Los emails que informan cada tem movido se envan
+ * recin cuando se confirma la transaccin del bloque.<br>
+ * Los movimientos terminados se conservan durante retentionTime milisegundos
+ * para que puedan ser consultados; los vencidos se descartan al registrar o
+ * consultar movimientos, a lo sumo una vez por minuto.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class MassiveItemsMovementEngine {
+
+	/**
+	 * Es el log en el que se registran los bloques fallidos y los movimientos
+	 * interrumpidos.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(MassiveItemsMovementEngine.class);
+
+	/**
+	 * Es el administrador de transacciones utilizado para procesar cada
+	 * bloque.
+	 */
+	protected PlatformTransactionManager transactionManager;
+
+	/**
+	 * Es el repositorio de tems.
+	 */
+	protected ItemsRepositoryBI itemsRepository;
+
+	/**
+	 * Es el repositorio de proyectos.
+	 */
+	protected ProjectsRepositoryBI projectsRepository;
+
+	/**
+	 * Es el repositorio de workflows.
+	 */
+	protected WorkflowsRepositoryBI workflowsRepository;
+
+	/**
+	 * Es el objeto que mantiene las estadsticas de uso.
+	 */
+	protected StatisticsAggregator statisticsAggregator;
+
+	/**
+	 * Es el objeto que mantiene los datos de los grficos de los proyectos.
+	 */
+	protected ProjectChartsRollup projectChartsRollup;
+
+	/**
+	 * Es el servicio de emails utilizado para informar los tems movidos.
+	 */
+	protected EmailServiceBI emailService;
+
+	/**
+	 * Es la cantidad mxima de tems que se procesan en cada transaccin.
+	 */
+	protected int chunkSize;
+
+	/**
+	 * Es la cantidad de threads que procesan los movimientos.
+	 */
+	protected int workersCount;
+
+	/**
+	 * Es el tiempo (en milisegundos) durante el cual se conserva un movimiento
+	 * terminado.
+	 */
+	protected long retentionTime;
+
+	/**
+	 * Contiene los movimientos en curso y los terminados recientemente,
+	 * indexados por su oid.
+	 */
+	protected ConcurrentMap<String, MassiveItemsMovementJob> jobs;
+
+	/**
+	 * Es el momento (en milisegundos) en que se descartaron por ltima vez los
+	 * movimientos vencidos.
+	 */
+	protected volatile long lastPurgeTime;
+
+	/**
+	 * Es el servicio que ejecuta los movimientos.
+	 */
+	protected ExecutorService executor;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public MassiveItemsMovementEngine() {
+		this.setChunkSize(100);
+		this.setWorkersCount(1);
+		this.setRetentionTime(600000);
+		this.jobs = new ConcurrentHashMap<String, MassiveItemsMovementJob>();
+	}
+
+	/**
+	 * Arranca los threads que procesan los movimientos.
+	 */
+	public synchronized void start() {
+		if (this.executor == null) {
+			final AtomicInteger count = new AtomicInteger(0);
+			this.executor = Executors.newFixedThreadPool(this
+					.getWorkersCount(), new ThreadFactory() {
+
+				/**
+				 * Crea un thread para procesar los movimientos.
+				 * 
+				 * @param aRunnable
+				 *            es la tarea que debe ejecutar el thread.
+				 * @return el thread creado.
+				 */
+				public Thread newThread(Runnable aRunnable) {
+					Thread aThread = new Thread(aRunnable,
+							"item-massive-movement-" + count.getAndIncrement());
+					aThread.setDaemon(true);
+					return aThread;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Detiene los threads que procesan los movimientos. Los movimientos en
+	 * curso terminan de procesar el bloque actual y los que todava no haban
+	 * comenzado terminan sin procesar ningn tem.
+	 */
+	public synchronized void stop() {
+		if (this.executor != null) {
+			for (Runnable aTask : this.executor.shutdownNow()) {
+				if (aTask instanceof MovementTask) {
+					MassiveItemsMovementJob aJob = ((MovementTask) aTask)
+							.getJob();
+					this.abort(aJob, aJob.getItemsIds().iterator());
+				}
+			}
+			this.executor = null;
+		}
+	}
+
+	/**
+	 * Registra un nuevo movimiento masivo de tems para que sea procesado en
+	 * segundo plano.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto al que pertenecen los tems.
+	 * @param aNodeOid
+	 *            es el oid de la descripcin de nodo destino.
+	 * @param anUserOid
+	 *            es el oid del usuario que registra el movimiento.
+	 * @param someItemsIds
+	 *            es una coleccin con los ids de los tems. Los ids repetidos
+	 *            se procesan una nica vez.
+	 * @return el oid del movimiento, que permite consultar su avance.
+	 */
+	public String submit(String aProjectOid, String aNodeOid,
+			String anUserOid, Collection<String> someItemsIds) {
+		this.removeExpiredJobs();
+		this.start();
+
+		// normaliza los ids para que coincidan con los de los tems.
+		Collection<String> ids = new LinkedHashSet<String>();
+		for (String anId : someItemsIds) {
+			String aTrimmedId = anId.trim();
+			if (aTrimmedId.length() > 0) {
+				ids.add(this.isValidId(aTrimmedId) ? Integer.valueOf(
+						aTrimmedId).toString() : aTrimmedId);
+			}
+		}
+
+		MassiveItemsMovementJob aJob = new MassiveItemsMovementJob(IDGenerator
+				.getId(), aProjectOid, aNodeOid, anUserOid,
+				new ArrayList<String>(ids));
+		this.jobs.put(aJob.getOid(), aJob);
+
+		this.executor.execute(new MovementTask(aJob));
+
+		return aJob.getOid();
+	}
+
+	/**
+	 * Recupera un movimiento registrado por un usuario.
+	 * 
+	 * @param anOid
+	 *            es el oid del movimiento.
+	 * @param anUserOid
+	 *            es el oid del usuario que consulta el movimiento.
+	 * @return el movimiento o null si no existe, ya fue descartado o no fue
+	 *         registrado por el usuario.
+	 */
+	public MassiveItemsMovementJob findJob(String anOid, String anUserOid) {
+		this.removeExpiredJobs();
+
+		MassiveItemsMovementJob result = anOid == null ? null : this.jobs
+				.get(anOid);
+		if (result != null && !result.getUserOid().equals(anUserOid)) {
+			result = null;
+		}
+		return result;
+	}
+
+	/**
+	 * Procesa un movimiento, bloque por bloque. Antes de cada bloque se
+	 * verifica si el thread fue interrumpido al detener el motor; en ese caso
+	 * los tems restantes se registran como no procesados.
+	 * 
+	 * @param aJob
+	 *            es el movimiento que se debe procesar.
+	 */
+	protected void process(MassiveItemsMovementJob aJob) {
+		List<String> chunk = new ArrayList<String>();
+		Iterator<String> iterator = aJob.getItemsIds().iterator();
+		boolean interrupted = false;
+
+		try {
+			while (iterator.hasNext()) {
+				String anId = iterator.next();
+				if (this.isValidId(anId)) {
+					chunk.add(anId);
+				} else {
+					aJob.addResult(anId, ItemMovementResultEnum.INVALID_ID);
+				}
+
+				if (!chunk.isEmpty()
+						&& (chunk.size() == this.getChunkSize() || !iterator
+								.hasNext())) {
+					if (Thread.currentThread().isInterrupted()) {
+						interrupted = true;
+						break;
+					}
+					this.processChunk(aJob, chunk);
+					chunk = new ArrayList<String>();
+				}
+			}
+
+		} finally {
+			if (interrupted) {
+				for (String anId : chunk) {
+					aJob.addResult(anId, ItemMovementResultEnum.NOT_PROCESSED);
+				}
+				this.abort(aJob, iterator);
+			} else {
+				aJob.finish();
+			}
+		}
+	}
+
+	/**
+	 * Termina un movimiento interrumpido registrando como no procesados los
+	 * tems restantes.
+	 * 
+	 * @param aJob
+	 *            es el movimiento interrumpido.
+	 * @param anIterator
+	 *            es el iterador posicionado en el primer tem que no se
+	 *            proces.
+	 */
+	protected void abort(MassiveItemsMovementJob aJob,
+			Iterator<String> anIterator) {
+		int count = 0;
+		while (anIterator.hasNext()) {
+			aJob.addResult(anIterator.next(),
+					ItemMovementResultEnum.NOT_PROCESSED);
+			count++;
+		}
+		aJob.finish();
+
+		LOGGER.warn("Se interrumpi el movimiento masivo " + aJob.getOid()
+				+ "; quedaron " + count + " tems sin procesar.");
+	}
+
+	/**
+	 * Procesa un bloque de tems de un movimiento en su propia transaccin.
+	 * 
+	 * @param aJob
+	 *            es el movimiento al que pertenece el bloque.
+	 * @param someItemsIds
+	 *            es una lista con los ids de los tems del bloque.
+	 */
+	@SuppressWarnings("unchecked")
+	protected void processChunk(final MassiveItemsMovementJob aJob,
+			final List<String> someItemsIds) {
+		Map<String, ItemMovementResultEnum> chunkResults = null;
+		String anError = null;
+
+		try {
+			TransactionTemplate template = new TransactionTemplate(this
+					.getTransactionManager());
+			chunkResults = (Map<String, ItemMovementResultEnum>) template
+					.execute(new TransactionCallback() {
+
+						/**
+						 * Mueve los tems del bloque.
+						 * 
+						 * @param status
+						 *            es el estado de la transaccin.
+						 * @return un diccionario con el resultado de cada
+						 *         tem encontrado.
+						 */
+						public Object doInTransaction(TransactionStatus status) {
+							return MassiveItemsMovementEngine.this.moveItems(
+									aJob, someItemsIds);
+						}
+					});
+		} catch (Exception e) {
+			LOGGER.error("Fall un bloque de " + someItemsIds.size()
+					+ " tems del movimiento masivo " + aJob.getOid() + ".", e);
+			chunkResults = null;
+			anError = e.getMessage() == null ? e.getClass().getName() : e
+					.getMessage();
+		}
+
+		for (String anId : someItemsIds) {
+			if (chunkResults == null) {
+				aJob.addFailure(anId, anError);
+			} else {
+				ItemMovementResultEnum aResult = chunkResults.get(anId);
+				if (aResult == null) {
+					aResult = ItemMovementResultEnum.NOT_FOUND;
+				}
+				aJob.addResult(anId, aResult);
+			}
+		}
+	}
+
+	/**
+	 * Mueve los tems de un bloque. Este mtodo se ejecuta dentro de la
+	 * transaccin del bloque.
+	 * 
+	 * @param aJob
+	 *            es el movimiento al que pertenece el bloque.
+	 * @param someItemsIds
+	 *            es una lista con los ids de los tems del bloque.
+	 * @return un diccionario con el resultado de cada tem encontrado.
+	 */
+	protected Map<String, ItemMovementResultEnum> moveItems(
+			MassiveItemsMovementJob aJob, List<String> someItemsIds) {
+		try {
+			Project aProject = this.getProjectsRepository().findById(
+					aJob.getProjectOid());
+			WorkflowNodeDescription aNode = this.getWorkflowsRepository()
+					.findWorkflowNodeDescriptionById(aJob.getNodeOid());
+			Collection<Item> items = this.getItemsRepository().findItemsById(
+					someItemsIds, aJob.getProjectOid());
+
+			Map<String, ItemMovementResultEnum> result = aProject
+					.massiveItemsMovement(items, aNode);
+			for (Item anItem : items) {
+				this.getStatisticsAggregator().itemChanged(anItem);
+				this.getProjectChartsRollup().itemChanged(anItem);
+
+				if (result.get(Integer.toString(anItem.getItemId())).isMoved()) {
+					this.notifyItemMoved(anItem);
+				}
+			}
+			return result;
+
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			// el proyecto o el nodo destino no existen.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Enva los emails que informan que un tem fue movido al creador, al
+	 * nuevo responsable y a los observadores del tem, del mismo modo que al
+	 * mover un tem individualmente.<br>
+	 * Los dtos se arman dentro de la transaccin del bloque pero los emails
+	 * se envan recin cuando la transaccin se confirma.
+	 * 
+	 * @param anItem
+	 *            es el tem movido.
+	 */
+	protected void notifyItemMoved(Item anItem) {
+		final EmailServiceBI anEmailService = this.getEmailService();
+		if (anEmailService == null) {
+			return;
+		}
+
+		DTOFactory aFactory = DTOFactory.getInstance();
+		final ItemDTO anItemDTO = aFactory.createDTOForItem(anItem);
+		anItemDTO.setVersion(anItem.getVersion() + 1);
+		final Collection<UserDTO> observers = aFactory
+				.createDTOForUsers(this.getItemsRepository()
+						.getObserversOfItem(anItem.getOid()));
+
+		AfterCommit.execute(new Runnable() {
+
+			/**
+			 * Enva los emails.
+			 */
+			public void run() {
+				anEmailService.sendEmailForItemToUser(anItemDTO, anItemDTO
+						.getCreator());
+				anEmailService.sendEmailForItemToUser(anItemDTO, anItemDTO
+						.getResponsible());
+				for (UserDTO anObserver : observers) {
+					anEmailService.sendEmailForItemToUser(anItemDTO,
+							anObserver);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Verifica si un id de tem es un nmero.
+	 * 
+	 * @param anId
+	 *            es el id del tem.
+	 * @return true en caso de que el id sea vlido; false en caso contrario.
+	 */
+	protected boolean isValidId(String anId) {
+		try {
+			Integer.parseInt(anId);
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Descarta los movimientos que terminaron hace ms de retentionTime
+	 * milisegundos. Para no recorrer los movimientos en cada consulta del
+	 * avance, esta tarea se realiza a lo sumo una vez por minuto.
+	 */
+	protected void removeExpiredJobs() {
+		long now = System.currentTimeMillis();
+		if (now - this.lastPurgeTime < 60000) {
+			return;
+		}
+		this.lastPurgeTime = now;
+
+		long limit = now - this.getRetentionTime();
+		Iterator<MassiveItemsMovementJob> iterator = this.jobs.values()
+				.iterator();
+		while (iterator.hasNext()) {
+			MassiveItemsMovementJob aJob = iterator.next();
+			if (aJob.isFinished() && aJob.getFinishTime() < limit) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Las instancias de esta clase son las tareas que procesan un movimiento
+	 * en los threads del motor. Permiten conocer el movimiento de las tareas
+	 * que no llegaron a ejecutarse al detener el motor.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	protected class MovementTask implements Runnable {
+
+		/**
+		 * Es el movimiento que procesa esta tarea.
+		 */
+		protected MassiveItemsMovementJob job;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param aJob
+		 *            es el movimiento que procesa esta tarea.
+		 */
+		public MovementTask(MassiveItemsMovementJob aJob) {
+			this.job = aJob;
+		}
+
+		/**
+		 * Procesa el movimiento.
+		 */
+		public void run() {
+			MassiveItemsMovementEngine.this.process(this.getJob());
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return el movimiento que procesa esta tarea.
+		 */
+		public MassiveItemsMovementJob getJob() {
+			return this.job;
+		}
+
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el administrador de transacciones.
+	 */
+	public PlatformTransactionManager getTransactionManager() {
+		return this.transactionManager;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aTransactionManager
+	 *            es el administrador de transacciones.
+	 */
+	public void setTransactionManager(
+			PlatformTransactionManager aTransactionManager) {
+		this.transactionManager = aTransactionManager;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el repositorio de tems.
+	 */
+	public ItemsRepositoryBI getItemsRepository() {
+		return this.itemsRepository;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aRepository
+	 *            es el repositorio de tems.
+	 */
+	public void setItemsRepository(ItemsRepositoryBI aRepository) {
+		this.itemsRepository = aRepository;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el repositorio de proyectos.
+	 */
+	public ProjectsRepositoryBI getProjectsRepository() {
+		return this.projectsRepository;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aRepository
+	 *            es el repositorio de proyectos.
+	 */
+	public void setProjectsRepository(ProjectsRepositoryBI aRepository) {
+		this.projectsRepository = aRepository;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el repositorio de workflows.
+	 */
+	public WorkflowsRepositoryBI getWorkflowsRepository() {
+		return this.workflowsRepository;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aRepository
+	 *            es el repositorio de workflows.
+	 */
+	public void setWorkflowsRepository(WorkflowsRepositoryBI aRepository) {
+		this.workflowsRepository = aRepository;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto que mantiene las estadsticas de uso.
+	 */
+	public StatisticsAggregator getStatisticsAggregator() {
+		return this.statisticsAggregator;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param anAggregator
+	 *            es el objeto que mantiene las estadsticas de uso.
+	 */
+	public void setStatisticsAggregator(StatisticsAggregator anAggregator) {
+		this.statisticsAggregator = anAggregator;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto que mantiene los datos de los grficos de los
+	 *         proyectos.
+	 */
+	public ProjectChartsRollup getProjectChartsRollup() {
+		return this.projectChartsRollup;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aRollup
+	 *            es el objeto que mantiene los datos de los grficos de los
+	 *            proyectos.
+	 */
+	public void setProjectChartsRollup(ProjectChartsRollup aRollup) {
+		this.projectChartsRollup = aRollup;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el servicio de emails utilizado para informar los tems movidos.
+	 */
+	public EmailServiceBI getEmailService() {
+		return this.emailService;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aService
+	 *            es el servicio de emails utilizado para informar los tems
+	 *            movidos.
+	 */
+	public void setEmailService(EmailServiceBI aService) {
+		this.emailService = aService;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad mxima de tems que se procesan en cada transaccin.
+	 */
+	public int getChunkSize() {
+		return this.chunkSize;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad mxima de tems que se procesan en cada
+	 *            transaccin.
+	 */
+	public void setChunkSize(int aNumber) {
+		this.chunkSize = Math.max(1, aNumber);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de threads que procesan los movimientos.
+	 */
+	public int getWorkersCount() {
+		return this.workersCount;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad de threads que procesan los movimientos.
+	 */
+	public void setWorkersCount(int aNumber) {
+		this.workersCount = Math.max(1, aNumber);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo (en milisegundos) durante el cual se conserva un
+	 *         movimiento terminado.
+	 */
+	public long getRetentionTime() {
+		return this.retentionTime;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aTime
+	 *            es el tiempo (en milisegundos) durante el cual se conserva un
+	 *            movimiento terminado.
+	 */
+	public void setRetentionTime(long aTime) {
+		this.retentionTime = aTime;
+	}
+
+}
@@ -0,0 +1,248 @@
+/**
+ * Este paquete contiene clases tiles para la herramienta.
+ */
+package zinbig.item.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import zinbig.item.model.ItemMovementResultEnum;
+import zinbig.item.util.dto.MassiveItemsMovementDTO;
+
+/**
+ * Las instancias de esta clase representan un movimiento masivo de tems que
+ * se ejecuta en segundo plano.<br>
+ * Un movimiento conoce el proyecto, el nodo destino y los ids de los tems que
+ * se deben mover, y va registrando el resultado de cada tem a medida que el
+ * motor de movimientos procesa los bloques de tems.<br>
+ * Mientras el movimiento est en curso slo se informa la cantidad de tems
+ * procesados, de modo que consultar el avance no dependa de la cantidad de
+ * tems; el resultado de cada tem se informa una vez que el movimiento
+ * termin. Solamente el usuario que registr el movimiento puede consultarlo.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class MassiveItemsMovementJob {
+
+	/**
+	 * Es el oid de este movimiento.
+	 */
+	protected String oid;
+
+	/**
+	 * Es el oid del proyecto al que pertenecen los tems.
+	 */
+	protected String projectOid;
+
+	/**
+	 * Es el oid de la descripcin de nodo a la que se deben mover los tems.
+	 */
+	protected String nodeOid;
+
+	/**
+	 * Es el oid del usuario que registr este movimiento.
+	 */
+	protected String userOid;
+
+	/**
+	 * Contiene los ids de los tems que se deben mover, sin repeticiones y en
+	 * el orden en que fueron ingresados.
+	 */
+	protected List<String> itemsIds;
+
+	/**
+	 * Contiene para el id de cada tem procesado el resultado de intentar
+	 * moverlo.
+	 */
+	protected Map<String, ItemMovementResultEnum> results;
+
+	/**
+	 * Contiene para el id de cada tem fallido el mensaje del error que se
+	 * produjo al procesar su bloque.
+	 */
+	protected Map<String, String> errors;
+
+	/**
+	 * Es la cantidad de tems que se pudieron mover.
+	 */
+	protected int movedItems;
+
+	/**
+	 * Contiene los ids de los tems que no se pudieron mover separados por
+	 * comas. Se arma una nica vez, al terminar el movimiento.
+	 */
+	protected String itemsNotMoved;
+
+	/**
+	 * Es el momento (en milisegundos) en que termin este movimiento, o cero
+	 * si todava no termin.
+	 */
+	protected volatile long finishTime;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param anOid
+	 *            es el oid de este movimiento.
+	 * @param aProjectOid
+	 *            es el oid del proyecto al que pertenecen los tems.
+	 * @param aNodeOid
+	 *            es el oid de la descripcin de nodo destino.
+	 * @param anUserOid
+	 *            es el oid del usuario que registr el movimiento.
+	 * @param someItemsIds
+	 *            es una lista con los ids de los tems que se deben mover.
+	 */
+	public MassiveItemsMovementJob(String anOid, String aProjectOid,
+			String aNodeOid, String anUserOid, List<String> someItemsIds) {
+		this.oid = anOid;
+		this.projectOid = aProjectOid;
+		this.nodeOid = aNodeOid;
+		this.userOid = anUserOid;
+		this.itemsIds = new ArrayList<String>(someItemsIds);
+		this.results = new LinkedHashMap<String, ItemMovementResultEnum>();
+		this.errors = new HashMap<String, String>();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el oid de este movimiento.
+	 */
+	public String getOid() {
+		return this.oid;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el oid del proyecto al que pertenecen los tems.
+	 */
+	public String getProjectOid() {
+		return this.projectOid;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el oid de la descripcin de nodo destino.
+	 */
+	public String getNodeOid() {
+		return this.nodeOid;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el oid del usuario que registr este movimiento.
+	 */
+	public String getUserOid() {
+		return this.userOid;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return una lista con los ids de los tems que se deben mover.
+	 */
+	public List<String> getItemsIds() {
+		return this.itemsIds;
+	}
+
+	/**
+	 * Registra el resultado de un tem.
+	 * 
+	 * @param anId
+	 *            es el id del tem.
+	 * @param aResult
+	 *            es el resultado de intentar mover el tem.
+	 */
+	public synchronized void addResult(String anId,
+			ItemMovementResultEnum aResult) {
+		if (this.results.put(anId, aResult) == null && aResult.isMoved()) {
+			this.movedItems++;
+		}
+	}
+
+	/**
+	 * Registra que un tem no se pudo mover por un error.
+	 * 
+	 * @param anId
+	 *            es el id del tem.
+	 * @param anError
+	 *            es el mensaje del error que se produjo al procesar el tem.
+	 */
+	public synchronized void addFailure(String anId, String anError) {
+		this.addResult(anId, ItemMovementResultEnum.FAILED);
+		this.errors.put(anId, anError);
+	}
+
+	/**
+	 * Marca este movimiento como terminado y arma el string con los ids de
+	 * los tems que no se pudieron mover.
+	 */
+	public synchronized void finish() {
+		StringBuffer result = new StringBuffer("");
+		for (Map.Entry<String, ItemMovementResultEnum> entry : this.results
+				.entrySet()) {
+			if (!entry.getValue().isMoved()) {
+				if (result.length() > 0) {
+					result.append(",");
+				}
+				result.append(entry.getKey());
+			}
+		}
+		this.itemsNotMoved = result.toString();
+		this.finishTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Verifica si este movimiento termin.
+	 * 
+	 * @return true en caso de que el movimiento haya terminado; false en caso
+	 *         contrario.
+	 */
+	public boolean isFinished() {
+		return this.finishTime != 0;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el momento (en milisegundos) en que termin este movimiento, o
+	 *         cero si todava no termin.
+	 */
+	public long getFinishTime() {
+		return this.finishTime;
+	}
+
+	/**
+	 * Crea un dto con el avance actual de este movimiento. Los resultados de
+	 * cada tem slo se incluyen cuando el movimiento termin.
+	 * 
+	 * @return el dto creado.
+	 */
+	public synchronized MassiveItemsMovementDTO createDTO() {
+		Map<String, ItemMovementResultEnum> someResults = null;
+		Map<String, String> someErrors = null;
+		String someItemsNotMoved = "";
+		if (this.isFinished()) {
+			someResults = new LinkedHashMap<String, ItemMovementResultEnum>(
+					this.results);
+			someErrors = new HashMap<String, String>(this.errors);
+			someItemsNotMoved = this.itemsNotMoved;
+		} else {
+			someResults = new LinkedHashMap<String, ItemMovementResultEnum>();
+			someErrors = new HashMap<String, String>();
+		}
+
+		return new MassiveItemsMovementDTO(this.getOid(), this.getItemsIds()
+				.size(), this.results.size(), this.movedItems, someResults,
+				someErrors, someItemsNotMoved, this.isFinished());
+	}
+
+}
@@ -0,0 +1,879 @@
+/**
+ * Este paquete contiene clases tiles para la herramienta.
+ */
+package zinbig.item.util;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import zinbig.item.model.Item;
+import zinbig.item.model.projects.Project;
+import zinbig.item.util.persistence.AfterCommit;
+
+/**
+ * Las instancias de esta clase mantienen en memoria, para cada proyecto, las
+ * cantidades de tems agrupadas de la manera en que las muestran los grficos
+ * de los proyectos: por tipo y mes de creacin, por prioridad, por nodo del
+ * workflow y la cantidad de tems creados y finalizados por mes. <br>
+ * Los datos de un proyecto se recuperan de la base de datos mediante una nica
+ * consulta la primera vez que se solicita uno de sus grficos y luego se
+ * actualizan a partir de las altas, modificaciones y bajas de tems que
+ * notifican los servicios una vez confirmadas sus transacciones, por lo que los
+ * grficos se construyen recorriendo solamente los grupos. Cada reloadInterval
+ * milisegundos los datos se vuelven a recuperar para corregir cualquier
+ * diferencia; las modificaciones que se confirman mientras se recuperan los
+ * datos se aplican nuevamente sobre los datos recuperados.<br>
+ * Adems se mantiene el XML generado para cada grfico hasta que cambien los
+ * datos del proyecto.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class ProjectChartsRollup {
+
+	/**
+	 * Es el generador de las versiones de los datos. Se comparte entre todos
+	 * los proyectos para que las versiones no se repitan al volver a recuperar
+	 * los datos de un proyecto.
+	 */
+	private static final AtomicLong VERSIONS = new AtomicLong();
+
+	/**
+	 * Es el objeto utilizado para abrir sesiones con la base de datos.
+	 */
+	protected SessionFactory sessionFactory;
+
+	/**
+	 * Es el tiempo (en milisegundos) luego del cual se vuelven a recuperar los
+	 * datos de un proyecto desde la base de datos.
+	 */
+	protected long reloadInterval;
+
+	/**
+	 * Es el momento de creacin de esta instancia. Se utiliza para que las
+	 * versiones de los datos no se repitan luego de reiniciar la aplicacin.
+	 */
+	private final long epoch;
+
+	/**
+	 * Contiene los datos de cada proyecto (por su oid).
+	 */
+	private ConcurrentMap<String, ProjectData> projects;
+
+	/**
+	 * Contiene para cada proyecto (por su oid) los objetos utilizados para que
+	 * sus datos se recuperen de a un thread por vez.
+	 */
+	private ConcurrentMap<String, Object> locks;
+
+	/**
+	 * Contiene para cada proyecto cuyos datos se estn recuperando las
+	 * modificaciones de tems notificadas mientras tanto. Tambin se utiliza
+	 * para sincronizar el reemplazo de los datos de un proyecto.
+	 */
+	private Map<String, List<ItemChange>> pendingChanges;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public ProjectChartsRollup() {
+		this.epoch = System.currentTimeMillis();
+		this.projects = new ConcurrentHashMap<String, ProjectData>();
+		this.locks = new ConcurrentHashMap<String, Object>();
+		this.pendingChanges = new HashMap<String, List<ItemChange>>();
+		this.setReloadInterval(3600000);
+	}
+
+	/**
+	 * Obtiene una copia de los datos de un proyecto, recuperndolos de la base
+	 * de datos si es necesario. Si no se pueden recuperar los datos se levanta
+	 * la excepcin correspondiente y no se mantiene ningn dato.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto.
+	 * @return una copia de los datos del proyecto.
+	 */
+	public Snapshot getSnapshot(String aProjectOid) {
+		ProjectData data = this.getProjectData(aProjectOid);
+		synchronized (data) {
+			return new Snapshot(data);
+		}
+	}
+
+	/**
+	 * Obtiene el momento de la ltima modificacin de los datos de un
+	 * proyecto sin acceder a la base de datos. Como el grfico de los tems
+	 * del mes depende del mes actual, nunca es anterior al comienzo del mes.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto.
+	 * @return el momento de la ltima modificacin o -1 si los datos del
+	 *         proyecto no estn disponibles.
+	 */
+	public long getLastModified(String aProjectOid) {
+		ProjectData data = this.projects.get(aProjectOid);
+		if (data == null || this.mustReload(data)) {
+			return -1;
+		}
+		return Math.max(data.lastModified, startOfCurrentMonth());
+	}
+
+	/**
+	 * Obtiene el XML de un grfico previamente generado.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto.
+	 * @param aVersion
+	 *            es la versin de los datos con la que se gener el grfico.
+	 * @param aKey
+	 *            identifica al grfico.
+	 * @return el XML del grfico o null si no se gener con esa versin de los
+	 *         datos.
+	 */
+	public String getChart(String aProjectOid, long aVersion, String aKey) {
+		ProjectData data = this.projects.get(aProjectOid);
+		if (data != null) {
+			synchronized (data) {
+				if (data.version == aVersion) {
+					return data.charts.get(aKey);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Registra el XML de un grfico generado, siempre que los datos del
+	 * proyecto no hayan cambiado.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto.
+	 * @param aVersion
+	 *            es la versin de los datos con la que se gener el grfico.
+	 * @param aKey
+	 *            identifica al grfico.
+	 * @param aChart
+	 *            es el XML del grfico.
+	 */
+	public void putChart(String aProjectOid, long aVersion, String aKey,
+			String aChart) {
+		ProjectData data = this.projects.get(aProjectOid);
+		if (data != null) {
+			synchronized (data) {
+				if (data.version == aVersion) {
+					data.charts.put(aKey, aChart);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Registra la creacin de un nuevo tem.
+	 * 
+	 * @param anItem
+	 *            es el nuevo tem.
+	 */
+	public void itemAdded(Item anItem) {
+		this.itemChanged(anItem);
+	}
+
+	/**
+	 * Registra la modificacin de un tem (tipo, prioridad, nodo del workflow o
+	 * finalizacin).
+	 * 
+	 * @param anItem
+	 *            es el tem modificado.
+	 */
+	public void itemChanged(Item anItem) {
+		ItemBuckets newBuckets = new ItemBuckets(yearAndMonth(anItem
+				.getCreationDate()), anItem.getItemType().getTitle(), anItem
+				.getPriority().getTitle(),
+				anItem.getCurrentWorkflowNode() == null ? null : anItem
+						.getCurrentWorkflowNode().getTitle(), anItem
+						.isFinished());
+
+		List<ItemChange> changes = new ArrayList<ItemChange>();
+		changes.add(new ItemChange(anItem.getOid(), newBuckets));
+		this.applyAfterCommit(anItem.getProject().getOid(), changes);
+	}
+
+	/**
+	 * Registra la eliminacin de un conjunto de tems de un proyecto.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto al que pertenecan los tems.
+	 * @param someItems
+	 *            son los tems eliminados.
+	 */
+	public void itemsRemoved(String aProjectOid, Collection<Item> someItems) {
+		List<ItemChange> changes = new ArrayList<ItemChange>();
+		for (Item anItem : someItems) {
+			changes.add(new ItemChange(anItem.getOid(), null));
+		}
+		this.applyAfterCommit(aProjectOid, changes);
+	}
+
+	/**
+	 * Registra la eliminacin de un conjunto de proyectos.
+	 * 
+	 * @param someProjects
+	 *            son los proyectos eliminados.
+	 */
+	public void projectsRemoved(Collection<Project> someProjects) {
+		final List<String> oids = new ArrayList<String>();
+		for (Project aProject : someProjects) {
+			oids.add(aProject.getOid());
+		}
+
+		AfterCommit.execute(new Runnable() {
+
+			public void run() {
+				synchronized (pendingChanges) {
+					for (String anOid : oids) {
+						projects.remove(anOid);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Aplica las modificaciones de los tems de un proyecto una vez que se
+	 * confirme la transaccin que las produjo.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto.
+	 * @param someChanges
+	 *            son las modificaciones de los tems.
+	 */
+	private void applyAfterCommit(final String aProjectOid,
+			final List<ItemChange> someChanges) {
+		AfterCommit.execute(new Runnable() {
+
+			public void run() {
+				apply(aProjectOid, someChanges);
+			}
+		});
+	}
+
+	/**
+	 * Aplica las modificaciones de los tems de un proyecto a sus datos. Si se
+	 * estn recuperando los datos del proyecto, las modificaciones adems se
+	 * registran para aplicarlas sobre los datos recuperados.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto.
+	 * @param someChanges
+	 *            son las modificaciones de los tems.
+	 */
+	private void apply(String aProjectOid, List<ItemChange> someChanges) {
+		ProjectData data = null;
+		synchronized (this.pendingChanges) {
+			List<ItemChange> pending = this.pendingChanges.get(aProjectOid);
+			if (pending != null) {
+				pending.addAll(someChanges);
+			}
+			data = this.projects.get(aProjectOid);
+		}
+
+		if (data != null) {
+			synchronized (data) {
+				data.apply(someChanges);
+			}
+		}
+	}
+
+	/**
+	 * Obtiene los datos de un proyecto, recuperndolos de la base de datos si
+	 * no estn disponibles o si ya se cumpli el tiempo de recarga. Los datos
+	 * de un mismo proyecto se recuperan de a un thread por vez y las
+	 * modificaciones notificadas mientras tanto se aplican sobre los datos
+	 * recuperados antes de publicarlos.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto.
+	 * @return los datos del proyecto.
+	 */
+	private ProjectData getProjectData(String aProjectOid) {
+		ProjectData data = this.projects.get(aProjectOid);
+		if (data == null || this.mustReload(data)) {
+			this.locks.putIfAbsent(aProjectOid, new Object());
+			synchronized (this.locks.get(aProjectOid)) {
+				data = this.projects.get(aProjectOid);
+				if (data == null || this.mustReload(data)) {
+					synchronized (this.pendingChanges) {
+						this.pendingChanges.put(aProjectOid,
+								new ArrayList<ItemChange>());
+					}
+					ProjectData newData = null;
+					try {
+						newData = this.load(aProjectOid);
+					} finally {
+						synchronized (this.pendingChanges) {
+							List<ItemChange> pending = this.pendingChanges
+									.remove(aProjectOid);
+							if (newData != null) {
+								synchronized (newData) {
+									newData.apply(pending);
+								}
+								this.projects.put(aProjectOid, newData);
+							}
+						}
+					}
+					data = newData;
+				}
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Verifica si se deben volver a recuperar los datos de un proyecto.
+	 * 
+	 * @param data
+	 *            son los datos del proyecto.
+	 * @return true si ya se cumpli el tiempo de recarga; false en caso
+	 *         contrario.
+	 */
+	private boolean mustReload(ProjectData data) {
+		return System.currentTimeMillis() - data.loadTime > this
+				.getReloadInterval();
+	}
+
+	/**
+	 * Recupera de la base de datos los datos de un proyecto. Solamente se
+	 * recuperan los datos de los tems que intervienen en los grficos. Los
+	 * errores de acceso a la base de datos se propagan, de modo que no se
+	 * mantienen datos incompletos.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto.
+	 * @return los datos del proyecto.
+	 */
+	@SuppressWarnings("unchecked")
+	private ProjectData load(String aProjectOid) {
+		ProjectData data = new ProjectData();
+
+		Session aSession = this.getSessionFactory().openSession();
+		try {
+			Query aQuery = aSession
+					.createQuery("select item.oid, year(item.creationDate), month(item.creationDate), "
+							+ "item.itemType.title, item.priority.title, n.title, item.finished "
+							+ "from zinbig.item.model.projects.Project p join p.items item "
+							+ "left join item.currentWorkflowNode n where p.id=:aProjectOid");
+			aQuery.setParameter("aProjectOid", aProjectOid);
+
+			Collection<Object[]> rows = aQuery.list();
+			for (Object[] row : rows) {
+				data.add((String) row[0], new ItemBuckets(((Number) row[1])
+						.intValue()
+						* 100 + ((Number) row[2]).intValue(), (String) row[3],
+						(String) row[4], (String) row[5], ((Boolean) row[6])
+								.booleanValue()));
+			}
+		} finally {
+			aSession.close();
+		}
+
+		data.changed();
+		return data;
+	}
+
+	/**
+	 * Calcula el comienzo del mes actual, redondeado a segundos como se enva
+	 * en los encabezados HTTP.
+	 * 
+	 * @return el comienzo del mes actual.
+	 */
+	public static long startOfCurrentMonth() {
+		Calendar aCalendar = Calendar.getInstance();
+		aCalendar.set(Calendar.DAY_OF_MONTH, 1);
+		aCalendar.set(Calendar.HOUR_OF_DAY, 0);
+		aCalendar.set(Calendar.MINUTE, 0);
+		aCalendar.set(Calendar.SECOND, 0);
+		aCalendar.set(Calendar.MILLISECOND, 0);
+		return aCalendar.getTimeInMillis();
+	}
+
+	/**
+	 * Calcula el ao y mes de una fecha como un nmero de la forma aaaamm.
+	 * 
+	 * @param aDate
+	 *            es la fecha.
+	 * @return el ao y mes de la fecha.
+	 */
+	public static int yearAndMonth(Date aDate) {
+		Calendar aCalendar = Calendar.getInstance();
+		aCalendar.setTime(aDate);
+		return aCalendar.get(Calendar.YEAR) * 100
+				+ aCalendar.get(Calendar.MONTH) + 1;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el momento de creacin de esta instancia.
+	 */
+	public long getEpoch() {
+		return this.epoch;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto utilizado para abrir sesiones con la base de datos.
+	 */
+	public SessionFactory getSessionFactory() {
+		return this.sessionFactory;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aSessionFactory
+	 *            es el objeto utilizado para abrir sesiones con la base de
+	 *            datos.
+	 */
+	public void setSessionFactory(SessionFactory aSessionFactory) {
+		this.sessionFactory = aSessionFactory;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo luego del cual se vuelven a recuperar los datos de un
+	 *         proyecto.
+	 */
+	public long getReloadInterval() {
+		return this.reloadInterval;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es el tiempo (en milisegundos) luego del cual se vuelven a
+	 *            recuperar los datos de un proyecto.
+	 */
+	public void setReloadInterval(long aNumber) {
+		this.reloadInterval = aNumber;
+	}
+
+	/**
+	 * Suma una cantidad a un grupo.
+	 * 
+	 * @param aMap
+	 *            contiene las cantidades de cada grupo.
+	 * @param aKey
+	 *            es el grupo.
+	 * @param aDelta
+	 *            es la cantidad a sumar.
+	 */
+	private static <K> void add(Map<K, Integer> aMap, K aKey, int aDelta) {
+		if (aKey != null) {
+			Integer count = aMap.get(aKey);
+			int newCount = (count == null ? 0 : count.intValue()) + aDelta;
+			if (newCount > 0) {
+				aMap.put(aKey, newCount);
+			} else {
+				aMap.remove(aKey);
+			}
+		}
+	}
+
+	/**
+	 * Las instancias de esta clase contienen los grupos a los que pertenece un
+	 * tem.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	private static class ItemBuckets {
+
+		/**
+		 * Es el ao y mes de creacin del tem.
+		 */
+		final int yearAndMonth;
+
+		/**
+		 * Es el ttulo del tipo del tem.
+		 */
+		final String type;
+
+		/**
+		 * Es el ttulo de la prioridad del tem.
+		 */
+		final String priority;
+
+		/**
+		 * Es el ttulo del nodo actual del tem.
+		 */
+		final String node;
+
+		/**
+		 * Indica si el tem est finalizado.
+		 */
+		final boolean finished;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param aYearAndMonth
+		 *            es el ao y mes de creacin del tem.
+		 * @param aType
+		 *            es el ttulo del tipo del tem.
+		 * @param aPriority
+		 *            es el ttulo de la prioridad del tem.
+		 * @param aNode
+		 *            es el ttulo del nodo actual del tem.
+		 * @param isFinished
+		 *            indica si el tem est finalizado.
+		 */
+		ItemBuckets(int aYearAndMonth, String aType, String aPriority,
+				String aNode, boolean isFinished) {
+			this.yearAndMonth = aYearAndMonth;
+			this.type = aType;
+			this.priority = aPriority;
+			this.node = aNode;
+			this.finished = isFinished;
+		}
+	}
+
+	/**
+	 * Las instancias de esta clase representan la modificacin de un tem: los
+	 * nuevos grupos a los que pertenece o su eliminacin.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	private static class ItemChange {
+
+		/**
+		 * Es el oid del tem.
+		 */
+		final String oid;
+
+		/**
+		 * Son los nuevos grupos del tem o null si el tem fue eliminado.
+		 */
+		final ItemBuckets buckets;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param anOid
+		 *            es el oid del tem.
+		 * @param someBuckets
+		 *            son los nuevos grupos del tem o null si el tem fue
+		 *            eliminado.
+		 */
+		ItemChange(String anOid, ItemBuckets someBuckets) {
+			this.oid = anOid;
+			this.buckets = someBuckets;
+		}
+	}
+
+	/**
+	 * Las instancias de esta clase contienen los datos de un proyecto.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	private static class ProjectData {
+
+		/**
+		 * Es el momento en el que se recuperaron los datos.
+		 */
+		final long loadTime = System.currentTimeMillis();
+
+		/**
+		 * Es el momento de la ltima modificacin de los datos.
+		 */
+		long lastModified;
+
+		/**
+		 * Es la versin de los datos, que cambia con cada modificacin.
+		 */
+		long version;
+
+		/**
+		 * Contiene los grupos a los que pertenece cada tem.
+		 */
+		final Map<String, ItemBuckets> items = new HashMap<String, ItemBuckets>();
+
+		/**
+		 * Contiene para cada mes la cantidad de tems creados de cada tipo.
+		 */
+		final Map<Integer, Map<String, Integer>> typesByMonth = new HashMap<Integer, Map<String, Integer>>();
+
+		/**
+		 * Contiene la cantidad de tems de cada prioridad.
+		 */
+		final Map<String, Integer> priorities = new HashMap<String, Integer>();
+
+		/**
+		 * Contiene la cantidad de tems de cada nodo.
+		 */
+		final Map<String, Integer> nodes = new HashMap<String, Integer>();
+
+		/**
+		 * Contiene para cada mes la cantidad de tems creados.
+		 */
+		final Map<Integer, Integer> created = new HashMap<Integer, Integer>();
+
+		/**
+		 * Contiene para cada mes la cantidad de tems creados que estn
+		 * finalizados.
+		 */
+		final Map<Integer, Integer> finished = new HashMap<Integer, Integer>();
+
+		/**
+		 * Contiene el XML de los grficos generados con la versin actual de
+		 * los datos.
+		 */
+		final Map<String, String> charts = new HashMap<String, String>();
+
+		/**
+		 * Agrega un tem a sus grupos.
+		 * 
+		 * @param anOid
+		 *            es el oid del tem.
+		 * @param someBuckets
+		 *            son los grupos del tem.
+		 */
+		void add(String anOid, ItemBuckets someBuckets) {
+			this.items.put(anOid, someBuckets);
+			this.update(someBuckets, 1);
+		}
+
+		/**
+		 * Elimina un tem de sus grupos.
+		 * 
+		 * @param anOid
+		 *            es el oid del tem.
+		 */
+		void remove(String anOid) {
+			ItemBuckets someBuckets = this.items.remove(anOid);
+			if (someBuckets != null) {
+				this.update(someBuckets, -1);
+			}
+		}
+
+		/**
+		 * Actualiza las cantidades de los grupos de un tem.
+		 * 
+		 * @param someBuckets
+		 *            son los grupos del tem.
+		 * @param aDelta
+		 *            es la cantidad a sumar.
+		 */
+		private void update(ItemBuckets someBuckets, int aDelta) {
+			Map<String, Integer> types = this.typesByMonth
+					.get(someBuckets.yearAndMonth);
+			if (types == null) {
+				types = new HashMap<String, Integer>();
+				this.typesByMonth.put(someBuckets.yearAndMonth, types);
+			}
+			ProjectChartsRollup.add(types, someBuckets.type, aDelta);
+			ProjectChartsRollup.add(this.priorities, someBuckets.priority,
+					aDelta);
+			ProjectChartsRollup.add(this.nodes, someBuckets.node, aDelta);
+			ProjectChartsRollup.add(this.created, someBuckets.yearAndMonth,
+					aDelta);
+			if (someBuckets.finished) {
+				ProjectChartsRollup.add(this.finished,
+						someBuckets.yearAndMonth, aDelta);
+			}
+		}
+
+		/**
+		 * Aplica las modificaciones de tems recibidas. Como cada modificacin
+		 * reemplaza los grupos del tem, aplicarla sobre datos que ya la
+		 * contienen no produce diferencias.
+		 * 
+		 * @param someChanges
+		 *            son las modificaciones de los tems.
+		 */
+		void apply(List<ItemChange> someChanges) {
+			if (!someChanges.isEmpty()) {
+				for (ItemChange aChange : someChanges) {
+					this.remove(aChange.oid);
+					if (aChange.buckets != null) {
+						this.add(aChange.oid, aChange.buckets);
+					}
+				}
+				this.changed();
+			}
+		}
+
+		/**
+		 * Registra que los datos cambiaron, descartando los grficos
+		 * generados.
+		 */
+		void changed() {
+			this.version = VERSIONS.incrementAndGet();
+			// se redondea a segundos ya que as se enva en los encabezados
+			// HTTP.
+			this.lastModified = System.currentTimeMillis() / 1000 * 1000;
+			this.charts.clear();
+		}
+	}
+
+	/**
+	 * Las instancias de esta clase son copias de los datos de un proyecto en un
+	 * momento dado, que se utilizan para construir los grficos.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	public static class Snapshot {
+
+		/**
+		 * Es la versin de los datos.
+		 */
+		private final long version;
+
+		/**
+		 * Es el momento de la ltima modificacin de los datos.
+		 */
+		private final long lastModified;
+
+		/**
+		 * Contiene para cada mes la cantidad de tems creados de cada tipo.
+		 */
+		private final Map<Integer, Map<String, Integer>> typesByMonth;
+
+		/**
+		 * Contiene la cantidad de tems de cada prioridad.
+		 */
+		private final Map<String, Integer> priorities;
+
+		/**
+		 * Contiene la cantidad de tems de cada nodo.
+		 */
+		private final Map<String, Integer> nodes;
+
+		/**
+		 * Contiene para cada mes la cantidad de tems creados.
+		 */
+		private final SortedMap<Integer, Integer> created;
+
+		/**
+		 * Contiene para cada mes la cantidad de tems creados que estn
+		 * finalizados.
+		 */
+		private final Map<Integer, Integer> finished;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param data
+		 *            son los datos del proyecto.
+		 */
+		Snapshot(ProjectData data) {
+			this.version = data.version;
+			this.lastModified = Math.max(data.lastModified,
+					startOfCurrentMonth());
+			this.typesByMonth = new HashMap<Integer, Map<String, Integer>>();
+			for (Map.Entry<Integer, Map<String, Integer>> entry : data.typesByMonth
+					.entrySet()) {
+				this.typesByMonth.put(entry.getKey(),
+						new HashMap<String, Integer>(entry.getValue()));
+			}
+			this.priorities = new HashMap<String, Integer>(data.priorities);
+			this.nodes = new HashMap<String, Integer>(data.nodes);
+			this.created = new TreeMap<Integer, Integer>(data.created);
+			this.finished = new HashMap<Integer, Integer>(data.finished);
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return la versin de los datos.
+		 */
+		public long getVersion() {
+			return this.version;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return el momento de la ltima modificacin de los datos.
+		 */
+		public long getLastModified() {
+			return this.lastModified;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @param aYearAndMonth
+		 *            es el ao y mes de la forma aaaamm.
+		 * @return la cantidad de tems creados de cada tipo en ese mes.
+		 */
+		public Map<String, Integer> getItemsByType(int aYearAndMonth) {
+			Map<String, Integer> result = this.typesByMonth.get(aYearAndMonth);
+			if (result == null) {
+				result = Collections.emptyMap();
+			}
+			return result;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return la cantidad de tems de cada prioridad.
+		 */
+		public Map<String, Integer> getItemsByPriority() {
+			return this.priorities;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return la cantidad de tems de cada nodo del workflow.
+		 */
+		public Map<String, Integer> getItemsByNode() {
+			return this.nodes;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return la cantidad de tems creados en cada mes, ordenada por mes.
+		 */
+		public SortedMap<Integer, Integer> getCreatedItemsByMonth() {
+			return this.created;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @param aYearAndMonth
+		 *            es el ao y mes de la forma aaaamm.
+		 * @return la cantidad de tems creados en ese mes que estn
+		 *         finalizados.
+		 */
+		public int getFinishedItems(int aYearAndMonth) {
+			Integer result = this.finished.get(aYearAndMonth);
+			return result == null ? 0 : result.intValue();
+		}
+	}
+
+}
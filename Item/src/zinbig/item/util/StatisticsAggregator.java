@@ -0,0 +1,754 @@
+/**
+ * Este paquete contiene clases tiles para la herramienta.
+ */
+package zinbig.item.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Hibernate;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import zinbig.item.model.Item;
+import zinbig.item.model.projects.Project;
+import zinbig.item.model.users.User;
+import zinbig.item.util.persistence.AfterCommit;
+
+/**
+ * Las instancias de esta clase mantienen en memoria las estadsticas de uso de
+ * la herramienta a partir de los eventos de alta, modificacin y baja de tems,
+ * usuarios y proyectos que le notifican los servicios. Cada evento se aplica
+ * recin cuando se confirma la transaccin que lo produjo.<br>
+ * De esta manera la tarea peridica de generacin de estadsticas solamente
+ * debe almacenar el estado actual en una nueva instancia de ItemStatistic en
+ * vez de recorrer todas las tablas.<br>
+ * El estado en memoria se construye la primera vez que se almacenan las
+ * estadsticas y luego se reconstruye desde la base de datos cada
+ * reconcileFrequency almacenamientos, de modo de corregir cualquier diferencia
+ * que pudiera haberse producido. Los eventos que se confirman mientras se
+ * reconstruye el estado se registran y se aplican nuevamente sobre el estado
+ * reconstruido, de modo que no se pierden.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class StatisticsAggregator {
+
+	/**
+	 * Es la cantidad de usuarios ms activos que se registran.
+	 */
+	private static final int MOST_ACTIVE_USERS_COUNT = 3;
+
+	/**
+	 * Es el objeto utilizado para abrir sesiones con la base de datos.
+	 */
+	protected SessionFactory sessionFactory;
+
+	/**
+	 * Es la cantidad de almacenamientos de las estadsticas luego de la cual
+	 * se reconstruye el estado desde la base de datos. Si es 0 el estado
+	 * solamente se construye la primera vez.
+	 */
+	protected int reconcileFrequency;
+
+	/**
+	 * Es la cantidad de almacenamientos realizados desde la ltima
+	 * reconstruccin del estado.
+	 */
+	private int checkpointsCount;
+
+	/**
+	 * Indica si el estado ya fue construido.
+	 */
+	private boolean built;
+
+	/**
+	 * Contiene los oids de los usuarios.
+	 */
+	private Set<String> users;
+
+	/**
+	 * Es la cantidad de tems que no estn finalizados.
+	 */
+	private long openItemsCount;
+
+	/**
+	 * Contiene para cada tem (por su oid) los datos que intervienen en las
+	 * estadsticas.
+	 */
+	private Map<String, ItemRecord> items;
+
+	/**
+	 * Contiene para cada proyecto (por su oid) sus datos y su cantidad de
+	 * tems.
+	 */
+	private Map<String, ProjectRecord> projects;
+
+	/**
+	 * Contiene para cada usuario (por su username) la cantidad de tems que
+	 * cre.
+	 */
+	private Map<String, Integer> creators;
+
+	/**
+	 * Contiene las modificaciones aplicadas mientras se reconstruye el estado.
+	 * Es nulo si no se est reconstruyendo el estado.
+	 */
+	private List<Runnable> pendingChanges;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public StatisticsAggregator() {
+		this.items = new HashMap<String, ItemRecord>();
+		this.projects = new HashMap<String, ProjectRecord>();
+		this.creators = new HashMap<String, Integer>();
+		this.users = new HashSet<String>();
+		this.setReconcileFrequency(24);
+	}
+
+	/**
+	 * Registra la creacin de un nuevo tem.
+	 * 
+	 * @param anItem
+	 *            es el nuevo tem.
+	 */
+	public void itemAdded(Item anItem) {
+		final String anOid = anItem.getOid();
+		final int anItemId = anItem.getItemId();
+		final String aProjectOid = anItem.getProject().getOid();
+		final String anUsername = anItem.getCreator().getUsername();
+		final boolean isFinished = anItem.isFinished();
+		final int anObserversCount = anItem.getObservers().size();
+
+		this.applyAfterCommit(new Runnable() {
+
+			public void run() {
+				if (!items.containsKey(anOid)) {
+					addItem(anOid, anItemId, aProjectOid, anUsername,
+							isFinished, anObserversCount);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Registra la modificacin de un tem, por ejemplo al cambiar de nodo del
+	 * workflow. No se recuperan los observadores si no fueron recuperados
+	 * previamente.
+	 * 
+	 * @param anItem
+	 *            es el tem modificado.
+	 */
+	public void itemChanged(Item anItem) {
+		final String anOid = anItem.getOid();
+		final int anItemId = anItem.getItemId();
+		final String aProjectOid = anItem.getProject().getOid();
+		final String anUsername = anItem.getCreator().getUsername();
+		final boolean isFinished = anItem.isFinished();
+		final int anObserversCount = Hibernate.isInitialized(anItem
+				.getObservers()) ? anItem.getObservers().size() : 0;
+
+		this.applyAfterCommit(new Runnable() {
+
+			public void run() {
+				ItemRecord aRecord = items.get(anOid);
+				if (aRecord == null) {
+					addItem(anOid, anItemId, aProjectOid, anUsername,
+							isFinished, anObserversCount);
+				} else {
+					if (aRecord.finished != isFinished) {
+						openItemsCount += isFinished ? -1 : 1;
+						aRecord.finished = isFinished;
+					}
+					if (!aProjectOid.equals(aRecord.projectOid)) {
+						addToProject(aRecord.projectOid, -1);
+						addToProject(aProjectOid, 1);
+						aRecord.projectOid = aProjectOid;
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Registra la modificacin de los observadores de un tem.
+	 * 
+	 * @param anItem
+	 *            es el tem cuyos observadores fueron modificados.
+	 */
+	public void observersChanged(Item anItem) {
+		final String anOid = anItem.getOid();
+		final int anItemId = anItem.getItemId();
+		final String aProjectOid = anItem.getProject().getOid();
+		final String anUsername = anItem.getCreator().getUsername();
+		final boolean isFinished = anItem.isFinished();
+		final int anObserversCount = anItem.getObservers().size();
+
+		this.applyAfterCommit(new Runnable() {
+
+			public void run() {
+				ItemRecord aRecord = items.get(anOid);
+				if (aRecord == null) {
+					addItem(anOid, anItemId, aProjectOid, anUsername,
+							isFinished, anObserversCount);
+				} else {
+					aRecord.observersCount = anObserversCount;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Registra la eliminacin de un conjunto de tems.
+	 * 
+	 * @param someItems
+	 *            son los tems eliminados.
+	 */
+	public void itemsRemoved(Collection<Item> someItems) {
+		final List<String> oids = new ArrayList<String>();
+		for (Item anItem : someItems) {
+			oids.add(anItem.getOid());
+		}
+
+		this.applyAfterCommit(new Runnable() {
+
+			public void run() {
+				for (String anOid : oids) {
+					removeItem(anOid);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Registra el alta de un nuevo usuario.
+	 * 
+	 * @param anUser
+	 *            es el nuevo usuario.
+	 */
+	public void userAdded(User anUser) {
+		final String anOid = anUser.getOid();
+
+		this.applyAfterCommit(new Runnable() {
+
+			public void run() {
+				users.add(anOid);
+			}
+		});
+	}
+
+	/**
+	 * Registra la eliminacin de un conjunto de usuarios.
+	 * 
+	 * @param someUsers
+	 *            son los usuarios eliminados.
+	 */
+	public void usersRemoved(Collection<User> someUsers) {
+		final Map<String, String> usernames = new HashMap<String, String>();
+		for (User anUser : someUsers) {
+			usernames.put(anUser.getOid(), anUser.getUsername());
+		}
+
+		this.applyAfterCommit(new Runnable() {
+
+			public void run() {
+				for (Map.Entry<String, String> entry : usernames.entrySet()) {
+					users.remove(entry.getKey());
+					creators.remove(entry.getValue());
+				}
+			}
+		});
+	}
+
+	/**
+	 * Registra el alta o la modificacin de un proyecto.
+	 * 
+	 * @param aProject
+	 *            es el proyecto creado o modificado.
+	 */
+	public void projectSaved(Project aProject) {
+		final String anOid = aProject.getOid();
+		final String aName = aProject.getName();
+		final boolean isPublic = aProject.isPublicProject();
+
+		this.applyAfterCommit(new Runnable() {
+
+			public void run() {
+				ProjectRecord aRecord = projects.get(anOid);
+				if (aRecord == null) {
+					aRecord = new ProjectRecord();
+					projects.put(anOid, aRecord);
+				}
+				aRecord.name = aName;
+				aRecord.publicProject = isPublic;
+			}
+		});
+	}
+
+	/**
+	 * Registra la eliminacin de un conjunto de proyectos junto con sus tems.
+	 * 
+	 * @param someProjects
+	 *            son los proyectos eliminados.
+	 */
+	public void projectsRemoved(Collection<Project> someProjects) {
+		final List<String> projectOids = new ArrayList<String>();
+		for (Project aProject : someProjects) {
+			projectOids.add(aProject.getOid());
+		}
+
+		this.applyAfterCommit(new Runnable() {
+
+			public void run() {
+				for (String aProjectOid : projectOids) {
+					projects.remove(aProjectOid);
+				}
+
+				List<String> oids = new ArrayList<String>();
+				for (Map.Entry<String, ItemRecord> entry : items.entrySet()) {
+					if (!projects.containsKey(entry.getValue().projectOid)) {
+						oids.add(entry.getKey());
+					}
+				}
+				for (String anOid : oids) {
+					removeItem(anOid);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Aplica una modificacin al estado actual una vez que se confirme la
+	 * transaccin que la produjo, de modo que las modificaciones de las
+	 * transacciones canceladas nunca se registran.
+	 * 
+	 * @param aChange
+	 *            es la modificacin que se debe aplicar.
+	 */
+	private void applyAfterCommit(final Runnable aChange) {
+		AfterCommit.execute(new Runnable() {
+
+			public void run() {
+				apply(aChange);
+			}
+		});
+	}
+
+	/**
+	 * Aplica una modificacin al estado actual. Si se est reconstruyendo el
+	 * estado, la modificacin adems se registra para aplicarla nuevamente
+	 * sobre el estado reconstruido. Las modificaciones establecen valores
+	 * absolutos, por lo que aplicarlas sobre un estado que ya las contiene no
+	 * produce diferencias.
+	 * 
+	 * @param aChange
+	 *            es la modificacin que se debe aplicar.
+	 */
+	private synchronized void apply(Runnable aChange) {
+		if (this.pendingChanges != null) {
+			this.pendingChanges.add(aChange);
+		}
+		if (this.built) {
+			aChange.run();
+		}
+	}
+
+	/**
+	 * Almacena en la base de datos una nueva instancia de ItemStatistic con el
+	 * estado actual de las estadsticas. Si corresponde, antes reconstruye el
+	 * estado desde la base de datos.
+	 */
+	public void checkpoint() {
+		boolean mustReconcile;
+		synchronized (this) {
+			mustReconcile = !this.built
+					|| (this.getReconcileFrequency() > 0 && this.checkpointsCount >= this
+							.getReconcileFrequency());
+		}
+		if (mustReconcile) {
+			this.reconcile();
+		}
+
+		ItemStatistic aStatistic = this.createStatistic();
+
+		Session aSession = this.getSessionFactory().openSession();
+		try {
+			Transaction tx = aSession.beginTransaction();
+			aSession.save(aStatistic);
+			tx.commit();
+		} catch (HibernateException e) {
+			e.printStackTrace();
+		} finally {
+			aSession.close();
+		}
+	}
+
+	/**
+	 * Reconstruye el estado de las estadsticas a partir de la base de datos.
+	 * Solamente se recuperan los datos que intervienen en las estadsticas, en
+	 * vez de recuperar los objetos completos.
+	 */
+	@SuppressWarnings("unchecked")
+	public void reconcile() {
+		synchronized (this) {
+			if (this.pendingChanges != null) {
+				// ya se est reconstruyendo el estado.
+				return;
+			}
+			this.pendingChanges = new ArrayList<Runnable>();
+		}
+
+		Map<String, ItemRecord> newItems = new HashMap<String, ItemRecord>();
+		Map<String, ProjectRecord> newProjects = new HashMap<String, ProjectRecord>();
+		Map<String, Integer> newCreators = new HashMap<String, Integer>();
+		Set<String> newUsers = new HashSet<String>();
+		long newOpenItemsCount = 0;
+
+		Session aSession = this.getSessionFactory().openSession();
+		try {
+			Transaction tx = aSession.beginTransaction();
+
+			// obtengo los usuarios.
+			newUsers.addAll(aSession.createQuery(
+					"select u.oid from zinbig.item.model.users.User u").list());
+
+			// obtengo los proyectos.
+			Collection<Object[]> rows = aSession.createQuery(
+					"select p.oid, p.name, p.publicProject "
+							+ "from zinbig.item.model.projects.Project p")
+					.list();
+			for (Object[] row : rows) {
+				ProjectRecord aRecord = new ProjectRecord();
+				aRecord.name = (String) row[1];
+				aRecord.publicProject = ((Boolean) row[2]).booleanValue();
+				newProjects.put((String) row[0], aRecord);
+			}
+
+			// obtengo los tems.
+			rows = aSession.createQuery(
+					"select i.oid, i.itemId, i.project.oid, c.username, i.finished "
+							+ "from zinbig.item.model.Item i join i.creator c")
+					.list();
+			for (Object[] row : rows) {
+				ItemRecord aRecord = new ItemRecord((Integer) row[1],
+						(String) row[2], (Boolean) row[4]);
+				aRecord.creator = (String) row[3];
+				newItems.put((String) row[0], aRecord);
+
+				if (!aRecord.finished) {
+					newOpenItemsCount++;
+				}
+				ProjectRecord aProjectRecord = newProjects
+						.get(aRecord.projectOid);
+				if (aProjectRecord != null) {
+					aProjectRecord.itemsCount++;
+				}
+				Integer count = newCreators.get(row[3]);
+				newCreators.put((String) row[3], count == null ? 1 : count + 1);
+			}
+
+			// obtengo la cantidad de observadores de los tems observados.
+			rows = aSession.createQuery(
+					"select i.oid, count(o) from zinbig.item.model.Item i "
+							+ "join i.observers o group by i.oid").list();
+			for (Object[] row : rows) {
+				ItemRecord aRecord = newItems.get(row[0]);
+				if (aRecord != null) {
+					aRecord.observersCount = ((Long) row[1]).intValue();
+				}
+			}
+
+			tx.commit();
+		} catch (HibernateException e) {
+			e.printStackTrace();
+			synchronized (this) {
+				this.pendingChanges = null;
+			}
+			return;
+		} finally {
+			aSession.close();
+		}
+
+		synchronized (this) {
+			this.items = newItems;
+			this.projects = newProjects;
+			this.creators = newCreators;
+			this.openItemsCount = newOpenItemsCount;
+			this.users = newUsers;
+			this.checkpointsCount = 0;
+			this.built = true;
+
+			// aplica las modificaciones confirmadas durante la reconstruccin.
+			for (Runnable aChange : this.pendingChanges) {
+				aChange.run();
+			}
+			this.pendingChanges = null;
+		}
+	}
+
+	/**
+	 * Crea una nueva instancia de ItemStatistic con el estado actual.
+	 * 
+	 * @return la nueva instancia creada.
+	 */
+	private synchronized ItemStatistic createStatistic() {
+		this.checkpointsCount++;
+
+		long publicProjectsCount = 0;
+		String mostActiveProjectOid = "";
+		String mostActiveProjectName = "";
+		int mostActiveProjectItems = -1;
+		for (Map.Entry<String, ProjectRecord> entry : this.projects.entrySet()) {
+			ProjectRecord aRecord = entry.getValue();
+			if (aRecord.publicProject) {
+				publicProjectsCount++;
+				if (aRecord.itemsCount > mostActiveProjectItems) {
+					mostActiveProjectItems = aRecord.itemsCount;
+					mostActiveProjectOid = entry.getKey();
+					mostActiveProjectName = aRecord.name;
+				}
+			}
+		}
+
+		String[] mostActiveUsers = new String[MOST_ACTIVE_USERS_COUNT];
+		int[] mostActiveUsersItems = new int[MOST_ACTIVE_USERS_COUNT];
+		for (int i = 0; i < MOST_ACTIVE_USERS_COUNT; i++) {
+			mostActiveUsers[i] = "";
+			mostActiveUsersItems[i] = -1;
+		}
+		for (Map.Entry<String, Integer> entry : this.creators.entrySet()) {
+			int count = entry.getValue().intValue();
+			for (int i = 0; i < MOST_ACTIVE_USERS_COUNT; i++) {
+				if (count > mostActiveUsersItems[i]) {
+					// desplaza los siguientes para insertar en esta posicin.
+					for (int j = MOST_ACTIVE_USERS_COUNT - 1; j > i; j--) {
+						mostActiveUsers[j] = mostActiveUsers[j - 1];
+						mostActiveUsersItems[j] = mostActiveUsersItems[j - 1];
+					}
+					mostActiveUsers[i] = entry.getKey();
+					mostActiveUsersItems[i] = count;
+					break;
+				}
+			}
+		}
+
+		String mostInterestingItemId = "";
+		String mostInterestingItemOid = "";
+		int mostInterestingItemObservers = -1;
+		for (Map.Entry<String, ItemRecord> entry : this.items.entrySet()) {
+			if (entry.getValue().observersCount > mostInterestingItemObservers) {
+				mostInterestingItemObservers = entry.getValue().observersCount;
+				mostInterestingItemOid = entry.getKey();
+				mostInterestingItemId = new Integer(entry.getValue().itemId)
+						.toString();
+			}
+		}
+
+		return new ItemStatistic(new Date(), new Long(this.items.size()),
+				new Long(this.users.size()), new Long(this.projects.size()),
+				new Long(this.openItemsCount), new Long(publicProjectsCount),
+				mostActiveProjectName, mostActiveProjectOid,
+				mostActiveUsers[0], mostActiveUsers[1], mostActiveUsers[2],
+				mostInterestingItemId, mostInterestingItemOid);
+	}
+
+	/**
+	 * Agrega un tem al estado actual.
+	 * 
+	 * @param anOid
+	 *            es el oid del tem.
+	 * @param anItemId
+	 *            es el id del tem.
+	 * @param aProjectOid
+	 *            es el oid del proyecto del tem.
+	 * @param anUsername
+	 *            es el username del creador del tem.
+	 * @param isFinished
+	 *            indica si el tem est finalizado.
+	 * @param anObserversCount
+	 *            es la cantidad de observadores del tem.
+	 */
+	private void addItem(String anOid, int anItemId, String aProjectOid,
+			String anUsername, boolean isFinished, int anObserversCount) {
+		ItemRecord aRecord = new ItemRecord(anItemId, aProjectOid, isFinished);
+		aRecord.observersCount = anObserversCount;
+		aRecord.creator = anUsername;
+		this.items.put(anOid, aRecord);
+
+		if (!isFinished) {
+			this.openItemsCount++;
+		}
+		this.addToProject(aProjectOid, 1);
+		Integer count = this.creators.get(anUsername);
+		this.creators.put(anUsername, count == null ? 1 : count + 1);
+	}
+
+	/**
+	 * Elimina un tem del estado actual.
+	 * 
+	 * @param anOid
+	 *            es el oid del tem.
+	 */
+	private void removeItem(String anOid) {
+		ItemRecord aRecord = this.items.remove(anOid);
+		if (aRecord != null) {
+			if (!aRecord.finished) {
+				this.openItemsCount--;
+			}
+			this.addToProject(aRecord.projectOid, -1);
+			if (aRecord.creator != null) {
+				Integer count = this.creators.get(aRecord.creator);
+				if (count != null && count > 1) {
+					this.creators.put(aRecord.creator, count - 1);
+				} else {
+					this.creators.remove(aRecord.creator);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Modifica la cantidad de tems de un proyecto.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto.
+	 * @param aDelta
+	 *            es la cantidad a sumar.
+	 */
+	private void addToProject(String aProjectOid, int aDelta) {
+		ProjectRecord aRecord = this.projects.get(aProjectOid);
+		if (aRecord != null) {
+			aRecord.itemsCount += aDelta;
+		}
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto utilizado para abrir sesiones con la base de datos.
+	 */
+	public SessionFactory getSessionFactory() {
+		return this.sessionFactory;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aSessionFactory
+	 *            es el objeto utilizado para abrir sesiones con la base de
+	 *            datos.
+	 */
+	public void setSessionFactory(SessionFactory aSessionFactory) {
+		this.sessionFactory = aSessionFactory;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de almacenamientos luego de la cual se reconstruye
+	 *         el estado.
+	 */
+	public int getReconcileFrequency() {
+		return this.reconcileFrequency;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad de almacenamientos luego de la cual se
+	 *            reconstruye el estado. Si es 0 el estado solamente se
+	 *            construye la primera vez.
+	 */
+	public void setReconcileFrequency(int aNumber) {
+		this.reconcileFrequency = aNumber;
+	}
+
+	/**
+	 * Las instancias de esta clase contienen los datos de un tem que
+	 * intervienen en las estadsticas.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	private static class ItemRecord {
+
+		/**
+		 * Es el id del tem.
+		 */
+		int itemId;
+
+		/**
+		 * Es el oid del proyecto del tem.
+		 */
+		String projectOid;
+
+		/**
+		 * Es el username del creador del tem.
+		 */
+		String creator;
+
+		/**
+		 * Indica si el tem est finalizado.
+		 */
+		boolean finished;
+
+		/**
+		 * Es la cantidad de observadores del tem.
+		 */
+		int observersCount;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param anItemId
+		 *            es el id del tem.
+		 * @param aProjectOid
+		 *            es el oid del proyecto del tem.
+		 * @param isFinished
+		 *            indica si el tem est finalizado.
+		 */
+		ItemRecord(int anItemId, String aProjectOid, boolean isFinished) {
+			this.itemId = anItemId;
+			this.projectOid = aProjectOid;
+			this.finished = isFinished;
+		}
+	}
+
+	/**
+	 * Las instancias de esta clase contienen los datos de un proyecto que
+	 * intervienen en las estadsticas.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	private static class ProjectRecord {
+
+		/**
+		 * Es el nombre del proyecto.
+		 */
+		String name;
+
+		/**
+		 * Indica si el proyecto es pblico.
+		 */
+		boolean publicProject;
+
+		/**
+		 * Es la cantidad de tems del proyecto.
+		 */
+		int itemsCount;
+	}
+
+}
@@ -3,29 +3,21 @@
  */
 package zinbig.item.util;
 
-import java.util.Collection;
-import java.util.Date;
-import java.util.Iterator;
-
-import org.hibernate.HibernateException;
-import org.hibernate.Query;
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.springframework.beans.BeansException;
-import org.springframework.context.ApplicationContext;
 
-import zinbig.item.model.Item;
-import zinbig.item.model.projects.Project;
 import zinbig.item.util.spring.ItemApplicationContext;
 
 /**
  * Las instancias de esta clase se utilizan para generar estadsticas en forma
  * peridica. El resultado de estas consultas se almacena en la base de datos
- * para ser consultado desde la pgina de inicio.
+ * para ser consultado desde la pgina de inicio.<br>
+ * Las estadsticas se mantienen en memoria mediante el objeto
+ * StatisticsAggregator, por lo que esta tarea solamente almacena el estado
+ * actual. Si el parmetro "reconcile" de la tarea es verdadero, antes se
+ * reconstruye el estado desde la base de datos.
  * 
  * @author Javier Bazzocco javier.bazzocco@zinbig.com
  * 
@@ -39,119 +31,24 @@ public class StatisticsGeneratorJob implements Job {
 	 *            es el contexto de ejecucin de esta tarea.
 	 */
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void execute(JobExecutionContext aJobContext)
 			throws JobExecutionException {
 
 		try {
-			ApplicationContext aContext = ItemApplicationContext
-					.getApplicationContext();
-			SessionFactory aSessionFactory = (SessionFactory) aContext
-					.getBean("sessionFactory");
-
-			Session aSession = aSessionFactory.openSession();
-			Transaction tx = aSession.beginTransaction();
-
-			// obtengo la cantidad de tems creados.
-			Query aQuery = aSession
-					.createQuery("select count(i) from zinbig.item.model.Item i");
-			aQuery.setMaxResults(1);
-			Long itemsCount = (Long) aQuery.uniqueResult();
-
-			// obtengo la cantidad de usuarios.
-			aQuery = aSession
-					.createQuery("select count(u) from zinbig.item.model.users.User u");
-			aQuery.setMaxResults(1);
-			Long usersCount = (Long) aQuery.uniqueResult();
-
-			// obtengo la cantidad de proyectos.
-			aQuery = aSession
-					.createQuery("select count(p) from zinbig.item.model.projects.Project p");
-			aQuery.setMaxResults(1);
-			Long projectsCount = (Long) aQuery.uniqueResult();
-
-			// obtengo la cantidad de tems abiertos (todos los que no estn en
-			// estado CLOSED(3)).
-			aQuery = aSession
-					.createQuery("select count(i) from zinbig.item.model.Item i where i.finished=false");
-			aQuery.setMaxResults(1);
-			Long openItemsCount = (Long) aQuery.uniqueResult();
-
-			// obtengo la cantidad de proyectos pblicos.
-			aQuery = aSession
-					.createQuery("select count(p) from zinbig.item.model.projects.Project p where p.publicProject=true");
-			aQuery.setMaxResults(1);
-			Long publicProjectsCount = (Long) aQuery.uniqueResult();
-
-			// obtengo el proyecto ms activo. ste queda definido como el
-			// proyecto que ms tems y nodos tiene creados.
-			aQuery = aSession
-					.createQuery("select p from zinbig.item.model.projects.Project p "
-							+ "where p.publicProject=true order by p.items.size desc");
-
-			String mostActiveProjectOid = "";
-			String mostActiveProjectName = "";
-			Collection<Project> projects = aQuery.list();
-			if (!projects.isEmpty()) {
-				Project aProject = projects.iterator().next();
-				mostActiveProjectOid = aProject.getOid();
-				mostActiveProjectName = aProject.getName();
+			StatisticsAggregator anAggregator = (StatisticsAggregator) ItemApplicationContext
+					.getApplicationContext().getBean("statisticsAggregator");
+
+			if (aJobContext.getJobDetail().getJobDataMap().containsKey(
+					"reconcile")
+					&& aJobContext.getJobDetail().getJobDataMap().getBoolean(
+							"reconcile")) {
+				anAggregator.reconcile();
 			}
+			anAggregator.checkpoint();
 
-			// obtengo los tres usuarios ms activos.
-			aQuery = aSession
-					.createQuery("SELECT item,count(*) FROM zinbig.item.model.Item item group by item.creator order by count(*)");
-
-			String mostActiveUser1 = "";
-			String mostActiveUser2 = "";
-			String mostActiveUser3 = "";
-			Collection<Object[]> activeUsers = aQuery.list();
-			Iterator<Object[]> iterator = activeUsers.iterator();
-			if (iterator.hasNext()) {
-				mostActiveUser1 = ((Item) iterator.next()[0]).getCreator()
-						.getUsername();
-			}
-			if (iterator.hasNext()) {
-				mostActiveUser2 = ((Item) iterator.next()[0]).getCreator()
-						.getUsername();
-			}
-			if (iterator.hasNext()) {
-				mostActiveUser3 = ((Item) iterator.next()[0]).getCreator()
-						.getUsername();
-			}
-
-			// obtengo el tem ms interesante. ste queda definido como el
-			// tem que tiene ms observadores
-			aQuery = aSession
-					.createQuery("SELECT item FROM zinbig.item.model.Item item order by item.observers.size DESC");
-			Collection<Item> items = aQuery.list();
-			String mostInterestingItemId = "";
-			String mostInterestingItemOid = "";
-			if (!items.isEmpty()) {
-				Item anItem = items.iterator().next();
-				mostInterestingItemId = new Integer(anItem.getItemId())
-						.toString();
-				mostInterestingItemOid = anItem.getOid();
-			}
-
-			// obtengo la fecha actual.
-			Date aDate = new Date();
-			ItemStatistic newStatictic = new ItemStatistic(aDate, itemsCount,
-					usersCount, projectsCount, openItemsCount,
-					publicProjectsCount, mostActiveProjectName,
-					mostActiveProjectOid, mostActiveUser1, mostActiveUser2,
-					mostActiveUser3, mostInterestingItemId,
-					mostInterestingItemOid);
-
-			aSession.save(newStatictic);
-
-			tx.commit();
-			aSession.close();
 		} catch (BeansException e) {
 			e.printStackTrace();
-		} catch (HibernateException e) {
-			e.printStackTrace();
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -0,0 +1,238 @@
+/**
+ * Este paquete contiene clases tiles para la herramienta.
+ */
+package zinbig.item.util;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Esta estrategia genera identificadores ordenados en el tiempo a partir de un
+ * nmero de 64 bits compuesto por: <br>
+ * - 41 bits con los milisegundos transcurridos desde el 1/1/2010;<br>
+ * - 10 bits con el nmero del nodo de la aplicacin;<br>
+ * - 12 bits con un nmero de secuencia dentro del mismo milisegundo.<br>
+ * Como los identificadores crecen en forma montona, las inserciones se
+ * realizan siempre al final de los ndices de las claves primarias en lugar de
+ * distribuirse en forma aleatoria. <br>
+ * El ltimo milisegundo y la secuencia se mantienen en un nico AtomicLong que
+ * se actualiza con compareAndSet, por lo que no se utilizan locks. Si se
+ * agota la secuencia de un milisegundo, o si el reloj retrocede, se contina
+ * con el milisegundo siguiente al ltimo utilizado. <br>
+ * En el formato compacto el nmero se representa con 13 caracteres en base
+ * 32. En el formato compatible (el que se utiliza por defecto) se representa
+ * con 32 caracteres hexadecimales en minsculas, al igual que los
+ * identificadores generados anteriormente, de modo que ambos pueden convivir
+ * en las mismas columnas. En ambos formatos el orden alfabtico coincide con
+ * el orden de generacin.<br>
+ * El nmero de nodo es obligatorio y se recibe en el constructor, de modo que
+ * no se puede crear una estrategia que utilice un nmero de nodo por omisin.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class TimeOrderedIDGenerationStrategy implements IDGenerationStrategy {
+
+	/**
+	 * Es el instante (1/1/2010 00:00:00 GMT) a partir del cual se cuentan los
+	 * milisegundos.
+	 */
+	public static final long EPOCH = 1262304000000L;
+
+	/**
+	 * Es la cantidad de bits del nmero de nodo.
+	 */
+	private static final int NODE_BITS = 10;
+
+	/**
+	 * Es la cantidad de bits del nmero de secuencia.
+	 */
+	private static final int SEQUENCE_BITS = 12;
+
+	/**
+	 * Es el mximo nmero de nodo.
+	 */
+	public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+	/**
+	 * Son los dgitos utilizados en el formato compacto, en orden ascendente.
+	 */
+	private static final char[] DIGITS = "0123456789abcdefghjkmnpqrstvwxyz"
+			.toCharArray();
+
+	/**
+	 * Es el relleno que se antepone a los identificadores en el formato
+	 * compatible.
+	 */
+	private static final String PADDING = "0000000000000000";
+
+	/**
+	 * Es el nmero del nodo de la aplicacin. Debe ser distinto para cada nodo
+	 * que comparta la base de datos.
+	 */
+	protected int nodeId;
+
+	/**
+	 * Indica si se debe utilizar el formato compacto.
+	 */
+	protected boolean compact;
+
+	/**
+	 * Contiene el ltimo milisegundo utilizado desplazado SEQUENCE_BITS bits a
+	 * la izquierda, ms el ltimo nmero de secuencia.
+	 */
+	private final AtomicLong lastTimestampAndSequence = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param aNodeId
+	 *            es el nmero del nodo de la aplicacin.
+	 * @param isCompact
+	 *            indica si se debe utilizar el formato compacto.
+	 * @throws IllegalArgumentException
+	 *             esta excepcin se levanta si el nmero de nodo est fuera de
+	 *             rango.
+	 */
+	public TimeOrderedIDGenerationStrategy(int aNodeId, boolean isCompact) {
+		this.setNodeId(aNodeId);
+		this.setCompact(isCompact);
+	}
+
+	/**
+	 * Crea una estrategia a partir de las propiedades ids.node (obligatoria) e
+	 * ids.compact. Se utiliza en las herramientas que no utilizan el contexto
+	 * de Spring.
+	 * 
+	 * @param someProperties
+	 *            son las propiedades de configuracin.
+	 * @return la estrategia creada.
+	 * @throws IllegalStateException
+	 *             esta excepcin se levanta si no se configur el nmero de
+	 *             nodo.
+	 */
+	public static TimeOrderedIDGenerationStrategy fromProperties(
+			Properties someProperties) {
+		String aNodeId = someProperties.getProperty("ids.node");
+		if (aNodeId == null || aNodeId.trim().length() == 0) {
+			throw new IllegalStateException(
+					"No se configur el nmero de nodo (ids.node)");
+		}
+		return new TimeOrderedIDGenerationStrategy(Integer.parseInt(aNodeId
+				.trim()), Boolean.valueOf(
+				someProperties.getProperty("ids.compact", "false").trim())
+				.booleanValue());
+	}
+
+	/**
+	 * Genera un nuevo identificador.
+	 * 
+	 * @return un string que representa el identificador en el formato
+	 *         configurado.
+	 */
+	public String generateId() {
+		long anId = this.nextValue();
+		return this.isCompact() ? this.toCompactString(anId) : this
+				.toHexString(anId);
+	}
+
+	/**
+	 * Calcula el siguiente nmero de 64 bits.
+	 * 
+	 * @return el nmero generado.
+	 */
+	public long nextValue() {
+		long now = System.currentTimeMillis() - EPOCH;
+		long current;
+		long next;
+		do {
+			current = this.lastTimestampAndSequence.get();
+			if (now > (current >>> SEQUENCE_BITS)) {
+				next = now << SEQUENCE_BITS;
+			} else {
+				// mismo milisegundo o reloj atrasado: al desbordar la
+				// secuencia se pasa al milisegundo siguiente.
+				next = current + 1;
+			}
+		} while (!this.lastTimestampAndSequence.compareAndSet(current, next));
+
+		long timestamp = next >>> SEQUENCE_BITS;
+		long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+		return (timestamp << (NODE_BITS + SEQUENCE_BITS))
+				| ((long) this.getNodeId() << SEQUENCE_BITS) | sequence;
+	}
+
+	/**
+	 * Representa un nmero con 32 caracteres hexadecimales.
+	 * 
+	 * @param aValue
+	 *            es el nmero.
+	 * @return el string que representa al nmero.
+	 */
+	protected String toHexString(long aValue) {
+		String hex = Long.toHexString(aValue);
+		return PADDING + PADDING.substring(hex.length()) + hex;
+	}
+
+	/**
+	 * Representa un nmero con 13 caracteres en base 32.
+	 * 
+	 * @param aValue
+	 *            es el nmero.
+	 * @return el string que representa al nmero.
+	 */
+	protected String toCompactString(long aValue) {
+		char[] result = new char[13];
+		long value = aValue;
+		for (int i = result.length - 1; i >= 0; i--) {
+			result[i] = DIGITS[(int) (value & 31)];
+			value >>>= 5;
+		}
+		return new String(result);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el nmero del nodo de la aplicacin.
+	 */
+	public int getNodeId() {
+		return this.nodeId;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es el nmero del nodo de la aplicacin.
+	 * @throws IllegalArgumentException
+	 *             esta excepcin se levanta si el nmero est fuera de rango.
+	 */
+	public void setNodeId(int aNumber) {
+		if (aNumber < 0 || aNumber > MAX_NODE_ID) {
+			throw new IllegalArgumentException("nodeId: " + aNumber);
+		}
+		this.nodeId = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return true en caso de que se utilice el formato compacto; false en caso
+	 *         contrario.
+	 */
+	public boolean isCompact() {
+		return this.compact;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aBoolean
+	 *            indica si se debe utilizar el formato compacto.
+	 */
+	public void setCompact(boolean aBoolean) {
+		this.compact = aBoolean;
+	}
+
+}
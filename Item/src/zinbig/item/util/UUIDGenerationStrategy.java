@@ -0,0 +1,27 @@
+/**
+ * Este paquete contiene clases tiles para la herramienta.
+ */
+package zinbig.item.util;
+
+import java.util.UUID;
+
+/**
+ * Esta estrategia genera los identificadores a partir de un nmero aleatorio
+ * de 16 bytes (UUID) representado con 32 caracteres hexadecimales. Es la
+ * estrategia utilizada originalmente por la herramienta.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class UUIDGenerationStrategy implements IDGenerationStrategy {
+
+	/**
+	 * Genera un nmero aleatorio de 16 bytes.
+	 * 
+	 * @return un string en base a un nmero aleatorio de 16 bytes.
+	 */
+	public String generateId() {
+		return UUID.randomUUID().toString().replace("-", "");
+	}
+
+}
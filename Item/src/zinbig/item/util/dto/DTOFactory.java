@@ -36,6 +36,7 @@ import zinbig.item.model.workflow.WorkflowNodeDescription;
 import zinbig.item.services.ServiceLocator;
 import zinbig.item.services.bi.ProjectsServiceBI;
 import zinbig.item.util.security.EncryptionStrategy;
+import zinbig.item.util.security.UserPermissions;
 
 /**
  * La nica instancia de esta clase se utiliza para crear las instancias de los DTO para los objetos de
@@ -129,6 +130,54 @@ public class DTOFactory {
   public UserDTO createCompleteDTOForUser(User anUser, boolean isAdminUser, Collection<Operation> operations,
       boolean mustVerifyLeadership) {
 
+    UserDTO dto = this.createCompleteDTOForUser(anUser, isAdminUser, mustVerifyLeadership);
+
+    Collection<OperationDTO> operationsDTOs = this.createDTOForOperations(operations);
+
+    dto.setOperations(operationsDTOs);
+
+    return dto;
+  }
+
+  /**
+   * Crea un dto completamente cargado para un usuario a partir de sus permisos compilados.<br>
+   * Los dtos de las operaciones se copian de los permisos, por lo que no es necesario recuperar las
+   * operaciones del usuario.
+   * 
+   * @param anUser
+   *          es el usuario que debe ser representado.
+   * @param isAdminUser
+   *          indica si el usuario es el administrador del sistema.
+   * @param somePermissions
+   *          son los permisos compilados del usuario.
+   * @param mustVerifyLeadership
+   *          indica si se debe verificar o no si el usuario es lder del proyecto.
+   * @return un dto que contiene toda la informacin relacionada con el usuario.
+   */
+  public UserDTO createCompleteDTOForUser(User anUser, boolean isAdminUser, UserPermissions somePermissions,
+      boolean mustVerifyLeadership) {
+
+    UserDTO dto = this.createCompleteDTOForUser(anUser, isAdminUser, mustVerifyLeadership);
+
+    dto.setOperations(somePermissions.createOperationsDTOs());
+    dto.setPermissions(somePermissions);
+
+    return dto;
+  }
+
+  /**
+   * Crea un dto completamente cargado para un usuario, sin las operaciones.
+   * 
+   * @param anUser
+   *          es el usuario que debe ser representado.
+   * @param isAdminUser
+   *          indica si el usuario es el administrador del sistema.
+   * @param mustVerifyLeadership
+   *          indica si se debe verificar o no si el usuario es lder del proyecto.
+   * @return un dto que contiene la informacin del usuario.
+   */
+  private UserDTO createCompleteDTOForUser(User anUser, boolean isAdminUser, boolean mustVerifyLeadership) {
+
     boolean isLeader = false;
     if (mustVerifyLeadership) {
       isLeader = anUser.isProjectLeader();
@@ -139,10 +188,6 @@ public class DTOFactory {
         anUser.getSurname(), anUser.isDeletable(), anUser.getVersion(), isAdminUser,
         anUser.getFavoriteProjectsCount(), isLeader);
 
-    Collection<OperationDTO> operationsDTOs = this.createDTOForOperations(operations);
-
-    dto.setOperations(operationsDTOs);
-
     dto.getUserPreferences().putAll(anUser.getUserPreferences());
     return dto;
   }
@@ -423,9 +468,11 @@ public class DTOFactory {
     } else {
       if (aPropertyDescription.getType() == 'D') {
         try {
-          dto.setValues(aService
-              .getValuesForDynamicProperty(((DynamicValuesListPropertyDescription) aPropertyDescription)
-                  .getQuery()));
+          DynamicValuesListPropertyDescription aDynamicDescription =
+              (DynamicValuesListPropertyDescription) aPropertyDescription;
+          Integer maxValues = aDynamicDescription.getMaxValues();
+          dto.setValues(aService.getValuesForDynamicProperty(aDynamicDescription.getQuery(),
+              (maxValues == null) ? 0 : maxValues.intValue()));
         } catch (Exception e) {
 
           e.printStackTrace();
@@ -586,6 +633,94 @@ public class DTOFactory {
     return result;
   }
 
+  /**
+   * Crea DTOs para los tems a partir de las filas recuperadas por la consulta itemsListingQuery, sin
+   * necesidad de acceder a los objetos del modelo.<br>
+   * Cada fila es un diccionario cuyas claves son los alias de las columnas de la consulta. Los alias de las
+   * columnas del responsable, del lder del proyecto y del creador comienzan con responsible, leader y creator
+   * respectivamente.
+   * 
+   * @param someRows
+   *          es una coleccin con las filas de los tems.
+   * @param someProperties
+   *          es un diccionario que contiene las propiedades adicionales de cada tem.
+   * @return una coleccin con los DTOs de los tems, en el mismo orden que las filas.
+   */
+  public Collection<ItemDTO> createDTOForItemRows(Collection<Map<String, Object>> someRows,
+      Map<String, Map<String, String>> someProperties) {
+
+    Collection<ItemDTO> result = new ArrayList<ItemDTO>();
+    Format formatter = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+
+    for (Map<String, Object> row : someRows) {
+      AbstractUserDTO aResponsibleDTO = null;
+      if (row.get("responsibleUsername") == null) {
+        // solamente los usuarios tienen nombre de usuario.
+        aResponsibleDTO = new UserGroupDTO((String) row.get("responsibleName"), (String) row
+            .get("responsibleEmail"), (Boolean) row.get("responsibleDeletable"), (Integer) row
+            .get("responsibleVersion"), (String) row.get("responsibleOid"), (String) row.get("responsibleLanguage"));
+      } else {
+        aResponsibleDTO = this.createDTOForUserRow(row, "responsible");
+      }
+
+      UserDTO aProjectLeaderDTO = this.createDTOForUserRow(row, "leader");
+
+      ProjectDTO aProjectDTO = new ProjectDTO((String) row.get("projectName"), (String) row.get("projectShortName"),
+          (String) row.get("projectOid"), (String) row.get("projectLink"), (Integer) row.get("projectVersion"),
+          (Boolean) row.get("projectPublic"), (String) row.get("projectAssignmentStrategy"), aProjectLeaderDTO,
+          new Long(0), null, new ArrayList<PropertyDescriptionDTO>());
+
+      UserDTO aCreatorDTO = this.createDTOForUserRow(row, "creator");
+
+      PriorityDTO aPriorityDTO = new PriorityDTO((String) row.get("priorityOid"), (String) row.get("priorityTitle"),
+          (String) row.get("priorityValue"), (Integer) row.get("priorityReferencesCount"));
+
+      ItemTypeDTO anItemTypeDTO = new ItemTypeDTO((String) row.get("itemTypeTitle"), (String) row.get("itemTypeOid"),
+          (Integer) row.get("itemTypeVersion"), (Integer) row.get("itemTypeReferencesCount"));
+
+      WorkflowNodeDTO aWorkflowNodeDTO = null;
+      if (row.get("nodeOid") == null) {
+        aWorkflowNodeDTO = this.createDTOForWorkflowNode(null);
+      } else {
+        aWorkflowNodeDTO = new WorkflowNodeDTO((String) row.get("nodeTitle"), (String) row.get("nodeOid"), formatter
+            .format(row.get("nodeCreationDate")), (String) row.get("nodeResponsibleAlias"));
+      }
+
+      String anItemOid = (String) row.get("itemOid");
+      Map<String, String> additionalProperties = new HashMap<String, String>();
+      if (someProperties.containsKey(anItemOid)) {
+        additionalProperties.putAll(someProperties.get(anItemOid));
+      }
+
+      result.add(new ItemDTO((String) row.get("itemTitle"), (String) row.get("itemDescription"), (Integer) row
+          .get("itemId"), aResponsibleDTO, aProjectLeaderDTO, row.get("itemState").toString(), aProjectDTO,
+          aPriorityDTO, anItemOid, anItemTypeDTO, aWorkflowNodeDTO, (Integer) row.get("itemVersion"), formatter
+              .format(row.get("itemCreationDate")), aCreatorDTO, (Boolean) row.get("itemFinished"),
+          additionalProperties));
+    }
+
+    return result;
+  }
+
+  /**
+   * Crea un DTO para un usuario a partir de las columnas de una fila cuyos alias comienzan con el prefijo
+   * recibido. Las columnas son Oid, Username, Password, Language, Email, Name, Surname, Deletable y Version.
+   * 
+   * @param aRow
+   *          es la fila que contiene los datos del usuario.
+   * @param aPrefix
+   *          es el prefijo de los alias de las columnas del usuario.
+   * @return un dto que representa al usuario.
+   */
+  private UserDTO createDTOForUserRow(Map<String, Object> aRow, String aPrefix) {
+    boolean deletable = (Boolean) aRow.get(aPrefix + "Deletable");
+
+    return new UserDTO((String) aRow.get(aPrefix + "Oid"), (String) aRow.get(aPrefix + "Username"), this
+        .getEncryptionStrategy().decrypt((String) aRow.get(aPrefix + "Password")), (String) aRow.get(aPrefix
+        + "Language"), (String) aRow.get(aPrefix + "Email"), (String) aRow.get(aPrefix + "Name"), (String) aRow
+        .get(aPrefix + "Surname"), deletable, (Integer) aRow.get(aPrefix + "Version"), !deletable, 0, false);
+  }
+
   /**
    * Crea un DTO para representar la informacin de un filtro de tems.
    * 
@@ -616,6 +751,7 @@ public class DTOFactory {
       aDTO.setOid(aFilter.getOid());
     }
     aDTO.setFilterComponentByText(aFilter.getFilterComponentByText());
+    aDTO.setFilterComponentByItemId(aFilter.getFilterComponentByItemId());
     return aDTO;
   }
 
@@ -819,8 +955,11 @@ public class DTOFactory {
 
     while (iterator.hasNext()) {
       anItemFile = iterator.next();
-      result.add(new ItemFileDTO(anItemFile.getFilename(), formatter.format(anItemFile.getCreationDate()),
-          anItemFile.getOid()));
+      ItemFileDTO aDTO = new ItemFileDTO(anItemFile.getFilename(), formatter.format(anItemFile.getCreationDate()),
+          anItemFile.getOid());
+      aDTO.setContentHash(anItemFile.getContentHash());
+      aDTO.setSize(anItemFile.getSize());
+      result.add(aDTO);
     }
     return result;
   }
@@ -32,6 +32,17 @@ public class ItemFileDTO extends ItemAbstractDTO implements Serializable {
 	 */
 	protected String creationDate;
 
+	/**
+	 * Es el hash del contenido del archivo en el almacn de archivos adjuntos,
+	 * o null si el archivo no est en el almacn.
+	 */
+	protected String contentHash;
+
+	/**
+	 * Es el tamao (en bytes) del archivo representado por este dto.
+	 */
+	protected long size;
+
 	/**
 	 * Constructor.
 	 * 
@@ -86,4 +97,45 @@ public class ItemFileDTO extends ItemAbstractDTO implements Serializable {
 		this.creationDate = aDate;
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return el hash del contenido del archivo en el almacn de archivos
+	 *         adjuntos, o null si el archivo no est en el almacn.
+	 */
+	public String getContentHash() {
+		return this.contentHash;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aHash
+	 *            es el hash del contenido del archivo en el almacn de
+	 *            archivos adjuntos.
+	 */
+	public void setContentHash(String aHash) {
+		this.contentHash = aHash;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tamao (en bytes) del archivo representado por este dto.
+	 */
+	public long getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aSize
+	 *            es el tamao (en bytes) del archivo representado por este
+	 *            dto.
+	 */
+	public void setSize(long aSize) {
+		this.size = aSize;
+	}
+
 }
@@ -0,0 +1,281 @@
+/**
+ * Este paquete contiene las clases necesarias para representar los objetos de
+ * dominio de una manera tal que puedan ser enviados a la capa de presentacin <br>
+ * Estas representaciones toman la forma de DTOs (Data Transfer Objects).
+ */
+package zinbig.item.util.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import zinbig.item.model.ItemMovementResultEnum;
+
+/**
+ * Las instancias de esta clase se utilizan para representar el avance de un
+ * movimiento masivo de tems.<br>
+ * La representacin consta del oid del movimiento, la cantidad total de tems,
+ * la cantidad de tems ya procesados y movidos, si el movimiento termin y,
+ * una vez terminado, el resultado obtenido para cada uno de los tems
+ * procesados, en el orden en que fueron ingresados, junto con el mensaje de
+ * error de los tems fallidos.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class MassiveItemsMovementDTO extends ItemAbstractDTO implements
+		Serializable {
+
+	/**
+	 * UID por defecto.
+	 */
+	private static final long serialVersionUID = 4127750903571204388L;
+
+	/**
+	 * Es la cantidad total de tems del movimiento.
+	 */
+	public int totalItems;
+
+	/**
+	 * Es la cantidad de tems ya procesados.
+	 */
+	public int processedItems;
+
+	/**
+	 * Es la cantidad de tems que se pudieron mover.
+	 */
+	public int movedItems;
+
+	/**
+	 * Contiene los ids de los tems que no se pudieron mover separados por
+	 * comas.
+	 */
+	public String itemsNotMoved;
+
+	/**
+	 * Indica si el movimiento ya termin.
+	 */
+	public boolean finished;
+
+	/**
+	 * Contiene para el id de cada tem procesado el resultado de intentar
+	 * moverlo.
+	 */
+	public Map<String, ItemMovementResultEnum> results;
+
+	/**
+	 * Contiene para el id de cada tem fallido el mensaje del error que se
+	 * produjo al procesarlo.
+	 */
+	public Map<String, String> errors;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param anOid
+	 *            es el oid del movimiento.
+	 * @param aTotal
+	 *            es la cantidad total de tems del movimiento.
+	 * @param aProcessedCount
+	 *            es la cantidad de tems ya procesados.
+	 * @param aMovedCount
+	 *            es la cantidad de tems que se pudieron mover.
+	 * @param someResults
+	 *            es un diccionario que contiene el resultado de cada tem
+	 *            procesado.
+	 * @param someErrors
+	 *            es un diccionario que contiene el mensaje de error de cada
+	 *            tem fallido.
+	 * @param someItemsNotMoved
+	 *            son los ids de los tems no movidos separados por comas.
+	 * @param isFinished
+	 *            indica si el movimiento ya termin.
+	 */
+	public MassiveItemsMovementDTO(String anOid, int aTotal,
+			int aProcessedCount, int aMovedCount,
+			Map<String, ItemMovementResultEnum> someResults,
+			Map<String, String> someErrors, String someItemsNotMoved,
+			boolean isFinished) {
+		this.setOid(anOid);
+		this.setTotalItems(aTotal);
+		this.setProcessedItems(aProcessedCount);
+		this.setMovedItems(aMovedCount);
+		this.setResults(someResults);
+		this.setErrors(someErrors);
+		this.setItemsNotMoved(someItemsNotMoved);
+		this.setFinished(isFinished);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad total de tems del movimiento.
+	 */
+	public int getTotalItems() {
+		return this.totalItems;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad total de tems del movimiento.
+	 */
+	public void setTotalItems(int aNumber) {
+		this.totalItems = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de tems ya procesados.
+	 */
+	public int getProcessedItems() {
+		return this.processedItems;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad de tems ya procesados.
+	 */
+	public void setProcessedItems(int aNumber) {
+		this.processedItems = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de tems que se pudieron mover.
+	 */
+	public int getMovedItems() {
+		return this.movedItems;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad de tems que se pudieron mover.
+	 */
+	public void setMovedItems(int aNumber) {
+		this.movedItems = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return true en caso de que el movimiento haya terminado; false en caso
+	 *         contrario.
+	 */
+	public boolean isFinished() {
+		return this.finished;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aBoolean
+	 *            indica si el movimiento ya termin.
+	 */
+	public void setFinished(boolean aBoolean) {
+		this.finished = aBoolean;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return un diccionario que contiene para el id de cada tem procesado el
+	 *         resultado de intentar moverlo.
+	 */
+	public Map<String, ItemMovementResultEnum> getResults() {
+		return this.results;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param someResults
+	 *            es un diccionario que contiene para el id de cada tem
+	 *            procesado el resultado de intentar moverlo.
+	 */
+	public void setResults(Map<String, ItemMovementResultEnum> someResults) {
+		this.results = someResults;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return un diccionario que contiene para el id de cada tem fallido el
+	 *         mensaje del error que se produjo al procesarlo.
+	 */
+	public Map<String, String> getErrors() {
+		return this.errors;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param someErrors
+	 *            es un diccionario que contiene para el id de cada tem
+	 *            fallido el mensaje del error que se produjo al procesarlo.
+	 */
+	public void setErrors(Map<String, String> someErrors) {
+		this.errors = someErrors;
+	}
+
+	/**
+	 * Recupera los ids de los tems procesados.
+	 * 
+	 * @return una lista con los ids de los tems procesados en el orden en que
+	 *         fueron ingresados.
+	 */
+	public List<String> getItemsIds() {
+		return new ArrayList<String>(this.getResults().keySet());
+	}
+
+	/**
+	 * Recupera el resultado de un tem.
+	 * 
+	 * @param anId
+	 *            es el id del tem.
+	 * @return el resultado del tem o null si todava no fue procesado.
+	 */
+	public ItemMovementResultEnum getResult(String anId) {
+		return this.getResults().get(anId);
+	}
+
+	/**
+	 * Recupera el mensaje de error de un tem.
+	 * 
+	 * @param anId
+	 *            es el id del tem.
+	 * @return el mensaje del error o null si el tem no fall.
+	 */
+	public String getError(String anId) {
+		return this.getErrors().get(anId);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return un string con los ids de los tems no movidos, separados por
+	 *         comas.
+	 */
+	public String getItemsNotMoved() {
+		return this.itemsNotMoved;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param someIds
+	 *            son los ids de los tems no movidos separados por comas.
+	 */
+	public void setItemsNotMoved(String someIds) {
+		this.itemsNotMoved = someIds;
+	}
+
+}
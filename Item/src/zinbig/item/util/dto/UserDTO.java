@@ -14,6 +14,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import zinbig.item.util.security.UserPermissions;
+
 /**
  * Las instancias de esta clase son utilizadas para representar usuarios del
  * sistema. <br>
@@ -58,6 +60,13 @@ public class UserDTO extends AbstractUserDTO implements Serializable {
 	 */
 	protected Collection<OperationDTO> operations;
 
+	/**
+	 * Son los permisos compilados del usuario que permiten verificar si puede
+	 * ejecutar una operacin sin recorrer la coleccin de operaciones. Puede
+	 * ser nulo, en cuyo caso se recorre la coleccin.
+	 */
+	protected UserPermissions permissions;
+
 	/**
 	 * Es el apellido del usuario.
 	 */
@@ -209,6 +218,7 @@ public class UserDTO extends AbstractUserDTO implements Serializable {
 	 */
 	public void setOperations(Collection<OperationDTO> someOperationsDTOs) {
 		this.operations = someOperationsDTOs;
+		this.setPermissions(null);
 	}
 
 	/**
@@ -219,6 +229,31 @@ public class UserDTO extends AbstractUserDTO implements Serializable {
 	 */
 	public void addOperationDto(OperationDTO aDTO) {
 		this.getOperations().add(aDTO);
+		if (this.getPermissions() != null) {
+			this.setPermissions(this.getPermissions().with(aDTO.getName()));
+		}
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return los permisos compilados del usuario, o null si no fueron
+	 *         compilados.
+	 */
+	public UserPermissions getPermissions() {
+		return this.permissions;
+	}
+
+	/**
+	 * Setter.<br>
+	 * Los permisos deben corresponder a las operaciones de este dto, por lo que
+	 * se deben asignar luego de asignar las operaciones.
+	 * 
+	 * @param somePermissions
+	 *            son los permisos compilados del usuario.
+	 */
+	public void setPermissions(UserPermissions somePermissions) {
+		this.permissions = somePermissions;
 	}
 
 	/**
@@ -344,6 +379,10 @@ public class UserDTO extends AbstractUserDTO implements Serializable {
 	 *         false en caso contrario.
 	 */
 	public boolean containsOperationWithName(String aName) {
+		if (this.getPermissions() != null) {
+			return this.getPermissions().contains(aName);
+		}
+
 		Iterator<OperationDTO> iterator = this.getOperations().iterator();
 		OperationDTO dto = null;
 		boolean found = false;
@@ -491,6 +530,7 @@ public class UserDTO extends AbstractUserDTO implements Serializable {
 				operations.remove();
 			}
 		}
+		this.releaseOperationName("VIEW_PROJECT_DASHBOARD");
 
 	}
 
@@ -521,7 +561,7 @@ public class UserDTO extends AbstractUserDTO implements Serializable {
 							"PROJECT_OID",
 							URLEncoder.encode(aProjectDTO.getOid().toString(),
 									"UTF-8"));
-			this.getOperations().add(anOperation);
+			this.addOperationDto(anOperation);
 		} catch (UnsupportedEncodingException e) {
 
 			e.printStackTrace();
@@ -545,7 +585,7 @@ public class UserDTO extends AbstractUserDTO implements Serializable {
 		try {
 			dto.getParameters().put("FILTER_OID",
 					URLEncoder.encode(aFilterDTO.getOid().toString(), "UTF-8"));
-			this.getOperations().add(dto);
+			this.addOperationDto(dto);
 		} catch (Exception e) {
 
 		}
@@ -593,6 +633,28 @@ public class UserDTO extends AbstractUserDTO implements Serializable {
 				operations.remove();
 			}
 		}
+		this.releaseOperationName("FILTER_ITEMS");
+	}
+
+	/**
+	 * Quita de los permisos compilados la operacin con el nombre recibido en
+	 * caso de que ya no quede ningn dto de operacin con ese nombre.
+	 * 
+	 * @param aName
+	 *            es el nombre de la operacin.
+	 */
+	private void releaseOperationName(String aName) {
+		if (this.getPermissions() == null) {
+			return;
+		}
+
+		UserPermissions current = this.getPermissions();
+		this.setPermissions(null);
+		if (this.containsOperationWithName(aName)) {
+			this.setPermissions(current);
+		} else {
+			this.setPermissions(current.without(aName));
+		}
 	}
 
 }
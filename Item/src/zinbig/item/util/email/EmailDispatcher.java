@@ -0,0 +1,556 @@
+/**
+ * Este paquete contiene las definiciones de las estrategias de envo de emails
+ * desde el sistema.
+ * 
+ */
+package zinbig.item.util.email;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Las instancias de esta clase se utilizan para enviar los emails en forma
+ * asincrnica mediante una cola de capacidad limitada y una cantidad fija de
+ * threads que la atienden, en lugar de crear un thread por cada email. <br>
+ * Cada thread toma de la cola varios emails a la vez, une en un nico mensaje
+ * los que tienen el mismo ttulo y contenido, y los enva reutilizando la
+ * conexin con el servidor de salida.<br>
+ * Si la cola est llena se espera un tiempo acotado a que se libere lugar; si
+ * an as no hay lugar, o el despachador no est en ejecucin, el email se
+ * enva en el mismo thread que lo solicit, de modo que ningn email se
+ * descarta.<br>
+ * Esta clase adems mantiene las estadsticas de envo (cantidad de emails en
+ * cola, enviados, fallidos y demora de envo). Los parmetros se configuran
+ * mediante Spring, que adems invoca a los mtodos start y stop.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class EmailDispatcher {
+
+	/**
+	 * Es el log en el que se registran los emails enviados fuera de la cola.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(EmailDispatcher.class);
+
+	/**
+	 * Es la estrategia de envo de emails.
+	 */
+	protected EmailSenderStrategy strategy;
+
+	/**
+	 * Es la cola de emails pendientes de envo.
+	 */
+	protected volatile BlockingQueue<EmailMessage> queue;
+
+	/**
+	 * Indica si los threads que envan los emails estn en ejecucin.
+	 */
+	protected volatile boolean running;
+
+	/**
+	 * Es la coleccin de threads que envan los emails. Solamente se accede a
+	 * esta coleccin en los mtodos sincronizados start y stop.
+	 */
+	protected Collection<EmailSenderThread> workers;
+
+	/**
+	 * Es la capacidad mxima de la cola de emails.
+	 */
+	protected int queueCapacity;
+
+	/**
+	 * Es la cantidad de threads que envan los emails.
+	 */
+	protected int workersCount;
+
+	/**
+	 * Es la cantidad mxima de emails que un thread toma de la cola a la vez.
+	 */
+	protected int batchSize;
+
+	/**
+	 * Es el tiempo mximo (en milisegundos) que se espera a que haya lugar en
+	 * la cola antes de enviar el email en el thread que lo solicit.
+	 */
+	protected long offerTimeout;
+
+	/**
+	 * Es el tiempo mximo (en milisegundos) que se espera a que los threads
+	 * terminen de enviar los emails de la cola al detener el despachador.
+	 */
+	protected long shutdownTimeout;
+
+	/**
+	 * Es el tiempo (en milisegundos) sin emails luego del cual un thread cierra
+	 * su conexin con el servidor de salida.
+	 */
+	protected long idleTimeout;
+
+	/**
+	 * Es la cantidad de destinatarios a los que se envi un email.
+	 */
+	protected AtomicLong sentCount;
+
+	/**
+	 * Es la cantidad de destinatarios a los que no se pudo enviar un email.
+	 */
+	protected AtomicLong failedCount;
+
+	/**
+	 * Es la cantidad de emails que se enviaron en el thread que los solicit
+	 * por estar llena la cola o detenido el despachador.
+	 */
+	protected AtomicLong directCount;
+
+	/**
+	 * Es la cantidad de mensajes enviados al servidor de salida.
+	 */
+	protected AtomicLong messagesCount;
+
+	/**
+	 * Es la suma de las demoras (en milisegundos) desde que se solicit el
+	 * envo de cada email hasta que se envi.
+	 */
+	protected AtomicLong totalLatency;
+
+	/**
+	 * Es la mxima demora (en milisegundos) registrada para un email.
+	 */
+	protected AtomicLong maxLatency;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public EmailDispatcher() {
+		this.setQueueCapacity(1000);
+		this.setWorkersCount(2);
+		this.setBatchSize(20);
+		this.setOfferTimeout(1000);
+		this.setShutdownTimeout(5000);
+		this.setIdleTimeout(30000);
+		this.sentCount = new AtomicLong(0);
+		this.failedCount = new AtomicLong(0);
+		this.directCount = new AtomicLong(0);
+		this.messagesCount = new AtomicLong(0);
+		this.totalLatency = new AtomicLong(0);
+		this.maxLatency = new AtomicLong(0);
+		this.workers = new ArrayList<EmailSenderThread>();
+	}
+
+	/**
+	 * Crea la cola y arranca los threads que envan los emails.
+	 */
+	public synchronized void start() {
+		if (!this.running) {
+			if (this.queue == null) {
+				this.queue = new ArrayBlockingQueue<EmailMessage>(this
+						.getQueueCapacity());
+			}
+			for (int i = 0; i < this.getWorkersCount(); i++) {
+				EmailSenderThread worker = new EmailSenderThread(this);
+				worker.setName("item-email-" + i);
+				worker.setDaemon(true);
+				this.workers.add(worker);
+				worker.start();
+			}
+			this.running = true;
+		}
+	}
+
+	/**
+	 * Detiene los threads que envan los emails. Los emails que an estn en
+	 * la cola se envan antes de finalizar, esperando como mximo el tiempo
+	 * configurado en total; los que los threads no llegaron a enviar se envan
+	 * en el thread que detiene el despachador.
+	 */
+	public synchronized void stop() {
+		this.running = false;
+		for (EmailSenderThread worker : this.workers) {
+			worker.finish();
+		}
+
+		long deadline = System.currentTimeMillis()
+				+ this.getShutdownTimeout();
+		for (EmailSenderThread worker : this.workers) {
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining > 0) {
+				try {
+					worker.join(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		this.workers.clear();
+
+		int pending = this.getQueueDepth();
+		if (pending > 0) {
+			LOGGER.warn("Se envan " + pending
+					+ " emails pendientes al detener el envo de emails.");
+			this.directCount.addAndGet(pending);
+			this.drain();
+		}
+	}
+
+	/**
+	 * Enva en el thread actual todos los emails que quedan en la cola, en
+	 * lotes del tamao configurado.
+	 */
+	protected void drain() {
+		BlockingQueue<EmailMessage> aQueue = this.queue;
+		if (aQueue == null) {
+			return;
+		}
+
+		Collection<EmailMessage> pending = new ArrayList<EmailMessage>();
+		while (aQueue.drainTo(pending, this.getBatchSize()) > 0) {
+			this.send(this.merge(pending));
+			pending.clear();
+		}
+	}
+
+	/**
+	 * Encola un email para ser enviado. Si la cola est llena se espera como
+	 * mximo el tiempo configurado a que se libere lugar; si no lo hay, o el
+	 * despachador no est en ejecucin, el email se enva en el thread actual.
+	 * 
+	 * @param aSubject
+	 *            es el ttulo del email.
+	 * @param aMessage
+	 *            es el contenido del email.
+	 * @param anEmail
+	 *            es la direccin del destinatario.
+	 */
+	public void dispatch(String aSubject, String aMessage, String anEmail) {
+		EmailMessage anEmailMessage = new EmailMessage(aSubject, aMessage,
+				anEmail);
+		BlockingQueue<EmailMessage> aQueue = this.queue;
+		boolean queued = false;
+
+		if (this.running && aQueue != null) {
+			try {
+				queued = aQueue.offer(anEmailMessage, this.getOfferTimeout(),
+						TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			// si el despachador se detuvo mientras se encolaba, puede que la
+			// cola ya se haya vaciado y nadie enve este email.
+			if (queued && !this.running && aQueue.remove(anEmailMessage)) {
+				queued = false;
+			}
+		}
+
+		if (!queued) {
+			this.directCount.incrementAndGet();
+			LOGGER.warn("Se enva el email '" + aSubject + "' para " + anEmail
+					+ " fuera de la cola (cola llena o envo detenido).");
+			this.send(Collections.singletonList(anEmailMessage));
+		}
+	}
+
+	/**
+	 * Toma de la cola el siguiente lote de emails, esperando como mximo el
+	 * tiempo recibido. Los emails del lote que tienen el mismo ttulo y
+	 * contenido se unen en un nico email con varios destinatarios.
+	 * 
+	 * @param aTimeout
+	 *            es el tiempo mximo de espera (en milisegundos).
+	 * @return una coleccin con los emails a enviar, que estar vaca si no
+	 *         llegaron emails durante el tiempo de espera.
+	 * @throws InterruptedException
+	 *             esta excepcin se levanta si se interrumpe la espera.
+	 */
+	protected Collection<EmailMessage> takeBatch(long aTimeout)
+			throws InterruptedException {
+		Collection<EmailMessage> result = new ArrayList<EmailMessage>();
+
+		EmailMessage first = this.queue.poll(aTimeout, TimeUnit.MILLISECONDS);
+		if (first != null) {
+			Collection<EmailMessage> pending = new ArrayList<EmailMessage>();
+			pending.add(first);
+			this.queue.drainTo(pending, this.getBatchSize() - 1);
+
+			result = this.merge(pending);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Une en un nico email con varios destinatarios los emails recibidos que
+	 * tienen el mismo ttulo y contenido.
+	 * 
+	 * @param someMessages
+	 *            es una coleccin con los emails a unir.
+	 * @return una coleccin con los emails resultantes.
+	 */
+	protected Collection<EmailMessage> merge(
+			Collection<EmailMessage> someMessages) {
+		Collection<EmailMessage> result = new ArrayList<EmailMessage>();
+
+		for (EmailMessage anEmailMessage : someMessages) {
+			boolean merged = false;
+			for (EmailMessage aBatchedMessage : result) {
+				if (aBatchedMessage.hasSameContentAs(anEmailMessage)) {
+					aBatchedMessage.addRecipientsOf(anEmailMessage);
+					merged = true;
+					break;
+				}
+			}
+			if (!merged) {
+				result.add(anEmailMessage);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Enva los emails recibidos mediante la estrategia de envo y actualiza
+	 * las estadsticas.
+	 * 
+	 * @param someMessages
+	 *            es una coleccin con los emails a enviar.
+	 */
+	protected void send(Collection<EmailMessage> someMessages) {
+		Collection<EmailMessage> failed = this.getStrategy().sendEmails(
+				someMessages);
+		long now = System.currentTimeMillis();
+
+		for (EmailMessage anEmailMessage : someMessages) {
+			int recipients = anEmailMessage.getRecipients().size();
+			if (failed.contains(anEmailMessage)) {
+				this.failedCount.addAndGet(recipients);
+			} else {
+				this.sentCount.addAndGet(recipients);
+				this.messagesCount.incrementAndGet();
+
+				long latency = now - anEmailMessage.getCreationTime();
+				this.totalLatency.addAndGet(latency * recipients);
+				long max = this.maxLatency.get();
+				while (latency > max
+						&& !this.maxLatency.compareAndSet(max, latency)) {
+					max = this.maxLatency.get();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de emails que esperan en la cola.
+	 */
+	public int getQueueDepth() {
+		return this.queue == null ? 0 : this.queue.size();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de destinatarios a los que se envi un email.
+	 */
+	public long getSentCount() {
+		return this.sentCount.get();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de destinatarios a los que no se pudo enviar un
+	 *         email.
+	 */
+	public long getFailedCount() {
+		return this.failedCount.get();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de emails enviados en el thread que los solicit.
+	 */
+	public long getDirectCount() {
+		return this.directCount.get();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de mensajes enviados al servidor de salida.
+	 */
+	public long getMessagesCount() {
+		return this.messagesCount.get();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la demora promedio (en milisegundos) de envo de los emails.
+	 */
+	public long getAverageLatency() {
+		long sent = this.getSentCount();
+		return sent == 0 ? 0 : this.totalLatency.get() / sent;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la mxima demora (en milisegundos) de envo de un email.
+	 */
+	public long getMaxLatency() {
+		return this.maxLatency.get();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la estrategia de envo de emails.
+	 */
+	public EmailSenderStrategy getStrategy() {
+		return this.strategy;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aStrategy
+	 *            es la estrategia de envo de emails.
+	 */
+	public void setStrategy(EmailSenderStrategy aStrategy) {
+		this.strategy = aStrategy;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la capacidad mxima de la cola de emails.
+	 */
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la capacidad mxima de la cola de emails.
+	 */
+	public void setQueueCapacity(int aNumber) {
+		this.queueCapacity = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de threads que envan los emails.
+	 */
+	public int getWorkersCount() {
+		return this.workersCount;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad de threads que envan los emails.
+	 */
+	public void setWorkersCount(int aNumber) {
+		this.workersCount = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad mxima de emails que se toman de la cola a la vez.
+	 */
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad mxima de emails que se toman de la cola a la
+	 *            vez.
+	 */
+	public void setBatchSize(int aNumber) {
+		this.batchSize = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo mximo de espera para encolar un email.
+	 */
+	public long getOfferTimeout() {
+		return this.offerTimeout;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es el tiempo mximo (en milisegundos) que se espera a que
+	 *            haya lugar en la cola antes de enviar el email en el thread
+	 *            que lo solicit.
+	 */
+	public void setOfferTimeout(long aNumber) {
+		this.offerTimeout = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo mximo de espera para detener el despachador.
+	 */
+	public long getShutdownTimeout() {
+		return this.shutdownTimeout;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es el tiempo mximo de espera (en milisegundos) para que los
+	 *            threads terminen de enviar los emails de la cola al detener
+	 *            el despachador.
+	 */
+	public void setShutdownTimeout(long aNumber) {
+		this.shutdownTimeout = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo de inactividad luego del cual se cierra la conexin.
+	 */
+	public long getIdleTimeout() {
+		return this.idleTimeout;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es el tiempo de inactividad (en milisegundos) luego del cual
+	 *            se cierra la conexin con el servidor de salida.
+	 */
+	public void setIdleTimeout(long aNumber) {
+		this.idleTimeout = aNumber;
+	}
+
+}
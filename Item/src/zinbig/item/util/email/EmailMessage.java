@@ -0,0 +1,126 @@
+/**
+ * Este paquete contiene las definiciones de las estrategias de envo de emails
+ * desde el sistema.
+ * 
+ */
+package zinbig.item.util.email;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Las instancias de esta clase representan un email pendiente de envo. <br>
+ * Un mismo email puede tener varios destinatarios cuando varias notificaciones
+ * comparten el mismo ttulo y contenido, de modo de enviarlas en un nico
+ * mensaje.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class EmailMessage {
+
+	/**
+	 * Es el ttulo del email.
+	 */
+	private String subject;
+
+	/**
+	 * Es el contenido del email.
+	 */
+	private String content;
+
+	/**
+	 * Es la coleccin de direcciones de los destinatarios.
+	 */
+	private Collection<String> recipients;
+
+	/**
+	 * Es el momento en el que se solicit el envo del email.
+	 */
+	private long creationTime;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param aSubject
+	 *            es el ttulo del email.
+	 * @param aContent
+	 *            es el contenido del email.
+	 * @param anEmail
+	 *            es la direccin del destinatario.
+	 */
+	public EmailMessage(String aSubject, String aContent, String anEmail) {
+		this.subject = aSubject;
+		this.content = aContent;
+		this.recipients = new ArrayList<String>();
+		this.recipients.add(anEmail);
+		this.creationTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Verifica si este email tiene el mismo ttulo y contenido que el email
+	 * recibido, en cuyo caso ambos se pueden enviar en un nico mensaje.
+	 * 
+	 * @param aMessage
+	 *            es el email a comparar.
+	 * @return true si ambos emails tienen el mismo ttulo y contenido; false en
+	 *         caso contrario.
+	 */
+	public boolean hasSameContentAs(EmailMessage aMessage) {
+		return this.getSubject().equals(aMessage.getSubject())
+				&& this.getContent().equals(aMessage.getContent());
+	}
+
+	/**
+	 * Agrega a este email los destinatarios del email recibido.
+	 * 
+	 * @param aMessage
+	 *            es el email cuyos destinatarios se deben agregar.
+	 */
+	public void addRecipientsOf(EmailMessage aMessage) {
+		for (String anEmail : aMessage.getRecipients()) {
+			if (!this.recipients.contains(anEmail)) {
+				this.recipients.add(anEmail);
+			}
+		}
+		this.creationTime = Math.min(this.creationTime, aMessage
+				.getCreationTime());
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el ttulo del email.
+	 */
+	public String getSubject() {
+		return this.subject;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el contenido del email.
+	 */
+	public String getContent() {
+		return this.content;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la coleccin de direcciones de los destinatarios.
+	 */
+	public Collection<String> getRecipients() {
+		return this.recipients;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el momento en el que se solicit el envo del email.
+	 */
+	public long getCreationTime() {
+		return this.creationTime;
+	}
+
+}
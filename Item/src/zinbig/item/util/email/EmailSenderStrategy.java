@@ -5,6 +5,8 @@
  */
 package zinbig.item.util.email;
 
+import java.util.Collection;
+
 /**
  * Esta interface define el protocolo bsico que debe implementar toda
  * estrategia de envo de emails desde el sistema a los usuarios.
@@ -26,4 +28,22 @@ public interface EmailSenderStrategy {
 	 */
 	public void sendEmail(String subject, String message, String recipientEmail);
 
+	/**
+	 * Enva un conjunto de emails reutilizando la conexin con el servidor de
+	 * salida. La conexin puede permanecer abierta para los siguientes envos
+	 * del mismo thread hasta que se invoque el mtodo release.
+	 * 
+	 * @param someMessages
+	 *            es una coleccin con los emails a enviar.
+	 * @return una coleccin con los emails que no se pudieron enviar.
+	 */
+	public Collection<EmailMessage> sendEmails(
+			Collection<EmailMessage> someMessages);
+
+	/**
+	 * Libera la conexin con el servidor de salida que mantiene abierta el
+	 * thread actual, si la hubiera.
+	 */
+	public void release();
+
 }
@@ -5,143 +5,113 @@
  */
 package zinbig.item.util.email;
 
+import java.util.Collection;
+
 /**
  * Las instancias de esta clase se utilizan para enviar emails a los usuarios en
- * un thread de ejecucin distinto al de la aplicacin.
+ * un thread de ejecucin distinto al de la aplicacin. <br>
+ * Cada instancia atiende la cola de emails de un EmailDispatcher hasta que se
+ * le indica que finalice, reutilizando la conexin con el servidor de salida
+ * mientras haya emails para enviar y cerrndola cuando la cola permanece vaca.
  * 
  * @author Javier Bazzocco javier.bazzocco@zinbig.com
  * 
  */
 public class EmailSenderThread extends Thread {
-	/**
-	 * Es la estrategia de envo de emails.
-	 */
-	private EmailSenderStrategy strategy;
-
-	/**
-	 * Es el ttulo del administratorEmail.
-	 */
-	private String subject;
 
 	/**
-	 * Es el mensaje que se debe enviar.
+	 * Es el objeto que mantiene la cola de emails pendientes.
 	 */
-	private String message;
+	private EmailDispatcher dispatcher;
 
 	/**
-	 * Es el administratorEmail del receptor.
+	 * Indica si este thread debe finalizar una vez vaciada la cola.
 	 */
-	private String email;
+	private volatile boolean finished;
 
 	/**
 	 * Constructor.
 	 * 
-	 * @param aStrategy
-	 *            es la estrategia de envo de administratorEmail.
-	 * @param aSubject
-	 *            es el ttulo del administratorEmail.
-	 * @param aMessage
-	 *            es el contenido del administratorEmail.
-	 * @param anEmal
-	 *            es la direccin de correo del administratorEmail.
+	 * @param aDispatcher
+	 *            es el objeto que mantiene la cola de emails pendientes.
 	 */
-	public EmailSenderThread(EmailSenderStrategy aStrategy, String aSubject,
-			String aMessage, String anEmal) {
-		this.setEmail(anEmal);
-		this.setSubject(aSubject);
-		this.setMessage(aMessage);
-		this.setStrategy(aStrategy);
+	public EmailSenderThread(EmailDispatcher aDispatcher) {
+		this.setDispatcher(aDispatcher);
+		this.finished = false;
 	}
 
 	/**
 	 * Arranca la ejecucin de este hilo.<br>
-	 * Enva el administratorEmail al usuario.
+	 * Enva los emails de la cola hasta que se le indica que finalice y la
+	 * cola queda vaca.
 	 * 
 	 */
 	@Override
 	public void run() {
 
-		super.run();
-
-		this.getStrategy().sendEmail(this.getSubject(), this.getMessage(),
-				this.getEmail());
-
-	}
-
-	/**
-	 * Getter.
-	 * 
-	 * @return la estrategia de envo de administratorEmail.
-	 */
-	public EmailSenderStrategy getStrategy() {
-		return this.strategy;
-	}
+		EmailDispatcher aDispatcher = this.getDispatcher();
+		try {
+			while (true) {
+				Collection<EmailMessage> batch = null;
+				try {
+					// al finalizar no se espera la llegada de nuevos emails.
+					batch = aDispatcher.takeBatch(this.finished ? 0
+							: aDispatcher.getIdleTimeout());
+				} catch (InterruptedException e) {
+					if (this.finished) {
+						// se interrumpi la espera para vaciar la cola.
+						continue;
+					}
+					Thread.currentThread().interrupt();
+					break;
+				}
+				if (batch.isEmpty()) {
+					// no hay emails: se libera la conexin.
+					aDispatcher.getStrategy().release();
+					if (this.finished) {
+						break;
+					}
+				} else {
+					try {
+						aDispatcher.send(batch);
+					} catch (RuntimeException e) {
+
+						e.printStackTrace();
+					}
+				}
+			}
+		} finally {
+			aDispatcher.getStrategy().release();
+		}
 
-	/**
-	 * Setter.
-	 * 
-	 * @param aStrategy
-	 *            es la estrategia de envo de administratorEmail.
-	 */
-	public void setStrategy(EmailSenderStrategy aStrategy) {
-		this.strategy = aStrategy;
 	}
 
 	/**
-	 * Getter.
-	 * 
-	 * @return el ttulo del administratorEmail.
-	 */
-	public String getSubject() {
-		return this.subject;
-	}
-
-	/**
-	 * Setter.
-	 * 
-	 * @param aSubject
-	 *            es el ttulo del administratorEmail.
-	 */
-	public void setSubject(String aSubject) {
-		this.subject = aSubject;
-	}
-
-	/**
-	 * Getter.
-	 * 
-	 * @return el mensaje que se debe enviar al usuario.
-	 */
-	public String getMessage() {
-		return this.message;
-	}
-
-	/**
-	 * Setter.
-	 * 
-	 * @param aMessage
-	 *            es el mensaje que se debe enviar al usuario.
+	 * Indica a este thread que debe finalizar una vez que la cola quede vaca.
+	 * Si el thread est esperando la llegada de emails se lo despierta.
 	 */
-	public void setMessage(String aMessage) {
-		this.message = aMessage;
+	public void finish() {
+		this.finished = true;
+		this.interrupt();
 	}
 
 	/**
 	 * Getter.
 	 * 
-	 * @return el administratorEmail del destinatario.
+	 * @return el objeto que mantiene la cola de emails pendientes.
 	 */
-	public String getEmail() {
-		return this.email;
+	public EmailDispatcher getDispatcher() {
+		return this.dispatcher;
 	}
 
 	/**
 	 * Setter.
 	 * 
-	 * @param anEmail
-	 *            es el administratorEmail del destinatario.
+	 * @param aDispatcher
+	 *            es el objeto que mantiene la cola de emails pendientes.
 	 */
-	public void setEmail(String anEmail) {
-		this.email = anEmail;
+	public void setDispatcher(EmailDispatcher aDispatcher) {
+		this.dispatcher = aDispatcher;
 	}
 
 }
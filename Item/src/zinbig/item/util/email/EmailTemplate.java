@@ -0,0 +1,192 @@
+/**
+ * Este paquete contiene las definiciones de las estrategias de envo de emails
+ * desde el sistema.
+ * 
+ */
+package zinbig.item.util.email;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Las instancias de esta clase representan un template de email compilado, es
+ * decir dividido en una secuencia de segmentos de texto fijo y de variables de
+ * la forma ${nombre}. <br>
+ * Un template se compila una nica vez y luego se puede generar el contenido
+ * del email en una nica pasada, sin crear una copia del texto por cada
+ * variable reemplazada.<br>
+ * Las instancias son inmutables: el mtodo bind crea un nuevo template en el
+ * que algunas variables (por ejemplo las etiquetas internacionalizadas) quedan
+ * reemplazadas por texto fijo.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class EmailTemplate {
+
+	/**
+	 * Es el builder que reutiliza cada thread para generar los contenidos.
+	 */
+	private static final ThreadLocal<StringBuilder> BUILDERS = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder(4096);
+		}
+	};
+
+	/**
+	 * Contiene los segmentos del template. Cada segmento es un texto fijo o el
+	 * nombre de una variable.
+	 */
+	private final String[] segments;
+
+	/**
+	 * Indica para cada segmento si se trata del nombre de una variable.
+	 */
+	private final boolean[] variables;
+
+	/**
+	 * Es la longitud del texto fijo del template, que se utiliza para estimar
+	 * el tamao del contenido generado.
+	 */
+	private final int fixedLength;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param someSegments
+	 *            son los segmentos del template.
+	 * @param someVariables
+	 *            indica para cada segmento si se trata de una variable.
+	 */
+	private EmailTemplate(List<String> someSegments, List<Boolean> someVariables) {
+		this.segments = new String[someSegments.size()];
+		this.variables = new boolean[someVariables.size()];
+		int length = 0;
+		for (int i = 0; i < this.segments.length; i++) {
+			this.segments[i] = someSegments.get(i);
+			this.variables[i] = someVariables.get(i);
+			if (!this.variables[i]) {
+				length += this.segments[i].length();
+			}
+		}
+		this.fixedLength = length;
+	}
+
+	/**
+	 * Compila el texto de un template.
+	 * 
+	 * @param aText
+	 *            es el texto del template.
+	 * @return el template compilado.
+	 */
+	public static EmailTemplate compile(String aText) {
+		List<String> someSegments = new ArrayList<String>();
+		List<Boolean> someVariables = new ArrayList<Boolean>();
+
+		int index = 0;
+		while (index < aText.length()) {
+			int start = aText.indexOf("${", index);
+			int end = start == -1 ? -1 : aText.indexOf('}', start + 2);
+			if (end == -1) {
+				addSegment(someSegments, someVariables, aText.substring(index),
+						false);
+				break;
+			}
+			addSegment(someSegments, someVariables, aText.substring(index,
+					start), false);
+			addSegment(someSegments, someVariables, aText.substring(start + 2,
+					end), true);
+			index = end + 1;
+		}
+
+		return new EmailTemplate(someSegments, someVariables);
+	}
+
+	/**
+	 * Agrega un segmento a la lista de segmentos, uniendo los textos fijos
+	 * consecutivos.
+	 * 
+	 * @param someSegments
+	 *            es la lista de segmentos.
+	 * @param someVariables
+	 *            es la lista que indica qu segmentos son variables.
+	 * @param aSegment
+	 *            es el segmento a agregar.
+	 * @param isVariable
+	 *            indica si el segmento es una variable.
+	 */
+	private static void addSegment(List<String> someSegments,
+			List<Boolean> someVariables, String aSegment, boolean isVariable) {
+		int last = someSegments.size() - 1;
+
+		if (!isVariable && aSegment.length() == 0) {
+			return;
+		}
+		if (!isVariable && last >= 0 && !someVariables.get(last)) {
+			someSegments.set(last, someSegments.get(last) + aSegment);
+		} else {
+			someSegments.add(aSegment);
+			someVariables.add(isVariable);
+		}
+	}
+
+	/**
+	 * Crea un nuevo template en el que las variables recibidas quedan
+	 * reemplazadas por sus valores como texto fijo. Las variables que no se
+	 * reciben se mantienen.
+	 * 
+	 * @param someValues
+	 *            es un diccionario con los valores de las variables.
+	 * @return un nuevo template.
+	 */
+	public EmailTemplate bind(Map<String, String> someValues) {
+		List<String> someSegments = new ArrayList<String>();
+		List<Boolean> someVariables = new ArrayList<Boolean>();
+
+		for (int i = 0; i < this.segments.length; i++) {
+			if (this.variables[i] && someValues.containsKey(this.segments[i])) {
+				addSegment(someSegments, someVariables, someValues
+						.get(this.segments[i]), false);
+			} else {
+				addSegment(someSegments, someVariables, this.segments[i],
+						this.variables[i]);
+			}
+		}
+
+		return new EmailTemplate(someSegments, someVariables);
+	}
+
+	/**
+	 * Genera el contenido del email en una nica pasada. Las variables que no
+	 * tienen un valor se mantienen con la forma ${nombre}.
+	 * 
+	 * @param someValues
+	 *            es un diccionario con los valores de las variables.
+	 * @return el contenido del email.
+	 */
+	public String render(Map<String, String> someValues) {
+		StringBuilder builder = BUILDERS.get();
+		builder.setLength(0);
+		builder.ensureCapacity(this.fixedLength * 2);
+
+		for (int i = 0; i < this.segments.length; i++) {
+			if (!this.variables[i]) {
+				builder.append(this.segments[i]);
+			} else if (someValues.containsKey(this.segments[i])) {
+				builder.append(someValues.get(this.segments[i]));
+			} else {
+				builder.append("${").append(this.segments[i]).append('}');
+			}
+		}
+
+		String result = builder.toString();
+		if (builder.capacity() > 65536) {
+			// no se retienen builders demasiado grandes.
+			BUILDERS.remove();
+		}
+		return result;
+	}
+
+}
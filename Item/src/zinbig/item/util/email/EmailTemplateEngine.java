@@ -0,0 +1,320 @@
+/**
+ * Este paquete contiene las definiciones de las estrategias de envo de emails
+ * desde el sistema.
+ * 
+ */
+package zinbig.item.util.email;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import zinbig.item.util.i18n.ItemStringResourceLoader;
+
+/**
+ * Las instancias de esta clase se utilizan para obtener los templates de los
+ * emails ya compilados. <br>
+ * Cada archivo de template se lee y compila una nica vez. Adems, para cada
+ * idioma se mantiene una versin del template en la que las etiquetas
+ * internacionalizadas ya estn resueltas, de modo que al enviar un email
+ * solamente se deben completar los datos propios del mismo.<br>
+ * Para poder modificar los templates sin reiniciar la aplicacin, se verifica
+ * peridicamente la fecha de modificacin de cada archivo y, si cambi, se
+ * vuelve a compilar el template y se descartan sus versiones por idioma. Las
+ * versiones por idioma tambin se descartan cuando se recargan los mensajes
+ * internacionalizados.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class EmailTemplateEngine {
+
+	/**
+	 * Es un colaborador que permite recuperar los strings internacionalizados.
+	 */
+	protected ItemStringResourceLoader itemStringResourceLoader;
+
+	/**
+	 * Es el tiempo mnimo (en milisegundos) entre dos verificaciones de la
+	 * fecha de modificacin de un archivo de template.
+	 */
+	protected long checkInterval;
+
+	/**
+	 * Contiene los templates compilados de cada archivo.
+	 */
+	protected ConcurrentMap<String, CompiledFile> files;
+
+	/**
+	 * Contiene los templates con las etiquetas resueltas para cada archivo e
+	 * idioma.
+	 */
+	protected ConcurrentMap<String, EmailTemplate> localizedTemplates;
+
+	/**
+	 * Es la versin de los mensajes internacionalizados con la que se
+	 * resolvieron las etiquetas de los templates por idioma.
+	 */
+	protected volatile long messagesVersion;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public EmailTemplateEngine() {
+		this.files = new ConcurrentHashMap<String, CompiledFile>();
+		this.localizedTemplates = new ConcurrentHashMap<String, EmailTemplate>();
+		this.setCheckInterval(5000);
+	}
+
+	/**
+	 * Obtiene el template de un archivo con las etiquetas resueltas para el
+	 * idioma recibido.
+	 * 
+	 * @param aPath
+	 *            es la ruta completa del archivo de template.
+	 * @param aLocale
+	 *            es el idioma del destinatario.
+	 * @param someLabels
+	 *            es un diccionario que contiene para cada variable del template
+	 *            que representa una etiqueta la clave del string
+	 *            internacionalizado correspondiente.
+	 * @return el template listo para generar el email o null si no se pudo
+	 *         leer el archivo.
+	 */
+	public EmailTemplate getTemplate(String aPath, Locale aLocale,
+			Map<String, String> someLabels) {
+		CompiledFile aFile = this.getCompiledFile(aPath);
+		if (aFile == null) {
+			return null;
+		}
+
+		long version = this.getItemStringResourceLoader().getMessagesVersion();
+		if (version != this.messagesVersion) {
+			// se recargaron los mensajes: las etiquetas resueltas son viejas.
+			this.localizedTemplates.clear();
+			this.messagesVersion = version;
+		}
+
+		String key = aPath + "|" + aLocale + "|" + aFile.getLastModified()
+				+ "|" + version;
+		EmailTemplate result = this.localizedTemplates.get(key);
+		if (result == null) {
+			Map<String, String> values = new HashMap<String, String>();
+			for (Map.Entry<String, String> entry : someLabels.entrySet()) {
+				values.put(entry.getKey(), this.getItemStringResourceLoader()
+						.loadStringResource(null, entry.getValue(), aLocale,
+								null));
+			}
+			result = aFile.getTemplate().bind(values);
+			this.localizedTemplates.put(key, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Obtiene el template compilado de un archivo, compilndolo nuevamente si
+	 * el archivo fue modificado.
+	 * 
+	 * @param aPath
+	 *            es la ruta completa del archivo de template.
+	 * @return el template compilado o null si no se pudo leer el archivo.
+	 */
+	private CompiledFile getCompiledFile(String aPath) {
+		CompiledFile result = this.files.get(aPath);
+		long now = System.currentTimeMillis();
+
+		if (result == null || now - result.getLastCheck() > this.getCheckInterval()) {
+			File aFile = new File(aPath);
+			long lastModified = aFile.lastModified();
+
+			if (result == null || result.getLastModified() != lastModified) {
+				try {
+					CompiledFile newFile = new CompiledFile(EmailTemplate
+							.compile(this.read(aFile)), lastModified, now);
+					if (result != null) {
+						this.discardLocalizedTemplates(aPath);
+					}
+					result = newFile;
+					this.files.put(aPath, result);
+				} catch (IOException e) {
+
+					e.printStackTrace();
+					// se sigue utilizando la ltima versin compilada.
+				}
+			} else {
+				result.setLastCheck(now);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Descarta las versiones por idioma del template de un archivo.
+	 * 
+	 * @param aPath
+	 *            es la ruta completa del archivo de template.
+	 */
+	private void discardLocalizedTemplates(String aPath) {
+		for (String key : this.localizedTemplates.keySet()) {
+			if (key.startsWith(aPath + "|")) {
+				this.localizedTemplates.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Lee el contenido de un archivo de template.
+	 * 
+	 * @param aFile
+	 *            es el archivo a leer.
+	 * @return el contenido del archivo.
+	 * @throws IOException
+	 *             esta excepcin se levanta si no se puede leer el archivo.
+	 */
+	private String read(File aFile) throws IOException {
+		StringBuilder contents = new StringBuilder();
+		String separator = System.getProperty("line.separator");
+
+		BufferedReader input = new BufferedReader(new FileReader(aFile));
+		try {
+			String line = null;
+			while ((line = input.readLine()) != null) {
+				contents.append(line);
+				contents.append(separator);
+			}
+		} finally {
+			input.close();
+		}
+		return contents.toString();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el colaborador que permite recuperar los mensajes
+	 *         internacionalizados.
+	 */
+	public ItemStringResourceLoader getItemStringResourceLoader() {
+		return this.itemStringResourceLoader;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aResourceLoader
+	 *            es el colaborador que permite recuperar los mensajes
+	 *            internacionalizados.
+	 */
+	public void setItemStringResourceLoader(
+			ItemStringResourceLoader aResourceLoader) {
+		this.itemStringResourceLoader = aResourceLoader;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo mnimo entre dos verificaciones de un archivo.
+	 */
+	public long getCheckInterval() {
+		return this.checkInterval;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es el tiempo mnimo (en milisegundos) entre dos
+	 *            verificaciones de un archivo.
+	 */
+	public void setCheckInterval(long aNumber) {
+		this.checkInterval = aNumber;
+	}
+
+	/**
+	 * Las instancias de esta clase representan el template compilado de un
+	 * archivo junto con su fecha de modificacin.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	protected static class CompiledFile {
+
+		/**
+		 * Es el template compilado.
+		 */
+		private final EmailTemplate template;
+
+		/**
+		 * Es la fecha de modificacin del archivo compilado.
+		 */
+		private final long lastModified;
+
+		/**
+		 * Es el momento de la ltima verificacin de la fecha de modificacin.
+		 */
+		private volatile long lastCheck;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param aTemplate
+		 *            es el template compilado.
+		 * @param aDate
+		 *            es la fecha de modificacin del archivo.
+		 * @param aTime
+		 *            es el momento de la verificacin.
+		 */
+		public CompiledFile(EmailTemplate aTemplate, long aDate, long aTime) {
+			this.template = aTemplate;
+			this.lastModified = aDate;
+			this.lastCheck = aTime;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return el template compilado.
+		 */
+		public EmailTemplate getTemplate() {
+			return this.template;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return la fecha de modificacin del archivo compilado.
+		 */
+		public long getLastModified() {
+			return this.lastModified;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return el momento de la ltima verificacin.
+		 */
+		public long getLastCheck() {
+			return this.lastCheck;
+		}
+
+		/**
+		 * Setter.
+		 * 
+		 * @param aTime
+		 *            es el momento de la ltima verificacin.
+		 */
+		public void setLastCheck(long aTime) {
+			this.lastCheck = aTime;
+		}
+	}
+
+}
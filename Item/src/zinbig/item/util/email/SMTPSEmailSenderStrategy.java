@@ -5,14 +5,14 @@
  */
 package zinbig.item.util.email;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Properties;
 
 import javax.mail.Message;
 import javax.mail.MessagingException;
-import javax.mail.NoSuchProviderException;
 import javax.mail.Session;
 import javax.mail.Transport;
-import javax.mail.internet.AddressException;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 
@@ -49,6 +49,18 @@ public class SMTPSEmailSenderStrategy implements EmailSenderStrategy {
 	 */
 	private String smtpAuthPwd;
 
+	/**
+	 * Es la sesin de correo. Se crea una nica vez y es compartida por todos
+	 * los envos.
+	 */
+	private Session mailSession;
+
+	/**
+	 * Mantiene la conexin abierta con el servidor de salida de cada thread,
+	 * para reutilizarla entre envos sucesivos.
+	 */
+	private ThreadLocal<Transport> transports = new ThreadLocal<Transport>();
+
 	/**
 	 * Enva un administratorEmail con el ttulo y contenido recibido.
 	 * 
@@ -63,42 +75,144 @@ public class SMTPSEmailSenderStrategy implements EmailSenderStrategy {
 	public void sendEmail(String subject, String emailContent,
 			String recipientEmail) {
 
+		Collection<EmailMessage> messages = new ArrayList<EmailMessage>();
+		messages.add(new EmailMessage(subject, emailContent, recipientEmail));
+
 		try {
-			Properties props = new Properties();
+			this.sendEmails(messages);
+		} finally {
+			this.release();
+		}
+	}
 
-			props.put("mail.transport.protocol", "smtps");
-			props.put("mail.smtps.host", this.getSmtpHostName());
-			props.put("mail.smtps.auth", "true");
-			props.put("mail.smtps.quitwait", "false");
+	/**
+	 * Enva un conjunto de emails reutilizando la conexin con el servidor de
+	 * salida del thread actual. Si un envo falla sobre una conexin
+	 * reutilizada (por ejemplo porque el servidor la cerr por inactividad) se
+	 * vuelve a conectar y se reintenta una nica vez.<br>
+	 * Los emails con varios destinatarios se envan con copia oculta para no
+	 * revelar las direcciones entre los usuarios.
+	 * 
+	 * @param someMessages
+	 *            es una coleccin con los emails a enviar.
+	 * @return una coleccin con los emails que no se pudieron enviar.
+	 */
+	@Override
+	public Collection<EmailMessage> sendEmails(
+			Collection<EmailMessage> someMessages) {
+		Collection<EmailMessage> failed = new ArrayList<EmailMessage>();
+
+		for (EmailMessage anEmailMessage : someMessages) {
+			try {
+				MimeMessage message = this.createMessage(anEmailMessage);
+				boolean reused = this.transports.get() != null;
+				try {
+					this.send(message);
+				} catch (MessagingException e) {
+					if (!reused) {
+						throw e;
+					}
+					// la conexin reutilizada ya no es vlida.
+					this.release();
+					this.send(message);
+				}
+			} catch (MessagingException e) {
+
+				e.printStackTrace();
+				this.release();
+				failed.add(anEmailMessage);
+			}
+		}
+
+		return failed;
+	}
+
+	/**
+	 * Libera la conexin con el servidor de salida que mantiene abierta el
+	 * thread actual, si la hubiera.
+	 */
+	@Override
+	public void release() {
+		Transport transport = this.transports.get();
+		this.transports.remove();
 
-			Session mailSession = Session.getDefaultInstance(props);
-			mailSession.setDebug(false);
-			Transport transport = mailSession.getTransport();
+		if (transport != null) {
+			try {
+				transport.close();
+			} catch (MessagingException e) {
 
-			MimeMessage message = new MimeMessage(mailSession);
-			message.setSubject(subject);
-			message.setContent(emailContent, "text/html");
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Crea el mensaje correspondiente al email recibido.
+	 * 
+	 * @param anEmailMessage
+	 *            es el email a enviar.
+	 * @return el mensaje listo para ser enviado.
+	 * @throws MessagingException
+	 *             esta excepcin se levanta si alguna direccin no es vlida.
+	 */
+	private MimeMessage createMessage(EmailMessage anEmailMessage)
+			throws MessagingException {
+
+		MimeMessage message = new MimeMessage(this.getMailSession());
+		message.setSubject(anEmailMessage.getSubject());
+		message.setContent(anEmailMessage.getContent(), "text/html");
 
-			message.addRecipient(Message.RecipientType.TO, new InternetAddress(
-					recipientEmail));
+		Message.RecipientType type = Message.RecipientType.TO;
+		if (anEmailMessage.getRecipients().size() > 1) {
+			type = Message.RecipientType.BCC;
+		}
+		for (String anEmail : anEmailMessage.getRecipients()) {
+			message.addRecipient(type, new InternetAddress(anEmail));
+		}
+
+		return message;
+	}
 
+	/**
+	 * Enva un mensaje utilizando la conexin del thread actual, abrindola si
+	 * fuera necesario.
+	 * 
+	 * @param message
+	 *            es el mensaje a enviar.
+	 * @throws MessagingException
+	 *             esta excepcin se levanta si no se pudo enviar el mensaje.
+	 */
+	private void send(MimeMessage message) throws MessagingException {
+		Transport transport = this.transports.get();
+
+		if (transport == null || !transport.isConnected()) {
+			transport = this.getMailSession().getTransport();
 			transport.connect(this.getSmtpHostName(), this.getSmtpHostPort(),
 					this.getSmtpAuthUser(), this.getSmtpAuthPwd());
+			this.transports.set(transport);
+		}
 
-			transport.sendMessage(message, message
-					.getRecipients(Message.RecipientType.TO));
-			transport.close();
-
-		} catch (AddressException e) {
+		transport.sendMessage(message, message.getAllRecipients());
+	}
 
-			e.printStackTrace();
-		} catch (NoSuchProviderException e) {
+	/**
+	 * Getter.
+	 * 
+	 * @return la sesin de correo, crendola la primera vez.
+	 */
+	private synchronized Session getMailSession() {
+		if (this.mailSession == null) {
+			Properties props = new Properties();
 
-			e.printStackTrace();
-		} catch (MessagingException e) {
+			props.put("mail.transport.protocol", "smtps");
+			props.put("mail.smtps.host", this.getSmtpHostName());
+			props.put("mail.smtps.auth", "true");
+			props.put("mail.smtps.quitwait", "false");
 
-			e.printStackTrace();
+			this.mailSession = Session.getInstance(props);
+			this.mailSession.setDebug(false);
 		}
+		return this.mailSession;
 	}
 
 	/**
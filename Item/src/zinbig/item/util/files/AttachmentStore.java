@@ -0,0 +1,413 @@
+/**
+ * Este paquete contiene clases tiles para administrar los archivos que se
+ * adjuntan a los tems.
+ */
+package zinbig.item.util.files;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Las instancias de esta clase almacenan los archivos adjuntos de los tems en
+ * un directorio fuera de la aplicacin web, identificndolos por el hash
+ * SHA-1 de su contenido. <br>
+ * Un mismo contenido adjuntado varias veces (en el mismo o en distintos
+ * tems) se almacena una nica vez. Los archivos se distribuyen en
+ * subdirectorios segn los primeros caracteres del hash para no acumular
+ * miles de archivos en un nico directorio.<br>
+ * Los archivos recibidos se copian con un buffer de tamao fijo a un archivo
+ * temporal mientras se calcula el hash, de modo que nunca se mantiene el
+ * contenido completo en memoria, y luego el archivo temporal se renombra con
+ * su hash.<br>
+ * Los contenidos que ya no estn adjuntos a ningn tem se eliminan mediante
+ * el mensaje delete. Como un contenido puede volver a adjuntarse mientras
+ * tanto, el almacenamiento y la eliminacin de un mismo contenido se excluyen
+ * mutuamente mediante un lock por hash: cada contenido almacenado queda
+ * reservado hasta que el pedido que lo almacen lo libera (release) una vez
+ * registrado el archivo adjunto, o lo descarta (discard) si no se pudo
+ * adjuntar. Un contenido se elimina solamente si no est reservado y, con el
+ * lock tomado, la base de datos confirma que ningn archivo adjunto lo
+ * referencia.<br>
+ * Las reservas se mantienen en memoria, por lo que el directorio no debe ser
+ * compartido por varios nodos.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class AttachmentStore {
+
+	/**
+	 * Es el log en el que se registran los errores al verificar las
+	 * referencias de un contenido.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(AttachmentStore.class);
+
+	/**
+	 * Es la consulta que cuenta los archivos adjuntos que referencian a un
+	 * contenido.
+	 */
+	public static final String REFERENCES_SQL = "select count(*) from item_file where content_hash = ?";
+
+	/**
+	 * Es la cantidad de locks entre los que se reparten los hashes.
+	 */
+	public static final int LOCKS_COUNT = 64;
+
+	/**
+	 * Es el tamao (en bytes) del buffer utilizado para copiar los archivos.
+	 */
+	public static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Es el directorio en el que se almacenan los archivos.
+	 */
+	protected String rootPath;
+
+	/**
+	 * Es la fuente de conexiones utilizada para verificar si un contenido est
+	 * referenciado por algn archivo adjunto.
+	 */
+	protected DataSource dataSource;
+
+	/**
+	 * Son los locks que excluyen el almacenamiento y la eliminacin de un
+	 * mismo contenido. Cada hash utiliza siempre el mismo lock.
+	 */
+	protected Object[] locks;
+
+	/**
+	 * Contiene para el hash de cada contenido reservado la cantidad de
+	 * pedidos que lo almacenaron y todava no lo liberaron. Cada entrada se
+	 * modifica solamente con el lock de su hash tomado.
+	 */
+	protected ConcurrentMap<String, Integer> reservations;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public AttachmentStore() {
+		this.setRootPath(System.getProperty("java.io.tmpdir") + File.separator
+				+ "item-attachments");
+		this.locks = new Object[LOCKS_COUNT];
+		for (int i = 0; i < this.locks.length; i++) {
+			this.locks[i] = new Object();
+		}
+		this.reservations = new ConcurrentHashMap<String, Integer>();
+	}
+
+	/**
+	 * Almacena el contenido recibido. Si ya exista un archivo con el mismo
+	 * contenido no se vuelve a almacenar. El contenido queda reservado hasta
+	 * que se invoque a release o a discard con el descriptor devuelto.
+	 * 
+	 * @param anInputStream
+	 *            es el stream con el contenido del archivo. No se cierra.
+	 * @return el descriptor del contenido almacenado.
+	 * @throws IOException
+	 *             esta excepcin se levanta si no se pudo almacenar el archivo.
+	 */
+	public StoredAttachment store(InputStream anInputStream)
+			throws IOException {
+		File temporaryDirectory = new File(this.getRootPath(), "tmp");
+		temporaryDirectory.mkdirs();
+		File temporaryFile = File.createTempFile("upload", ".tmp",
+				temporaryDirectory);
+
+		try {
+			MessageDigest digest = this.createDigest();
+			long size = 0;
+			FileOutputStream out = new FileOutputStream(temporaryFile);
+			try {
+				byte[] buffer = new byte[BUFFER_SIZE];
+				int count = anInputStream.read(buffer);
+				while (count != -1) {
+					digest.update(buffer, 0, count);
+					out.write(buffer, 0, count);
+					size += count;
+					count = anInputStream.read(buffer);
+				}
+			} finally {
+				out.close();
+			}
+
+			String aHash = this.toHexString(digest.digest());
+			File aFile = this.getFile(aHash);
+			synchronized (this.getLock(aHash)) {
+				if (!aFile.exists()) {
+					aFile.getParentFile().mkdirs();
+					if (!temporaryFile.renameTo(aFile)) {
+						throw new IOException("No se pudo almacenar el archivo "
+								+ aFile.getPath());
+					}
+				}
+				// evita que el contenido se elimine antes de que se registre
+				// el nuevo archivo adjunto.
+				Integer count = this.reservations.get(aHash);
+				this.reservations.put(aHash, count == null ? 1 : count + 1);
+			}
+
+			return new StoredAttachment(aHash, size);
+		} finally {
+			temporaryFile.delete();
+		}
+	}
+
+	/**
+	 * Libera la reserva de un contenido que ya fue registrado como archivo
+	 * adjunto de un tem.
+	 * 
+	 * @param anAttachment
+	 *            es el descriptor del contenido almacenado.
+	 */
+	public void release(StoredAttachment anAttachment) {
+		synchronized (this.getLock(anAttachment.getHash())) {
+			this.removeReservation(anAttachment.getHash());
+		}
+	}
+
+	/**
+	 * Elimina los contenidos recibidos, que ya no estn adjuntos a ningn
+	 * tem. Los contenidos que fueron almacenados nuevamente mientras tanto no
+	 * se eliminan.
+	 * 
+	 * @param someHashes
+	 *            es una coleccin con los hashes de los contenidos.
+	 */
+	public void delete(Collection<String> someHashes) {
+		for (String aHash : someHashes) {
+			if (this.isValidHash(aHash)) {
+				synchronized (this.getLock(aHash)) {
+					this.deleteIfUnreferenced(aHash);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Libera la reserva de un contenido recin almacenado que no se pudo
+	 * adjuntar a su tem y lo elimina si ningn otro archivo adjunto lo
+	 * referencia.
+	 * 
+	 * @param anAttachment
+	 *            es el descriptor del contenido almacenado.
+	 */
+	public void discard(StoredAttachment anAttachment) {
+		synchronized (this.getLock(anAttachment.getHash())) {
+			this.removeReservation(anAttachment.getHash());
+			this.deleteIfUnreferenced(anAttachment.getHash());
+		}
+	}
+
+	/**
+	 * Elimina un contenido si no est reservado y ningn archivo adjunto lo
+	 * referencia. Este mtodo debe invocarse con el lock del hash tomado.
+	 * 
+	 * @param aHash
+	 *            es el hash del contenido.
+	 */
+	protected void deleteIfUnreferenced(String aHash) {
+		if (this.reservations.containsKey(aHash)) {
+			return;
+		}
+
+		try {
+			if (!this.isReferenced(aHash)) {
+				this.getFile(aHash).delete();
+			}
+		} catch (SQLException e) {
+			// ante la duda el contenido se conserva.
+			LOGGER.error("No se pudieron verificar las referencias del "
+					+ "contenido " + aHash + ".", e);
+		}
+	}
+
+	/**
+	 * Verifica en la base de datos si algn archivo adjunto referencia a un
+	 * contenido. La consulta utiliza su propia conexin, por lo que solamente
+	 * considera los archivos adjuntos ya confirmados.
+	 * 
+	 * @param aHash
+	 *            es el hash del contenido.
+	 * @return true en caso de que el contenido est referenciado; false en
+	 *         caso contrario.
+	 * @throws SQLException
+	 *             esta excepcin se levanta si no se pudo ejecutar la
+	 *             consulta.
+	 */
+	protected boolean isReferenced(String aHash) throws SQLException {
+		Connection aConnection = this.getDataSource().getConnection();
+		try {
+			PreparedStatement stmt = aConnection
+					.prepareStatement(REFERENCES_SQL);
+			try {
+				stmt.setString(1, aHash);
+				ResultSet rs = stmt.executeQuery();
+				try {
+					return rs.next() && rs.getInt(1) > 0;
+				} finally {
+					rs.close();
+				}
+			} finally {
+				stmt.close();
+			}
+		} finally {
+			aConnection.close();
+		}
+	}
+
+	/**
+	 * Quita una reserva de un contenido. Este mtodo debe invocarse con el
+	 * lock del hash tomado.
+	 * 
+	 * @param aHash
+	 *            es el hash del contenido.
+	 */
+	protected void removeReservation(String aHash) {
+		Integer count = this.reservations.get(aHash);
+		if (count == null || count <= 1) {
+			this.reservations.remove(aHash);
+		} else {
+			this.reservations.put(aHash, count - 1);
+		}
+	}
+
+	/**
+	 * Recupera el lock que excluye el almacenamiento y la eliminacin de un
+	 * contenido.
+	 * 
+	 * @param aHash
+	 *            es el hash del contenido.
+	 * @return el objeto sobre el que se debe sincronizar.
+	 */
+	protected Object getLock(String aHash) {
+		return this.locks[Integer.parseInt(aHash.substring(0, 2), 16)
+				% this.locks.length];
+	}
+
+	/**
+	 * Recupera el archivo que almacena un contenido.
+	 * 
+	 * @param aHash
+	 *            es el hash del contenido.
+	 * @return el archivo que almacena el contenido (puede no existir).
+	 * @throws IllegalArgumentException
+	 *             esta excepcin se levanta si el hash recibido no es vlido.
+	 */
+	public File getFile(String aHash) {
+		if (!this.isValidHash(aHash)) {
+			throw new IllegalArgumentException(aHash);
+		}
+		return new File(this.getRootPath() + File.separator
+				+ aHash.substring(0, 2) + File.separator
+				+ aHash.substring(2, 4) + File.separator + aHash);
+	}
+
+	/**
+	 * Verifica si un string es un hash vlido. Se utiliza para evitar que se
+	 * acceda a archivos fuera del directorio de almacenamiento.
+	 * 
+	 * @param aHash
+	 *            es el string que se debe verificar.
+	 * @return true en caso de que el string sea un hash SHA-1 en hexadecimal;
+	 *         false en caso contrario.
+	 */
+	public boolean isValidHash(String aHash) {
+		if (aHash == null || aHash.length() != 40) {
+			return false;
+		}
+		for (int i = 0; i < aHash.length(); i++) {
+			if (Character.digit(aHash.charAt(i), 16) == -1
+					|| Character.isUpperCase(aHash.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Crea el objeto que calcula el hash de los contenidos.
+	 * 
+	 * @return el objeto que calcula el hash.
+	 */
+	protected MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Convierte un hash a su representacin hexadecimal.
+	 * 
+	 * @param someBytes
+	 *            son los bytes del hash.
+	 * @return un string con la representacin hexadecimal.
+	 */
+	protected String toHexString(byte[] someBytes) {
+		StringBuffer result = new StringBuffer(someBytes.length * 2);
+		for (int i = 0; i < someBytes.length; i++) {
+			result.append(Character.forDigit((someBytes[i] >> 4) & 0xF, 16));
+			result.append(Character.forDigit(someBytes[i] & 0xF, 16));
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el directorio en el que se almacenan los archivos.
+	 */
+	public String getRootPath() {
+		return this.rootPath;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aPath
+	 *            es el directorio en el que se almacenan los archivos.
+	 */
+	public void setRootPath(String aPath) {
+		this.rootPath = aPath;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la fuente de conexiones utilizada para verificar las
+	 *         referencias de los contenidos.
+	 */
+	public DataSource getDataSource() {
+		return this.dataSource;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aDataSource
+	 *            es la fuente de conexiones utilizada para verificar las
+	 *            referencias de los contenidos.
+	 */
+	public void setDataSource(DataSource aDataSource) {
+		this.dataSource = aDataSource;
+	}
+
+}
@@ -0,0 +1,57 @@
+/**
+ * Este paquete contiene clases tiles para administrar los archivos que se
+ * adjuntan a los tems.
+ */
+package zinbig.item.util.files;
+
+/**
+ * Las instancias de esta clase describen un contenido almacenado por el
+ * almacn de archivos adjuntos.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class StoredAttachment {
+
+	/**
+	 * Es el hash SHA-1 (en hexadecimal) del contenido.
+	 */
+	private final String hash;
+
+	/**
+	 * Es el tamao (en bytes) del contenido.
+	 */
+	private final long size;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param aHash
+	 *            es el hash SHA-1 (en hexadecimal) del contenido.
+	 * @param aSize
+	 *            es el tamao (en bytes) del contenido.
+	 */
+	public StoredAttachment(String aHash, long aSize) {
+		this.hash = aHash;
+		this.size = aSize;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el hash SHA-1 (en hexadecimal) del contenido.
+	 */
+	public String getHash() {
+		return this.hash;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tamao (en bytes) del contenido.
+	 */
+	public long getSize() {
+		return this.size;
+	}
+
+}
@@ -0,0 +1,49 @@
+/**
+ * Este paquete contiene clases tiles para internacionalizar la aplicacin.
+ */
+package zinbig.item.util.i18n;
+
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.BeansException;
+
+import zinbig.item.util.spring.ItemApplicationContext;
+
+/**
+ * Las instancias de esta clase se utilizan para recargar en forma peridica los
+ * mensajes internacionalizados, de modo que los cambios realizados en la base
+ * de datos se reflejen sin necesidad de reiniciar la aplicacin.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class I18NMessagesReloadJob implements Job {
+
+	/**
+	 * Ejecuta esta tarea.
+	 * 
+	 * @param aJobContext
+	 *            es el contexto de ejecucin de la tarea.
+	 * @throws JobExecutionException
+	 *             esta excepcin se levanta en caso de algn error al ejecutar
+	 *             la tarea.
+	 */
+	@Override
+	public void execute(JobExecutionContext aJobContext)
+			throws JobExecutionException {
+
+		try {
+			ItemStringResourceLoader aLoader = (ItemStringResourceLoader) ItemApplicationContext
+					.getApplicationContext()
+					.getBean("itemStringResourceLoader");
+
+			aLoader.reload();
+
+		} catch (BeansException e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}
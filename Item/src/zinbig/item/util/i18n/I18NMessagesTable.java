@@ -0,0 +1,165 @@
+/**
+ * Este paquete contiene clases tiles para internacionalizar la aplicacin.
+ */
+package zinbig.item.util.i18n;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Las instancias de esta clase representan una tabla inmutable con todos los
+ * mensajes internacionalizados, organizados por locale y por clave. <br>
+ * La tabla se construye completamente antes de ser publicada y luego no se
+ * modifica, de modo que puede ser consultada concurrentemente sin
+ * sincronizacin. Para reflejar cambios en los mensajes se construye una nueva
+ * tabla y se reemplaza la anterior.<br>
+ * Los locales se indexan directamente como instancias de {@link Locale}, por
+ * lo que una bsqueda consiste en dos accesos a diccionarios sin crear ningn
+ * objeto. Una clave o un locale inexistentes se resuelven con un acceso
+ * fallido al diccionario, sin levantar excepciones.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class I18NMessagesTable {
+
+	/**
+	 * Contiene para cada locale un diccionario con los mensajes de cada clave.
+	 */
+	private final Map<Locale, Map<String, String>> messages;
+
+	/**
+	 * Es el hash SHA-1 del contenido de todos los mensajes ordenados, que
+	 * permite detectar si los mensajes cambiaron sin depender del orden en el
+	 * que se recuperaron.
+	 */
+	private final String fingerprint;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param someMessages
+	 *            es una coleccin con todos los mensajes internacionalizados.
+	 */
+	public I18NMessagesTable(Collection<I18NMessage> someMessages) {
+		Map<Locale, Map<String, String>> aMap = new HashMap<Locale, Map<String, String>>();
+		List<String> entries = new ArrayList<String>(someMessages.size());
+
+		for (I18NMessage aMessage : someMessages) {
+			Locale aLocale = parseLocale(aMessage.getLocale());
+			Map<String, String> localeMessages = aMap.get(aLocale);
+			if (localeMessages == null) {
+				localeMessages = new HashMap<String, String>();
+				aMap.put(aLocale, localeMessages);
+			}
+			localeMessages.put(aMessage.getMessageKey(), aMessage.getMessage());
+
+			entries.add(aMessage.getLocale() + "\u0000"
+					+ aMessage.getMessageKey() + "\u0000" + aMessage.getMessage());
+		}
+
+		this.messages = aMap;
+		this.fingerprint = digest(entries);
+	}
+
+	/**
+	 * Calcula el hash SHA-1 de un conjunto de mensajes. Los mensajes se ordenan
+	 * previamente, por lo que el resultado no depende del orden en el que se
+	 * recuperaron.
+	 * 
+	 * @param someEntries
+	 *            es una lista con el locale, la clave y el contenido de cada
+	 *            mensaje.
+	 * @return la representacin hexadecimal del hash.
+	 */
+	private static String digest(List<String> someEntries) {
+		Collections.sort(someEntries);
+		try {
+			MessageDigest aDigest = MessageDigest.getInstance("SHA-1");
+			for (String anEntry : someEntries) {
+				aDigest.update(anEntry.getBytes("UTF-8"));
+				aDigest.update((byte) '\n');
+			}
+
+			byte[] someBytes = aDigest.digest();
+			StringBuffer result = new StringBuffer(someBytes.length * 2);
+			for (int i = 0; i < someBytes.length; i++) {
+				result.append(Character.forDigit((someBytes[i] >> 4) & 0xF, 16));
+				result.append(Character.forDigit(someBytes[i] & 0xF, 16));
+			}
+			return result.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Crea una tabla vaca.
+	 * 
+	 * @return una tabla sin mensajes.
+	 */
+	public static I18NMessagesTable empty() {
+		return new I18NMessagesTable(Collections.<I18NMessage> emptyList());
+	}
+
+	/**
+	 * Recupera un mensaje.
+	 * 
+	 * @param aLocale
+	 *            es el locale del mensaje.
+	 * @param key
+	 *            es la clave del mensaje.
+	 * @return el mensaje o la clave recibida en caso de que no exista un
+	 *         mensaje para el locale y la clave.
+	 */
+	public String getMessage(Locale aLocale, String key) {
+		Map<String, String> localeMessages = this.messages.get(aLocale);
+		if (localeMessages == null) {
+			return key;
+		}
+		String result = localeMessages.get(key);
+		return result == null ? key : result;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return un valor que permite detectar cambios en los mensajes.
+	 */
+	public String getFingerprint() {
+		return this.fingerprint;
+	}
+
+	/**
+	 * Convierte la representacin de un locale como string (por ejemplo es o
+	 * es_AR) en una instancia de {@link Locale} equivalente a la que se
+	 * recibe en cada bsqueda.
+	 * 
+	 * @param aString
+	 *            es la representacin del locale.
+	 * @return el locale correspondiente.
+	 */
+	private static Locale parseLocale(String aString) {
+		String[] parts = (aString == null ? "" : aString).split("_", 3);
+
+		switch (parts.length) {
+		case 1:
+			return new Locale(parts[0]);
+		case 2:
+			return new Locale(parts[0], parts[1]);
+		default:
+			return new Locale(parts[0], parts[1], parts[2]);
+		}
+	}
+
+}
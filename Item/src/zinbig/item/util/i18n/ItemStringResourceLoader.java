@@ -4,12 +4,11 @@
 package zinbig.item.util.i18n;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 import org.apache.wicket.Component;
 import org.apache.wicket.resource.loader.IStringResourceLoader;
@@ -25,6 +24,13 @@ import zinbig.item.util.persistence.ItemQuery;
  * Las instancias de esta clase se utilizan para leer de la base de datos los
  * mensajes internacionalizados y cargarlos en memoria para acceder en forma
  * eficiente.<br>
+ * Los mensajes se mantienen en una tabla inmutable que se reemplaza en forma
+ * atmica cada vez que se recargan, por lo que las bsquedas no requieren
+ * sincronizacin. La recarga se ejecuta peridicamente a travs de
+ * {@link I18NMessagesReloadJob}, de modo que los cambios en los mensajes no
+ * requieren reiniciar la aplicacin. Cada vez que se reemplaza la tabla se
+ * incrementa su versin, que utilizan los objetos que mantienen textos ya
+ * traducidos para saber que deben descartarlos.<br>
  * Cada mensaje est asociado con una pgina en particular de la aplicacin.<br>
  * El mtodo preferido es {@link #loadStringResource(Component, String)} donde
  * aComponent es el componente de la pgina que est solicitando el mensaje.
@@ -37,10 +43,28 @@ import zinbig.item.util.persistence.ItemQuery;
 public class ItemStringResourceLoader implements IStringResourceLoader {
 
 	/**
-	 * Mantiene un diccionario con todos los mensajes internacionalizados.
+	 * Es la tabla con todos los mensajes internacionalizados. Se reemplaza
+	 * completamente cada vez que se recargan los mensajes.
 	 */
-	@SuppressWarnings("unchecked")
-	private Map messages;
+	private volatile I18NMessagesTable messages;
+
+	/**
+	 * Es la versin de la tabla de mensajes. Se incrementa cada vez que se
+	 * reemplaza la tabla.
+	 */
+	private volatile long messagesVersion;
+
+	/**
+	 * Es el momento en el que se reemplaz por ltima vez la tabla de
+	 * mensajes, redondeado a segundos.
+	 */
+	private volatile long messagesLastModified;
+
+	/**
+	 * Es el objeto requerido para iniciar sesiones de hibernate a fin de
+	 * recuperar los mensajes persistidos.
+	 */
+	protected SessionFactory sessionFactory;
 
 	/**
 	 * Es una consulta que permite recuperar todos los mensajes
@@ -57,7 +81,7 @@ public class ItemStringResourceLoader implements IStringResourceLoader {
 	/**
 	 * Esta coleccin contiene todos los locales soportados por la aplicacin.
 	 */
-	private Collection<Locale> supportedLocales;
+	private volatile Collection<Locale> supportedLocales;
 
 	/**
 	 * Constructor.
@@ -75,73 +99,80 @@ public class ItemStringResourceLoader implements IStringResourceLoader {
 	 * @param application
 	 *            es la aplicacin que se est configurando con este objeto.
 	 */
-	@SuppressWarnings("unchecked")
 	public ItemStringResourceLoader(SessionFactory aSessionFactory,
 			ItemQuery messagesQuery, ItemQuery localesQuery,
 			ItemApplication application) {
 
 		application.setResourceLoader(this);
+		this.setSessionFactory(aSessionFactory);
 		this.setI18nMessagesQuery(messagesQuery);
 		this.setItemLocalesQuery(localesQuery);
+		this.setMessages(I18NMessagesTable.empty());
+		this.setSupportedLocales(new HashSet<Locale>());
 
-		Session session = aSessionFactory.openSession();
+		this.reload();
+	}
+
+	/**
+	 * Lee nuevamente de la base de datos los mensajes internacionalizados y los
+	 * locales soportados. <br>
+	 * La nueva tabla de mensajes se construye por completo antes de reemplazar
+	 * a la anterior, de modo que las bsquedas concurrentes ven siempre una
+	 * tabla completa. Si los mensajes no cambiaron se mantiene la tabla
+	 * actual.
+	 * 
+	 * @return true en caso de que los mensajes hayan cambiado; false en caso
+	 *         contrario.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean reload() {
+		boolean result = false;
+		Session session = this.getSessionFactory().openSession();
 
 		Transaction tx = null;
 		try {
 			tx = session.beginTransaction();
 
 			// recupera todos los mensajes internacionalizados
-
-			String aQueryString = this.getI18nMessagesQuery().getQueryString();
-			Query query = session.createQuery(aQueryString);
-			List list = query.list();
-
-			Iterator iterator = list.iterator();
-
-			I18NMessage message = null;
-
-			HashMap messagesMap = new HashMap();
-			while (iterator.hasNext()) {
-
-				message = (I18NMessage) iterator.next();
-
-				if (messagesMap.get(message.locale) == null) {
-					messagesMap.put(message.locale, new HashMap());
-				}
-
-				((Map) messagesMap.get(message.locale)).put(message.messageKey,
-						message.message);
-			}
-			this.setMessages(messagesMap);
+			Query query = session.createQuery(this.getI18nMessagesQuery()
+					.getQueryString());
+			I18NMessagesTable aTable = new I18NMessagesTable(
+					(List<I18NMessage>) query.list());
 
 			// recupera las instancias de los locales soportados
-
-			aQueryString = this.getItemLocalesQuery().getQueryString();
-			Query queryLocales = session.createQuery(aQueryString);
-			List listLocales = queryLocales.list();
-
-			Iterator<ItemLocale> iteratorLocales = listLocales.iterator();
-			ItemLocale aLocale = null;
-			Collection<Locale> supportedLocales = new HashSet<Locale>();
+			Query queryLocales = session.createQuery(this
+					.getItemLocalesQuery().getQueryString());
+			Iterator<ItemLocale> iteratorLocales = queryLocales.list()
+					.iterator();
+			Collection<Locale> someLocales = new HashSet<Locale>();
 			while (iteratorLocales.hasNext()) {
-				aLocale = iteratorLocales.next();
-
-				supportedLocales.add(new Locale(aLocale.getLanguageCode()));
+				someLocales.add(new Locale(iteratorLocales.next()
+						.getLanguageCode()));
 			}
 
-			this.setSupportedLocales(supportedLocales);
-
 			tx.commit();
 
+			if (!aTable.getFingerprint().equals(
+					this.getMessages().getFingerprint())) {
+				this.setMessages(aTable);
+				this.messagesLastModified = System.currentTimeMillis()
+						/ 1000 * 1000;
+				this.messagesVersion++;
+				result = true;
+			}
+			this.setSupportedLocales(Collections
+					.unmodifiableCollection(someLocales));
+
 		} catch (Exception e) {
 			e.printStackTrace();
 
 			if (tx != null)
 				tx.rollback();
+		} finally {
 			session.close();
 		}
-		session.disconnect();
 
+		return result;
 	}
 
 	/**
@@ -155,46 +186,54 @@ public class ItemStringResourceLoader implements IStringResourceLoader {
 	 *            es el locale para el cual el mensaje se cre.
 	 * @param aStyle
 	 *            es el estilo que se debe aplicar al mensaje.
-	 * @return el mensaje correspondiente a los parmetros recibidos.
+	 * @return el mensaje correspondiente a los parmetros recibidos o la clave
+	 *         en caso de que no exista.
 	 */
 	@SuppressWarnings("unchecked")
 	@Override
 	public String loadStringResource(Class aClass, String key, Locale aLocale,
 			String aStyle) {
 
-		String result;
-		try {
-
-			result = ((Map) this.getMessages().get(aLocale.toString()))
-					.get(key).toString();
-		} catch (Exception e) {
-			// System.out.println("clave no encontrada " + key);
-
-			result = key;
-		}
-
-		return result;
+		return this.messages.getMessage(aLocale, key);
 	}
 
 	/**
 	 * Getter.
 	 * 
-	 * @return el diccionario de mensajes.
+	 * @return la tabla de mensajes.
 	 */
-	@SuppressWarnings("unchecked")
-	private Map getMessages() {
+	private I18NMessagesTable getMessages() {
 		return this.messages;
 	}
 
 	/**
 	 * Setter.
 	 * 
-	 * @param aMap
-	 *            es el diccionario con los mensajes.
+	 * @param aTable
+	 *            es la tabla con los mensajes.
 	 */
-	@SuppressWarnings("unchecked")
-	private void setMessages(Map aMap) {
-		this.messages = aMap;
+	private void setMessages(I18NMessagesTable aTable) {
+		this.messages = aTable;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la versin de la tabla de mensajes, que cambia cada vez que se
+	 *         recargan mensajes distintos.
+	 */
+	public long getMessagesVersion() {
+		return this.messagesVersion;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el momento en el que se recargaron por ltima vez mensajes
+	 *         distintos, redondeado a segundos.
+	 */
+	public long getMessagesLastModified() {
+		return this.messagesLastModified;
 	}
 
 	/**
@@ -204,24 +243,32 @@ public class ItemStringResourceLoader implements IStringResourceLoader {
 	 *            es el componente al cual se asocia el mensaje.
 	 * @param key
 	 *            es la clave del mensaje que se est buscando.
-	 * @return el mensaje correspondiente.
+	 * @return el mensaje correspondiente o la clave en caso de que no exista.
 	 */
-	@SuppressWarnings("unchecked")
 	@Override
 	public String loadStringResource(Component aComponent, String key) {
 
-		String result;
-		try {
-			result = ((Map) messages.get(aComponent.getLocale().toString()))
-					.get(key).toString();
-		} catch (Exception e) {
-			// System.out.println("clave no encontrada " + key);
+		return this.messages.getMessage(aComponent.getLocale(), key);
 
-			result = key;
-		}
+	}
 
-		return result;
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto requerido para iniciar sesiones de hibernate.
+	 */
+	public SessionFactory getSessionFactory() {
+		return this.sessionFactory;
+	}
 
+	/**
+	 * Setter.
+	 * 
+	 * @param aSessionFactory
+	 *            es el objeto requerido para iniciar sesiones de hibernate.
+	 */
+	public void setSessionFactory(SessionFactory aSessionFactory) {
+		this.sessionFactory = aSessionFactory;
 	}
 
 	/**
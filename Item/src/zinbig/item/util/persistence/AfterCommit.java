@@ -0,0 +1,58 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Esta clase permite postergar la ejecucin de una tarea hasta que la
+ * transaccin actual se confirme. <br>
+ * Se utiliza para actualizar las estructuras que se mantienen en memoria a
+ * partir de los cambios del modelo (cachs, ndices y estadsticas), de modo
+ * que otros threads no vean cambios que todava no fueron confirmados y que
+ * los cambios de una transaccin que se deshace nunca se apliquen.<br>
+ * Si no existe una transaccin activa la tarea se ejecuta inmediatamente.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class AfterCommit {
+
+	/**
+	 * Constructor privado, esta clase no se instancia.
+	 */
+	private AfterCommit() {
+	}
+
+	/**
+	 * Ejecuta la tarea recibida una vez que se confirme la transaccin actual.
+	 * Si la transaccin se deshace la tarea se descarta.
+	 * 
+	 * @param aTask
+	 *            es la tarea que se debe ejecutar.
+	 */
+	public static void execute(final Runnable aTask) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager
+					.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+						@Override
+						public void afterCommit() {
+							try {
+								aTask.run();
+							} catch (RuntimeException e) {
+								// la transaccin ya fue confirmada, por lo que
+								// el error no se propaga.
+								e.printStackTrace();
+							}
+						}
+					});
+		} else {
+			aTask.run();
+		}
+	}
+
+}
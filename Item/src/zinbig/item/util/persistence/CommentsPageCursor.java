@@ -0,0 +1,119 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Las instancias de esta clase se utilizan para recordar la posicin del
+ * listado de comentarios de un tem entre un pedido y el siguiente. <br>
+ * Los comentarios se listan desde el ms reciente al ms antiguo. El cursor
+ * recuerda la clave (fecha de creacin ms oid) del ltimo comentario ledo,
+ * y el repositorio recupera la pgina siguiente buscando los comentarios
+ * anteriores a dicha clave, de modo que leer los comentarios ms antiguos
+ * cueste lo mismo que leer los primeros.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class CommentsPageCursor implements Serializable {
+
+	/**
+	 * UID por defecto para la serializacin.
+	 */
+	private static final long serialVersionUID = 5207360417983315924L;
+
+	/**
+	 * Es la fecha de creacin del ltimo comentario ledo. Es nula si todava
+	 * no se ley ninguna pgina.
+	 */
+	protected Date lastCreationDate;
+
+	/**
+	 * Es el oid del ltimo comentario ledo.
+	 */
+	protected String lastOid;
+
+	/**
+	 * Indica si ya se leyeron todos los comentarios.
+	 */
+	protected boolean exhausted;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public CommentsPageCursor() {
+		this.reset();
+	}
+
+	/**
+	 * Vuelve a posicionar este cursor en el comentario ms reciente.
+	 */
+	public void reset() {
+		this.lastCreationDate = null;
+		this.lastOid = null;
+		this.exhausted = false;
+	}
+
+	/**
+	 * Registra el resultado de la lectura de una pgina.
+	 * 
+	 * @param aDate
+	 *            es la fecha de creacin del ltimo comentario de la pgina.
+	 * @param anOid
+	 *            es el oid del ltimo comentario de la pgina.
+	 * @param complete
+	 *            indica si la pgina se complet. En caso contrario no quedan
+	 *            comentarios por leer.
+	 */
+	public void setLastKey(Date aDate, String anOid, boolean complete) {
+		if (aDate != null) {
+			this.lastCreationDate = aDate;
+			this.lastOid = anOid;
+		}
+		this.exhausted = !complete;
+	}
+
+	/**
+	 * Verifica si este cursor se encuentra en el comentario ms reciente.
+	 * 
+	 * @return true en caso de que todava no se haya ledo ninguna pgina;
+	 *         false en caso contrario.
+	 */
+	public boolean isFirstPage() {
+		return this.getLastCreationDate() == null;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la fecha de creacin del ltimo comentario ledo.
+	 */
+	public Date getLastCreationDate() {
+		return this.lastCreationDate;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el oid del ltimo comentario ledo.
+	 */
+	public String getLastOid() {
+		return this.lastOid;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return true en caso de que ya se hayan ledo todos los comentarios;
+	 *         false en caso contrario.
+	 */
+	public boolean isExhausted() {
+		return this.exhausted;
+	}
+
+}
@@ -0,0 +1,544 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataRetrievalFailureException;
+
+/**
+ * Las instancias de esta clase mantienen en memoria los valores de las
+ * propiedades adicionales dinmicas, indexados por la consulta SQL que los
+ * obtiene y la cantidad mxima de valores. <br>
+ * Cada resultado se conserva durante timeToLive milisegundos. Cuando varios
+ * usuarios piden al mismo tiempo una consulta que no est en memoria, la
+ * consulta se ejecuta una nica vez y todos esperan su resultado. Cuando un
+ * resultado est por vencer (le quedan menos de refreshAheadTime
+ * milisegundos) se sigue entregando pero se vuelve a ejecutar la consulta en
+ * segundo plano, de modo que los pedidos habituales no esperan a la base de
+ * datos.<br>
+ * Cuando un resultado no est en memoria la consulta se ejecuta con la conexin
+ * recibida, es decir con la conexin de la sesin y dentro de la transaccin
+ * del servicio, de modo que un pedido nunca ocupa dos conexiones del pool.
+ * Solamente las actualizaciones en segundo plano, que no tienen una sesin de
+ * Hibernate asociada, obtienen una conexin propia del pool.<br>
+ * Si una consulta alcanza la cantidad mxima de valores se registra una
+ * advertencia en el log, ya que los valores restantes no se muestran.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class DynamicValuesCache {
+
+	/**
+	 * Es el objeto utilizado para registrar las consultas truncadas.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(DynamicValuesCache.class);
+
+	/**
+	 * Es el pool de conexiones utilizado para ejecutar las consultas.
+	 */
+	protected DataSource dataSource;
+
+	/**
+	 * Es el tiempo (en milisegundos) durante el cual se conserva un resultado.
+	 */
+	protected long timeToLive;
+
+	/**
+	 * Es el tiempo (en milisegundos) antes del vencimiento de un resultado a
+	 * partir del cual se lo actualiza en segundo plano.
+	 */
+	protected long refreshAheadTime;
+
+	/**
+	 * Es la cantidad mxima de consultas que se mantienen en memoria.
+	 */
+	protected int maxEntries;
+
+	/**
+	 * Es la cantidad mxima de valores de cada consulta que se utiliza cuando
+	 * la descripcin de propiedad no define una. Si no es positiva no se
+	 * limita la cantidad de valores.
+	 */
+	protected int defaultMaxValues;
+
+	/**
+	 * Contiene los resultados de las consultas indexados por consulta y
+	 * cantidad mxima de valores.
+	 */
+	protected ConcurrentMap<String, DynamicValuesEntry> entries;
+
+	/**
+	 * Contiene las consultas que se estn ejecutando en este momento para que
+	 * los pedidos concurrentes esperen el mismo resultado.
+	 */
+	protected ConcurrentMap<String, FutureTask<List<String>>> loads;
+
+	/**
+	 * Es el servicio que ejecuta las actualizaciones en segundo plano.
+	 */
+	protected ExecutorService executor;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public DynamicValuesCache() {
+		this.entries = new ConcurrentHashMap<String, DynamicValuesEntry>();
+		this.loads = new ConcurrentHashMap<String, FutureTask<List<String>>>();
+		this.setTimeToLive(300000);
+		this.setRefreshAheadTime(60000);
+		this.setMaxEntries(500);
+		this.setDefaultMaxValues(0);
+	}
+
+	/**
+	 * Arranca el thread que actualiza los resultados en segundo plano.
+	 */
+	public synchronized void start() {
+		if (this.executor == null) {
+			final AtomicInteger count = new AtomicInteger(0);
+			this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+				/**
+				 * Crea un thread para actualizar los resultados.
+				 * 
+				 * @param aRunnable
+				 *            es la tarea que debe ejecutar el thread.
+				 * @return el thread creado.
+				 */
+				public Thread newThread(Runnable aRunnable) {
+					Thread aThread = new Thread(aRunnable,
+							"item-dynamic-values-" + count.getAndIncrement());
+					aThread.setDaemon(true);
+					return aThread;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Detiene el thread que actualiza los resultados en segundo plano. Luego de
+	 * detenerse los resultados ya no se actualizan en segundo plano sino que
+	 * se vuelven a consultar al vencer.
+	 */
+	public synchronized void stop() {
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+			this.executor = null;
+		}
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el servicio que ejecuta las actualizaciones en segundo plano, o
+	 *         null si no est arrancado.
+	 */
+	protected synchronized ExecutorService getExecutor() {
+		return this.executor;
+	}
+
+	/**
+	 * Recupera los valores de una propiedad adicional dinmica.
+	 * 
+	 * @param aQuery
+	 *            es la consulta SQL que obtiene los valores.
+	 * @param aMaxValues
+	 *            es la cantidad mxima de valores. Si no es positiva se utiliza
+	 *            la cantidad mxima por defecto.
+	 * @param aConnection
+	 *            es la conexin con la que se ejecuta la consulta si el
+	 *            resultado no est en memoria. No se cierra.
+	 * @return una lista no modificable con los valores.
+	 * @throws DataRetrievalFailureException
+	 *             esta excepcin se levanta si la consulta no se pudo ejecutar.
+	 *             Las consultas fallidas no se conservan.
+	 */
+	public List<String> getValues(String aQuery, int aMaxValues,
+			Connection aConnection) {
+		int maxValues = (aMaxValues > 0) ? aMaxValues : this
+				.getDefaultMaxValues();
+		String key = maxValues + "|" + aQuery.trim();
+
+		DynamicValuesEntry entry = this.entries.get(key);
+		long now = System.currentTimeMillis();
+		if (entry != null && now < entry.getExpiration()) {
+			if (now >= entry.getExpiration() - this.getRefreshAheadTime()) {
+				this.refresh(key, entry, aQuery, maxValues);
+			}
+			return entry.getValues();
+		}
+
+		return this.load(key, aQuery, maxValues, aConnection);
+	}
+
+	/**
+	 * Descarta todos los resultados.
+	 */
+	public void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * Ejecuta una consulta y conserva su resultado. Si otro pedido ya est
+	 * ejecutando la misma consulta se espera su resultado.
+	 * 
+	 * @param aKey
+	 *            es la clave del resultado.
+	 * @param aQuery
+	 *            es la consulta SQL.
+	 * @param aMaxValues
+	 *            es la cantidad mxima de valores.
+	 * @param aConnection
+	 *            es la conexin con la que se ejecuta la consulta.
+	 * @return una lista no modificable con los valores.
+	 */
+	protected List<String> load(final String aKey, final String aQuery,
+			final int aMaxValues, final Connection aConnection) {
+		FutureTask<List<String>> aTask = new FutureTask<List<String>>(
+				new Callable<List<String>>() {
+
+					/**
+					 * Ejecuta la consulta y conserva el resultado.
+					 * 
+					 * @return los valores obtenidos.
+					 * @throws Exception
+					 *             si la consulta no se pudo ejecutar.
+					 */
+					public List<String> call() throws Exception {
+						List<String> result = DynamicValuesCache.this
+								.executeQuery(aConnection, aQuery, aMaxValues);
+						DynamicValuesCache.this.put(aKey, result);
+						return result;
+					}
+				});
+
+		FutureTask<List<String>> running = this.loads.putIfAbsent(aKey, aTask);
+		if (running == null) {
+			running = aTask;
+			try {
+				aTask.run();
+			} finally {
+				this.loads.remove(aKey, aTask);
+			}
+		}
+
+		try {
+			return running.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DataRetrievalFailureException(aQuery, e);
+		} catch (ExecutionException e) {
+			throw new DataRetrievalFailureException(aQuery, e.getCause());
+		}
+	}
+
+	/**
+	 * Actualiza un resultado en segundo plano con una conexin propia del
+	 * pool, salvo que ya se est actualizando o que el thread de
+	 * actualizacin est detenido. Si la actualizacin falla se sigue
+	 * entregando el resultado anterior hasta su vencimiento.
+	 * 
+	 * @param aKey
+	 *            es la clave del resultado.
+	 * @param anEntry
+	 *            es el resultado que se debe actualizar.
+	 * @param aQuery
+	 *            es la consulta SQL.
+	 * @param aMaxValues
+	 *            es la cantidad mxima de valores.
+	 */
+	protected void refresh(final String aKey,
+			final DynamicValuesEntry anEntry, final String aQuery,
+			final int aMaxValues) {
+		ExecutorService anExecutor = this.getExecutor();
+		if (anExecutor == null
+				|| !anEntry.getRefreshing().compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			anExecutor.execute(new Runnable() {
+
+				/**
+				 * Vuelve a ejecutar la consulta.
+				 */
+				public void run() {
+					try {
+						Connection aConnection = DynamicValuesCache.this
+								.getDataSource().getConnection();
+						try {
+							DynamicValuesCache.this.put(aKey,
+									DynamicValuesCache.this.executeQuery(
+											aConnection, aQuery, aMaxValues));
+						} finally {
+							aConnection.close();
+						}
+					} catch (Exception e) {
+						e.printStackTrace();
+						anEntry.getRefreshing().set(false);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			anEntry.getRefreshing().set(false);
+		}
+	}
+
+	/**
+	 * Conserva un resultado. Si se alcanz la cantidad mxima de consultas se
+	 * descartan todos los resultados anteriores.
+	 * 
+	 * @param aKey
+	 *            es la clave del resultado.
+	 * @param someValues
+	 *            son los valores obtenidos.
+	 */
+	protected void put(String aKey, List<String> someValues) {
+		if (this.entries.size() >= this.getMaxEntries()
+				&& !this.entries.containsKey(aKey)) {
+			this.entries.clear();
+		}
+		this.entries.put(aKey, new DynamicValuesEntry(someValues, System
+				.currentTimeMillis()
+				+ this.getTimeToLive()));
+	}
+
+	/**
+	 * Ejecuta una consulta SQL y recupera el valor de la primer columna de
+	 * cada fila.
+	 * 
+	 * @param aConnection
+	 *            es la conexin con la que se ejecuta la consulta. No se
+	 *            cierra.
+	 * @param aQuery
+	 *            es la consulta SQL.
+	 * @param aMaxValues
+	 *            es la cantidad mxima de valores. Si no es positiva no se
+	 *            limita la cantidad de valores.
+	 * @return una lista no modificable con los valores.
+	 * @throws SQLException
+	 *             esta excepcin se levanta si la consulta no se pudo ejecutar.
+	 */
+	protected List<String> executeQuery(Connection aConnection,
+			String aQuery, int aMaxValues) throws SQLException {
+		List<String> result = new ArrayList<String>();
+		Statement stmt = aConnection.createStatement();
+		try {
+			if (aMaxValues > 0) {
+				stmt.setMaxRows(aMaxValues);
+			}
+			ResultSet rs = stmt.executeQuery(aQuery);
+			try {
+				while (rs.next()) {
+					result.add(rs.getString(1));
+				}
+			} finally {
+				rs.close();
+			}
+		} finally {
+			stmt.close();
+		}
+
+		if (aMaxValues > 0 && result.size() >= aMaxValues) {
+			LOGGER.warn("La consulta de valores dinmicos alcanz el mximo de "
+					+ aMaxValues + " valores y puede estar truncada: " + aQuery);
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el pool de conexiones utilizado para ejecutar las consultas.
+	 */
+	public DataSource getDataSource() {
+		return this.dataSource;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aDataSource
+	 *            es el pool de conexiones utilizado para ejecutar las
+	 *            consultas.
+	 */
+	public void setDataSource(DataSource aDataSource) {
+		this.dataSource = aDataSource;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo (en milisegundos) durante el cual se conserva un
+	 *         resultado.
+	 */
+	public long getTimeToLive() {
+		return this.timeToLive;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es el tiempo (en milisegundos) durante el cual se conserva un
+	 *            resultado.
+	 */
+	public void setTimeToLive(long aNumber) {
+		this.timeToLive = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo (en milisegundos) antes del vencimiento de un
+	 *         resultado a partir del cual se lo actualiza en segundo plano.
+	 */
+	public long getRefreshAheadTime() {
+		return this.refreshAheadTime;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es el tiempo (en milisegundos) antes del vencimiento de un
+	 *            resultado a partir del cual se lo actualiza en segundo plano.
+	 */
+	public void setRefreshAheadTime(long aNumber) {
+		this.refreshAheadTime = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad mxima de consultas que se mantienen en memoria.
+	 */
+	public int getMaxEntries() {
+		return this.maxEntries;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad mxima de consultas que se mantienen en
+	 *            memoria.
+	 */
+	public void setMaxEntries(int aNumber) {
+		this.maxEntries = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad mxima de valores de cada consulta que se utiliza
+	 *         cuando la descripcin de propiedad no define una.
+	 */
+	public int getDefaultMaxValues() {
+		return this.defaultMaxValues;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad mxima de valores de cada consulta que se
+	 *            utiliza cuando la descripcin de propiedad no define una.
+	 */
+	public void setDefaultMaxValues(int aNumber) {
+		this.defaultMaxValues = aNumber;
+	}
+
+	/**
+	 * Las instancias de esta clase representan el resultado de una consulta.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	protected static class DynamicValuesEntry {
+
+		/**
+		 * Son los valores obtenidos.
+		 */
+		private final List<String> values;
+
+		/**
+		 * Es el momento (en milisegundos) en el que vence el resultado.
+		 */
+		private final long expiration;
+
+		/**
+		 * Indica si el resultado se est actualizando en segundo plano.
+		 */
+		private final AtomicBoolean refreshing;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param someValues
+		 *            son los valores obtenidos.
+		 * @param anExpiration
+		 *            es el momento (en milisegundos) en el que vence el
+		 *            resultado.
+		 */
+		public DynamicValuesEntry(List<String> someValues, long anExpiration) {
+			this.values = someValues;
+			this.expiration = anExpiration;
+			this.refreshing = new AtomicBoolean(false);
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return los valores obtenidos.
+		 */
+		public List<String> getValues() {
+			return this.values;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return el momento (en milisegundos) en el que vence el resultado.
+		 */
+		public long getExpiration() {
+			return this.expiration;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return el indicador de actualizacin en segundo plano.
+		 */
+		public AtomicBoolean getRefreshing() {
+			return this.refreshing;
+		}
+	}
+
+}
@@ -0,0 +1,432 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+/**
+ * Las instancias de esta clase asignan los nmeros de los tems de cada
+ * proyecto. <br>
+ * Los nmeros se reservan en bloques de blockSize nmeros que se mantienen en
+ * memoria, de modo que slo se accede a la base de datos una vez por bloque.
+ * Cada bloque se reserva en la tabla item_number_sequence con una nica
+ * sentencia de actualizacin, ejecutada en una transaccin propia sobre una
+ * conexin independiente, por lo que el registro slo queda bloqueado durante
+ * la reserva y no durante toda la transaccin que crea el tem. De esta
+ * manera la creacin de tems ya no modifica el proyecto (ni su versin).<br>
+ * Como la transaccin que crea el tem ya tiene tomada una conexin, las
+ * reservas utilizan un pool de conexiones propio y pequeo, de modo que nunca
+ * compiten con las transacciones por las conexiones del pool principal.<br>
+ * La tabla se crea junto con el resto del esquema a partir del mapeo
+ * ItemNumberSequence.hbm.xml. En una base existente se debe crear con:<br>
+ * <code>create table item_number_sequence (OID_PROJECT varchar(255) not null,
+ * last_number integer not null, primary key (OID_PROJECT))</code><br>
+ * Al arrancar (mensaje start) se verifica en los metadatos de la base de datos
+ * que la tabla exista; si no existe el objeto queda deshabilitado y el
+ * repositorio vuelve a numerar los tems a travs del proyecto, partiendo del
+ * mayor nmero ya asignado. Cualquier otro error al verificar la tabla impide
+ * el arranque, ya que numerar a travs del proyecto mientras otros nodos
+ * utilizan la tabla generara nmeros repetidos.<br>
+ * Los nmeros son nicos an con varios nodos de la aplicacin, pero pueden
+ * quedar huecos en la numeracin: los nmeros no utilizados de un bloque se
+ * pierden al detener la aplicacin y los nmeros de los tems cuya
+ * transaccin se cancela no se reutilizan.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class ItemNumberAllocator {
+
+	/**
+	 * Es el objeto utilizado para registrar que la tabla no existe.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(ItemNumberAllocator.class);
+
+	/**
+	 * Es el nombre de la tabla de secuencias.
+	 */
+	private static final String TABLE_NAME = "item_number_sequence";
+
+	/**
+	 * Es la sentencia que reserva un bloque de nmeros.
+	 */
+	private static final String UPDATE_SQL = "update item_number_sequence set last_number = last_number + ? where OID_PROJECT = ?";
+
+	/**
+	 * Es la sentencia que recupera el ltimo nmero reservado.
+	 */
+	private static final String SELECT_SQL = "select last_number from item_number_sequence where OID_PROJECT = ?";
+
+	/**
+	 * Es la sentencia que crea la secuencia de un proyecto.
+	 */
+	private static final String INSERT_SQL = "insert into item_number_sequence (OID_PROJECT, last_number) values (?, ?)";
+
+	/**
+	 * Es el pool de conexiones utilizado para reservar los bloques.
+	 */
+	protected DataSource dataSource;
+
+	/**
+	 * Es la cantidad de nmeros que se reservan en cada acceso a la base de
+	 * datos.
+	 */
+	protected int blockSize;
+
+	/**
+	 * Indica si existe la tabla de secuencias y se pueden asignar nmeros.
+	 */
+	protected volatile boolean available;
+
+	/**
+	 * Contiene el bloque de nmeros en uso de cada proyecto, indexado por el
+	 * oid del proyecto.
+	 */
+	private final ConcurrentMap<String, Block> blocks = new ConcurrentHashMap<String, Block>();
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public ItemNumberAllocator() {
+		this.setBlockSize(20);
+	}
+
+	/**
+	 * Verifica que exista la tabla de secuencias. Si no existe, este objeto
+	 * queda deshabilitado hasta el prximo arranque.
+	 * 
+	 * @throws DataAccessResourceFailureException
+	 *             esta excepcin se levanta si no se pudo verificar la
+	 *             existencia de la tabla.
+	 */
+	public void start() {
+		try {
+			Connection aConnection = this.getDataSource().getConnection();
+			try {
+				this.setAvailable(this.existsTable(aConnection));
+			} finally {
+				aConnection.close();
+			}
+		} catch (SQLException e) {
+			throw new DataAccessResourceFailureException(
+					"No se pudo verificar la existencia de la tabla "
+							+ TABLE_NAME, e);
+		}
+
+		if (!this.isAvailable()) {
+			LOGGER.warn("No existe la tabla " + TABLE_NAME + ", los nmeros "
+					+ "de los tems se asignarn a travs de los proyectos");
+		}
+	}
+
+	/**
+	 * Recupera el ltimo nmero reservado para un proyecto en la tabla de
+	 * secuencias. Se utiliza para que la numeracin a travs del proyecto
+	 * contine a partir de los nmeros asignados por este objeto.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto.
+	 * @return el ltimo nmero reservado, o 0 si la tabla o la secuencia del
+	 *         proyecto no existen.
+	 * @throws DataAccessResourceFailureException
+	 *             esta excepcin se levanta si no se pudo consultar la tabla.
+	 */
+	public int getLastNumber(String aProjectOid) {
+		try {
+			Connection aConnection = this.getDataSource().getConnection();
+			try {
+				if (!this.existsTable(aConnection)) {
+					return 0;
+				}
+
+				PreparedStatement select = aConnection
+						.prepareStatement(SELECT_SQL);
+				try {
+					select.setString(1, aProjectOid);
+					ResultSet rs = select.executeQuery();
+					try {
+						return rs.next() ? rs.getInt(1) : 0;
+					} finally {
+						rs.close();
+					}
+				} finally {
+					select.close();
+				}
+			} finally {
+				aConnection.close();
+			}
+		} catch (SQLException e) {
+			throw new DataAccessResourceFailureException(
+					"No se pudo recuperar el ltimo nmero de tem del proyecto "
+							+ aProjectOid, e);
+		}
+	}
+
+	/**
+	 * Verifica en los metadatos de la base de datos si existe la tabla de
+	 * secuencias. Como algunos motores almacenan los nombres en maysculas, se
+	 * busca la tabla tanto en minsculas como en maysculas.
+	 * 
+	 * @param aConnection
+	 *            es la conexin a la base de datos.
+	 * @return true en caso de que la tabla exista; false en caso contrario.
+	 * @throws SQLException
+	 *             esta excepcin se levanta si no se pudieron consultar los
+	 *             metadatos.
+	 */
+	protected boolean existsTable(Connection aConnection) throws SQLException {
+		DatabaseMetaData metaData = aConnection.getMetaData();
+		String[] names = new String[] { TABLE_NAME, TABLE_NAME.toUpperCase() };
+
+		for (String aName : names) {
+			ResultSet rs = metaData.getTables(null, null, aName,
+					new String[] { "TABLE" });
+			try {
+				if (rs.next()) {
+					return true;
+				}
+			} finally {
+				rs.close();
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Asigna el siguiente nmero de tem de un proyecto.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto.
+	 * @param aLastNumber
+	 *            es el ltimo nmero asignado por el proyecto antes de
+	 *            utilizar este objeto. Slo se utiliza si todava no existe la
+	 *            secuencia del proyecto.
+	 * @return el nmero asignado.
+	 * @throws DataAccessResourceFailureException
+	 *             esta excepcin se levanta si no se pudo reservar un nuevo
+	 *             bloque de nmeros.
+	 */
+	public int nextNumber(String aProjectOid, int aLastNumber) {
+		Block aBlock = this.blocks.get(aProjectOid);
+		if (aBlock == null) {
+			Block newBlock = new Block();
+			aBlock = this.blocks.putIfAbsent(aProjectOid, newBlock);
+			if (aBlock == null) {
+				aBlock = newBlock;
+			}
+		}
+
+		// cada proyecto se sincroniza sobre su propio bloque.
+		synchronized (aBlock) {
+			if (aBlock.next > aBlock.last) {
+				int last = this.reserveBlock(aProjectOid, aLastNumber);
+				aBlock.next = last - this.getBlockSize() + 1;
+				aBlock.last = last;
+			}
+			return aBlock.next++;
+		}
+	}
+
+	/**
+	 * Reserva un nuevo bloque de nmeros en la base de datos.
+	 * 
+	 * @param aProjectOid
+	 *            es el oid del proyecto.
+	 * @param aLastNumber
+	 *            es el nmero a partir del cual se crea la secuencia si no
+	 *            existe.
+	 * @return el ltimo nmero del bloque reservado.
+	 * @throws DataAccessResourceFailureException
+	 *             esta excepcin se levanta si no se pudo reservar el bloque.
+	 */
+	protected int reserveBlock(String aProjectOid, int aLastNumber) {
+		try {
+			Connection aConnection = this.getDataSource().getConnection();
+			try {
+				aConnection.setAutoCommit(false);
+				try {
+					int result = this.reserveBlock(aConnection, aProjectOid,
+							aLastNumber);
+					aConnection.commit();
+					return result;
+				} catch (SQLException e) {
+					aConnection.rollback();
+					throw e;
+				}
+			} finally {
+				aConnection.setAutoCommit(true);
+				aConnection.close();
+			}
+		} catch (SQLException e) {
+			throw new DataAccessResourceFailureException(
+					"No se pudo reservar un bloque de nmeros de tems para el proyecto "
+							+ aProjectOid, e);
+		}
+	}
+
+	/**
+	 * Reserva un nuevo bloque de nmeros utilizando una conexin dada.
+	 * 
+	 * @param aConnection
+	 *            es la conexin, con una transaccin iniciada.
+	 * @param aProjectOid
+	 *            es el oid del proyecto.
+	 * @param aLastNumber
+	 *            es el nmero a partir del cual se crea la secuencia si no
+	 *            existe.
+	 * @return el ltimo nmero del bloque reservado.
+	 * @throws SQLException
+	 *             esta excepcin se levanta si falla alguna de las sentencias.
+	 */
+	private int reserveBlock(Connection aConnection, String aProjectOid,
+			int aLastNumber) throws SQLException {
+		PreparedStatement update = aConnection.prepareStatement(UPDATE_SQL);
+		try {
+			update.setInt(1, this.getBlockSize());
+			update.setString(2, aProjectOid);
+			if (update.executeUpdate() == 0) {
+				// la secuencia del proyecto no existe. si otro nodo la crea al
+				// mismo tiempo el insert falla por la clave primaria y se
+				// vuelve a intentar la reserva.
+				PreparedStatement insert = aConnection
+						.prepareStatement(INSERT_SQL);
+				try {
+					insert.setString(1, aProjectOid);
+					insert.setInt(2, aLastNumber + this.getBlockSize());
+					insert.executeUpdate();
+					return aLastNumber + this.getBlockSize();
+				} catch (SQLException e) {
+					aConnection.rollback();
+					if (update.executeUpdate() == 0) {
+						throw e;
+					}
+				} finally {
+					insert.close();
+				}
+			}
+		} finally {
+			update.close();
+		}
+
+		// la actualizacin mantiene bloqueado el registro hasta el commit,
+		// por lo que el valor ledo es el reservado por esta transaccin.
+		PreparedStatement select = aConnection.prepareStatement(SELECT_SQL);
+		try {
+			select.setString(1, aProjectOid);
+			ResultSet rs = select.executeQuery();
+			try {
+				rs.next();
+				return rs.getInt(1);
+			} finally {
+				rs.close();
+			}
+		} finally {
+			select.close();
+		}
+	}
+
+	/**
+	 * Descarta los bloques en memoria. Los nmeros no utilizados se pierden.
+	 */
+	public void clear() {
+		this.blocks.clear();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el pool de conexiones utilizado para reservar los bloques.
+	 */
+	public DataSource getDataSource() {
+		return this.dataSource;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aDataSource
+	 *            es el pool de conexiones utilizado para reservar los bloques.
+	 */
+	public void setDataSource(DataSource aDataSource) {
+		this.dataSource = aDataSource;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return true en caso de que exista la tabla de secuencias y se puedan
+	 *         asignar nmeros; false en caso contrario.
+	 */
+	public boolean isAvailable() {
+		return this.available;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aBoolean
+	 *            indica si existe la tabla de secuencias y se pueden asignar
+	 *            nmeros.
+	 */
+	public void setAvailable(boolean aBoolean) {
+		this.available = aBoolean;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de nmeros que se reservan en cada acceso a la base
+	 *         de datos.
+	 */
+	public int getBlockSize() {
+		return this.blockSize;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad de nmeros que se reservan en cada acceso a la
+	 *            base de datos.
+	 */
+	public void setBlockSize(int aNumber) {
+		this.blockSize = aNumber;
+	}
+
+	/**
+	 * Las instancias de esta clase representan el bloque de nmeros en uso de
+	 * un proyecto.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	private static class Block {
+
+		/**
+		 * Es el prximo nmero a asignar.
+		 */
+		private int next = 1;
+
+		/**
+		 * Es el ltimo nmero del bloque.
+		 */
+		private int last = 0;
+
+	}
+
+}
@@ -9,7 +9,11 @@ package zinbig.item.util.persistence;
  * representan consultas a la bases de datos en HQL. Las instancias son
  * configuradas e inyectadas a la aplicacin mediante Spring. La consulta
  * propiamente dicha se encuentra definida en el archivo applicationContext.xml.
- * 
+ * <br>
+ * Las consultas sobre datos de referencia (tipos de tems, prioridades,
+ * operaciones, workflows, etc.) pueden indicar una regin de la cache de
+ * consultas de Hibernate, en cuyo caso su resultado se recuerda hasta que se
+ * modifique alguna de las tablas involucradas.
  * 
  * @author Javier Bazzocco javier.bazzocco@zinbig.com
  * 
@@ -31,6 +35,13 @@ public class ItemQuery {
 	 */
 	protected String ordering;
 
+	/**
+	 * Es el nombre de la regin de la cache de consultas en la que se debe
+	 * recordar el resultado de esta consulta. Si es nulo el resultado no se
+	 * recuerda.
+	 */
+	protected String cacheRegion;
+
 	/**
 	 * Constructor.
 	 * 
@@ -97,6 +108,38 @@ public class ItemQuery {
 		return this.propertyForOrdering;
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return el nombre de la regin de la cache de consultas de esta
+	 *         consulta, o null si su resultado no se recuerda.
+	 */
+	public String getCacheRegion() {
+		return this.cacheRegion;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aRegionName
+	 *            es el nombre de la regin de la cache de consultas en la que
+	 *            se debe recordar el resultado de esta consulta.
+	 */
+	public void setCacheRegion(String aRegionName) {
+		this.cacheRegion = aRegionName;
+	}
+
+	/**
+	 * Verifica si el resultado de esta consulta se debe recordar en la cache
+	 * de consultas.
+	 * 
+	 * @return true en caso de que la consulta tenga asignada una regin de la
+	 *         cache; false en caso contrario.
+	 */
+	public boolean isCacheable() {
+		return this.getCacheRegion() != null;
+	}
+
 	/**
 	 * Crea el string completo que se debe utilizar para realizar la consulta.
 	 * 
@@ -132,4 +175,27 @@ public class ItemQuery {
 		return result;
 	}
 
+	/**
+	 * Crea el string completo que se debe utilizar para realizar la consulta
+	 * sin modificar el estado de esta consulta, que es compartida por todos
+	 * los pedidos concurrentes.
+	 * 
+	 * @param aFilterString
+	 *            es el filtro que se debe aplicar a la consulta.
+	 * @param aPropertyName
+	 *            es el nombre de la propiedad por la que hay que ordenar el
+	 *            resultado. Puede ser nulo.
+	 * @param anOrdering
+	 *            es el orden que se debe aplicar al resultado.
+	 * @return un string que contiene la consulta, el filtro y el orden.
+	 */
+	public String createQueryString(String aFilterString,
+			String aPropertyName, String anOrdering) {
+		String result = this.getQueryString() + aFilterString;
+		if (aPropertyName != null) {
+			result = result + " ORDER BY " + aPropertyName + " " + anOrdering;
+		}
+		return result;
+	}
+
 }
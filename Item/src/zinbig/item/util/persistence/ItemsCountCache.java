@@ -0,0 +1,303 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Las instancias de esta clase se utilizan para recordar la cantidad de tems
+ * de cada listado, evitando ejecutar la consulta de conteo cada vez que se
+ * dibuja una pgina. <br>
+ * Las entradas se identifican por el string del filtro normalizado y el
+ * conjunto de proyectos del usuario. Cada vez que se crea, elimina o mueve un
+ * tem se invalidan todas las entradas incrementando un nmero de generacin,
+ * sin necesidad de recorrer el mapa.<br>
+ * Opcionalmente se puede permitir que los listados muy grandes (aquellos cuya
+ * cantidad supera un umbral) utilicen un valor aproximado, es decir un valor
+ * invalidado que no sea ms antiguo que un tiempo mximo configurable.<br>
+ * Los parmetros de esta clase se configuran mediante Spring.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class ItemsCountCache {
+
+	/**
+	 * Es el mapa que contiene las cantidades de tems recordadas.
+	 */
+	protected ConcurrentMap<String, ItemsCountEntry> entries;
+
+	/**
+	 * Es el nmero de generacin actual. Solamente las entradas de la
+	 * generacin actual son exactas.
+	 */
+	protected AtomicLong generation;
+
+	/**
+	 * Es la cantidad mxima de entradas que se mantienen.
+	 */
+	protected int maxEntries;
+
+	/**
+	 * Indica si se permiten cantidades aproximadas para listados grandes.
+	 */
+	protected boolean approximateCounts;
+
+	/**
+	 * Es la cantidad de tems a partir de la cual un listado se considera
+	 * grande y puede utilizar una cantidad aproximada.
+	 */
+	protected int approximateThreshold;
+
+	/**
+	 * Es la antigedad mxima (en milisegundos) que puede tener una cantidad
+	 * aproximada.
+	 */
+	protected long maxStaleness;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public ItemsCountCache() {
+		this.entries = new ConcurrentHashMap<String, ItemsCountEntry>();
+		this.generation = new AtomicLong(0);
+		this.setMaxEntries(1000);
+		this.setApproximateCounts(false);
+		this.setApproximateThreshold(10000);
+		this.setMaxStaleness(60000);
+	}
+
+	/**
+	 * Crea la clave correspondiente a un listado.
+	 * 
+	 * @param aFilterString
+	 *            es el string del filtro del listado.
+	 * @param aProjectsString
+	 *            es el string que contiene los oids de los proyectos del
+	 *            usuario.
+	 * @return la clave que identifica al listado.
+	 */
+	public String createKey(String aFilterString, String aProjectsString) {
+		return aFilterString.trim().replaceAll("\\s+", " ") + "|"
+				+ aProjectsString;
+	}
+
+	/**
+	 * Recupera la cantidad de tems recordada para un listado.
+	 * 
+	 * @param aKey
+	 *            es la clave del listado.
+	 * @return la cantidad de tems del listado o null en caso de que no se
+	 *         tenga una cantidad vlida para el mismo.
+	 */
+	public Integer get(String aKey) {
+		Integer result = null;
+		ItemsCountEntry entry = this.entries.get(aKey);
+
+		if (entry != null) {
+			if (entry.getGeneration() == this.generation.get()) {
+				result = entry.getCount();
+			} else if (this.isApproximateCounts()
+					&& entry.getCount() >= this.getApproximateThreshold()
+					&& System.currentTimeMillis() - entry.getTimestamp() <= this
+							.getMaxStaleness()) {
+				// listado grande: se tolera una cantidad aproximada.
+				result = entry.getCount();
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el nmero de generacin actual. Se debe obtener antes de
+	 *         calcular una cantidad para luego recordarla con el mtodo put.
+	 */
+	public long getGeneration() {
+		return this.generation.get();
+	}
+
+	/**
+	 * Recuerda la cantidad de tems de un listado. Si mientras se calculaba la
+	 * cantidad se produjo una invalidacin, la entrada queda asociada a la
+	 * generacin anterior y por lo tanto no se considera exacta.
+	 * 
+	 * @param aKey
+	 *            es la clave del listado.
+	 * @param aCount
+	 *            es la cantidad de tems del listado.
+	 * @param aGeneration
+	 *            es el nmero de generacin obtenido antes de calcular la
+	 *            cantidad.
+	 */
+	public void put(String aKey, int aCount, long aGeneration) {
+		if (this.entries.size() >= this.getMaxEntries()
+				&& !this.entries.containsKey(aKey)) {
+			this.entries.clear();
+		}
+		this.entries.put(aKey, new ItemsCountEntry(aCount, aGeneration,
+				System.currentTimeMillis()));
+	}
+
+	/**
+	 * Invalida todas las cantidades recordadas. Este mtodo debe ser invocado
+	 * cada vez que se crean, eliminan o mueven tems.
+	 */
+	public void invalidate() {
+		this.generation.incrementAndGet();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad mxima de entradas.
+	 */
+	public int getMaxEntries() {
+		return this.maxEntries;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad mxima de entradas.
+	 */
+	public void setMaxEntries(int aNumber) {
+		this.maxEntries = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return true en caso de que se permitan cantidades aproximadas; false en
+	 *         caso contrario.
+	 */
+	public boolean isApproximateCounts() {
+		return this.approximateCounts;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aBoolean
+	 *            establece si se permiten cantidades aproximadas.
+	 */
+	public void setApproximateCounts(boolean aBoolean) {
+		this.approximateCounts = aBoolean;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad a partir de la cual un listado se considera grande.
+	 */
+	public int getApproximateThreshold() {
+		return this.approximateThreshold;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad a partir de la cual un listado se considera
+	 *            grande.
+	 */
+	public void setApproximateThreshold(int aNumber) {
+		this.approximateThreshold = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la antigedad mxima en milisegundos de una cantidad aproximada.
+	 */
+	public long getMaxStaleness() {
+		return this.maxStaleness;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la antigedad mxima en milisegundos de una cantidad
+	 *            aproximada.
+	 */
+	public void setMaxStaleness(long aNumber) {
+		this.maxStaleness = aNumber;
+	}
+
+	/**
+	 * Las instancias de esta clase representan una cantidad de tems
+	 * recordada.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	protected static class ItemsCountEntry {
+
+		/**
+		 * Es la cantidad de tems.
+		 */
+		private final int count;
+
+		/**
+		 * Es la generacin en la que se calcul la cantidad.
+		 */
+		private final long generation;
+
+		/**
+		 * Es el momento en el que se calcul la cantidad.
+		 */
+		private final long timestamp;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param aCount
+		 *            es la cantidad de tems.
+		 * @param aGeneration
+		 *            es la generacin en la que se calcul la cantidad.
+		 * @param aTimestamp
+		 *            es el momento en el que se calcul la cantidad.
+		 */
+		public ItemsCountEntry(int aCount, long aGeneration, long aTimestamp) {
+			this.count = aCount;
+			this.generation = aGeneration;
+			this.timestamp = aTimestamp;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return la cantidad de tems.
+		 */
+		public int getCount() {
+			return this.count;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return la generacin en la que se calcul la cantidad.
+		 */
+		public long getGeneration() {
+			return this.generation;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return el momento en el que se calcul la cantidad.
+		 */
+		public long getTimestamp() {
+			return this.timestamp;
+		}
+	}
+}
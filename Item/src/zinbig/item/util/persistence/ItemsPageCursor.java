@@ -0,0 +1,303 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+import java.io.Serializable;
+
+/**
+ * Las instancias de esta clase se utilizan para recordar la posicin de un
+ * listado paginado de tems entre un pedido y el siguiente. <br>
+ * En lugar de saltear las primeras N filas (setFirstResult) el repositorio
+ * utiliza la clave de la ltima fila leda (valor de la columna de orden ms el
+ * oid del tem) para continuar el listado a partir de ella, de modo que
+ * recuperar la pgina N cueste lo mismo que recuperar la primera.<br>
+ * Si el cursor no conoce la clave que precede a la pgina pedida (por ejemplo
+ * cuando el usuario salta a una pgina arbitraria) se utiliza el mecanismo
+ * tradicional por desplazamiento.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class ItemsPageCursor implements Serializable {
+
+	/**
+	 * UID por defecto para la serializacin.
+	 */
+	private static final long serialVersionUID = -3874129903344125721L;
+
+	/**
+	 * Es el ndice de la primera fila de la pgina actual.
+	 */
+	protected int firstIndex;
+
+	/**
+	 * Es la cantidad de filas de la pgina actual.
+	 */
+	protected int count;
+
+	/**
+	 * Es el nombre de la propiedad por la que se orden la pgina actual.
+	 */
+	protected String propertyName;
+
+	/**
+	 * Es el orden que se aplic a la pgina actual.
+	 */
+	protected String ordering;
+
+	/**
+	 * Es el string del filtro con el que se recuper la pgina actual.
+	 */
+	protected String filterString;
+
+	/**
+	 * Es el valor de la columna de orden de la fila anterior a la pgina
+	 * actual. Es nulo si la pgina actual es la primera o si no se conoce.
+	 */
+	protected Serializable anchorValue;
+
+	/**
+	 * Es el oid del tem de la fila anterior a la pgina actual.
+	 */
+	protected String anchorOid;
+
+	/**
+	 * Es el valor de la columna de orden de la ltima fila de la pgina actual.
+	 */
+	protected Serializable lastValue;
+
+	/**
+	 * Es el oid del tem de la ltima fila de la pgina actual.
+	 */
+	protected String lastOid;
+
+	/**
+	 * Indica si se conoce la clave de la fila anterior a la pgina actual.
+	 */
+	protected boolean anchorKnown;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public ItemsPageCursor() {
+		this.reset();
+	}
+
+	/**
+	 * Olvida toda la informacin de posicin mantenida por este cursor.
+	 */
+	public void reset() {
+		this.firstIndex = -1;
+		this.count = 0;
+		this.propertyName = null;
+		this.ordering = null;
+		this.filterString = null;
+		this.anchorValue = null;
+		this.anchorOid = null;
+		this.lastValue = null;
+		this.lastOid = null;
+		this.anchorKnown = false;
+	}
+
+	/**
+	 * Posiciona este cursor en la pgina que comienza en el ndice recibido.
+	 * Determina si se conoce la clave de la fila anterior a dicha pgina, es
+	 * decir si se trata de la primera pgina, de la misma pgina que se ley
+	 * la ltima vez o de la pgina siguiente a ella.
+	 * 
+	 * @param aFirstIndex
+	 *            es el ndice de la primera fila de la pgina pedida.
+	 * @param aCount
+	 *            es la cantidad de filas de la pgina pedida.
+	 * @param aPropertyName
+	 *            es el nombre de la propiedad por la que se ordena.
+	 * @param anOrdering
+	 *            es el orden que se aplica (ASC o DESC).
+	 * @param aFilterString
+	 *            es el string del filtro que se aplica al listado.
+	 */
+	public void moveTo(int aFirstIndex, int aCount, String aPropertyName,
+			String anOrdering, String aFilterString) {
+
+		boolean sameListing = this.equalStrings(aPropertyName,
+				this.getPropertyName())
+				&& this.equalStrings(anOrdering, this.getOrdering())
+				&& this.equalStrings(aFilterString, this.getFilterString());
+
+		if (aFirstIndex == 0) {
+			// la primera pgina no necesita clave.
+			this.setAnchor(null, null, true);
+		} else if (sameListing && aFirstIndex == this.getFirstIndex()
+				&& this.isAnchorKnown()) {
+			// se vuelve a leer la misma pgina, se conserva la clave.
+		} else if (sameListing
+				&& aFirstIndex == this.getFirstIndex() + this.getCount()
+				&& this.getLastOid() != null && this.getLastValue() != null) {
+			// se pide la pgina siguiente a la ltima leda.
+			this.setAnchor(this.getLastValue(), this.getLastOid(), true);
+		} else {
+			this.setAnchor(null, null, false);
+		}
+
+		this.firstIndex = aFirstIndex;
+		this.count = aCount;
+		this.propertyName = aPropertyName;
+		this.ordering = anOrdering;
+		this.filterString = aFilterString;
+		this.lastValue = null;
+		this.lastOid = null;
+	}
+
+	/**
+	 * Registra la clave de la ltima fila leda en la pgina actual.
+	 * 
+	 * @param aValue
+	 *            es el valor de la columna de orden de la ltima fila.
+	 * @param anOid
+	 *            es el oid del tem de la ltima fila.
+	 */
+	public void setLastKey(Serializable aValue, String anOid) {
+		this.lastValue = aValue;
+		this.lastOid = anOid;
+	}
+
+	/**
+	 * Verifica si la pgina actual se puede recuperar buscando a partir de una
+	 * clave en lugar de utilizar un desplazamiento.
+	 * 
+	 * @return true en caso de que se conozca la clave de la fila anterior a la
+	 *         pgina actual (o se trate de la primera pgina); false en caso
+	 *         contrario.
+	 */
+	public boolean canSeek() {
+		return this.isAnchorKnown()
+				&& (this.getFirstIndex() == 0 || (this.getAnchorValue() != null && this
+						.getAnchorOid() != null));
+	}
+
+	/**
+	 * Establece la clave de la fila anterior a la pgina actual.
+	 * 
+	 * @param aValue
+	 *            es el valor de la columna de orden.
+	 * @param anOid
+	 *            es el oid del tem.
+	 * @param known
+	 *            indica si la clave es conocida.
+	 */
+	protected void setAnchor(Serializable aValue, String anOid, boolean known) {
+		this.anchorValue = aValue;
+		this.anchorOid = anOid;
+		this.anchorKnown = known;
+	}
+
+	/**
+	 * Compara dos strings que pueden ser nulos.
+	 * 
+	 * @param aString
+	 *            es el primer string.
+	 * @param anotherString
+	 *            es el segundo string.
+	 * @return true si ambos son nulos o iguales; false en caso contrario.
+	 */
+	private boolean equalStrings(String aString, String anotherString) {
+		return aString == null ? anotherString == null : aString
+				.equals(anotherString);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el ndice de la primera fila de la pgina actual.
+	 */
+	public int getFirstIndex() {
+		return this.firstIndex;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de filas de la pgina actual.
+	 */
+	public int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el nombre de la propiedad por la que se ordena.
+	 */
+	public String getPropertyName() {
+		return this.propertyName;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el orden que se aplica.
+	 */
+	public String getOrdering() {
+		return this.ordering;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el string del filtro de la pgina actual.
+	 */
+	public String getFilterString() {
+		return this.filterString;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el valor de la columna de orden de la fila anterior a la pgina
+	 *         actual.
+	 */
+	public Serializable getAnchorValue() {
+		return this.anchorValue;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el oid del tem de la fila anterior a la pgina actual.
+	 */
+	public String getAnchorOid() {
+		return this.anchorOid;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el valor de la columna de orden de la ltima fila leda.
+	 */
+	public Serializable getLastValue() {
+		return this.lastValue;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el oid del tem de la ltima fila leda.
+	 */
+	public String getLastOid() {
+		return this.lastOid;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return true en caso de que se conozca la clave de la fila anterior a la
+	 *         pgina actual; false en caso contrario.
+	 */
+	public boolean isAnchorKnown() {
+		return this.anchorKnown;
+	}
+
+}
@@ -0,0 +1,292 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Las instancias de esta clase representan un ndice invertido en memoria sobre
+ * el texto de los tems (ttulo, descripcin y comentarios). <br>
+ * Para cada sufijo de cada palabra se mantiene el conjunto de oids de los
+ * tems que la contienen, de modo que el filtro por texto se resuelve como un
+ * conjunto de oids candidatos que luego se intersecta en la consulta con el
+ * resto de los componentes del filtro, evitando recorrer toda la tabla de
+ * tems con LIKE.<br>
+ * Como una palabra buscada aparece dentro de una palabra indexada si y slo
+ * si es prefijo de alguno de sus sufijos, cada palabra buscada se resuelve con
+ * un rango del mapa ordenado de sufijos, sin recorrer todo el vocabulario. Un
+ * tem es candidato si contiene todas las palabras buscadas, por lo que los
+ * candidatos incluyen siempre a todos los tems que cumplen la condicin LIKE
+ * '%texto%' del filtro, que luego se evala sobre los candidatos para obtener
+ * el resultado exacto.<br>
+ * El ndice se construye en forma perezosa la primera vez que se lo utiliza y
+ * luego se actualiza incrementalmente, una vez confirmada cada transaccin que
+ * crea, edita, comenta o elimina un tem. Como slo se entera de los cambios
+ * realizados por esta instancia de la aplicacin, solamente debe utilizarse
+ * (authoritative en true) cuando ningn otro nodo ni otra aplicacin modifica
+ * los tems; en caso contrario el filtro se resuelve siempre con LIKE.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class ItemsTextIndex {
+
+	/**
+	 * Es el mapa ordenado que contiene para cada palabra los oids de los tems
+	 * que la contienen.
+	 */
+	protected ConcurrentSkipListMap<String, Set<String>> postings;
+
+	/**
+	 * Es el mapa que contiene para cada tem las palabras indexadas. Se utiliza
+	 * para poder actualizar o eliminar un tem del ndice.
+	 */
+	protected ConcurrentMap<String, Set<String>> documents;
+
+	/**
+	 * Indica si el ndice ya fue construido.
+	 */
+	protected volatile boolean built;
+
+	/**
+	 * Es la cantidad mxima de tems candidatos que puede tener un resultado.
+	 * Si se supera esta cantidad conviene que la base de datos resuelva el
+	 * filtro por texto.
+	 */
+	protected int maxCandidates;
+
+	/**
+	 * Indica si el ndice refleja todos los cambios de los tems, es decir si
+	 * esta instancia de la aplicacin es la nica que modifica los tems.
+	 */
+	protected boolean authoritative;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public ItemsTextIndex() {
+		this.postings = new ConcurrentSkipListMap<String, Set<String>>();
+		this.documents = new ConcurrentHashMap<String, Set<String>>();
+		this.built = false;
+		this.setMaxCandidates(1000);
+		this.setAuthoritative(true);
+	}
+
+	/**
+	 * Agrega o actualiza en el ndice el texto de un tem.
+	 * 
+	 * @param anOid
+	 *            es el oid del tem.
+	 * @param someTexts
+	 *            son los textos del tem (ttulo, descripcin, comentarios).
+	 *            Pueden ser nulos.
+	 */
+	public synchronized void index(String anOid, Collection<String> someTexts) {
+		Set<String> words = new HashSet<String>();
+		for (String aText : someTexts) {
+			words.addAll(this.tokenize(aText));
+		}
+
+		this.remove(anOid);
+
+		for (String aSuffix : this.suffixes(words)) {
+			Set<String> oids = this.postings.get(aSuffix);
+			if (oids == null) {
+				oids = Collections
+						.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+				this.postings.put(aSuffix, oids);
+			}
+			oids.add(anOid);
+		}
+		this.documents.put(anOid, words);
+	}
+
+	/**
+	 * Elimina del ndice a un tem.
+	 * 
+	 * @param anOid
+	 *            es el oid del tem que se debe eliminar.
+	 */
+	public synchronized void remove(String anOid) {
+		Set<String> words = this.documents.remove(anOid);
+		if (words != null) {
+			for (String aSuffix : this.suffixes(words)) {
+				Set<String> oids = this.postings.get(aSuffix);
+				if (oids != null) {
+					oids.remove(anOid);
+					if (oids.isEmpty()) {
+						this.postings.remove(aSuffix);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Elimina todo el contenido del ndice.
+	 */
+	public synchronized void clear() {
+		this.postings.clear();
+		this.documents.clear();
+		this.built = false;
+	}
+
+	/**
+	 * Busca los tems que contienen, como parte de alguna de sus palabras, a
+	 * todas las palabras del texto recibido.
+	 * 
+	 * @param aText
+	 *            es el texto a buscar.
+	 * @return el conjunto de oids de los tems candidatos o null en caso de que
+	 *         el ndice no refleje todos los cambios de los tems, que el texto
+	 *         no contenga palabras que se puedan buscar en el ndice o que el
+	 *         resultado supere la cantidad mxima de candidatos. En todos
+	 *         esos casos el filtro se debe resolver sin candidatos.
+	 */
+	public Set<String> search(String aText) {
+		if (!this.isAuthoritative()) {
+			return null;
+		}
+
+		Set<String> result = null;
+
+		for (String aWord : this.tokenize(aText)) {
+			// los sufijos que comienzan con la palabra forman un rango del
+			// mapa ordenado.
+			Set<String> matches = new HashSet<String>();
+			for (Set<String> oids : this.postings.subMap(aWord, true,
+					aWord + Character.MAX_VALUE, true).values()) {
+				matches.addAll(oids);
+			}
+
+			if (result == null) {
+				result = matches;
+			} else {
+				result.retainAll(matches);
+			}
+			if (result.isEmpty()) {
+				break;
+			}
+		}
+
+		if (result != null && result.size() > this.getMaxCandidates()) {
+			result = null;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Calcula todos los sufijos de las palabras recibidas.
+	 * 
+	 * @param someWords
+	 *            son las palabras.
+	 * @return un conjunto con los sufijos de todas las palabras.
+	 */
+	protected Set<String> suffixes(Set<String> someWords) {
+		Set<String> result = new HashSet<String>();
+		for (String aWord : someWords) {
+			for (int i = 0; i < aWord.length(); i++) {
+				result.add(aWord.substring(i));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Separa un texto en palabras normalizadas en minsculas y sin acentos, ya
+	 * que la comparacin con LIKE de la base de datos puede no distinguir
+	 * maysculas ni acentos.
+	 * 
+	 * @param aText
+	 *            es el texto a separar. Puede ser nulo.
+	 * @return un conjunto con las palabras del texto.
+	 */
+	protected Set<String> tokenize(String aText) {
+		Set<String> result = new HashSet<String>();
+		if (aText != null) {
+			String normalizedText = Normalizer.normalize(
+					aText.toLowerCase(Locale.getDefault()),
+					Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+			for (String aWord : normalizedText.split("[^\\p{L}\\p{N}]+")) {
+				if (aWord.length() > 0) {
+					result.add(aWord);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return true en caso de que el ndice ya haya sido construido; false en
+	 *         caso contrario.
+	 */
+	public boolean isBuilt() {
+		return this.built;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aBoolean
+	 *            establece si el ndice ya fue construido.
+	 */
+	public void setBuilt(boolean aBoolean) {
+		this.built = aBoolean;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return true en caso de que el ndice refleje todos los cambios de los
+	 *         tems; false en caso contrario.
+	 */
+	public boolean isAuthoritative() {
+		return this.authoritative;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aBoolean
+	 *            establece si el ndice refleja todos los cambios de los
+	 *            tems. Debe ser false si varios nodos u otras aplicaciones
+	 *            modifican los tems.
+	 */
+	public void setAuthoritative(boolean aBoolean) {
+		this.authoritative = aBoolean;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad mxima de tems candidatos.
+	 */
+	public int getMaxCandidates() {
+		return this.maxCandidates;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es la cantidad mxima de tems candidatos.
+	 */
+	public void setMaxCandidates(int aNumber) {
+		this.maxCandidates = aNumber;
+	}
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Las instancias de esta clase envuelven al pool de conexiones para medir el
+ * tiempo que se espera para obtener cada conexin. <br>
+ * Las mediciones se registran en el monitor de consultas.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class MonitoredDataSource extends DelegatingDataSource {
+
+	/**
+	 * Es el monitor en el que se registran las esperas.
+	 */
+	protected QueryMonitor queryMonitor;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public MonitoredDataSource() {
+		super();
+	}
+
+	/**
+	 * Obtiene una conexin del pool registrando el tiempo de espera.
+	 * 
+	 * @return una conexin.
+	 * @throws SQLException
+	 *             esta excepcin se levanta si no se pudo obtener la conexin.
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		long before = System.nanoTime();
+		Connection result = super.getConnection();
+		this.getQueryMonitor().recordConnectionWait(System.nanoTime() - before);
+		return result;
+	}
+
+	/**
+	 * Obtiene una conexin del pool registrando el tiempo de espera.
+	 * 
+	 * @param anUsername
+	 *            es el nombre de usuario de la base de datos.
+	 * @param aPassword
+	 *            es la clave del usuario de la base de datos.
+	 * @return una conexin.
+	 * @throws SQLException
+	 *             esta excepcin se levanta si no se pudo obtener la conexin.
+	 */
+	@Override
+	public Connection getConnection(String anUsername, String aPassword)
+			throws SQLException {
+		long before = System.nanoTime();
+		Connection result = super.getConnection(anUsername, aPassword);
+		this.getQueryMonitor().recordConnectionWait(System.nanoTime() - before);
+		return result;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el monitor en el que se registran las esperas.
+	 */
+	public QueryMonitor getQueryMonitor() {
+		return this.queryMonitor;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aMonitor
+	 *            es el monitor en el que se registran las esperas.
+	 */
+	public void setQueryMonitor(QueryMonitor aMonitor) {
+		this.queryMonitor = aMonitor;
+	}
+
+}
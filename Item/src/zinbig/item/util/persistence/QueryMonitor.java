@@ -0,0 +1,420 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
+import org.hibernate.Query;
+import org.hibernate.SessionFactory;
+
+import zinbig.item.misc.HqlToSqlTranslator;
+import zinbig.item.util.spring.ItemApplicationContext;
+
+/**
+ * Las instancias de esta clase registran las mediciones de las consultas que
+ * ejecutan los repositorios y de las esperas para obtener conexiones de la
+ * base de datos. <br>
+ * Los repositorios entregan al monitor cada consulta nombrada que crean y el
+ * monitor devuelve una consulta equivalente que mide el tiempo y la cantidad
+ * de filas de cada ejecucin. Las ejecuciones que superan el tiempo lmite se
+ * registran en el log junto con el SQL que Hibernate genera para la consulta.
+ * La traduccin a SQL se realiza una nica vez por cada string de consulta.<br>
+ * Las mediciones se publican mediante JMX y mediante el servlet de
+ * administracin de consultas.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class QueryMonitor implements QueryMonitorMBean {
+
+	/**
+	 * Es la cantidad mxima de traducciones a SQL que se recuerdan.
+	 */
+	private static final int MAX_TRANSLATIONS = 500;
+
+	/**
+	 * Es el log en el que se registran las consultas lentas.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(QueryMonitor.class);
+
+	/**
+	 * Contiene las mediciones de cada consulta nombrada.
+	 */
+	protected ConcurrentMap<String, QueryStatistics> statistics;
+
+	/**
+	 * Contiene las mediciones de las esperas para obtener conexiones.
+	 */
+	protected volatile QueryStatistics connectionsStatistics;
+
+	/**
+	 * Contiene la traduccin a SQL de cada string de consulta lenta.
+	 */
+	protected ConcurrentMap<String, String> translations;
+
+	/**
+	 * Es el tiempo (en milisegundos) a partir del cual una ejecucin se
+	 * considera lenta.
+	 */
+	protected volatile long slowQueryThreshold;
+
+	/**
+	 * Es el objeto que traduce las consultas HQL a SQL.
+	 */
+	protected HqlToSqlTranslator translator;
+
+	/**
+	 * Indica si el traductor ya tiene asignado el objeto que permite traducir
+	 * las consultas a SQL.
+	 */
+	protected volatile boolean translatorReady;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public QueryMonitor() {
+		this.statistics = new ConcurrentHashMap<String, QueryStatistics>();
+		this.connectionsStatistics = new QueryStatistics("[connections]");
+		this.translations = new ConcurrentHashMap<String, String>();
+		this.slowQueryThreshold = 500;
+		this.translator = new HqlToSqlTranslator();
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aSessionFactory
+	 *            es el objeto que permite traducir las consultas a SQL.
+	 */
+	public void setSessionFactory(SessionFactory aSessionFactory) {
+		this.translator.setSessionFactory(aSessionFactory);
+		this.translatorReady = true;
+	}
+
+	/**
+	 * Crea una consulta que mide cada una de sus ejecuciones.
+	 * 
+	 * @param aName
+	 *            es el nombre de la consulta.
+	 * @param aQuery
+	 *            es la consulta de hibernate.
+	 * @return una consulta equivalente a la recibida.
+	 */
+	public Query monitor(String aName, Query aQuery) {
+		return (Query) Proxy.newProxyInstance(Query.class.getClassLoader(),
+				new Class[] { Query.class }, new MonitoredQueryHandler(this,
+						aName, aQuery));
+	}
+
+	/**
+	 * Registra una ejecucin de una consulta. Si la ejecucin super el tiempo
+	 * lmite se registra en el log.
+	 * 
+	 * @param aName
+	 *            es el nombre de la consulta.
+	 * @param aQueryString
+	 *            es el string HQL de la consulta.
+	 * @param anElapsedTime
+	 *            es el tiempo (en nanosegundos) de la ejecucin.
+	 * @param aRowsCount
+	 *            es la cantidad de filas obtenidas, o un nmero negativo si no
+	 *            se conoce.
+	 */
+	public void record(String aName, String aQueryString, long anElapsedTime,
+			int aRowsCount) {
+		QueryStatistics queryStatistics = this.statistics.get(aName);
+		if (queryStatistics == null) {
+			this.statistics.putIfAbsent(aName, new QueryStatistics(aName));
+			queryStatistics = this.statistics.get(aName);
+		}
+		queryStatistics.record(anElapsedTime, aRowsCount);
+
+		long millis = anElapsedTime / 1000000L;
+		if (millis >= this.getSlowQueryThreshold()) {
+			LOGGER.warn("consulta lenta [" + aName + "] " + millis + " ms, "
+					+ aRowsCount + " filas: " + this.translate(aQueryString));
+		}
+	}
+
+	/**
+	 * Registra una espera para obtener una conexin.
+	 * 
+	 * @param anElapsedTime
+	 *            es el tiempo (en nanosegundos) de la espera.
+	 */
+	public void recordConnectionWait(long anElapsedTime) {
+		this.connectionsStatistics.record(anElapsedTime, -1);
+	}
+
+	/**
+	 * Traduce una consulta HQL a SQL. Si la consulta no se puede traducir se
+	 * devuelve el string HQL.
+	 * 
+	 * @param aQueryString
+	 *            es el string HQL de la consulta.
+	 * @return el SQL de la consulta.
+	 */
+	protected String translate(String aQueryString) {
+		String result = this.translations.get(aQueryString);
+		if (result == null) {
+			try {
+				if (!this.translatorReady) {
+					// el pool de conexiones depende de este monitor, por lo que
+					// el session factory no se puede inyectar al crearlo.
+					this.setSessionFactory((SessionFactory) ItemApplicationContext
+							.getApplicationContext().getBean("sessionFactory"));
+				}
+				result = this.translator.toSql(aQueryString);
+			} catch (Exception e) {
+				result = aQueryString;
+			}
+			if (this.translations.size() < MAX_TRANSLATIONS) {
+				this.translations.put(aQueryString, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Recupera las mediciones de las consultas ordenadas por tiempo total
+	 * descendente.
+	 * 
+	 * @return una lista con las mediciones.
+	 */
+	public List<QueryStatistics> getStatistics() {
+		List<QueryStatistics> result = new ArrayList<QueryStatistics>(
+				this.statistics.values());
+		Collections.sort(result, new Comparator<QueryStatistics>() {
+
+			/**
+			 * Compara las mediciones por tiempo total descendente.
+			 * 
+			 * @param first
+			 *            es la primera medicin.
+			 * @param second
+			 *            es la segunda medicin.
+			 * @return el resultado de la comparacin.
+			 */
+			public int compare(QueryStatistics first, QueryStatistics second) {
+				return new Long(second.getTotalTime()).compareTo(new Long(
+						first.getTotalTime()));
+			}
+
+		});
+		return result;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo (en milisegundos) a partir del cual una ejecucin se
+	 *         considera lenta y se registra en el log.
+	 */
+	public long getSlowQueryThreshold() {
+		return this.slowQueryThreshold;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es el tiempo (en milisegundos) a partir del cual una ejecucin
+	 *            se considera lenta y se registra en el log.
+	 */
+	public void setSlowQueryThreshold(long aNumber) {
+		this.slowQueryThreshold = aNumber;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return los nombres de las consultas que tienen mediciones.
+	 */
+	public String[] getQueryNames() {
+		Collection<String> names = this.statistics.keySet();
+		return names.toArray(new String[names.size()]);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de conexiones obtenidas.
+	 */
+	public long getConnectionsCount() {
+		return this.connectionsStatistics.getExecutions();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo promedio (en milisegundos) de espera para obtener una
+	 *         conexin.
+	 */
+	public double getConnectionAverageWaitTime() {
+		return this.connectionsStatistics.getAverageTime();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo mximo (en milisegundos) de espera para obtener una
+	 *         conexin.
+	 */
+	public long getConnectionMaxWaitTime() {
+		return this.connectionsStatistics.getMaxTime();
+	}
+
+	/**
+	 * Arma un reporte de texto con las mediciones de todas las consultas y de
+	 * las esperas de conexiones. Cada lnea contiene el nombre, la cantidad de
+	 * ejecuciones, el tiempo promedio y mximo, la cantidad de filas y el
+	 * histograma, separados por tabulaciones.
+	 * 
+	 * @return el reporte.
+	 */
+	public String createReport() {
+		StringBuffer result = new StringBuffer(
+				"query\texecutions\tavg ms\tmax ms\trows\thistogram (ms <=");
+		for (int i = 0; i < QueryStatistics.HISTOGRAM_LIMITS.length; i++) {
+			result.append(" ").append(QueryStatistics.HISTOGRAM_LIMITS[i]);
+		}
+		result.append(" +)\n");
+
+		for (QueryStatistics queryStatistics : this.getStatistics()) {
+			result.append(queryStatistics.createReportLine()).append("\n");
+		}
+		result.append(this.connectionsStatistics.createReportLine()).append(
+				"\n");
+		return result.toString();
+	}
+
+	/**
+	 * Descarta todas las mediciones.
+	 */
+	public void reset() {
+		this.statistics.clear();
+		this.connectionsStatistics = new QueryStatistics("[connections]");
+	}
+
+	/**
+	 * Esta clase intercepta los mtodos que ejecutan una consulta para medir su
+	 * tiempo y la cantidad de filas obtenidas. Los mtodos que devuelven la
+	 * propia consulta (por ejemplo los que asignan parmetros) devuelven la
+	 * consulta monitoreada para que las ejecuciones encadenadas tambin se
+	 * midan.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	private static class MonitoredQueryHandler implements InvocationHandler {
+
+		/**
+		 * Es el monitor en el que se registran las mediciones.
+		 */
+		protected QueryMonitor monitor;
+
+		/**
+		 * Es el nombre de la consulta.
+		 */
+		protected String name;
+
+		/**
+		 * Es la consulta de hibernate.
+		 */
+		protected Query query;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param aMonitor
+		 *            es el monitor en el que se registran las mediciones.
+		 * @param aName
+		 *            es el nombre de la consulta.
+		 * @param aQuery
+		 *            es la consulta de hibernate.
+		 */
+		public MonitoredQueryHandler(QueryMonitor aMonitor, String aName,
+				Query aQuery) {
+			this.monitor = aMonitor;
+			this.name = aName;
+			this.query = aQuery;
+		}
+
+		/**
+		 * Ejecuta el mtodo sobre la consulta de hibernate, midiendo las
+		 * ejecuciones.
+		 * 
+		 * @param aProxy
+		 *            es la consulta monitoreada.
+		 * @param aMethod
+		 *            es el mtodo invocado.
+		 * @param someArguments
+		 *            son los argumentos del mtodo.
+		 * @return el resultado del mtodo.
+		 * @throws Throwable
+		 *             es la excepcin levantada por el mtodo.
+		 */
+		public Object invoke(Object aProxy, Method aMethod,
+				Object[] someArguments) throws Throwable {
+			String methodName = aMethod.getName();
+			boolean isExecution = methodName.equals("list")
+					|| methodName.equals("uniqueResult")
+					|| methodName.equals("executeUpdate")
+					|| methodName.equals("iterate")
+					|| methodName.equals("scroll");
+
+			long before = System.nanoTime();
+			Object result = null;
+			try {
+				result = aMethod.invoke(this.query, someArguments);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+
+			if (isExecution) {
+				this.monitor.record(this.name, this.query.getQueryString(),
+						System.nanoTime() - before, this.countRows(methodName,
+								result));
+			}
+
+			return (result == this.query) ? aProxy : result;
+		}
+
+		/**
+		 * Calcula la cantidad de filas del resultado de una ejecucin.
+		 * 
+		 * @param aMethodName
+		 *            es el nombre del mtodo de ejecucin invocado.
+		 * @param aResult
+		 *            es el resultado de la ejecucin.
+		 * @return la cantidad de filas, o -1 si no se conoce.
+		 */
+		private int countRows(String aMethodName, Object aResult) {
+			int result = -1;
+			if (aMethodName.equals("list")) {
+				result = ((Collection<?>) aResult).size();
+			} else if (aMethodName.equals("executeUpdate")) {
+				result = ((Integer) aResult).intValue();
+			} else if (aMethodName.equals("uniqueResult")) {
+				result = (aResult == null) ? 0 : 1;
+			}
+			return result;
+		}
+
+	}
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+/**
+ * Esta interface define las operaciones del monitor de consultas que se
+ * publican mediante JMX.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public interface QueryMonitorMBean {
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo (en milisegundos) a partir del cual una ejecucin se
+	 *         considera lenta y se registra en el log.
+	 */
+	public long getSlowQueryThreshold();
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aNumber
+	 *            es el tiempo (en milisegundos) a partir del cual una ejecucin
+	 *            se considera lenta y se registra en el log.
+	 */
+	public void setSlowQueryThreshold(long aNumber);
+
+	/**
+	 * Getter.
+	 * 
+	 * @return los nombres de las consultas que tienen mediciones.
+	 */
+	public String[] getQueryNames();
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de conexiones obtenidas.
+	 */
+	public long getConnectionsCount();
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo promedio (en milisegundos) de espera para obtener una
+	 *         conexin.
+	 */
+	public double getConnectionAverageWaitTime();
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo mximo (en milisegundos) de espera para obtener una
+	 *         conexin.
+	 */
+	public long getConnectionMaxWaitTime();
+
+	/**
+	 * Arma un reporte de texto con las mediciones de todas las consultas y de
+	 * las esperas de conexiones.
+	 * 
+	 * @return el reporte.
+	 */
+	public String createReport();
+
+	/**
+	 * Descarta todas las mediciones.
+	 */
+	public void reset();
+
+}
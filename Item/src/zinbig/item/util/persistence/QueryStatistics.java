@@ -0,0 +1,203 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Las instancias de esta clase acumulan las mediciones de las ejecuciones de
+ * una consulta nombrada (o de las esperas para obtener una conexin). <br>
+ * Se registra la cantidad de ejecuciones, el tiempo total y mximo, la
+ * cantidad total de filas obtenidas y un histograma de tiempos con lmites
+ * fijos expresados en milisegundos. Todos los contadores son atmicos, de modo
+ * que las mediciones se pueden registrar concurrentemente sin sincronizacin.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class QueryStatistics {
+
+	/**
+	 * Son los lmites superiores (en milisegundos) de cada intervalo del
+	 * histograma. El ltimo intervalo del histograma contiene los tiempos
+	 * mayores al ltimo lmite.
+	 */
+	public static final long[] HISTOGRAM_LIMITS = { 1, 5, 10, 50, 100, 500,
+			1000, 5000 };
+
+	/**
+	 * Es el nombre de la consulta.
+	 */
+	protected String name;
+
+	/**
+	 * Es la cantidad de ejecuciones registradas.
+	 */
+	protected AtomicLong executions;
+
+	/**
+	 * Es el tiempo total (en nanosegundos) de las ejecuciones registradas.
+	 */
+	protected AtomicLong totalTime;
+
+	/**
+	 * Es el tiempo mximo (en nanosegundos) de las ejecuciones registradas.
+	 */
+	protected AtomicLong maxTime;
+
+	/**
+	 * Es la cantidad total de filas obtenidas.
+	 */
+	protected AtomicLong rows;
+
+	/**
+	 * Contiene la cantidad de ejecuciones de cada intervalo del histograma.
+	 */
+	protected AtomicLongArray histogram;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param aName
+	 *            es el nombre de la consulta.
+	 */
+	public QueryStatistics(String aName) {
+		this.name = aName;
+		this.executions = new AtomicLong();
+		this.totalTime = new AtomicLong();
+		this.maxTime = new AtomicLong();
+		this.rows = new AtomicLong();
+		this.histogram = new AtomicLongArray(HISTOGRAM_LIMITS.length + 1);
+	}
+
+	/**
+	 * Registra una ejecucin.
+	 * 
+	 * @param anElapsedTime
+	 *            es el tiempo (en nanosegundos) de la ejecucin.
+	 * @param aRowsCount
+	 *            es la cantidad de filas obtenidas, o un nmero negativo si no
+	 *            se conoce.
+	 */
+	public void record(long anElapsedTime, int aRowsCount) {
+		this.executions.incrementAndGet();
+		this.totalTime.addAndGet(anElapsedTime);
+		if (aRowsCount > 0) {
+			this.rows.addAndGet(aRowsCount);
+		}
+
+		long max = this.maxTime.get();
+		while (anElapsedTime > max
+				&& !this.maxTime.compareAndSet(max, anElapsedTime)) {
+			max = this.maxTime.get();
+		}
+
+		long millis = anElapsedTime / 1000000L;
+		int bucket = 0;
+		while (bucket < HISTOGRAM_LIMITS.length
+				&& millis > HISTOGRAM_LIMITS[bucket]) {
+			bucket++;
+		}
+		this.histogram.incrementAndGet(bucket);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el nombre de la consulta.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de ejecuciones registradas.
+	 */
+	public long getExecutions() {
+		return this.executions.get();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo total (en milisegundos) de las ejecuciones
+	 *         registradas.
+	 */
+	public long getTotalTime() {
+		return this.totalTime.get() / 1000000L;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo promedio (en milisegundos) de las ejecuciones
+	 *         registradas.
+	 */
+	public double getAverageTime() {
+		long count = this.getExecutions();
+		return (count == 0) ? 0 : this.totalTime.get() / 1000000.0 / count;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el tiempo mximo (en milisegundos) de las ejecuciones
+	 *         registradas.
+	 */
+	public long getMaxTime() {
+		return this.maxTime.get() / 1000000L;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad total de filas obtenidas.
+	 */
+	public long getRows() {
+		return this.rows.get();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return un arreglo con la cantidad de ejecuciones de cada intervalo del
+	 *         histograma.
+	 */
+	public long[] getHistogram() {
+		long[] result = new long[this.histogram.length()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = this.histogram.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Arma una lnea de texto con las mediciones de esta consulta. Los valores
+	 * se separan con tabulaciones.
+	 * 
+	 * @return la lnea de texto.
+	 */
+	public String createReportLine() {
+		StringBuffer result = new StringBuffer(this.getName());
+		result.append("\t").append(this.getExecutions());
+		result.append("\t").append(
+				Math.round(this.getAverageTime() * 100) / 100.0);
+		result.append("\t").append(this.getMaxTime());
+		result.append("\t").append(this.getRows());
+		result.append("\t");
+		long[] values = this.getHistogram();
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				result.append("/");
+			}
+			result.append(values[i]);
+		}
+		return result.toString();
+	}
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.Session;
+
+/**
+ * Las instancias de esta clase mantienen los objetos del modelo ya
+ * recuperados durante un request (el tracker, los usuarios y los proyectos),
+ * de modo que los servicios invocados durante el mismo request no los vuelvan
+ * a buscar en los repositorios. <br>
+ * El contexto se crea al comenzar cada request junto con la sesin de
+ * Hibernate que comparten todos los servicios del request y se descarta al
+ * finalizar el mismo. Un objeto slo se devuelve mientras pertenezca a esa
+ * sesin; si la sesin se limpi (por ejemplo al deshacerse una transaccin)
+ * o el objeto fue eliminado, se lo vuelve a buscar.<br>
+ * Fuera de un request (por ejemplo en los jobs) no existe un contexto y los
+ * servicios acceden directamente a los repositorios.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class RequestContext {
+
+	/**
+	 * Contiene el contexto del request que atiende cada thread.
+	 */
+	private static final ThreadLocal<RequestContext> current = new ThreadLocal<RequestContext>();
+
+	/**
+	 * Es la sesin de Hibernate del request.
+	 */
+	private final Session session;
+
+	/**
+	 * Contiene los objetos recuperados, indexados por su tipo y su clave.
+	 */
+	private final Map<String, Object> objects = new HashMap<String, Object>();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param aSession
+	 *            es la sesin de Hibernate del request.
+	 */
+	protected RequestContext(Session aSession) {
+		this.session = aSession;
+	}
+
+	/**
+	 * Crea el contexto del request que atiende el thread actual.
+	 * 
+	 * @param aSession
+	 *            es la sesin de Hibernate del request.
+	 */
+	public static void begin(Session aSession) {
+		current.set(new RequestContext(aSession));
+	}
+
+	/**
+	 * Descarta el contexto del request que atiende el thread actual.
+	 */
+	public static void end() {
+		current.remove();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el contexto del request que atiende el thread actual, o null si
+	 *         el thread no est atendiendo un request.
+	 */
+	public static RequestContext getCurrent() {
+		return current.get();
+	}
+
+	/**
+	 * Recupera un objeto del contexto.
+	 * 
+	 * @param aType
+	 *            es el tipo del objeto.
+	 * @param aKey
+	 *            es la clave con la que se registr el objeto.
+	 * @return el objeto registrado, o null si no existe o ya no pertenece a la
+	 *         sesin del request.
+	 */
+	public <T> T get(Class<T> aType, String aKey) {
+		String aName = this.keyFor(aType, aKey);
+		Object anObject = this.objects.get(aName);
+		if (anObject != null && !this.session.contains(anObject)) {
+			this.objects.remove(aName);
+			anObject = null;
+		}
+		return aType.cast(anObject);
+	}
+
+	/**
+	 * Registra un objeto en el contexto.
+	 * 
+	 * @param aType
+	 *            es el tipo del objeto.
+	 * @param aKey
+	 *            es la clave del objeto.
+	 * @param anObject
+	 *            es el objeto a registrar. Si no pertenece a la sesin del
+	 *            request no se lo registra.
+	 */
+	public <T> void put(Class<T> aType, String aKey, T anObject) {
+		if (anObject != null && this.session.contains(anObject)) {
+			this.objects.put(this.keyFor(aType, aKey), anObject);
+		}
+	}
+
+	/**
+	 * Elimina un objeto del contexto.
+	 * 
+	 * @param aType
+	 *            es el tipo del objeto.
+	 * @param aKey
+	 *            es la clave con la que se registr el objeto.
+	 */
+	public void remove(Class<?> aType, String aKey) {
+		this.objects.remove(this.keyFor(aType, aKey));
+	}
+
+	/**
+	 * Calcula la clave con la que se registra un objeto.
+	 * 
+	 * @param aType
+	 *            es el tipo del objeto.
+	 * @param aKey
+	 *            es la clave del objeto.
+	 * @return la clave compuesta por el tipo y la clave del objeto.
+	 */
+	private String keyFor(Class<?> aType, String aKey) {
+		return aType.getName() + "#" + aKey;
+	}
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Las instancias de esta clase representan un ndice en memoria que asocia el
+ * nombre de usuario de cada usuario con su oid. <br>
+ * El ndice es compartido por todas las sesiones, de modo que los repositorios
+ * de usuarios pueden resolver un nombre de usuario con un acceso directo por
+ * oid en lugar de recorrer la coleccin de usuarios o ejecutar una consulta.<br>
+ * El ndice se completa en forma perezosa a medida que se buscan los usuarios y
+ * se actualiza cada vez que el Tracker agrega, actualiza o elimina un usuario.
+ * Como una transaccin puede deshacerse luego de actualizar el ndice, los
+ * repositorios deben verificar que el oid obtenido corresponda a un usuario con
+ * el nombre de usuario buscado y, en caso contrario, descartar la entrada.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class UsernameIndex {
+
+	/**
+	 * Es el diccionario que contiene para cada nombre de usuario el oid del
+	 * usuario.
+	 */
+	protected ConcurrentMap<String, String> oids;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public UsernameIndex() {
+		this.oids = new ConcurrentHashMap<String, String>();
+	}
+
+	/**
+	 * Recupera el oid del usuario con el nombre de usuario dado.
+	 * 
+	 * @param anUsername
+	 *            es el nombre de usuario.
+	 * @return el oid del usuario o null si el nombre de usuario no est
+	 *         indexado.
+	 */
+	public String getOid(String anUsername) {
+		return anUsername == null ? null : this.oids.get(anUsername);
+	}
+
+	/**
+	 * Agrega o actualiza la entrada de un usuario.
+	 * 
+	 * @param anUsername
+	 *            es el nombre de usuario.
+	 * @param anOid
+	 *            es el oid del usuario.
+	 */
+	public void put(String anUsername, String anOid) {
+		if (anUsername != null && anOid != null) {
+			this.oids.put(anUsername, anOid);
+		}
+	}
+
+	/**
+	 * Elimina la entrada de un usuario.
+	 * 
+	 * @param anUsername
+	 *            es el nombre de usuario.
+	 */
+	public void remove(String anUsername) {
+		if (anUsername != null) {
+			this.oids.remove(anUsername);
+		}
+	}
+
+	/**
+	 * Elimina la entrada de un nombre de usuario solamente si est asociada con
+	 * el oid dado. Se utiliza para descartar entradas que ya no son vlidas sin
+	 * eliminar una entrada actualizada concurrentemente.
+	 * 
+	 * @param anUsername
+	 *            es el nombre de usuario.
+	 * @param anOid
+	 *            es el oid que se considera invlido.
+	 */
+	public void remove(String anUsername, String anOid) {
+		if (anUsername != null && anOid != null) {
+			this.oids.remove(anUsername, anOid);
+		}
+	}
+
+	/**
+	 * Elimina todo el contenido del ndice.
+	 */
+	public void clear() {
+		this.oids.clear();
+	}
+
+}
@@ -0,0 +1,615 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para dar soporte a los
+ * aspectos de persistencia de la aplicacin.
+ */
+package zinbig.item.util.persistence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Las instancias de esta clase mantienen en memoria un rbol de prefijos
+ * (trie) con los nombres de usuario, alias, nombres y apellidos de los
+ * usuarios, de modo de poder completar los nombres de usuario mientras se
+ * escriben sin consultar la base de datos. <br>
+ * El rbol es inmutable: cada modificacin copia nicamente los nodos del
+ * camino modificado y luego reemplaza la raz, por lo que las bsquedas no
+ * requieren sincronizacin y nunca ven un rbol a medio modificar. Las
+ * modificaciones (altas, bajas y cambios de usuarios) son poco frecuentes y se
+ * sincronizan entre s.<br>
+ * Los resultados se ordenan por la ltima actividad registrada de cada
+ * usuario y luego por nombre de usuario. Se recorren todos los usuarios que
+ * coinciden con el prefijo conservando en un heap acotado slo los mejores,
+ * de modo que incluso para prefijos muy cortos se devuelven los usuarios ms
+ * activos sin ordenar todas las coincidencias.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class UsersPrefixIndex {
+
+	/**
+	 * Es la raz del rbol de prefijos.
+	 */
+	protected volatile TrieNode root;
+
+	/**
+	 * Contiene los trminos indexados de cada usuario, indexados por el oid
+	 * del usuario.
+	 */
+	protected ConcurrentMap<String, IndexedUser> users;
+
+	/**
+	 * Contiene el momento de la ltima actividad de cada usuario, indexado por
+	 * el oid del usuario.
+	 */
+	protected ConcurrentMap<String, Long> activity;
+
+	/**
+	 * Indica si el ndice ya fue cargado con todos los usuarios.
+	 */
+	protected volatile boolean loaded;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public UsersPrefixIndex() {
+		this.root = TrieNode.EMPTY;
+		this.users = new ConcurrentHashMap<String, IndexedUser>();
+		this.activity = new ConcurrentHashMap<String, Long>();
+	}
+
+	/**
+	 * Agrega o actualiza un usuario en el ndice.
+	 * 
+	 * @param anOid
+	 *            es el oid del usuario.
+	 * @param anUsername
+	 *            es el nombre de usuario.
+	 * @param someTerms
+	 *            son los dems trminos por los que se puede encontrar al
+	 *            usuario (alias, nombre, apellido). Los trminos nulos o vacos
+	 *            se ignoran.
+	 */
+	public synchronized void put(String anOid, String anUsername,
+			String... someTerms) {
+		if (anOid == null || anUsername == null) {
+			return;
+		}
+
+		List<String> terms = new ArrayList<String>();
+		this.addTerm(terms, anUsername);
+		for (String aTerm : someTerms) {
+			this.addTerm(terms, aTerm);
+		}
+
+		// el usuario anterior y el nuevo se reemplazan en un nico cambio de
+		// raz para que las bsquedas no dejen de encontrarlo.
+		IndexedUser anUser = new IndexedUser(anOid, anUsername, terms);
+		TrieNode newRoot = this.removeTerms(this.root, this.users.get(anOid));
+		for (String aTerm : terms) {
+			newRoot = newRoot.with(aTerm, 0, anUser);
+		}
+		this.users.put(anOid, anUser);
+		this.root = newRoot;
+	}
+
+	/**
+	 * Elimina un usuario del ndice.
+	 * 
+	 * @param anOid
+	 *            es el oid del usuario.
+	 */
+	public synchronized void remove(String anOid) {
+		if (anOid == null) {
+			return;
+		}
+		IndexedUser anUser = this.users.remove(anOid);
+		if (anUser != null) {
+			this.root = this.removeTerms(this.root, anUser);
+		}
+	}
+
+	/**
+	 * Elimina del rbol todos los trminos de un usuario.
+	 * 
+	 * @param aRoot
+	 *            es la raz del rbol.
+	 * @param anUser
+	 *            es el usuario, o null si no estaba indexado.
+	 * @return la raz del nuevo rbol.
+	 */
+	protected TrieNode removeTerms(TrieNode aRoot, IndexedUser anUser) {
+		TrieNode result = aRoot;
+		if (anUser != null) {
+			for (String aTerm : anUser.getTerms()) {
+				result = result.without(aTerm, 0, anUser.getOid());
+				if (result == null) {
+					result = TrieNode.EMPTY;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Descarta todos los usuarios del ndice.
+	 */
+	public synchronized void clear() {
+		this.root = TrieNode.EMPTY;
+		this.users.clear();
+		this.loaded = false;
+	}
+
+	/**
+	 * Registra actividad de un usuario para ordenar los resultados de las
+	 * bsquedas.
+	 * 
+	 * @param anOid
+	 *            es el oid del usuario.
+	 */
+	public void recordActivity(String anOid) {
+		if (anOid != null) {
+			this.activity.put(anOid, Long.valueOf(System.currentTimeMillis()));
+		}
+	}
+
+	/**
+	 * Busca los usuarios que tienen algn trmino que comienza con el string
+	 * recibido, sin distinguir maysculas de minsculas.
+	 * 
+	 * @param aPrefix
+	 *            es el comienzo de los trminos buscados.
+	 * @param aLimit
+	 *            es la cantidad mxima de usuarios a devolver.
+	 * @return una lista con los oids de los usuarios encontrados, ordenados por
+	 *         actividad reciente y nombre de usuario.
+	 */
+	public List<String> find(String aPrefix, int aLimit) {
+		List<String> result = new ArrayList<String>();
+		if (aPrefix == null || aLimit <= 0) {
+			return result;
+		}
+
+		String aKey = aPrefix.trim().toLowerCase(Locale.ENGLISH);
+		TrieNode aNode = this.root.find(aKey, 0);
+		if (aNode == null) {
+			return result;
+		}
+
+		// el heap mantiene en la cima al peor de los mejores candidatos
+		// encontrados hasta el momento.
+		final Comparator<Candidate> aComparator = new CandidateComparator();
+		PriorityQueue<Candidate> best = new PriorityQueue<Candidate>(aLimit,
+				Collections.reverseOrder(aComparator));
+		aNode.collect(new HashSet<String>(), best, aLimit, aComparator,
+				this.activity);
+
+		List<Candidate> sorted = new ArrayList<Candidate>(best);
+		Collections.sort(sorted, aComparator);
+		for (Candidate aCandidate : sorted) {
+			result.add(aCandidate.getUser().getOid());
+		}
+		return result;
+	}
+
+	/**
+	 * Agrega un trmino normalizado a la lista de trminos de un usuario.
+	 * 
+	 * @param someTerms
+	 *            es la lista de trminos.
+	 * @param aTerm
+	 *            es el trmino que se debe agregar.
+	 */
+	protected void addTerm(List<String> someTerms, String aTerm) {
+		if (aTerm != null) {
+			String aKey = aTerm.trim().toLowerCase(Locale.ENGLISH);
+			if (aKey.length() > 0 && !someTerms.contains(aKey)) {
+				someTerms.add(aKey);
+			}
+		}
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return true si el ndice ya fue cargado con todos los usuarios; false
+	 *         en caso contrario.
+	 */
+	public boolean isLoaded() {
+		return this.loaded;
+	}
+
+	/**
+	 * Setter.
+	 * 
+	 * @param aBoolean
+	 *            indica si el ndice ya fue cargado con todos los usuarios.
+	 */
+	public void setLoaded(boolean aBoolean) {
+		this.loaded = aBoolean;
+	}
+
+	/**
+	 * Las instancias de esta clase representan a un usuario encontrado junto
+	 * con su ltima actividad, que se lee una nica vez para que el orden no
+	 * cambie mientras se realiza la bsqueda.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	protected static class Candidate {
+
+		/**
+		 * Es el usuario encontrado.
+		 */
+		private final IndexedUser user;
+
+		/**
+		 * Es el momento de la ltima actividad del usuario, o 0 si no
+		 * registr actividad.
+		 */
+		private final long lastActivity;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param anUser
+		 *            es el usuario encontrado.
+		 * @param aTime
+		 *            es el momento de la ltima actividad del usuario.
+		 */
+		public Candidate(IndexedUser anUser, long aTime) {
+			this.user = anUser;
+			this.lastActivity = aTime;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return el usuario encontrado.
+		 */
+		public IndexedUser getUser() {
+			return this.user;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return el momento de la ltima actividad del usuario.
+		 */
+		public long getLastActivity() {
+			return this.lastActivity;
+		}
+	}
+
+	/**
+	 * Las instancias de esta clase comparan candidatos por actividad reciente
+	 * y luego por nombre de usuario.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	protected static class CandidateComparator implements
+			Comparator<Candidate> {
+
+		/**
+		 * Compara dos candidatos por actividad reciente y nombre de usuario.
+		 * 
+		 * @param aCandidate
+		 *            es el primer candidato.
+		 * @param anotherCandidate
+		 *            es el segundo candidato.
+		 * @return el resultado de la comparacin.
+		 */
+		public int compare(Candidate aCandidate, Candidate anotherCandidate) {
+			long first = aCandidate.getLastActivity();
+			long second = anotherCandidate.getLastActivity();
+			if (first != second) {
+				return (first > second) ? -1 : 1;
+			}
+			return aCandidate.getUser().getUsername().compareTo(
+					anotherCandidate.getUser().getUsername());
+		}
+	}
+
+	/**
+	 * Las instancias de esta clase representan a un usuario indexado.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	protected static class IndexedUser {
+
+		/**
+		 * Es el oid del usuario.
+		 */
+		private final String oid;
+
+		/**
+		 * Es el nombre de usuario.
+		 */
+		private final String username;
+
+		/**
+		 * Son los trminos normalizados por los que se index al usuario.
+		 */
+		private final List<String> terms;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param anOid
+		 *            es el oid del usuario.
+		 * @param anUsername
+		 *            es el nombre de usuario.
+		 * @param someTerms
+		 *            son los trminos normalizados del usuario.
+		 */
+		public IndexedUser(String anOid, String anUsername,
+				List<String> someTerms) {
+			this.oid = anOid;
+			this.username = anUsername;
+			this.terms = someTerms;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return el oid del usuario.
+		 */
+		public String getOid() {
+			return this.oid;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return el nombre de usuario.
+		 */
+		public String getUsername() {
+			return this.username;
+		}
+
+		/**
+		 * Getter.
+		 * 
+		 * @return los trminos normalizados del usuario.
+		 */
+		public List<String> getTerms() {
+			return this.terms;
+		}
+	}
+
+	/**
+	 * Las instancias de esta clase representan los nodos inmutables del rbol
+	 * de prefijos. Los hijos se mantienen ordenados por caracter para
+	 * encontrarlos mediante bsqueda binaria.
+	 * 
+	 * @author Javier Bazzocco javier.bazzocco@zinbig.com
+	 * 
+	 */
+	protected static class TrieNode {
+
+		/**
+		 * Es el nodo vaco.
+		 */
+		public static final TrieNode EMPTY = new TrieNode(new char[0],
+				new TrieNode[0], new IndexedUser[0]);
+
+		/**
+		 * Son los caracteres de los hijos, ordenados.
+		 */
+		private final char[] keys;
+
+		/**
+		 * Son los hijos, en el mismo orden que sus caracteres.
+		 */
+		private final TrieNode[] children;
+
+		/**
+		 * Son los usuarios que tienen un trmino que termina en este nodo.
+		 */
+		private final IndexedUser[] users;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param someKeys
+		 *            son los caracteres de los hijos.
+		 * @param someChildren
+		 *            son los hijos.
+		 * @param someUsers
+		 *            son los usuarios que tienen un trmino que termina en este
+		 *            nodo.
+		 */
+		public TrieNode(char[] someKeys, TrieNode[] someChildren,
+				IndexedUser[] someUsers) {
+			this.keys = someKeys;
+			this.children = someChildren;
+			this.users = someUsers;
+		}
+
+		/**
+		 * Busca el nodo que corresponde a un prefijo.
+		 * 
+		 * @param aKey
+		 *            es el prefijo.
+		 * @param anIndex
+		 *            es la posicin del prefijo que corresponde a este nodo.
+		 * @return el nodo del prefijo, o null si no existe.
+		 */
+		public TrieNode find(String aKey, int anIndex) {
+			TrieNode aNode = this;
+			for (int i = anIndex; i < aKey.length(); i++) {
+				int position = Arrays.binarySearch(aNode.keys, aKey
+						.charAt(i));
+				if (position < 0) {
+					return null;
+				}
+				aNode = aNode.children[position];
+			}
+			return aNode;
+		}
+
+		/**
+		 * Recorre los usuarios de este nodo y de sus descendientes y conserva
+		 * en el heap recibido los aLimit mejores segn el comparador.
+		 * 
+		 * @param visited
+		 *            contiene los oids de los usuarios ya recorridos, ya que un
+		 *            usuario puede tener varios trminos con el mismo prefijo.
+		 * @param aHeap
+		 *            es el heap con los mejores candidatos, cuya cima es el
+		 *            peor de ellos.
+		 * @param aLimit
+		 *            es la cantidad mxima de candidatos a conservar.
+		 * @param aComparator
+		 *            es el comparador de candidatos.
+		 * @param someActivity
+		 *            contiene la ltima actividad de cada usuario.
+		 */
+		public void collect(Set<String> visited, PriorityQueue<Candidate> aHeap,
+				int aLimit, Comparator<Candidate> aComparator,
+				ConcurrentMap<String, Long> someActivity) {
+			for (IndexedUser anUser : this.users) {
+				if (visited.add(anUser.getOid())) {
+					Long aTime = someActivity.get(anUser.getOid());
+					Candidate aCandidate = new Candidate(anUser,
+							(aTime == null) ? 0 : aTime.longValue());
+					if (aHeap.size() < aLimit) {
+						aHeap.add(aCandidate);
+					} else if (aComparator.compare(aCandidate, aHeap.peek()) < 0) {
+						aHeap.poll();
+						aHeap.add(aCandidate);
+					}
+				}
+			}
+			for (TrieNode aChild : this.children) {
+				aChild.collect(visited, aHeap, aLimit, aComparator,
+						someActivity);
+			}
+		}
+
+		/**
+		 * Crea una copia de este nodo que adems contiene el trmino recibido.
+		 * 
+		 * @param aTerm
+		 *            es el trmino.
+		 * @param anIndex
+		 *            es la posicin del trmino que corresponde a este nodo.
+		 * @param anUser
+		 *            es el usuario del trmino.
+		 * @return la copia del nodo.
+		 */
+		public TrieNode with(String aTerm, int anIndex, IndexedUser anUser) {
+			if (anIndex == aTerm.length()) {
+				IndexedUser[] newUsers = new IndexedUser[this.users.length + 1];
+				System.arraycopy(this.users, 0, newUsers, 0, this.users.length);
+				newUsers[this.users.length] = anUser;
+				return new TrieNode(this.keys, this.children, newUsers);
+			}
+
+			char aChar = aTerm.charAt(anIndex);
+			int position = Arrays.binarySearch(this.keys, aChar);
+			if (position >= 0) {
+				TrieNode[] newChildren = this.children.clone();
+				newChildren[position] = this.children[position].with(aTerm,
+						anIndex + 1, anUser);
+				return new TrieNode(this.keys, newChildren, this.users);
+			}
+
+			int insertion = -position - 1;
+			char[] newKeys = new char[this.keys.length + 1];
+			TrieNode[] newChildren = new TrieNode[this.children.length + 1];
+			System.arraycopy(this.keys, 0, newKeys, 0, insertion);
+			System.arraycopy(this.children, 0, newChildren, 0, insertion);
+			newKeys[insertion] = aChar;
+			newChildren[insertion] = EMPTY.with(aTerm, anIndex + 1, anUser);
+			System.arraycopy(this.keys, insertion, newKeys, insertion + 1,
+					this.keys.length - insertion);
+			System.arraycopy(this.children, insertion, newChildren,
+					insertion + 1, this.children.length - insertion);
+			return new TrieNode(newKeys, newChildren, this.users);
+		}
+
+		/**
+		 * Crea una copia de este nodo que no contiene el trmino del usuario
+		 * recibido. Los nodos que quedan vacos se eliminan.
+		 * 
+		 * @param aTerm
+		 *            es el trmino.
+		 * @param anIndex
+		 *            es la posicin del trmino que corresponde a este nodo.
+		 * @param anOid
+		 *            es el oid del usuario del trmino.
+		 * @return la copia del nodo, o null si el nodo qued vaco.
+		 */
+		public TrieNode without(String aTerm, int anIndex, String anOid) {
+			if (anIndex == aTerm.length()) {
+				List<IndexedUser> remaining = new ArrayList<IndexedUser>();
+				for (IndexedUser anUser : this.users) {
+					if (!anUser.getOid().equals(anOid)) {
+						remaining.add(anUser);
+					}
+				}
+				return this.copy(this.keys, this.children, remaining
+						.toArray(new IndexedUser[remaining.size()]));
+			}
+
+			int position = Arrays.binarySearch(this.keys, aTerm
+					.charAt(anIndex));
+			if (position < 0) {
+				return this;
+			}
+
+			TrieNode aChild = this.children[position].without(aTerm,
+					anIndex + 1, anOid);
+			if (aChild != null) {
+				TrieNode[] newChildren = this.children.clone();
+				newChildren[position] = aChild;
+				return new TrieNode(this.keys, newChildren, this.users);
+			}
+
+			char[] newKeys = new char[this.keys.length - 1];
+			TrieNode[] newChildren = new TrieNode[this.children.length - 1];
+			System.arraycopy(this.keys, 0, newKeys, 0, position);
+			System.arraycopy(this.children, 0, newChildren, 0, position);
+			System.arraycopy(this.keys, position + 1, newKeys, position,
+					this.keys.length - position - 1);
+			System.arraycopy(this.children, position + 1, newChildren,
+					position, this.children.length - position - 1);
+			return this.copy(newKeys, newChildren, this.users);
+		}
+
+		/**
+		 * Crea un nodo con los datos recibidos, salvo que quede vaco.
+		 * 
+		 * @param someKeys
+		 *            son los caracteres de los hijos.
+		 * @param someChildren
+		 *            son los hijos.
+		 * @param someUsers
+		 *            son los usuarios del nodo.
+		 * @return el nuevo nodo, o null si el nodo no tiene hijos ni usuarios.
+		 */
+		private TrieNode copy(char[] someKeys, TrieNode[] someChildren,
+				IndexedUser[] someUsers) {
+			if (someKeys.length == 0 && someUsers.length == 0) {
+				return null;
+			}
+			return new TrieNode(someKeys, someChildren, someUsers);
+		}
+	}
+
+}
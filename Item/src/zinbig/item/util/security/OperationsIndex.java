@@ -0,0 +1,88 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para brindar servicios de
+ * seguridad.
+ */
+package zinbig.item.util.security;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Las instancias de esta clase asignan a cada operacin del sistema un nmero
+ * entero denso a partir de su nombre. <br>
+ * Estos nmeros se utilizan como posiciones dentro de los conjuntos de bits
+ * que representan los permisos de los usuarios. Los nmeros se asignan la
+ * primera vez que se encuentra una operacin y nunca cambian, de modo que los
+ * permisos ya compilados siguen siendo vlidos cuando se agregan operaciones
+ * nuevas.<br>
+ * El diccionario de nmeros se reemplaza completo cada vez que se agrega una
+ * operacin, por lo que las consultas no requieren sincronizacin.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class OperationsIndex implements Serializable {
+
+	/**
+	 * UID por defecto para la serializacin.
+	 */
+	private static final long serialVersionUID = -1788346802417650521L;
+
+	/**
+	 * Es el diccionario inmutable que contiene para cada nombre de operacin
+	 * su nmero.
+	 */
+	protected volatile Map<String, Integer> ids;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public OperationsIndex() {
+		this.ids = Collections.emptyMap();
+	}
+
+	/**
+	 * Recupera el nmero asignado a una operacin.
+	 * 
+	 * @param aName
+	 *            es el nombre de la operacin.
+	 * @return el nmero de la operacin o -1 si todava no se le asign un
+	 *         nmero.
+	 */
+	public int getId(String aName) {
+		Integer id = this.ids.get(aName);
+		return (id == null) ? -1 : id.intValue();
+	}
+
+	/**
+	 * Recupera el nmero asignado a una operacin, asignndole uno nuevo en
+	 * caso de que todava no lo tenga.
+	 * 
+	 * @param aName
+	 *            es el nombre de la operacin.
+	 * @return el nmero de la operacin.
+	 */
+	public synchronized int assignId(String aName) {
+		int result = this.getId(aName);
+		if (result == -1) {
+			Map<String, Integer> newIds = new HashMap<String, Integer>(this.ids);
+			result = newIds.size();
+			newIds.put(aName, new Integer(result));
+			this.ids = Collections.unmodifiableMap(newIds);
+		}
+		return result;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la cantidad de operaciones que tienen un nmero asignado.
+	 */
+	public int size() {
+		return this.ids.size();
+	}
+
+}
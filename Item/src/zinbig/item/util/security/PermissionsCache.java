@@ -0,0 +1,198 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para brindar servicios de
+ * seguridad.
+ */
+package zinbig.item.util.security;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import zinbig.item.util.dto.OperationDTO;
+
+/**
+ * Las instancias de esta clase mantienen en memoria los permisos compilados de
+ * cada combinacin de grupos de usuarios. <br>
+ * Como las operaciones de un usuario son las de los grupos de usuarios a los
+ * que pertenece, todos los usuarios que pertenecen a los mismos grupos
+ * comparten un nico conjunto de permisos. La clave de cada conjunto est
+ * formada por los oids ordenados de los grupos.<br>
+ * Cuando se editan las operaciones de un grupo o se elimina un grupo se deben
+ * descartar los conjuntos de las combinaciones que lo incluyen. Los cambios de
+ * pertenencia de un usuario a los grupos no requieren descartar nada, ya que
+ * el usuario pasa a corresponder a otra combinacin. Como la modificacin
+ * todava no se confirm al momento de descartar los permisos, stos se
+ * vuelven a descartar al terminar la transaccin en curso.<br>
+ * Cada descarte incrementa una generacin; los permisos compilados a partir de
+ * informacin leda antes de un descarte no se guardan.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class PermissionsCache {
+
+	/**
+	 * Es el separador de los oids de los grupos en las claves.
+	 */
+	private static final String KEY_SEPARATOR = ",";
+
+	/**
+	 * Es el ndice que asigna los nmeros a las operaciones.
+	 */
+	protected OperationsIndex operationsIndex;
+
+	/**
+	 * Es el diccionario que contiene para cada combinacin de grupos de
+	 * usuarios sus permisos compilados.
+	 */
+	protected ConcurrentMap<String, UserPermissions> permissions;
+
+	/**
+	 * Es la generacin actual de este objeto. Se incrementa con cada descarte.
+	 */
+	protected AtomicLong generation;
+
+	/**
+	 * Constructor.
+	 * 
+	 */
+	public PermissionsCache() {
+		this.operationsIndex = new OperationsIndex();
+		this.permissions = new ConcurrentHashMap<String, UserPermissions>();
+		this.generation = new AtomicLong();
+	}
+
+	/**
+	 * Crea la clave de una combinacin de grupos de usuarios.
+	 * 
+	 * @param someGroupsOids
+	 *            es una coleccin con los oids de los grupos.
+	 * @return la clave de la combinacin.
+	 */
+	public String createKey(Collection<String> someGroupsOids) {
+		List<String> oids = new ArrayList<String>(someGroupsOids);
+		Collections.sort(oids);
+
+		StringBuffer result = new StringBuffer(KEY_SEPARATOR);
+		for (String anOid : oids) {
+			result.append(anOid).append(KEY_SEPARATOR);
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Recupera los permisos compilados de una combinacin de grupos.
+	 * 
+	 * @param aKey
+	 *            es la clave de la combinacin.
+	 * @return los permisos o null si no estn compilados.
+	 */
+	public UserPermissions get(String aKey) {
+		return this.permissions.get(aKey);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return la generacin actual. Se debe obtener antes de leer las
+	 *         operaciones que se van a compilar.
+	 */
+	public long getGeneration() {
+		return this.generation.get();
+	}
+
+	/**
+	 * Compila los permisos correspondientes a los dtos de operaciones
+	 * recibidos.
+	 * 
+	 * @param someOperationsDTOs
+	 *            es una coleccin con los dtos de las operaciones.
+	 * @return los permisos compilados.
+	 */
+	public UserPermissions compile(Collection<OperationDTO> someOperationsDTOs) {
+		BitSet operations = new BitSet(this.operationsIndex.size());
+		for (OperationDTO aDTO : someOperationsDTOs) {
+			operations.set(this.operationsIndex.assignId(aDTO.getName()));
+		}
+		return new UserPermissions(this.operationsIndex, operations,
+				someOperationsDTOs);
+	}
+
+	/**
+	 * Guarda los permisos compilados de una combinacin de grupos, siempre que
+	 * no se haya producido un descarte desde que se leyeron las operaciones.
+	 * 
+	 * @param aKey
+	 *            es la clave de la combinacin.
+	 * @param somePermissions
+	 *            son los permisos compilados.
+	 * @param aGeneration
+	 *            es la generacin obtenida antes de leer las operaciones.
+	 */
+	public void put(String aKey, UserPermissions somePermissions,
+			long aGeneration) {
+		if (this.getGeneration() == aGeneration) {
+			this.permissions.put(aKey, somePermissions);
+		}
+	}
+
+	/**
+	 * Descarta los permisos de todas las combinaciones que incluyen al grupo
+	 * de usuarios recibido.
+	 * 
+	 * @param aGroupOid
+	 *            es el oid del grupo de usuarios.
+	 */
+	public void invalidate(final String aGroupOid) {
+		this.removeCombinationsOf(aGroupOid);
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager
+					.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+						/**
+						 * Vuelve a descartar los permisos al terminar la
+						 * transaccin.
+						 * 
+						 * @param status
+						 *            es el estado de la transaccin.
+						 */
+						@Override
+						public void afterCompletion(int status) {
+							PermissionsCache.this
+									.removeCombinationsOf(aGroupOid);
+						}
+
+					});
+		}
+	}
+
+	/**
+	 * Elimina los permisos de las combinaciones que incluyen al grupo de
+	 * usuarios recibido.
+	 * 
+	 * @param aGroupOid
+	 *            es el oid del grupo de usuarios.
+	 */
+	protected void removeCombinationsOf(String aGroupOid) {
+		this.generation.incrementAndGet();
+
+		String token = KEY_SEPARATOR + aGroupOid + KEY_SEPARATOR;
+		Iterator<String> keys = this.permissions.keySet().iterator();
+		while (keys.hasNext()) {
+			if (keys.next().indexOf(token) != -1) {
+				keys.remove();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,142 @@
+/**
+ * Este paquete contiene clases e interfaces tiles para brindar servicios de
+ * seguridad.
+ */
+package zinbig.item.util.security;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import zinbig.item.util.dto.OperationDTO;
+
+/**
+ * Las instancias de esta clase representan el conjunto de operaciones que
+ * puede ejecutar un usuario. <br>
+ * Las operaciones se representan mediante un conjunto de bits en el que cada
+ * posicin corresponde al nmero que el ndice de operaciones asign a la
+ * operacin, de modo que verificar si el usuario puede ejecutar una operacin
+ * consiste en obtener el nmero de la operacin y consultar un bit.<br>
+ * Las instancias son inmutables y pueden ser compartidas por todos los
+ * usuarios que pertenecen a la misma combinacin de grupos de usuarios. Adems
+ * de los bits, mantienen los dtos de las operaciones a partir de los cuales se
+ * crean las copias que se utilizan para armar los menes de cada usuario.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class UserPermissions implements Serializable {
+
+	/**
+	 * UID por defecto para la serializacin.
+	 */
+	private static final long serialVersionUID = 6215407739312862051L;
+
+	/**
+	 * Es el ndice que asigna los nmeros a las operaciones.
+	 */
+	protected OperationsIndex operationsIndex;
+
+	/**
+	 * Es el conjunto de bits que contiene en cada posicin si el usuario puede
+	 * ejecutar la operacin con ese nmero.
+	 */
+	protected BitSet operations;
+
+	/**
+	 * Contiene los dtos de las operaciones que puede ejecutar el usuario. Estos
+	 * dtos no se entregan directamente sino que se copian.
+	 */
+	protected List<OperationDTO> operationsDTOs;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param anIndex
+	 *            es el ndice que asigna los nmeros a las operaciones.
+	 * @param someOperations
+	 *            es el conjunto de bits de las operaciones. Se copia.
+	 * @param someOperationsDTOs
+	 *            es una coleccin con los dtos de las operaciones. Se copia.
+	 */
+	public UserPermissions(OperationsIndex anIndex, BitSet someOperations,
+			Collection<OperationDTO> someOperationsDTOs) {
+		this.operationsIndex = anIndex;
+		this.operations = (BitSet) someOperations.clone();
+		this.operationsDTOs = Collections
+				.unmodifiableList(new ArrayList<OperationDTO>(
+						someOperationsDTOs));
+	}
+
+	/**
+	 * Verifica si el usuario puede ejecutar una operacin.
+	 * 
+	 * @param aName
+	 *            es el nombre de la operacin.
+	 * @return true en caso de que el usuario pueda ejecutar la operacin; false
+	 *         en caso contrario.
+	 */
+	public boolean contains(String aName) {
+		int id = this.operationsIndex.getId(aName);
+		return id != -1 && this.operations.get(id);
+	}
+
+	/**
+	 * Crea un nuevo conjunto de permisos igual a este pero que adems incluye
+	 * la operacin recibida.
+	 * 
+	 * @param aName
+	 *            es el nombre de la operacin que se debe incluir.
+	 * @return el nuevo conjunto de permisos, o este mismo conjunto si ya
+	 *         inclua la operacin.
+	 */
+	public UserPermissions with(String aName) {
+		if (this.contains(aName)) {
+			return this;
+		}
+		BitSet newOperations = (BitSet) this.operations.clone();
+		newOperations.set(this.operationsIndex.assignId(aName));
+		return new UserPermissions(this.operationsIndex, newOperations,
+				this.operationsDTOs);
+	}
+
+	/**
+	 * Crea un nuevo conjunto de permisos igual a este pero que no incluye la
+	 * operacin recibida.
+	 * 
+	 * @param aName
+	 *            es el nombre de la operacin que se debe excluir.
+	 * @return el nuevo conjunto de permisos, o este mismo conjunto si no
+	 *         inclua la operacin.
+	 */
+	public UserPermissions without(String aName) {
+		if (!this.contains(aName)) {
+			return this;
+		}
+		BitSet newOperations = (BitSet) this.operations.clone();
+		newOperations.clear(this.operationsIndex.getId(aName));
+		return new UserPermissions(this.operationsIndex, newOperations,
+				this.operationsDTOs);
+	}
+
+	/**
+	 * Crea copias de los dtos de las operaciones que puede ejecutar el
+	 * usuario.
+	 * 
+	 * @return una coleccin con las copias de los dtos.
+	 */
+	public Collection<OperationDTO> createOperationsDTOs() {
+		Collection<OperationDTO> result = new ArrayList<OperationDTO>(
+				this.operationsDTOs.size());
+		for (OperationDTO aDTO : this.operationsDTOs) {
+			result.add(new OperationDTO(aDTO.getOid(), aDTO.getName(), aDTO
+					.getCategoryName(), aDTO.getTargetPageClassName(), aDTO
+					.getMenuSection(), aDTO.isVisibleInMenu()));
+		}
+		return result;
+	}
+
+}
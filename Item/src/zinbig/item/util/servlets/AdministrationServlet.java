@@ -0,0 +1,66 @@
+/**
+ * Este paquete contiene las implementaciones de los servlets de apoyo que se
+ * utilizan para generar informacin de manera asincrnica para la herramienta.
+ */
+package zinbig.item.util.servlets;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import zinbig.item.application.ItemSession;
+
+/**
+ * Esta clase representa el tope de la jerarqua de servlets que brindan
+ * informacin interna de la herramienta. <br>
+ * Estos servlets slo pueden ser utilizados por un usuario administrador que
+ * haya ingresado a la aplicacin.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public abstract class AdministrationServlet extends ItemServlet {
+
+	/**
+	 * UID por defecto para la serializacin.
+	 */
+	private static final long serialVersionUID = -2880313702571916432L;
+
+	/**
+	 * Constructor por defecto.
+	 * 
+	 * @see HttpServlet#HttpServlet()
+	 */
+	public AdministrationServlet() {
+		super();
+	}
+
+	/**
+	 * Verifica que el pedido pertenezca a un usuario administrador. En caso
+	 * contrario se responde con el cdigo de acceso prohibido.
+	 * 
+	 * @param request
+	 *            es el pedido recibido.
+	 * @param response
+	 *            es la respuesta que se est armando.
+	 * @return true en caso de que el pedido pertenezca a un usuario
+	 *         administrador; false en caso contrario.
+	 * @throws IOException
+	 *             esta excepcin se levanta si no se pudo enviar la respuesta.
+	 */
+	protected boolean verifyAdministrator(HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+
+		ItemSession anItemSession = this.findItemSession(request);
+		if (anItemSession != null && anItemSession.getUserDTO() != null
+				&& anItemSession.getUserDTO().isAdminUser()) {
+			return true;
+		}
+
+		response.sendError(HttpServletResponse.SC_FORBIDDEN);
+		return false;
+	}
+
+}
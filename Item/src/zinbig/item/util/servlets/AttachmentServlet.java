@@ -0,0 +1,246 @@
+/**
+ * Este paquete contiene las implementaciones de los servlets de apoyo que se
+ * utilizan para generar informacin de manera asincrnica para la herramienta.
+ */
+package zinbig.item.util.servlets;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import zinbig.item.application.ItemSession;
+import zinbig.item.services.bi.ItemsServiceBI;
+import zinbig.item.util.dto.UserDTO;
+import zinbig.item.util.files.AttachmentStore;
+import zinbig.item.util.spring.ItemApplicationContext;
+
+/**
+ * Este servlet se utiliza para descargar los archivos adjuntos de los tems
+ * almacenados en el almacn de archivos adjuntos.<br>
+ * Recibe el hash del contenido (parmetro hash) y el nombre con el que se debe
+ * descargar el archivo (parmetro name). Solamente se entregan los contenidos
+ * adjuntos a tems de proyectos que el usuario autenticado puede ver; para el
+ * resto de los contenidos se responde que no existen. Como el contenido de cada hash no
+ * cambia nunca, el hash se utiliza como ETag y se permite que el navegador
+ * conserve el archivo. Tambin se aceptan pedidos de un nico rango de bytes
+ * (encabezado Range), lo que permite retomar descargas interrumpidas.<br>
+ * El contenido se copia mediante FileChannel.transferTo sin pasar por la
+ * aplicacin Wicket. Si el contenedor soporta sendfile (Tomcat con los
+ * conectores NIO o APR) la copia se delega directamente al contenedor.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class AttachmentServlet extends ItemServlet {
+
+	/**
+	 * UID por defecto para la serializacin.
+	 */
+	private static final long serialVersionUID = -4983109613470621585L;
+
+	/**
+	 * Constructor por defecto.
+	 * 
+	 * @see HttpServlet#HttpServlet()
+	 */
+	public AttachmentServlet() {
+		super();
+	}
+
+	/**
+	 * @see HttpServlet#doGet(HttpServletRequest request, HttpServletResponse
+	 *      response)
+	 */
+	protected void doGet(HttpServletRequest request,
+			HttpServletResponse response) throws ServletException, IOException {
+
+		ItemSession anItemSession = this.findItemSession(request);
+		UserDTO anUserDTO = (anItemSession == null) ? null : anItemSession
+				.getUserDTO();
+		if (anUserDTO == null) {
+			response.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+
+		AttachmentStore aStore = (AttachmentStore) ItemApplicationContext
+				.getApplicationContext().getBean("attachmentStore");
+		String aHash = request.getParameter("hash");
+		if (!aStore.isValidHash(aHash)) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		if (!this.isAttachmentVisibleToUser(anUserDTO, aHash)) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		File aFile = aStore.getFile(aHash);
+		if (!aFile.isFile()) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		String anETag = "\"" + aHash + "\"";
+		response.setHeader("ETag", anETag);
+		response.setHeader("Accept-Ranges", "bytes");
+		response.setHeader("Cache-Control", "private, max-age=31536000");
+
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null
+				&& (ifNoneMatch.indexOf(anETag) != -1 || ifNoneMatch
+						.trim().equals("*"))) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		String aName = request.getParameter("name");
+		if (aName == null || aName.length() == 0) {
+			aName = aHash;
+		}
+		String aContentType = this.getServletContext().getMimeType(aName);
+		response.setContentType((aContentType == null) ? "application/octet-stream"
+				: aContentType);
+		response.setHeader("Content-Disposition", "attachment; filename=\""
+				+ aName.replace('"', '_').replace('\r', '_').replace('\n', '_')
+				+ "\"");
+
+		long length = aFile.length();
+		long start = 0;
+		long end = length - 1;
+
+		// slo se respeta el rango si el contenido que tiene el navegador es
+		// el mismo (encabezado If-Range).
+		String aRange = request.getHeader("Range");
+		String ifRange = request.getHeader("If-Range");
+		if (aRange != null && (ifRange == null || ifRange.equals(anETag))) {
+			long[] limits = this.parseRange(aRange, length);
+			if (limits == null) {
+				response.setHeader("Content-Range", "bytes */" + length);
+				response
+						.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				return;
+			}
+			if (limits.length == 2) {
+				start = limits[0];
+				end = limits[1];
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader("Content-Range", "bytes " + start + "-"
+						+ end + "/" + length);
+			}
+		}
+
+		long count = end - start + 1;
+		response.setHeader("Content-Length", Long.toString(count));
+
+		if (Boolean.TRUE.equals(request
+				.getAttribute("org.apache.tomcat.sendfile.support"))) {
+			request.setAttribute("org.apache.tomcat.sendfile.filename", aFile
+					.getAbsolutePath());
+			request.setAttribute("org.apache.tomcat.sendfile.start", Long
+					.valueOf(start));
+			request.setAttribute("org.apache.tomcat.sendfile.end", Long
+					.valueOf(end + 1));
+			return;
+		}
+
+		FileInputStream in = new FileInputStream(aFile);
+		try {
+			FileChannel aChannel = in.getChannel();
+			WritableByteChannel out = Channels.newChannel(response
+					.getOutputStream());
+			long position = start;
+			while (count > 0) {
+				long transferred = aChannel.transferTo(position, count, out);
+				if (transferred <= 0) {
+					break;
+				}
+				position += transferred;
+				count -= transferred;
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Verifica si el usuario puede descargar el contenido.
+	 * 
+	 * @param anUserDTO
+	 *            es el dto que representa al usuario autenticado.
+	 * @param aHash
+	 *            es el hash del contenido.
+	 * @return true en caso de que el contenido est adjunto a un tem de un
+	 *         proyecto que el usuario puede ver; false en caso contrario.
+	 * @throws ServletException
+	 *             esta excepcin se levanta si no se pudo realizar la
+	 *             verificacin.
+	 */
+	protected boolean isAttachmentVisibleToUser(UserDTO anUserDTO, String aHash)
+			throws ServletException {
+		ItemsServiceBI aService = (ItemsServiceBI) ItemApplicationContext
+				.getApplicationContext().getBean("itemsService");
+		try {
+			return aService.isAttachmentVisibleToUser(anUserDTO, aHash);
+		} catch (Exception e) {
+			throw new ServletException(e);
+		}
+	}
+
+	/**
+	 * Interpreta el encabezado Range. Slo se aceptan pedidos de un nico
+	 * rango de bytes; para cualquier otro pedido se entrega el archivo
+	 * completo.
+	 * 
+	 * @param aRange
+	 *            es el valor del encabezado.
+	 * @param aLength
+	 *            es el tamao del archivo.
+	 * @return un arreglo con la primer y la ltima posicin del rango, un
+	 *         arreglo vaco si se debe entregar el archivo completo, o null si
+	 *         el rango no se puede satisfacer.
+	 */
+	protected long[] parseRange(String aRange, long aLength) {
+		String aValue = aRange.trim();
+		if (!aValue.startsWith("bytes=") || aValue.indexOf(',') != -1) {
+			return new long[0];
+		}
+		aValue = aValue.substring("bytes=".length()).trim();
+		int dash = aValue.indexOf('-');
+		if (dash == -1) {
+			return new long[0];
+		}
+
+		try {
+			long start;
+			long end;
+			if (dash == 0) {
+				// sufijo: los ltimos n bytes.
+				long suffix = Long.parseLong(aValue.substring(1).trim());
+				if (suffix <= 0) {
+					return null;
+				}
+				start = Math.max(0, aLength - suffix);
+				end = aLength - 1;
+			} else {
+				start = Long.parseLong(aValue.substring(0, dash).trim());
+				String anEnd = aValue.substring(dash + 1).trim();
+				end = (anEnd.length() == 0) ? aLength - 1 : Math.min(Long
+						.parseLong(anEnd), aLength - 1);
+			}
+			if (start >= aLength || start > end) {
+				return null;
+			}
+			return new long[] { start, end };
+		} catch (NumberFormatException e) {
+			return new long[0];
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Este paquete contiene las implementaciones de los servlets de apoyo que se
+ * utilizan para generar informacin de manera asincrnica para la herramienta.
+ */
+package zinbig.item.util.servlets;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+
+import zinbig.item.util.spring.ItemApplicationContext;
+
+/**
+ * Este servlet se utiliza para consultar el estado de la cache de segundo
+ * nivel y de la cache de consultas de Hibernate.<br>
+ * Por cada regin se informa la cantidad de aciertos, de fallos, de elementos
+ * agregados, de elementos desalojados por la poltica de la regin y de
+ * elementos en memoria, separados por tabulaciones. La ltima lnea contiene
+ * los totales de la cache de consultas. Slo puede ser utilizado por un
+ * usuario administrador.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class CacheStatisticsServlet extends AdministrationServlet {
+
+	/**
+	 * UID por defecto para la serializacin.
+	 */
+	private static final long serialVersionUID = -6530998124520316671L;
+
+	/**
+	 * Constructor por defecto.
+	 * 
+	 * @see HttpServlet#HttpServlet()
+	 */
+	public CacheStatisticsServlet() {
+		super();
+	}
+
+	/**
+	 * @see HttpServlet#doGet(HttpServletRequest request, HttpServletResponse
+	 *      response)
+	 */
+	protected void doGet(HttpServletRequest request,
+			HttpServletResponse response) throws ServletException, IOException {
+
+		if (!this.verifyAdministrator(request, response)) {
+			return;
+		}
+
+		SessionFactory aSessionFactory = (SessionFactory) ItemApplicationContext
+				.getApplicationContext().getBean("sessionFactory");
+		Statistics statistics = aSessionFactory.getStatistics();
+
+		response.setContentType("text/plain");
+		response.setHeader("Cache-Control", "no-cache");
+		PrintWriter writer = response.getWriter();
+		writer.println("region\thits\tmisses\tputs\tevictions\telements");
+
+		String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+		Arrays.sort(regionNames);
+		CacheManager aCacheManager = CacheManager.getInstance();
+		for (String aRegionName : regionNames) {
+			SecondLevelCacheStatistics regionStatistics = statistics
+					.getSecondLevelCacheStatistics(aRegionName);
+			if (regionStatistics == null) {
+				continue;
+			}
+
+			// la cantidad de elementos desalojados slo la conoce ehcache.
+			Cache aCache = aCacheManager.getCache(aRegionName);
+			long evictions = (aCache == null) ? 0 : aCache.getStatistics()
+					.getEvictionCount();
+
+			writer.println(aRegionName + "\t" + regionStatistics.getHitCount()
+					+ "\t" + regionStatistics.getMissCount() + "\t"
+					+ regionStatistics.getPutCount() + "\t" + evictions + "\t"
+					+ regionStatistics.getElementCountInMemory());
+		}
+
+		writer.println("[queries]\t" + statistics.getQueryCacheHitCount()
+				+ "\t" + statistics.getQueryCacheMissCount() + "\t"
+				+ statistics.getQueryCachePutCount() + "\t-\t-");
+		writer.flush();
+		writer.close();
+	}
+
+}
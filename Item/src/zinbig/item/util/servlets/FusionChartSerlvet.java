@@ -7,29 +7,30 @@ package zinbig.item.util.servlets;
 import java.awt.Color;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
-import java.util.TreeMap;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.hibernate.Query;
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.springframework.context.ApplicationContext;
-
+import zinbig.item.util.ProjectChartsRollup;
 import zinbig.item.util.i18n.ItemStringResourceLoader;
 import zinbig.item.util.spring.ItemApplicationContext;
 
 /**
- * Servlet implementation class FusionChartSerlvet
+ * Servlet implementation class FusionChartSerlvet.<br>
+ * Los grficos se construyen a partir de las cantidades que mantiene el objeto
+ * ProjectChartsRollup, sin consultar la base de datos. El XML generado se
+ * reutiliza mientras no cambien los datos del proyecto y se enva con los
+ * encabezados ETag y Last-Modified para que los clientes que consultan
+ * peridicamente el servlet reciban una respuesta 304 si no hubo cambios. Como
+ * los grficos contienen textos internacionalizados, la recarga de los
+ * mensajes tambin se considera un cambio.
  */
 public class FusionChartSerlvet extends HttpServlet {
 
@@ -45,6 +46,27 @@ public class FusionChartSerlvet extends HttpServlet {
 		super();
 	}
 
+	/**
+	 * Obtiene el momento de la ltima modificacin de los datos del proyecto
+	 * solicitado. El contenedor lo utiliza para responder a los pedidos con el
+	 * encabezado If-Modified-Since sin ejecutar el mtodo doGet.
+	 * 
+	 * @see HttpServlet#getLastModified(HttpServletRequest)
+	 */
+	protected long getLastModified(HttpServletRequest request) {
+		String projectOid = request.getParameter("projectOid");
+		if (projectOid == null || projectOid.length() < 2) {
+			return -1;
+		}
+		long result = this.getRollup().getLastModified(
+				projectOid.substring(1));
+		if (result != -1) {
+			result = Math.max(result, this.getResourceLoader()
+					.getMessagesLastModified());
+		}
+		return result;
+	}
+
 	/**
 	 * @see HttpServlet#doGet(HttpServletRequest request, HttpServletResponse
 	 *      response)
@@ -52,8 +74,6 @@ public class FusionChartSerlvet extends HttpServlet {
 	protected void doGet(HttpServletRequest request,
 			HttpServletResponse response) throws ServletException, IOException {
 
-		PrintWriter writer = response.getWriter();
-
 		try {
 			// recupero el oid del proyecto y el tipo de grfico que se est
 			// solicitando.
@@ -64,47 +84,65 @@ public class FusionChartSerlvet extends HttpServlet {
 			projectOid = projectOid.substring(1);
 			String result = "";
 
-			// recupera todos los objetos requeridos para interactuar con la
-			// base de datos.
-			ApplicationContext aContext = ItemApplicationContext
-					.getApplicationContext();
-			SessionFactory aSessionFactory = (SessionFactory) aContext
-					.getBean("sessionFactory");
-			Session aSession = aSessionFactory.openSession();
+			ItemStringResourceLoader resourceLoader = this
+					.getResourceLoader();
+			ProjectChartsRollup aRollup = this.getRollup();
+			ProjectChartsRollup.Snapshot aSnapshot = aRollup
+					.getSnapshot(projectOid);
 
 			Locale aLocale = new Locale(request.getLocale().getLanguage());
+			int currentMonth = ProjectChartsRollup.yearAndMonth(new Date());
+
+			// el grfico de los tems del mes depende adems del mes actual y
+			// todos los grficos dependen de la versin de los mensajes.
+			String key = requestedGraph + aLocale.getLanguage() + "-"
+					+ currentMonth + "-" + resourceLoader.getMessagesVersion();
+			String eTag = "\"" + Long.toHexString(aRollup.getEpoch()) + "-"
+					+ aSnapshot.getVersion() + "-" + key + "\"";
+
+			response.setHeader("ETag", eTag);
+			response.setDateHeader("Last-Modified", Math.max(aSnapshot
+					.getLastModified(), resourceLoader
+					.getMessagesLastModified()));
+			if (eTag.equals(request.getHeader("If-None-Match"))) {
+				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
 
-			ItemStringResourceLoader resourceLoader = (ItemStringResourceLoader) aContext
-					.getBean("itemStringResourceLoader");
-
-			switch (requestedGraph) {
-			case 'A':
-				result = this.createGraphForTodayItems(projectOid,
-						resourceLoader, aLocale, aSession);
-				break;
-
-			case 'B':
-				result = this.createGraphByPriority(projectOid, resourceLoader,
-						aLocale, aSession);
-				break;
-
-			case 'C':
-				result = this.createGraphByNodes(projectOid, resourceLoader,
-						aLocale, aSession);
-				break;
-
-			case 'D':
-				result = this.createGraphForProgression(projectOid,
-						resourceLoader, aLocale, aSession);
-				break;
-			default:
-				break;
+			result = aRollup.getChart(projectOid, aSnapshot.getVersion(), key);
+			if (result == null) {
+				switch (requestedGraph) {
+				case 'A':
+					result = this.createGraphForTodayItems(aSnapshot,
+							currentMonth, resourceLoader, aLocale);
+					break;
+
+				case 'B':
+					result = this.createGraphByPriority(aSnapshot,
+							resourceLoader, aLocale);
+					break;
+
+				case 'C':
+					result = this.createGraphByNodes(aSnapshot,
+							resourceLoader, aLocale);
+					break;
+
+				case 'D':
+					result = this.createGraphForProgression(aSnapshot,
+							resourceLoader, aLocale);
+					break;
+				default:
+					result = "";
+					break;
+				}
+				aRollup.putChart(projectOid, aSnapshot.getVersion(), key,
+						result);
 			}
 
+			PrintWriter writer = response.getWriter();
 			writer.write(result);
 			writer.flush();
 			writer.close();
-			aSession.close();
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -112,24 +150,61 @@ public class FusionChartSerlvet extends HttpServlet {
 	}
 
 	/**
-	 * Crea un grfico para mostrar los tems creados en el da de hoy.
+	 * Getter.
+	 * 
+	 * @return el objeto que mantiene las cantidades de tems de los proyectos.
+	 */
+	private ProjectChartsRollup getRollup() {
+		return (ProjectChartsRollup) ItemApplicationContext
+				.getApplicationContext().getBean("projectChartsRollup");
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return el objeto que permite recuperar los mensajes
+	 *         internacionalizados.
+	 */
+	private ItemStringResourceLoader getResourceLoader() {
+		return (ItemStringResourceLoader) ItemApplicationContext
+				.getApplicationContext().getBean("itemStringResourceLoader");
+	}
+
+	/**
+	 * Agrega al XML un elemento set por cada grupo.
 	 * 
-	 * @param aProjectOid
-	 *            es el oid del proyecto para consultar los datos.
+	 * @param buffer
+	 *            es el XML del grfico.
+	 * @param someCounts
+	 *            contiene la cantidad de tems de cada grupo.
+	 */
+	private void appendSets(StringBuffer buffer, Map<String, Integer> someCounts) {
+		for (Map.Entry<String, Integer> entry : someCounts.entrySet()) {
+
+			buffer.append("<set name=\"" + entry.getKey() + "\" value=\""
+					+ entry.getValue() + "\" color=\""
+					+ Integer.toHexString(this.getColor().getRGB()) + "\"/>");
+
+		}
+	}
+
+	/**
+	 * Crea un grfico para mostrar los tems creados en el mes actual.
+	 * 
+	 * @param aSnapshot
+	 *            son los datos del proyecto.
+	 * @param aYearAndMonth
+	 *            es el ao y mes actual.
 	 * @param aLoader
 	 *            es el objeto que permite internacionalizar los mensajes.
 	 * @param aLocale
 	 *            es el objeto utilizado para identificar el idioma del usuario.
-	 * @param aSession
-	 *            es la sesin de hibernate que se utiliza para acceder a la
-	 *            base de datos.
 	 * @return un string que representa el XML que requiere el componente Flash
 	 *         para mostrar el grfico.
 	 */
-	@SuppressWarnings("unchecked")
-	private String createGraphForTodayItems(String aProjectOid,
-			ItemStringResourceLoader aLoader, Locale aLocale, Session aSession)
-			throws Exception {
+	private String createGraphForTodayItems(
+			ProjectChartsRollup.Snapshot aSnapshot, int aYearAndMonth,
+			ItemStringResourceLoader aLoader, Locale aLocale) throws Exception {
 
 		StringBuffer buffer = new StringBuffer("");
 		String caption = aLoader.loadStringResource(null, "todayItemsCaption",
@@ -142,23 +217,7 @@ public class FusionChartSerlvet extends HttpServlet {
 				+ "\" yAxisName=\"" + yAxis
 				+ "\" decimalPrecision=\"0\" formatNumberScale=\"0\">");
 
-		Query aQuery = aSession
-				.createQuery("select count(item),item.itemType.title from "
-						+ "zinbig.item.model.projects.Project p join p.items item "
-						+ "where p.id=:aProjectOid and "
-						+ "year(item.creationDate)=year(current_date) and "
-						+ "month(item.creationDate)=month(current_date) "
-						+ "group by item.itemType.title");
-
-		aQuery.setParameter("aProjectOid", aProjectOid);
-		ArrayList<Object> result = (ArrayList<Object>) aQuery.list();
-		for (Object o : result) {
-
-			buffer.append("<set name=\"" + ((Object[]) o)[1] + "\" value=\""
-					+ ((Object[]) o)[0] + "\" color=\""
-					+ Integer.toHexString(this.getColor().getRGB()) + "\"/>");
-
-		}
+		this.appendSets(buffer, aSnapshot.getItemsByType(aYearAndMonth));
 
 		buffer.append("</graph>");
 
@@ -169,22 +228,18 @@ public class FusionChartSerlvet extends HttpServlet {
 	 * Crea un grfico para mostrar los tems en un grfico de torta por
 	 * prioridad.
 	 * 
-	 * @param aProjectOid
-	 *            es el oid del proyecto para consultar los datos.
+	 * @param aSnapshot
+	 *            son los datos del proyecto.
 	 * @param aLoader
 	 *            es el objeto que permite internacionalizar los mensajes.
 	 * @param aLocale
 	 *            es el objeto utilizado para identificar el idioma del usuario.
-	 * @param aSession
-	 *            es la sesin de trabajo de hibernate utilizada para acceder a
-	 *            la base.
 	 * @return un string que representa el XML que requiere el componente Flash
 	 *         para mostrar el grfico.
 	 */
-	@SuppressWarnings("unchecked")
-	private String createGraphByPriority(String aProjectOid,
-			ItemStringResourceLoader aLoader, Locale aLocale, Session aSession)
-			throws Exception {
+	private String createGraphByPriority(
+			ProjectChartsRollup.Snapshot aSnapshot,
+			ItemStringResourceLoader aLoader, Locale aLocale) throws Exception {
 		StringBuffer buffer = new StringBuffer("");
 
 		String caption = aLoader.loadStringResource(null,
@@ -193,19 +248,7 @@ public class FusionChartSerlvet extends HttpServlet {
 		buffer.append("<graph caption=\"" + caption
 				+ "\" showNames=\"1\" decimalPrecision=\"0\">");
 
-		Query aQuery = aSession
-				.createQuery("select count(item),item.priority.title from zinbig.item.model.projects.Project p join p.items item "
-						+ "where p.id=:aProjectOid group by item.priority.title");
-
-		aQuery.setParameter("aProjectOid", aProjectOid);
-		ArrayList<Object> result = (ArrayList<Object>) aQuery.list();
-		for (Object o : result) {
-
-			buffer.append("<set name=\"" + ((Object[]) o)[1] + "\" value=\""
-					+ ((Object[]) o)[0] + "\" color=\""
-					+ Integer.toHexString(this.getColor().getRGB()) + "\"/>");
-
-		}
+		this.appendSets(buffer, aSnapshot.getItemsByPriority());
 
 		buffer.append("</graph>");
 
@@ -215,22 +258,17 @@ public class FusionChartSerlvet extends HttpServlet {
 	/**
 	 * Crea un grfico para mostrar los tems por su estado del workflow.
 	 * 
-	 * @param aProjectOid
-	 *            es el oid del proyecto para consultar los datos.
+	 * @param aSnapshot
+	 *            son los datos del proyecto.
 	 * @param aLoader
 	 *            es el objeto que permite internacionalizar los mensajes.
 	 * @param aLocale
 	 *            es el objeto utilizado para identificar el idioma del usuario.
-	 * @param aSession
-	 *            es la sesin de trabajo de hibernate utilizada para acceder a
-	 *            la base.
 	 * @return un string que representa el XML que requiere el componente Flash
 	 *         para mostrar el grfico.
 	 */
-	@SuppressWarnings("unchecked")
-	private String createGraphByNodes(String aProjectOid,
-			ItemStringResourceLoader aLoader, Locale aLocale, Session aSession)
-			throws Exception {
+	private String createGraphByNodes(ProjectChartsRollup.Snapshot aSnapshot,
+			ItemStringResourceLoader aLoader, Locale aLocale) throws Exception {
 
 		StringBuffer buffer = new StringBuffer("");
 		String caption = aLoader.loadStringResource(null, "itemsByNodeCaption",
@@ -243,20 +281,7 @@ public class FusionChartSerlvet extends HttpServlet {
 				+ "\" yAxisName=\"" + yAxis
 				+ "\" decimalPrecision=\"0\" formatNumberScale=\"0\">");
 
-		Query aQuery = aSession
-				.createQuery("select count(item),item.currentWorkflowNode.title from zinbig.item.model.projects.Project p join p.items item  "
-						+ "where p.id=:aProjectOid group by item.currentWorkflowNode.title");
-
-		aQuery.setParameter("aProjectOid", aProjectOid);
-		ArrayList<Object> result = (ArrayList<Object>) aQuery.list();
-
-		for (Object o : result) {
-
-			buffer.append("<set name=\"" + ((Object[]) o)[1] + "\" value=\""
-					+ ((Object[]) o)[0] + "\" color=\""
-					+ Integer.toHexString(this.getColor().getRGB()) + "\"/>");
-
-		}
+		this.appendSets(buffer, aSnapshot.getItemsByNode());
 
 		buffer.append("</graph>");
 
@@ -267,22 +292,18 @@ public class FusionChartSerlvet extends HttpServlet {
 	 * Crea un grfico para mostrar los tems creados y cerrados por mes y ao.
 	 * El grfico muestra la informacin acumulada.
 	 * 
-	 * @param aProjectOid
-	 *            es el oid del proyecto para consultar los datos.
+	 * @param aSnapshot
+	 *            son los datos del proyecto.
 	 * @param aLoader
 	 *            es el objeto que permite internacionalizar los mensajes.
 	 * @param aLocale
 	 *            es el objeto utilizado para identificar el idioma del usuario.
-	 * @param aSession
-	 *            es la sesin de trabajo de hibernate utilizada para acceder a
-	 *            la base.
 	 * @return un string que representa el XML que requiere el componente Flash
 	 *         para mostrar el grfico.
 	 */
-	@SuppressWarnings("unchecked")
-	private String createGraphForProgression(String aProjectOid,
-			ItemStringResourceLoader aLoader, Locale aLocale, Session aSession)
-			throws Exception {
+	private String createGraphForProgression(
+			ProjectChartsRollup.Snapshot aSnapshot,
+			ItemStringResourceLoader aLoader, Locale aLocale) throws Exception {
 
 		StringBuffer buffer = new StringBuffer("");
 		String caption = aLoader.loadStringResource(null,
@@ -306,63 +327,21 @@ public class FusionChartSerlvet extends HttpServlet {
 						+ secondAreaCaption
 						+ "\" color=\"99cc99\" showValues=\"0\" areaAlpha=\"50\" showAreaBorder=\"1\" areaBorderThickness=\"2\" areaBorderColor=\"006600\">");
 
-		Query aQuery = aSession
-				.createQuery("select count(item), year(item.creationDate), month(item.creationDate), item.finished from zinbig.item.model.projects.Project p join p.items item  "
-						+ "where p.id=:aProjectOid group by year(item.creationDate),month(item.creationDate),item.finished");
-		aQuery.setParameter("aProjectOid", aProjectOid);
-		ArrayList<Object> result = (ArrayList<Object>) aQuery.list();
-
-		// crea un comparador para ordenar correctamente los resultados
-		// considerando sus fechas.
-		Comparator<String> comparator = new Comparator<String>() {
-			@Override
-			public int compare(String o1, String o2) {
-				String y1 = o1.substring(0, 4);
-				String y2 = o2.substring(0, 4);
-				String m1 = o1.substring(4);
-				String m2 = o2.substring(4);
-
-				int result = new Integer(y1).compareTo(new Integer(y2));
-				if (result == 0) {
-					result = new Integer(m1).compareTo(new Integer(m2));
-				}
-
-				return result;
-			}
-		};
-
-		Map<String, Integer> created = new TreeMap<String, Integer>(comparator);
-		Map<String, Integer> finished = new TreeMap<String, Integer>(comparator);
-
-		String yearAndMonth = "";
-		for (Object o : result) {
-			yearAndMonth = ((Object[]) o)[1].toString()
-					+ ((Object[]) o)[2].toString();
-			if (!created.containsKey(yearAndMonth)) {
-				created.put(yearAndMonth, new Integer(0));
-			}
-			created.put(yearAndMonth, created.get(yearAndMonth).intValue()
-					+ new Integer(((Object[]) o)[0].toString()).intValue());
-			if (!finished.containsKey(yearAndMonth)) {
-				finished.put(yearAndMonth, new Integer(0));
-			}
-			if (new Boolean(((Object[]) o)[3].toString()).booleanValue()) {
-				finished.put(yearAndMonth, finished.get(yearAndMonth)
-						.intValue()
-						+ new Integer(((Object[]) o)[0].toString()).intValue());
-			}
-		}
+		// los meses ya estn ordenados, por lo que solamente se deben
+		// acumular las cantidades.
 		int finishedAcum = 0;
 		int createdAcum = 0;
-		Iterator<Map.Entry<String, Integer>> iterator = created.entrySet()
-				.iterator();
-		Map.Entry<String, Integer> entry = null;
+		Iterator<Map.Entry<Integer, Integer>> iterator = aSnapshot
+				.getCreatedItemsByMonth().entrySet().iterator();
+		Map.Entry<Integer, Integer> entry = null;
 		while (iterator.hasNext()) {
 			entry = iterator.next();
-			categories.append("<category name=\"" + entry.getKey() + "\" />");
+			int yearAndMonth = entry.getKey().intValue();
+			categories.append("<category name=\"" + (yearAndMonth / 100)
+					+ (yearAndMonth % 100) + "\" />");
 			createdAcum = createdAcum + entry.getValue().intValue();
 			finishedAcum = finishedAcum
-					+ finished.get(entry.getKey()).intValue();
+					+ aSnapshot.getFinishedItems(yearAndMonth);
 			firstArea.append("<set value=\"" + createdAcum + "\"/>");
 			secondArea.append("<set value=\"" + finishedAcum + "\"/>");
 
@@ -0,0 +1,62 @@
+/**
+ * Este paquete contiene las implementaciones de los servlets de apoyo que se
+ * utilizan para generar informacin de manera asincrnica para la herramienta.
+ */
+package zinbig.item.util.servlets;
+
+import java.util.Enumeration;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import zinbig.item.application.ItemSession;
+
+/**
+ * Esta clase representa el tope de la jerarqua de servlets que requieren
+ * acceder a la sesin de la aplicacin Wicket del usuario. <br>
+ * La sesin de Wicket se busca entre los atributos de la sesin http.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public abstract class ItemServlet extends HttpServlet {
+
+	/**
+	 * UID por defecto para la serializacin.
+	 */
+	private static final long serialVersionUID = 7745296604811207538L;
+
+	/**
+	 * Constructor por defecto.
+	 * 
+	 * @see HttpServlet#HttpServlet()
+	 */
+	public ItemServlet() {
+		super();
+	}
+
+	/**
+	 * Busca la sesin de la aplicacin a la que pertenece el pedido.
+	 * 
+	 * @param request
+	 *            es el pedido recibido.
+	 * @return la sesin de la aplicacin, o null si el pedido no pertenece a
+	 *         ninguna sesin.
+	 */
+	@SuppressWarnings("unchecked")
+	protected ItemSession findItemSession(HttpServletRequest request) {
+		HttpSession aSession = request.getSession(false);
+		if (aSession != null) {
+			Enumeration<String> names = aSession.getAttributeNames();
+			while (names.hasMoreElements()) {
+				Object attribute = aSession.getAttribute(names.nextElement());
+				if (attribute instanceof ItemSession) {
+					return (ItemSession) attribute;
+				}
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,69 @@
+/**
+ * Este paquete contiene las implementaciones de los servlets de apoyo que se
+ * utilizan para generar informacin de manera asincrnica para la herramienta.
+ */
+package zinbig.item.util.servlets;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import zinbig.item.util.persistence.QueryMonitor;
+import zinbig.item.util.spring.ItemApplicationContext;
+
+/**
+ * Este servlet se utiliza para consultar las mediciones de las consultas
+ * nombradas y de las esperas para obtener conexiones registradas por el
+ * monitor de consultas.<br>
+ * Si se recibe el parmetro reset se descartan las mediciones luego de
+ * informarlas.
+ * 
+ * @author Javier Bazzocco javier.bazzocco@zinbig.com
+ * 
+ */
+public class QueryStatisticsServlet extends AdministrationServlet {
+
+	/**
+	 * UID por defecto para la serializacin.
+	 */
+	private static final long serialVersionUID = 4417270519822563904L;
+
+	/**
+	 * Constructor por defecto.
+	 * 
+	 * @see HttpServlet#HttpServlet()
+	 */
+	public QueryStatisticsServlet() {
+		super();
+	}
+
+	/**
+	 * @see HttpServlet#doGet(HttpServletRequest request, HttpServletResponse
+	 *      response)
+	 */
+	protected void doGet(HttpServletRequest request,
+			HttpServletResponse response) throws ServletException, IOException {
+
+		if (!this.verifyAdministrator(request, response)) {
+			return;
+		}
+
+		QueryMonitor aMonitor = (QueryMonitor) ItemApplicationContext
+				.getApplicationContext().getBean("queryMonitor");
+
+		response.setContentType("text/plain");
+		response.setHeader("Cache-Control", "no-cache");
+		PrintWriter writer = response.getWriter();
+		writer.print(aMonitor.createReport());
+		if (request.getParameter("reset") != null) {
+			aMonitor.reset();
+		}
+		writer.flush();
+		writer.close();
+	}
+
+}
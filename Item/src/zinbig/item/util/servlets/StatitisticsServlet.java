@@ -18,12 +18,15 @@ import org.quartz.SchedulerFactory;
 
 import zinbig.item.util.Constants;
 import zinbig.item.util.StatisticsGeneratorJob;
+import zinbig.item.util.i18n.I18NMessagesReloadJob;
 
 /**
  * Este servlet se utiliza para iniciar una tarea peridica de Quartz que genera
  * estadsticas de uso de la herramienta de manera asincrnica as la pgina de
  * inicio solamente tiene que consultar la informacin ya generada en vez de
- * tener que hacer todas las consultas.
+ * tener que hacer todas las consultas.<br>
+ * Tambin inicia la tarea que recarga peridicamente los mensajes
+ * internacionalizados.
  * 
  * @author Javier Bazzocco javier.bazzocco@zinbig.com
  * 
@@ -62,9 +65,19 @@ public class StatitisticsServlet extends HttpServlet {
 
 			CronTrigger trigger = new CronTrigger("statsCron",
 					Scheduler.DEFAULT_GROUP, "statistics",
-					Scheduler.DEFAULT_GROUP, "0 45 13 * * ?");
+					Scheduler.DEFAULT_GROUP, "0 0 * * * ?");
 
 			sched.scheduleJob(aJobDetail, trigger);
+
+			// recarga de los mensajes internacionalizados.
+			JobDetail aReloadJobDetail = new JobDetail("i18nMessages",
+					Scheduler.DEFAULT_GROUP, I18NMessagesReloadJob.class);
+
+			CronTrigger aReloadTrigger = new CronTrigger("i18nMessagesCron",
+					Scheduler.DEFAULT_GROUP, "i18nMessages",
+					Scheduler.DEFAULT_GROUP, "0 * * * * ?");
+
+			sched.scheduleJob(aReloadJobDetail, aReloadTrigger);
 			this.getServletContext().setAttribute(Constants.SCHEDULER, sched);
 		} catch (SchedulerException e) {
 			e.printStackTrace();